@@ -0,0 +1,46 @@
+package com.example.api.events;
+
+import com.example.api.objects.Transaction;
+
+import lombok.Getter;
+
+/**
+ * One event read from the {@link EventBus}, as passed to an
+ * {@link EventHandler}. Each subscription reuses a single instance, so a
+ * handler must copy whatever it wants to keep before returning.
+ */
+@Getter
+public final class Event {
+
+    public enum EventTypes {
+        TRANSACTION_CREATED,
+        ACCOUNT_CREATED,
+        ACCOUNT_UPDATED,
+        ACCOUNT_DELETED,
+        USER_CREATED,
+        USER_DELETED
+    }
+
+    /** {@link #getBalanceAfter()} of a posting to a hot account, whose balance is only known once settled. */
+    public static final long NO_BALANCE = Long.MIN_VALUE;
+
+    /** Position on the bus, 0 for the first event ever published. */
+    long sequence;
+    EventTypes type;
+    String userId;
+    /** {@code null} for user events. */
+    String accountNumber;
+    /** The posting, for {@link EventTypes#TRANSACTION_CREATED} only. */
+    Transaction transaction;
+    /**
+     * Balance in minor units once the posting was applied, the account's
+     * balance for account events, or {@link #NO_BALANCE}.
+     */
+    long balanceAfter;
+
+    @Override
+    public String toString() {
+        return "Event[" + sequence + " " + type + " user=" + userId + " account=" + accountNumber
+            + (transaction == null ? "" : " transaction=" + transaction.getId()) + "]";
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.api.events;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.api.events.Event.EventTypes;
+import com.example.api.objects.Account;
+import com.example.api.objects.Transaction;
+
+/**
+ * Broadcasts transaction, account and user events from the threads that
+ * make the changes to any number of in-process subscribers, through one
+ * bounded ring buffer.
+ *
+ * <p>The buffer is an array of preallocated slots. A publisher claims the
+ * next sequence number with one atomic increment, copies the event's fields
+ * into that slot and stamps it as published. Publishing never locks, waits
+ * for subscribers or allocates, so it is cheap enough to do while an account
+ * lock is held, which keeps each account's events in the order its changes
+ * were applied. Every {@link Subscription} tracks its own position and reads
+ * published slots without writing to them.</p>
+ *
+ * <p>The price of never waiting is that a subscriber that falls a whole
+ * buffer behind loses the events that were overwritten. It notices, skips
+ * ahead and reports them through {@link EventHandler#onLost}; size the buffer
+ * for the longest pause a subscriber may take. Anything that must see every
+ * posting should read the journal instead.</p>
+ */
+public final class EventBus {
+
+    private static final VarHandle STAMP;
+
+    static {
+        try {
+            STAMP = MethodHandles.lookup().findVarHandle(Slot.class, "stamp", long.class);
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private static volatile EventBus active;
+
+    private static final class Slot {
+        // 2s + 1 while event s is being written, 2s + 2 once it is published; only ever grows
+        volatile long stamp;
+        EventTypes type;
+        String userId;
+        String accountNumber;
+        Transaction transaction;
+        long balanceAfter;
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param capacity events a subscriber may fall behind by, rounded up to a power of two
+     */
+    public EventBus(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = size - 1;
+    }
+
+    /** Route the static publishing methods to this bus. */
+    public static void attach(EventBus bus) {
+        active = bus;
+    }
+
+    public static void detach() {
+        active = null;
+    }
+
+    /** The attached bus, if any. */
+    public static EventBus active() {
+        return active;
+    }
+
+    /**
+     * Publish a posting. Called while the account lock (or a hot account's
+     * shard lock) is held, straight after the posting is journaled.
+     *
+     * @param balanceAfter the balance once the posting is applied, or {@link Event#NO_BALANCE}
+     */
+    public static void transactionCreated(Account account, Transaction transaction, long balanceAfter) {
+        EventBus bus = active;
+        if (bus != null) {
+            bus.publish(EventTypes.TRANSACTION_CREATED, account.getUserId(), account.getAccountNumber(), transaction, balanceAfter);
+        }
+    }
+
+    public static void accountCreated(Account account) {
+        publish(EventTypes.ACCOUNT_CREATED, account);
+    }
+
+    public static void accountUpdated(Account account) {
+        publish(EventTypes.ACCOUNT_UPDATED, account);
+    }
+
+    public static void accountDeleted(Account account) {
+        publish(EventTypes.ACCOUNT_DELETED, account);
+    }
+
+    public static void userCreated(String userId) {
+        publish(EventTypes.USER_CREATED, userId);
+    }
+
+    public static void userDeleted(String userId) {
+        publish(EventTypes.USER_DELETED, userId);
+    }
+
+    private static void publish(EventTypes type, Account account) {
+        EventBus bus = active;
+        if (bus != null) {
+            bus.publish(type, account.getUserId(), account.getAccountNumber(), null, account.getBalance());
+        }
+    }
+
+    private static void publish(EventTypes type, String userId) {
+        EventBus bus = active;
+        if (bus != null) {
+            bus.publish(type, userId, null, null, Event.NO_BALANCE);
+        }
+    }
+
+    /**
+     * Publish an event to every subscription.
+     *
+     * @return the event's sequence number, or -1 if this publisher stalled
+     *         for so long that a later one took the slot first
+     */
+    public long publish(EventTypes type, String userId, String accountNumber, Transaction transaction, long balanceAfter) {
+        long sequence = cursor.getAndIncrement();
+        Slot slot = slots[(int) (sequence & mask)];
+        long writing = 2 * sequence + 1;
+        long stamp;
+        do {
+            stamp = slot.stamp;
+            if (stamp >= writing) {
+                return -1;
+            }
+        } while (!STAMP.compareAndSet(slot, stamp, writing));
+        // Readers must not see the new fields until they can see the slot is being rewritten
+        VarHandle.storeStoreFence();
+        slot.type = type;
+        slot.userId = userId;
+        slot.accountNumber = accountNumber;
+        slot.transaction = transaction;
+        slot.balanceAfter = balanceAfter;
+        return STAMP.compareAndSet(slot, writing, writing + 1) ? sequence : -1;
+    }
+
+    /** Sequence number the next event will get, which is also how many have been published. */
+    public long published() {
+        return cursor.get();
+    }
+
+    /**
+     * Start reading from the next event published. Poll the subscription
+     * from one thread at a time.
+     *
+     * @param name identifies the subscriber in metrics
+     */
+    public Subscription subscribe(String name) {
+        Subscription subscription = new Subscription(name, cursor.get());
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public void unsubscribe(Subscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    public List<Subscription> subscriptions() {
+        return List.copyOf(subscriptions);
+    }
+
+    /** One subscriber's position on the bus. */
+    public final class Subscription {
+
+        private final String name;
+        private final Event event = new Event();
+        private volatile long next;
+        private volatile long lost;
+
+        private Subscription(String name, long next) {
+            this.name = name;
+            this.next = next;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        /** Events published but not read yet. */
+        public long lag() {
+            return Math.max(0, cursor.get() - next);
+        }
+
+        /** Events overwritten before this subscription read them. */
+        public long lost() {
+            return lost;
+        }
+
+        /**
+         * Pass up to {@code limit} published events to the handler in order.
+         *
+         * @return the number of events handled, or skipped as lost
+         */
+        public int poll(EventHandler handler, int limit) {
+            int polled = 0;
+            long position = next;
+            while (polled < limit) {
+                Slot slot = slots[(int) (position & mask)];
+                long published = 2 * position + 2;
+                long stamp = slot.stamp;
+                if (stamp == published) {
+                    event.type = slot.type;
+                    event.userId = slot.userId;
+                    event.accountNumber = slot.accountNumber;
+                    event.transaction = slot.transaction;
+                    event.balanceAfter = slot.balanceAfter;
+                    // The copy only counts if the slot was not rewritten meanwhile
+                    VarHandle.loadLoadFence();
+                    if (slot.stamp == published) {
+                        event.sequence = position;
+                        next = ++position;
+                        polled++;
+                        handler.onEvent(event);
+                        continue;
+                    }
+                } else if (stamp < published && cursor.get() - position <= slots.length) {
+                    // Not published yet, and not lapped by a stalled publisher either
+                    break;
+                }
+                // Overwritten: skip to the oldest event that can still be read
+                long resume = Math.max(position + 1, cursor.get() - slots.length);
+                long skipped = resume - position;
+                lost += skipped;
+                next = position = resume;
+                polled++;
+                handler.onLost(skipped);
+            }
+            return polled;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.api.events;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Attaches an {@link EventBus} sized by {@code ledger.events.buffer-size}
+ * and gives every {@link EventHandler} bean a subscription and a thread of
+ * its own, named after the bean, that polls every
+ * {@code ledger.events.poll-interval} when idle. With no handlers nothing is
+ * attached, so publishing costs one null check.
+ */
+@Configuration
+public class EventBusConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(EventBusConfiguration.class);
+    private static final int BATCH = 1024;
+
+    private final EventBus bus;
+    private final long pollNanos;
+    private final List<Thread> consumers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    public EventBusConfiguration(
+            Map<String, EventHandler> handlers,
+            @Value("${ledger.events.buffer-size:65536}") int bufferSize,
+            @Value("${ledger.events.poll-interval:1ms}") Duration pollInterval) {
+        this.pollNanos = pollInterval.toNanos();
+        if (handlers.isEmpty()) {
+            this.bus = null;
+            return;
+        }
+        this.bus = new EventBus(bufferSize);
+        handlers.forEach((name, handler) -> {
+            EventBus.Subscription subscription = bus.subscribe(name);
+            consumers.add(Thread.ofPlatform().name("events-" + name).daemon()
+                .start(() -> consume(subscription, handler)));
+        });
+        EventBus.attach(bus);
+    }
+
+    private void consume(EventBus.Subscription subscription, EventHandler handler) {
+        while (running) {
+            if (poll(subscription, handler) == 0) {
+                LockSupport.parkNanos(pollNanos);
+            }
+        }
+        // Deliver whatever was published before shutdown
+        while (poll(subscription, handler) > 0) {
+        }
+    }
+
+    private int poll(EventBus.Subscription subscription, EventHandler handler) {
+        try {
+            return subscription.poll(handler, BATCH);
+        } catch (RuntimeException ex) {
+            // The failed event has already been consumed; carry on with the next
+            log.error("Event handler {} failed", subscription.name(), ex);
+            return 1;
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (bus == null) {
+            return;
+        }
+        EventBus.detach();
+        running = false;
+        for (Thread consumer : consumers) {
+            LockSupport.unpark(consumer);
+            consumer.join();
+        }
+    }
+}
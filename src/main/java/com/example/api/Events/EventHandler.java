@@ -0,0 +1,18 @@
+package com.example.api.events;
+
+/**
+ * A consumer of {@link EventBus} events. Every {@code EventHandler} bean
+ * gets its own subscription and thread from {@link EventBusConfiguration},
+ * and sees every event published after start-up in order, unless it falls
+ * a whole buffer behind.
+ */
+@FunctionalInterface
+public interface EventHandler {
+
+    /** Handle one event. The event object is reused once this returns. */
+    void onEvent(Event event);
+
+    /** Called instead of {@link #onEvent} for {@code count} events this handler was too slow to read. */
+    default void onLost(long count) {
+    }
+}
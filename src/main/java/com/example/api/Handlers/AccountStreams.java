@@ -0,0 +1,348 @@
+package com.example.api.handlers;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.api.events.Event;
+import com.example.api.events.EventHandler;
+import com.example.api.ledger.Ledger;
+import com.example.api.ledger.Money;
+import com.example.api.metrics.Metrics;
+import com.example.api.objects.Account;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.User;
+import com.example.api.registry.UserRegistry;
+import com.example.api.responses.AccountUpdateResponse;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pushes transaction and balance updates for a user's accounts to each of
+ * that user's open streams, fed from the event bus.
+ *
+ * <p>Every stream queues at most {@code ledger.streams.queue-size} updates
+ * and is written out by a virtual thread started only while it has
+ * something to send, so an idle stream costs its connection and a few small
+ * objects rather than a thread. The event thread only queues, and a client
+ * that reads slowly holds up nothing but its own writes. Once a stream's
+ * queue is full, its pending updates are coalesced into the latest balance
+ * of each account they touch, flagged as having missed transactions, until
+ * the client has caught up.</p>
+ */
+@Component
+public class AccountStreams implements EventHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountStreams.class);
+
+    /** Event names, as sent in the SSE {@code event:} field. */
+    public static final String TRANSACTION = "transaction";
+    public static final String BALANCE = "balance";
+    public static final String CLOSED = "closed";
+
+    /** Where a stream's updates are written; an SSE response outside of tests. */
+    public interface Sink {
+
+        /** Write one named event; may block while the client is not reading. */
+        void send(String name, AccountUpdateResponse update) throws IOException;
+
+        /** Write nothing the client acts on, so proxies keep an idle connection open. */
+        void heartbeat() throws IOException;
+
+        /** End the response. */
+        void complete();
+    }
+
+    /** {@code balance} is in minor units, or {@link Event#NO_BALANCE} to read it when sent. */
+    private record Update(String name, String accountNumber, Transaction transaction, long balance, boolean missed) {
+    }
+
+    private static final Stream[] NONE = new Stream[0];
+
+    private final int queueSize;
+    private final int maxStreams;
+    private final long heartbeatNanos;
+    private final ConcurrentHashMap<String, Stream[]> byUser = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread heartbeats;
+    private volatile boolean running = true;
+
+    public AccountStreams(
+            @Value("${ledger.streams.queue-size:256}") int queueSize,
+            @Value("${ledger.streams.max-streams:50000}") int maxStreams,
+            @Value("${ledger.streams.heartbeat-interval:15s}") Duration heartbeatInterval) {
+        this.queueSize = queueSize;
+        this.maxStreams = maxStreams;
+        this.heartbeatNanos = heartbeatInterval.toNanos();
+        this.heartbeats = Thread.ofPlatform().name("account-streams-heartbeat").daemon().start(this::heartbeat);
+    }
+
+    /**
+     * Open a stream of the user's account updates, starting with the current
+     * balance of each of their accounts.
+     *
+     * @throws ResponseStatusException with HTTP 503 if {@code ledger.streams.max-streams} are already open
+     */
+    public Stream open(User user, Sink sink) {
+        if (open.incrementAndGet() > maxStreams) {
+            open.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many open streams");
+        }
+        Metrics.streamOpened();
+        Stream stream = new Stream(user.getId(), sink);
+        byUser.compute(user.getId(), (userId, streams) -> {
+            Stream[] added = streams == null ? new Stream[1] : Arrays.copyOf(streams, streams.length + 1);
+            added[added.length - 1] = stream;
+            return added;
+        });
+        // Registered first, so nothing posted after these balances are read is missed
+        for (String accountNumber : user.getAccounts().keySet()) {
+            offer(stream, new Update(BALANCE, accountNumber, null, Event.NO_BALANCE, false));
+        }
+        return stream;
+    }
+
+    /** Number of streams open right now. */
+    public int size() {
+        return open.get();
+    }
+
+    @Override
+    public void onEvent(Event event) {
+        Stream[] streams = byUser.getOrDefault(event.getUserId(), NONE);
+        if (streams.length == 0) {
+            return;
+        }
+        Update update = switch (event.getType()) {
+            case TRANSACTION_CREATED -> new Update(TRANSACTION, event.getAccountNumber(), event.getTransaction(), event.getBalanceAfter(), false);
+            // Read when sent: a hot account's balance in the event leaves out unsettled deposits
+            case ACCOUNT_CREATED, ACCOUNT_UPDATED -> new Update(BALANCE, event.getAccountNumber(), null, Event.NO_BALANCE, false);
+            case ACCOUNT_DELETED -> new Update(CLOSED, event.getAccountNumber(), null, Event.NO_BALANCE, false);
+            case USER_DELETED -> {
+                for (Stream stream : streams) {
+                    stream.close();
+                }
+                yield null;
+            }
+            case USER_CREATED -> null;
+        };
+        if (update != null) {
+            for (Stream stream : streams) {
+                offer(stream, update);
+            }
+        }
+    }
+
+    /** The bus overwrote events before they were read: resend every streamed account's balance. */
+    @Override
+    public void onLost(long count) {
+        log.warn("Account streams fell {} events behind; resending balances", count);
+        byUser.forEach((userId, streams) -> {
+            User user = UserRegistry.get(userId);
+            if (user == null) {
+                return;
+            }
+            for (String accountNumber : user.getAccounts().keySet()) {
+                Update update = new Update(BALANCE, accountNumber, null, Event.NO_BALANCE, true);
+                for (Stream stream : streams) {
+                    offer(stream, update);
+                }
+            }
+        });
+    }
+
+    private void offer(Stream stream, Update update) {
+        if (stream.offer(update)) {
+            writers.execute(stream::write);
+        }
+    }
+
+    private void heartbeat() {
+        while (running) {
+            LockSupport.parkNanos(heartbeatNanos);
+            for (Stream[] streams : byUser.values()) {
+                for (Stream stream : streams) {
+                    if (stream.ping()) {
+                        writers.execute(stream::write);
+                    }
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(heartbeats);
+        heartbeats.join();
+        for (Stream[] streams : byUser.values()) {
+            for (Stream stream : streams) {
+                stream.close();
+            }
+        }
+        writers.shutdown();
+    }
+
+    /** One client's subscription to its user's account updates. */
+    public final class Stream {
+
+        private final String userId;
+        private final Sink sink;
+
+        // Guarded by this
+        private final ArrayDeque<Update> queue = new ArrayDeque<>();
+        // Latest update per account while the client is behind, otherwise null
+        private LinkedHashMap<String, Update> coalesced;
+        private boolean heartbeat;
+        private boolean writing;
+        private boolean closed;
+
+        private Stream(String userId, Sink sink) {
+            this.userId = userId;
+            this.sink = sink;
+        }
+
+        /** @return whether the caller must start a writer */
+        private synchronized boolean offer(Update update) {
+            if (closed) {
+                return false;
+            }
+            if (coalesced == null && queue.size() < queueSize) {
+                queue.add(update);
+            } else {
+                if (coalesced == null) {
+                    coalesced = new LinkedHashMap<>();
+                    for (Update queued : queue) {
+                        coalesce(queued);
+                    }
+                    queue.clear();
+                    Metrics.streamCoalesced();
+                }
+                coalesce(update);
+            }
+            return startWriting();
+        }
+
+        private void coalesce(Update update) {
+            Update previous = coalesced.get(update.accountNumber());
+            boolean missed = update.missed() || update.transaction() != null || previous != null && previous.missed();
+            coalesced.put(update.accountNumber(), update.name().equals(CLOSED)
+                ? update
+                : new Update(BALANCE, update.accountNumber(), null, update.balance(), missed));
+        }
+
+        private synchronized boolean ping() {
+            if (closed) {
+                return false;
+            }
+            heartbeat = true;
+            return startWriting();
+        }
+
+        private boolean startWriting() {
+            if (writing) {
+                return false;
+            }
+            writing = true;
+            return true;
+        }
+
+        /** @return the updates to send, empty for just a heartbeat, or {@code null} once there is nothing left */
+        private synchronized List<Update> take() {
+            List<Update> batch;
+            if (coalesced != null) {
+                batch = new ArrayList<>(coalesced.values());
+                coalesced = null;
+            } else {
+                batch = new ArrayList<>(queue);
+                queue.clear();
+            }
+            if (closed || batch.isEmpty() && !heartbeat) {
+                writing = false;
+                return null;
+            }
+            heartbeat = false;
+            return batch;
+        }
+
+        private void write() {
+            try {
+                List<Update> batch;
+                while ((batch = take()) != null) {
+                    if (batch.isEmpty()) {
+                        sink.heartbeat();
+                    }
+                    for (Update update : batch) {
+                        sink.send(update.name(), toResponse(update));
+                    }
+                }
+            } catch (IOException | IllegalStateException ex) {
+                // The client went away
+                log.debug("Closing account stream of {}", userId, ex);
+                close();
+            }
+        }
+
+        private AccountUpdateResponse toResponse(Update update) {
+            if (update.name().equals(CLOSED)) {
+                return AccountUpdateResponse.builder().accountNumber(update.accountNumber()).build();
+            }
+            Account account = UserRegistry.account(update.accountNumber());
+            if (account != null && !userId.equals(account.getUserId())) {
+                // Deleted, and the number since reused by someone else
+                account = null;
+            }
+            long balance = update.balance();
+            if (balance == Event.NO_BALANCE && account != null) {
+                Ledger.settle(account);
+                balance = account.getBalance();
+            }
+            Transaction transaction = update.transaction();
+            String currency = account != null ? account.getCurrency()
+                : transaction != null ? transaction.getCurrency() : null;
+            return AccountUpdateResponse.builder()
+                .accountNumber(update.accountNumber())
+                .currency(currency)
+                .balance(balance == Event.NO_BALANCE || currency == null ? null : Money.toMajorUnits(balance, currency))
+                .transaction(transaction == null ? null : AccountsAPI.transactionToResponse(transaction))
+                .missedTransactions(update.missed() ? Boolean.TRUE : null)
+                .build();
+        }
+
+        /** Stop sending and end the response. Safe to call more than once. */
+        public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                queue.clear();
+                coalesced = null;
+            }
+            byUser.computeIfPresent(userId, (id, streams) -> {
+                Stream[] remaining = Arrays.stream(streams).filter(stream -> stream != this).toArray(Stream[]::new);
+                return remaining.length == 0 ? null : remaining;
+            });
+            open.decrementAndGet();
+            Metrics.streamClosed();
+            sink.complete();
+        }
+    }
+}
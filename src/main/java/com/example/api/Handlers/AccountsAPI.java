@@ -1,7 +1,17 @@
 package com.example.api.handlers;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -11,25 +21,65 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.example.api.objects.User;
 import com.example.api.objects.Account;
 import com.example.api.objects.Transaction;
-import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.events.EventBus;
+import com.example.api.ledger.Aggregates;
+import com.example.api.ledger.Ledger;
+import com.example.api.ledger.Money;
+import com.example.api.metrics.AccountLockWaitEvent;
+import com.example.api.metrics.TransactionPostEvent;
+import com.example.api.persistence.Journal;
+import com.example.api.registry.IdempotencyCache;
+import com.example.api.registry.TimeIndex;
+import com.example.api.registry.TransactionLog;
+import com.example.api.registry.UserRegistry;
 import com.example.api.requests.CreateBankAccountRequest;
+import com.example.api.requests.CreateTransactionBatchRequest;
+import com.example.api.requests.CreateTransactionBatchRequest.BatchModes;
 import com.example.api.requests.CreateTransactionRequest;
 import com.example.api.requests.UpdateBankAccountRequest;
+import com.example.api.responses.AccountAggregatesResponse;
 import com.example.api.responses.BankAccountResponse;
 import com.example.api.responses.ListBankAccountsResponse;
 import com.example.api.responses.ListTransactionsResponse;
+import com.example.api.responses.TransactionBatchItemResponse;
+import com.example.api.responses.TransactionBatchResponse;
 import com.example.api.responses.TransactionResponse;
 
 import jakarta.validation.Valid;
 
 @RestController
 public class AccountsAPI {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
+    private static final String INSUFFICIENT_FUNDS = "Insufficient funds to process transaction";
+
+    private final IdempotencyCache<TransactionResponse> idempotency;
+
+    public AccountsAPI() {
+        this(100_000, Duration.ofHours(24));
+    }
+
+    @Autowired
+    public AccountsAPI(
+            @Value("${ledger.idempotency.max-keys:100000}") int idempotencyMaxKeys,
+            @Value("${ledger.idempotency.ttl:24h}") Duration idempotencyTtl) {
+        this.idempotency = new IdempotencyCache<>(idempotencyMaxKeys, idempotencyTtl);
+    }
+
     /**
      * REST controller that manages bank accounts and transactions for the
      * authenticated user. Endpoints are modeled after the project's OpenAPI
@@ -52,28 +102,35 @@ public class AccountsAPI {
      */
     public ResponseEntity<BankAccountResponse> createAccount(@AuthenticationPrincipal User authUser, @Valid @RequestBody CreateBankAccountRequest request) {
         Account newAccount = Account.builder()
-            .accountNumber("01" + String.format("%06d", authUser.getAccounts().size() + 1))
+            .userId(authUser.getId())
             .sortCode("01-01-01")
             .name(request.getName())
             .accountType(request.getAccountType())
-            .balance(0.0)
+            .balance(0)
             .currency("GBP")
             .build();
 
+        // Numbers come from a counter that never goes back, so a deleted account's number is never reused
+        do {
+            String accountNumber = UserRegistry.issueAccountNumber();
+            if (accountNumber == null) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "No account numbers are left to issue");
+            }
+            newAccount.setAccountNumber(accountNumber);
+        } while (!UserRegistry.indexAccount(newAccount));
+        // Journal before the owner can see it; give the number back if the log refuses the record
+        try {
+            Journal.accountCreated(newAccount);
+        } catch (RuntimeException ex) {
+            UserRegistry.unindexAccount(newAccount);
+            throw ex;
+        }
         authUser.getAccounts().put(newAccount.getAccountNumber(), newAccount);
+        EventBus.accountCreated(newAccount);
 
-        BankAccountResponse response = BankAccountResponse.builder()
-            .accountNumber(newAccount.getAccountNumber())
-            .sortCode(newAccount.getSortCode())
-            .name(newAccount.getName())
-            .accountType(newAccount.getAccountType())
-            .balance(newAccount.getBalance())
-            .currency(newAccount.getCurrency())
-            .createdTimestamp(newAccount.getCreatedTimestamp())
-            .updatedTimestamp(newAccount.getUpdatedTimestamp())
-            .build();
+        BankAccountResponse response = accountToResponse(newAccount);
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(eTag(response.getVersion())).body(response);
     }
 
     @GetMapping(value = "/v1/accounts", produces = "application/json")
@@ -86,16 +143,7 @@ public class AccountsAPI {
     public ResponseEntity<ListBankAccountsResponse> listAccounts(@AuthenticationPrincipal User authUser) {
         
         List<BankAccountResponse> accountResponses = authUser.getAccounts().values().stream()
-            .map(account -> BankAccountResponse.builder()
-                .accountNumber(account.getAccountNumber())
-                .sortCode(account.getSortCode())
-                .name(account.getName())
-                .accountType(account.getAccountType())
-                .balance(account.getBalance())
-                .currency(account.getCurrency())
-                .createdTimestamp(account.getCreatedTimestamp())
-                .updatedTimestamp(account.getUpdatedTimestamp())
-                .build())
+            .map(AccountsAPI::accountToResponse)
             .toList();
 
         ListBankAccountsResponse response = ListBankAccountsResponse.builder().accounts(accountResponses).build();
@@ -117,18 +165,9 @@ public class AccountsAPI {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found");
         }
 
-        BankAccountResponse response = BankAccountResponse.builder()
-            .accountNumber(account.getAccountNumber())
-            .sortCode(account.getSortCode())
-            .name(account.getName())
-            .accountType(account.getAccountType())
-            .balance(account.getBalance())
-            .currency(account.getCurrency())
-            .createdTimestamp(account.getCreatedTimestamp())
-            .updatedTimestamp(account.getUpdatedTimestamp())
-            .build();
+        BankAccountResponse response = accountToResponse(account);
 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(eTag(response.getVersion())).body(response);
     }
 
     @PatchMapping(value = "/v1/accounts/{accountNumber}", produces = "application/json")
@@ -136,41 +175,63 @@ public class AccountsAPI {
      * Partially update account metadata (such as name or type) for the
      * authenticated user's account.
      *
+     * <p>With an {@code If-Match} header the update only applies if the
+     * account is still at the version in the client's {@code ETag};
+     * otherwise nothing changes and HTTP 412 is returned with the current
+     * {@code ETag}. Postings change the version too.</p>
+     *
      * @param authUser      the authenticated user (injected by Spring Security)
      * @param accountNumber the account number path variable
      * @param request       payload containing updatable fields; validated via Jakarta Validation
-     * @return ResponseEntity with the updated {@link BankAccountResponse}
+     * @param ifMatch       optional {@code ETag}s the account must currently match
+     * @return ResponseEntity with the updated {@link BankAccountResponse}, or HTTP 412 if {@code If-Match} fails
      * @throws ResponseStatusException with HTTP 404 if the account does not exist for the user
      */
     public ResponseEntity<BankAccountResponse> updateAccount(
             @AuthenticationPrincipal User authUser,
             @PathVariable String accountNumber,
-            @Valid @RequestBody UpdateBankAccountRequest request) {
+            @Valid @RequestBody UpdateBankAccountRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         
         Account account = authUser.getAccounts().get(accountNumber);
         if (account == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found");
         }
 
-        if (request.getName() != null) {
-            account.setName(request.getName());
-        }
-        if (request.getAccountType() != null) {
-            account.setAccountType(request.getAccountType());
+        // Check the version and apply the update as one step, like a posting
+        BankAccountResponse response;
+        ReentrantLock lock = UserRegistry.accountLock(accountNumber);
+        AccountLockWaitEvent.lock(lock, accountNumber);
+        try {
+            Ledger.settle(account);
+            long version = account.getVersion();
+            if (!matches(ifMatch, version)) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(eTag(version)).build();
+            }
+            // Journal the updated details before applying them
+            Account updated = Account.builder()
+                .userId(account.getUserId())
+                .accountNumber(account.getAccountNumber())
+                .sortCode(account.getSortCode())
+                .name(request.getName() != null ? request.getName() : account.getName())
+                .accountType(request.getAccountType() != null ? request.getAccountType() : account.getAccountType())
+                .currency(account.getCurrency())
+                .createdTimestamp(account.getCreatedTimestamp())
+                .updatedTimestamp(account.getUpdatedTimestamp())
+                .state(new Account.Balance(account.getBalance(), version + 1))
+                .history(account.getHistory())
+                .build();
+            Journal.accountUpdated(updated);
+            account.setName(updated.getName());
+            account.setAccountType(updated.getAccountType());
+            account.nextVersion();
+            EventBus.accountUpdated(account);
+            response = accountToResponse(account);
+        } finally {
+            lock.unlock();
         }
 
-        BankAccountResponse response = BankAccountResponse.builder()
-            .accountNumber(account.getAccountNumber())
-            .sortCode(account.getSortCode())
-            .name(account.getName())
-            .accountType(account.getAccountType())
-            .balance(account.getBalance())
-            .currency(account.getCurrency())
-            .createdTimestamp(account.getCreatedTimestamp())
-            .updatedTimestamp(account.getUpdatedTimestamp())
-            .build();
-
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(eTag(response.getVersion())).body(response);
     }
 
     @DeleteMapping("/v1/accounts/{accountNumber}")
@@ -183,10 +244,23 @@ public class AccountsAPI {
      * @throws ResponseStatusException with HTTP 404 if the account does not exist for the user
      */
     public ResponseEntity<String> deleteAccount(@AuthenticationPrincipal User authUser, @PathVariable String accountNumber) {
-        if(authUser.getAccounts().get(accountNumber) == null) {
+        // Under the account lock, so a transfer sees the account either live or gone
+        Account removed;
+        ReentrantLock lock = UserRegistry.accountLock(accountNumber);
+        AccountLockWaitEvent.lock(lock, accountNumber);
+        try {
+            removed = authUser.getAccounts().remove(accountNumber);
+            if (removed != null) {
+                UserRegistry.unindexAccount(removed);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (removed == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found");
         }
-        authUser.getAccounts().remove(accountNumber);
+        Journal.accountDeleted(removed);
+        EventBus.accountDeleted(removed);
         return ResponseEntity.ok().body("Deleted account {accountNumber} sucessfuly".replace("{accountNumber}", accountNumber));
     }
 
@@ -195,78 +269,302 @@ public class AccountsAPI {
      * Create a transaction against a user's account. This will update the
      * account balance and persist the transaction in-memory.
      *
-     * @param authUser      the authenticated user (injected by Spring Security)
-     * @param accountNumber the account number path variable
-     * @param request       the create transaction payload; validated via Jakarta Validation
+     * <p>With an {@code Idempotency-Key} header, a retry with the same key
+     * returns the original response without posting again, marked with
+     * {@code Idempotent-Replayed: true}.</p>
+     *
+     * @param authUser       the authenticated user (injected by Spring Security)
+     * @param accountNumber  the account number path variable
+     * @param request        the create transaction payload; validated via Jakarta Validation
+     * @param idempotencyKey optional client-chosen key identifying this request across retries
      * @return ResponseEntity with the created {@link TransactionResponse} and HTTP 201
      * @throws ResponseStatusException with HTTP 404 if the account does not exist, or 422 if insufficient funds
+     *         or the key was used for a different request
      */
     public ResponseEntity<TransactionResponse> createTransaction(
             @AuthenticationPrincipal User authUser, 
             @PathVariable String accountNumber,
-            @Valid @RequestBody CreateTransactionRequest request) {
-        
+            @Valid @RequestBody CreateTransactionRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+
+        // Fields are only filled in once the event is known to be recorded
+        TransactionPostEvent event = new TransactionPostEvent();
+        event.begin();
+        String outcome = TransactionPostEvent.REJECTED;
+        try {
+            ResponseEntity<TransactionResponse> response = postOrReplay(authUser, accountNumber, request, idempotencyKey);
+            outcome = Boolean.parseBoolean(response.getHeaders().getFirst(IDEMPOTENT_REPLAYED))
+                ? TransactionPostEvent.REPLAYED
+                : TransactionPostEvent.POSTED;
+            return response;
+        } catch (ResponseStatusException ex) {
+            if (INSUFFICIENT_FUNDS.equals(ex.getReason())) {
+                outcome = TransactionPostEvent.INSUFFICIENT_FUNDS;
+            }
+            throw ex;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.accountNumber = accountNumber;
+                event.amount = request.getAmount();
+                event.currency = request.getCurrency();
+                event.type = request.getType().name();
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    private ResponseEntity<TransactionResponse> postOrReplay(User authUser, String accountNumber,
+            CreateTransactionRequest request, String idempotencyKey) {
         Account account = authUser.getAccounts().get(accountNumber);
         if (account == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found");
         }
 
-        // Check for sufficient funds for withdrawal transactions
-        if (TransactionTypes.WITHDRAWAL.equals(request.getType()) && account.getBalance() < request.getAmount()) {
-            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Insufficient funds to process transaction");
+        if (idempotencyKey == null) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(postTransaction(account, request));
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                IDEMPOTENCY_KEY + " must be 1 to " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+
+        // Keys are scoped to the account, so clients cannot see each other's results
+        String key = authUser.getId() + '/' + accountNumber + '/' + idempotencyKey;
+        String fingerprint = request.getAmount() + "/" + request.getCurrency() + "/" + request.getType();
+        IdempotencyCache.Result<TransactionResponse> result;
+        try {
+            result = idempotency.execute(key, fingerprint, () -> postTransaction(account, request));
+        } catch (IdempotencyCache.KeyReusedException ex) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, ex.getMessage());
+        }
+
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .header(IDEMPOTENT_REPLAYED, Boolean.toString(result.replayed()))
+            .body(result.value());
+    }
+
+    private static TransactionResponse postTransaction(Account account, CreateTransactionRequest request) {
+        if (!account.getCurrency().equals(request.getCurrency())) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Transaction currency does not match account currency");
+        }
+
+        long amount;
+        try {
+            amount = Money.toMinorUnits(request.getAmount(), account.getCurrency());
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
         }
 
         Transaction transaction = Transaction.builder()
-            .amount(request.getAmount())
+            .amount(amount)
             .currency(request.getCurrency())
             .type(request.getType())
             .build();
 
-        account.addTransaction(transaction);
+        // Check for sufficient funds, record the transaction and update the balance in one step
+        if (!Ledger.post(account, transaction)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, INSUFFICIENT_FUNDS);
+        }
+
+        return transactionToResponse(transaction);
+    }
+
+    @PostMapping(value = "/v1/accounts/{accountNumber}/transactions/batch", produces = "application/json")
+    /**
+     * Post several transactions against a user's account in one request.
+     * The account is locked once and funds are checked in request order.
+     * In {@code ATOMIC} mode either every transaction is posted (HTTP 201) or
+     * none is (HTTP 422); in {@code PER_ITEM} mode each transaction that can
+     * be posted is (HTTP 200). Either way the body carries a result per item.
+     *
+     * @param authUser      the authenticated user (injected by Spring Security)
+     * @param accountNumber the account number path variable
+     * @param request       the batch payload; validated via Jakarta Validation
+     * @return ResponseEntity with the {@link TransactionBatchResponse}
+     * @throws ResponseStatusException with HTTP 404 if the account does not exist
+     */
+    public ResponseEntity<TransactionBatchResponse> createTransactions(
+            @AuthenticationPrincipal User authUser,
+            @PathVariable String accountNumber,
+            @Valid @RequestBody CreateTransactionBatchRequest request) {
+
+        Account account = authUser.getAccounts().get(accountNumber);
+        if (account == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found");
+        }
 
-        // Update balance
-        if (TransactionTypes.DEPOSIT.equals(request.getType())) {
-            account.setBalance(account.getBalance() + request.getAmount());
-        } else if (TransactionTypes.WITHDRAWAL.equals(request.getType())) {
-            account.setBalance(account.getBalance() - request.getAmount());
+        boolean atomic = request.getMode() == BatchModes.ATOMIC;
+        List<CreateTransactionRequest> items = request.getTransactions();
+        List<Transaction> transactions = new ArrayList<>(items.size());
+        TransactionBatchItemResponse[] results = new TransactionBatchItemResponse[items.size()];
+        int invalid = -1;
+        for (int i = 0; i < items.size(); i++) {
+            CreateTransactionRequest item = items.get(i);
+            Transaction transaction = null;
+            if (!account.getCurrency().equals(item.getCurrency())) {
+                results[i] = itemError(i, HttpStatus.UNPROCESSABLE_ENTITY, "Transaction currency does not match account currency");
+            } else {
+                try {
+                    transaction = Transaction.builder()
+                        .amount(Money.toMinorUnits(item.getAmount(), account.getCurrency()))
+                        .currency(item.getCurrency())
+                        .type(item.getType())
+                        .build();
+                } catch (IllegalArgumentException ex) {
+                    results[i] = itemError(i, HttpStatus.BAD_REQUEST, ex.getMessage());
+                }
+            }
+            if (transaction == null && invalid < 0) {
+                invalid = i;
+            }
+            transactions.add(transaction);
         }
 
-        TransactionResponse response = TransactionResponse.builder()
-            .id(accountNumber)
-            .amount(transaction.getAmount())
-            .currency(transaction.getCurrency())
-            .type(transaction.getType())
-            .build();
+        boolean[] posted = new boolean[items.size()];
+        int failed = invalid;
+        if (!atomic || invalid < 0) {
+            int rejected = Ledger.postBatch(account, transactions, atomic, posted);
+            if (failed < 0) {
+                failed = rejected;
+            }
+        }
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        int count = 0;
+        for (int i = 0; i < results.length; i++) {
+            if (posted[i]) {
+                results[i] = TransactionBatchItemResponse.builder()
+                    .index(i)
+                    .status(HttpStatus.CREATED.value())
+                    .transaction(transactionToResponse(transactions.get(i)))
+                    .build();
+                count++;
+            } else if (results[i] == null) {
+                results[i] = atomic && i != failed
+                    ? itemError(i, HttpStatus.UNPROCESSABLE_ENTITY, "Not posted because transaction " + failed + " failed")
+                    : itemError(i, HttpStatus.UNPROCESSABLE_ENTITY, INSUFFICIENT_FUNDS);
+            }
+        }
+
+        TransactionBatchResponse response = TransactionBatchResponse.builder()
+            .mode(request.getMode())
+            .posted(count)
+            .results(List.of(results))
+            .build();
+        HttpStatus status = !atomic ? HttpStatus.OK : count > 0 ? HttpStatus.CREATED : HttpStatus.UNPROCESSABLE_ENTITY;
+        return ResponseEntity.status(status).body(response);
     }
 
     @GetMapping(value = "/v1/accounts/{accountNumber}/transactions", produces = "application/json")
     /**
-     * List all transactions for a given account belonging to the authenticated user.
+     * List transactions for a given account belonging to the authenticated
+     * user, newest first, one page at a time. With {@code from} and/or
+     * {@code to} only transactions created in {@code [from, to)} are listed,
+     * ordered by creation time.
      *
      * @param authUser      the authenticated user (injected by Spring Security)
      * @param accountNumber the account number path variable
+     * @param cursor        opaque {@code nextCursor} from the previous page; omit for the newest page
+     * @param limit         page size, 1 to {@value #MAX_PAGE_SIZE} (default {@value #DEFAULT_PAGE_SIZE})
+     * @param from          optional inclusive lower bound on {@code createdTimestamp}
+     * @param to            optional exclusive upper bound on {@code createdTimestamp}
      * @return ResponseEntity with {@link ListTransactionsResponse} and HTTP 200
-     * @throws ResponseStatusException with HTTP 404 if the account does not exist
+     * @throws ResponseStatusException with HTTP 400 if the cursor, limit or range is invalid, or 404 if the account does not exist
      */
     public ResponseEntity<ListTransactionsResponse> listTransactions(
-            @AuthenticationPrincipal User authUser, @PathVariable String accountNumber) {
+            @AuthenticationPrincipal User authUser,
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
         Account account = authUser.getAccounts().get(accountNumber);
         if (account == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found");
         }
 
-        List<TransactionResponse> transactionResponses = account.getTransactions().values().stream()
-            .map(transaction -> TransactionResponse.builder()
-                .id(transaction.getId())
-                .amount(transaction.getAmount())
-                .currency(transaction.getCurrency())
-                .type(transaction.getType())
-                .build())
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        Ledger.settle(account);
+        TransactionLog history = account.getHistory();
+        List<Transaction> page;
+        String nextCursor;
+        if (from == null && to == null) {
+            // Page backwards from the newest transaction, or from just below the cursor
+            int newest = cursor == null ? history.size() : decodeCursor(cursor, history.size() + 1) - 1;
+            page = history.newestFirst(newest + 1, pageSize);
+            int oldest = newest - page.size() + 1;
+            nextCursor = oldest > 1 ? encodeCursor(oldest) : null;
+        } else {
+            if (from != null && to != null && from.isAfter(to)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+            }
+            TimeIndex.Entry before = null;
+            if (cursor != null) {
+                int sequence = decodeCursor(cursor, history.size());
+                before = TimeIndex.entryFor(sequence, history.get(sequence));
+            }
+            // Fetch one extra entry to learn whether another page follows
+            List<TimeIndex.Entry> entries = history.newestFirst(from, to, before, pageSize + 1);
+            boolean more = entries.size() > pageSize;
+            if (more) {
+                entries = entries.subList(0, pageSize);
+            }
+            page = entries.stream().map(TimeIndex.Entry::transaction).toList();
+            nextCursor = more ? encodeCursor(entries.get(pageSize - 1).sequence()) : null;
+        }
+
+        List<TransactionResponse> transactionResponses = page.stream()
+            .map(AccountsAPI::transactionToResponse)
             .toList();
-        
-        ListTransactionsResponse response = ListTransactionsResponse.builder().transactions(transactionResponses).build();
+        ListTransactionsResponse response = ListTransactionsResponse.builder()
+            .transactions(transactionResponses)
+            .nextCursor(nextCursor)
+            .build();
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping(value = "/v1/accounts/{accountNumber}/aggregates", produces = "application/json")
+    /**
+     * Count, total, smallest, largest and average amount of the deposits and
+     * of the withdrawals on an account belonging to the authenticated user,
+     * optionally limited to transactions created in {@code [from, to)}.
+     *
+     * @param authUser      the authenticated user (injected by Spring Security)
+     * @param accountNumber the account number path variable
+     * @param from          optional inclusive lower bound on {@code createdTimestamp}
+     * @param to            optional exclusive upper bound on {@code createdTimestamp}
+     * @return ResponseEntity with {@link AccountAggregatesResponse} and HTTP 200
+     * @throws ResponseStatusException with HTTP 400 if the range is invalid, or 404 if the account does not exist
+     */
+    public ResponseEntity<AccountAggregatesResponse> getAggregates(
+            @AuthenticationPrincipal User authUser,
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        Account account = authUser.getAccounts().get(accountNumber);
+        if (account == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+
+        Ledger.settle(account);
+        TransactionLog history = account.getHistory();
+        Aggregates.Result result = Aggregates.compute(history, history.size(), from, to);
+        String currency = account.getCurrency();
+        AccountAggregatesResponse response = AccountAggregatesResponse.builder()
+            .currency(currency)
+            .from(from)
+            .to(to)
+            .deposits(aggregatesToResponse(result.deposits(), currency))
+            .withdrawals(aggregatesToResponse(result.withdrawals(), currency))
+            .build();
         return ResponseEntity.ok(response);
     }
 
@@ -291,18 +589,100 @@ public class AccountsAPI {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found");
         }
 
-        Transaction transaction = account.getTransactions().get(transactionId);
+        // A hot account's latest deposits are only in the history once settled
+        Ledger.settle(account);
+        Transaction transaction = account.getHistory().find(transactionId);
         if (transaction == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Transaction not found");
         }
 
-        TransactionResponse response = TransactionResponse.builder()
-            .id(transactionId)
-            .amount(transaction.getAmount())
+        TransactionResponse response = transactionToResponse(transaction);
+
+        return ResponseEntity.ok(response);
+    }
+
+    private static AccountAggregatesResponse.TypeAggregates aggregatesToResponse(Aggregates.Totals totals, String currency) {
+        double total = Money.toMajorUnits(totals.sum(), currency);
+        boolean any = totals.count() > 0;
+        return AccountAggregatesResponse.TypeAggregates.builder()
+            .count(totals.count())
+            .total(total)
+            .min(any ? Money.toMajorUnits(totals.min(), currency) : null)
+            .max(any ? Money.toMajorUnits(totals.max(), currency) : null)
+            .average(any ? total / totals.count() : null)
+            .build();
+    }
+
+    private static TransactionBatchItemResponse itemError(int index, HttpStatus status, String error) {
+        return TransactionBatchItemResponse.builder()
+            .index(index)
+            .status(status.value())
+            .error(error)
+            .build();
+    }
+
+    /** Cursors are the sequence number of the oldest transaction on the previous page. */
+    private static String encodeCursor(int sequence) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(Integer.toString(sequence).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static int decodeCursor(String cursor, int maxSequence) {
+        try {
+            int sequence = Integer.parseInt(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+            if (sequence >= 1 && sequence <= maxSequence) {
+                return sequence;
+            }
+        } catch (IllegalArgumentException ex) {
+            // Fall through to the bad request below
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+
+    /** Strong {@code ETag} for an account version. */
+    static String eTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /** Whether an {@code If-Match} header, if any, matches the account version. */
+    private static boolean matches(String ifMatch, long version) {
+        if (ifMatch == null) {
+            return true;
+        }
+        String current = eTag(version);
+        for (String tag : ifMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.equals("*") || candidate.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static BankAccountResponse accountToResponse(Account account) {
+        // Read balance and version together so they describe the same state
+        Ledger.settle(account);
+        Account.Balance state = account.getBalanceState();
+        return BankAccountResponse.builder()
+            .accountNumber(account.getAccountNumber())
+            .sortCode(account.getSortCode())
+            .name(account.getName())
+            .accountType(account.getAccountType())
+            .balance(Money.toMajorUnits(state.amount(), account.getCurrency()))
+            .version(state.version())
+            .currency(account.getCurrency())
+            .createdTimestamp(account.getCreatedTimestamp())
+            .updatedTimestamp(account.getUpdatedTimestamp())
+            .build();
+    }
+
+    static TransactionResponse transactionToResponse(Transaction transaction) {
+        return TransactionResponse.builder()
+            .id(transaction.getId())
+            .amount(Money.toMajorUnits(transaction.getAmount(), transaction.getCurrency()))
             .currency(transaction.getCurrency())
             .type(transaction.getType())
+            .createdTimestamp(transaction.getCreatedTimestamp())
             .build();
-
-        return ResponseEntity.ok(response);
     }
 }
@@ -0,0 +1,88 @@
+package com.example.api.handlers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.api.ledger.Ledger;
+import com.example.api.objects.Account;
+import com.example.api.objects.User;
+import com.example.api.registry.TransactionLog;
+import com.example.api.responses.TransactionResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+@RestController
+public class ExportAPI {
+    /**
+     * Streams an account's full transaction history as newline-delimited
+     * JSON, oldest first, one {@link TransactionResponse} per line.
+     *
+     * <p>Transactions are read straight from the account's
+     * {@link TransactionLog} and serialized one at a time through the JSON
+     * generator's fixed-size buffer, so memory use does not grow with the
+     * history. Writes block while the client is not reading, which holds the
+     * export back instead of buffering ahead.</p>
+     */
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    private final ObjectMapper objectMapper;
+
+    public ExportAPI(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping(value = "/v1/accounts/{accountNumber}/transactions/export", produces = NDJSON)
+    /**
+     * Export every transaction of the authenticated user's account that
+     * exists when the request arrives.
+     *
+     * @param authUser      the authenticated user (injected by Spring Security)
+     * @param accountNumber the account number path variable
+     * @return ResponseEntity streaming NDJSON with HTTP 200
+     * @throws ResponseStatusException with HTTP 404 if the account does not exist
+     */
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @AuthenticationPrincipal User authUser, @PathVariable String accountNumber) {
+        Account account = authUser.getAccounts().get(accountNumber);
+        if (account == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found");
+        }
+
+        Ledger.settle(account);
+        TransactionLog history = account.getHistory();
+        int count = history.size();
+        StreamingResponseBody body = out -> write(history, count, out);
+
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_TYPE, NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + accountNumber + "-transactions.ndjson\"")
+            .body(body);
+    }
+
+    private void write(TransactionLog history, int count, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(TransactionResponse.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        // The generator's own buffer is the only buffering; it writes through to the response as it fills
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            for (int sequence = 1; sequence <= count; sequence++) {
+                writer.writeValue(generator, AccountsAPI.transactionToResponse(history.get(sequence)));
+                generator.writeRaw('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.api.handlers;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.api.metrics.Metrics;
+
+@RestController
+public class MetricsAPI {
+
+    /** Media type Prometheus expects from a text-format scrape. */
+    public static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    @GetMapping(value = "/metrics", produces = PROMETHEUS_TEXT)
+    /**
+     * Request latencies, token validation times, rejected postings and
+     * ledger sizes in the Prometheus text format. Takes the HTTP Basic
+     * credentials set in {@code metrics.username} and {@code metrics.password}
+     * rather than a bearer token.
+     *
+     * @return ResponseEntity with the exposition text and HTTP 200
+     */
+    public ResponseEntity<String> scrape() {
+        return ResponseEntity.ok(Metrics.scrape());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.api.handlers;
+
+import java.io.IOException;
+
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.api.objects.User;
+import com.example.api.responses.AccountUpdateResponse;
+
+@RestController
+public class StreamAPI {
+    /**
+     * Server-Sent Events stream of the authenticated user's account updates,
+     * so clients need not poll for balances. Connections are held
+     * asynchronously and written by {@link AccountStreams}; an open stream
+     * ties up no request thread.
+     */
+
+    private final AccountStreams streams;
+
+    public StreamAPI(AccountStreams streams) {
+        this.streams = streams;
+    }
+
+    @GetMapping(value = "/v1/accounts/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    /**
+     * Stream updates to all of the authenticated user's accounts: a
+     * {@code balance} event per account to start with, then a
+     * {@code transaction} event per posting, a {@code balance} event when an
+     * account is created or updated and a {@code closed} event when one is
+     * deleted, each carrying an {@link AccountUpdateResponse}. The stream
+     * ends after {@code spring.mvc.async.request-timeout}; reconnect for
+     * fresh balances.
+     *
+     * @param authUser the authenticated user (injected by Spring Security)
+     * @return the event stream, with HTTP 200
+     * @throws ResponseStatusException with HTTP 503 if the server already holds as many streams as it allows
+     */
+    public SseEmitter streamAccounts(@AuthenticationPrincipal User authUser) {
+        SseEmitter emitter = new SseEmitter();
+        AccountStreams.Stream stream = streams.open(authUser, new AccountStreams.Sink() {
+            @Override
+            public void send(String name, AccountUpdateResponse update) throws IOException {
+                emitter.send(SseEmitter.event().name(name).data(update, MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void heartbeat() throws IOException {
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+            }
+
+            @Override
+            public void complete() {
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(stream::close);
+        emitter.onTimeout(stream::close);
+        emitter.onError(ex -> stream.close());
+        return emitter;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.api.handlers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.api.ledger.Ledger;
+import com.example.api.ledger.Money;
+import com.example.api.objects.Account;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.objects.User;
+import com.example.api.registry.UserRegistry;
+import com.example.api.requests.CreateTransferRequest;
+import com.example.api.responses.TransferResponse;
+
+import jakarta.validation.Valid;
+
+@RestController
+public class TransfersAPI {
+    /**
+     * Moves money from one of the authenticated user's accounts to any
+     * account in the registry, looked up by number. Both legs are posted as
+     * one step by {@link Ledger#transfer}, so a transfer is never seen half
+     * done and a crash never leaves only one leg in the journal.
+     */
+
+    @PostMapping(value = "/v1/accounts/{accountNumber}/transfers", produces = "application/json")
+    /**
+     * Transfer funds out of the authenticated user's account.
+     *
+     * @param authUser      the authenticated user (injected by Spring Security)
+     * @param accountNumber the account number path variable; the account to debit
+     * @param request       the transfer payload; validated via Jakarta Validation
+     * @return ResponseEntity with the {@link TransferResponse} and HTTP 201
+     * @throws ResponseStatusException with HTTP 404 if either account does not exist, 400 if the
+     *         accounts are the same, or 422 if the currencies differ or funds are insufficient
+     */
+    public ResponseEntity<TransferResponse> createTransfer(
+            @AuthenticationPrincipal User authUser,
+            @PathVariable String accountNumber,
+            @Valid @RequestBody CreateTransferRequest request) {
+
+        Account from = authUser.getAccounts().get(accountNumber);
+        if (from == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found");
+        }
+        Account to = UserRegistry.account(request.getToAccountNumber());
+        if (to == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Destination account not found");
+        }
+        if (from == to) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot transfer to the same account");
+        }
+        if (!from.getCurrency().equals(request.getCurrency()) || !to.getCurrency().equals(request.getCurrency())) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Transfer currency does not match account currency");
+        }
+
+        long amount;
+        try {
+            amount = Money.toMinorUnits(request.getAmount(), request.getCurrency());
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+
+        Transaction withdrawal = Transaction.builder()
+            .amount(amount)
+            .currency(request.getCurrency())
+            .type(TransactionTypes.WITHDRAWAL)
+            .build();
+        Transaction deposit = Transaction.builder()
+            .amount(amount)
+            .currency(request.getCurrency())
+            .type(TransactionTypes.DEPOSIT)
+            .createdTimestamp(withdrawal.getCreatedTimestamp())
+            .build();
+
+        switch (Ledger.transfer(from, withdrawal, to, deposit)) {
+            case INSUFFICIENT_FUNDS ->
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Insufficient funds to process transfer");
+            case ACCOUNT_CLOSED ->
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found");
+            case POSTED -> {
+            }
+        }
+
+        TransferResponse response = TransferResponse.builder()
+            .fromAccountNumber(from.getAccountNumber())
+            .toAccountNumber(to.getAccountNumber())
+            .amount(request.getAmount())
+            .currency(request.getCurrency())
+            .withdrawal(AccountsAPI.transactionToResponse(withdrawal))
+            .deposit(AccountsAPI.transactionToResponse(deposit))
+            .build();
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+}
@@ -16,7 +16,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.example.api.events.EventBus;
 import com.example.api.objects.User;
+import com.example.api.persistence.Journal;
+import com.example.api.registry.UserRegistry;
 import com.example.api.requests.CreateUserRequest;
 import com.example.api.requests.UpdateUserRequest;
 import com.example.api.responses.AuthUserResponse;
@@ -47,7 +50,10 @@ public class UserAPI {
         .email(request.email)
         .build();
 
-        User.users.put(newUser.getId(), newUser);
+        // Journal first, so a user the log could not take never becomes visible
+        Journal.userCreated(newUser);
+        UserRegistry.put(newUser);
+        EventBus.userCreated(newUser.getId());
                 // 2) Generate a JWT with subject = userId
         String token = jwtUtil.generateToken(newUser.getId());
 
@@ -64,9 +70,7 @@ public class UserAPI {
     @PreAuthorize("#userId == principal.id")
     @GetMapping(value = "/v1/users/{userId}", produces = "application/json")
     public ResponseEntity<UserResponse> getUser(@PathVariable("userId") String userId) {
-        System.out.println("Fetching user with ID: " + userId);
-        System.out.println("Current users in store: " + User.users.keySet());
-        User user = User.users.get(userId);
+        User user = UserRegistry.get(userId);
         if (user == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
         }
@@ -74,37 +78,41 @@ public class UserAPI {
     }
 
     @PatchMapping(value = "/v1/users/{userId}", consumes = "application/json", produces = "application/json")
-    public ResponseEntity<UserResponse> updateUser(@PathVariable("userId") String userId, @RequestBody UpdateUserRequest request) {
-        User existingUser = User.users.get(userId);
+    public ResponseEntity<UserResponse> updateUser(@PathVariable("userId") String userId, @Valid @RequestBody UpdateUserRequest request) {
+        User existingUser = UserRegistry.get(userId);
 
         if (existingUser == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
         }
 
-        if (request.name != null) {
-            existingUser.setName(request.name);
-        }
-        if (request.address != null) {
-            existingUser.setAddress(request.address);
-        }
-        if (request.phoneNumber != null) {
-            existingUser.setPhoneNumber(request.phoneNumber);
-        }
-        if (request.email != null) {
-            existingUser.setEmail(request.email);
-        }
-
-        User.users.put(userId, existingUser);
+        // Journal the updated details before applying them, as for a new user
+        User updated = User.builder()
+            .id(existingUser.getId())
+            .name(request.name != null ? request.name : existingUser.getName())
+            .address(request.address != null ? request.address : existingUser.getAddress())
+            .phoneNumber(request.phoneNumber != null ? request.phoneNumber : existingUser.getPhoneNumber())
+            .email(request.email != null ? request.email : existingUser.getEmail())
+            .createdTimestamp(existingUser.getCreatedTimestamp())
+            .updatedTimestamp(existingUser.getUpdatedTimestamp())
+            .accounts(existingUser.getAccounts())
+            .build();
+        Journal.userUpdated(updated);
+
+        existingUser.setName(updated.getName());
+        existingUser.setAddress(updated.getAddress());
+        existingUser.setPhoneNumber(updated.getPhoneNumber());
+        existingUser.setEmail(updated.getEmail());
 
         return ResponseEntity.ok().body(userToUserResponse(existingUser));
     }
 
     @DeleteMapping("/v1/users/{userId}")
     public ResponseEntity<String> deleteUser(@PathVariable("userId") String userId) {
-        if(!User.users.containsKey(userId)) {
+        if (UserRegistry.remove(userId) == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
         }
-        User.users.remove(userId);
+        Journal.userDeleted(userId);
+        EventBus.userDeleted(userId);
         return ResponseEntity.ok().body("Deleted user {userId} successfully".replace("{userId}", userId));
 
     }
@@ -0,0 +1,100 @@
+package com.example.api.ledger;
+
+import java.time.LocalDateTime;
+
+import com.example.api.registry.TransactionLog;
+
+/**
+ * Count, total, smallest and largest amount of an account's deposits and
+ * withdrawals created in a period, computed over primitive columns copied
+ * from the {@link TransactionLog} a block at a time.
+ *
+ * <p>With the {@code jdk.incubator.vector} module present (start the JVM
+ * with {@code --add-modules jdk.incubator.vector}) and
+ * {@link #setVectorized} on, each block is folded with SIMD instructions by
+ * {@link VectorAggregates}; otherwise by a plain loop that gives the same
+ * results. Totals are exact: one that does not fit in a {@code long} throws
+ * {@link ArithmeticException} rather than wrapping.</p>
+ */
+public final class Aggregates {
+
+    /** The totals of one transaction type; {@code min} and {@code max} are 0 when {@code count} is. */
+    public record Totals(long count, long sum, long min, long max) {
+    }
+
+    public record Result(Totals deposits, Totals withdrawals) {
+    }
+
+    // Rows copied per block: large enough to amortise the copy, small enough to stay in L2
+    static final int BLOCK = 4096;
+
+    // Running totals, at DEPOSITS or WITHDRAWALS plus COUNT, SUM, MIN or MAX. Withdrawals are magnitudes.
+    static final int DEPOSITS = 0;
+    static final int WITHDRAWALS = 4;
+    static final int COUNT = 0;
+    static final int SUM = 1;
+    static final int MIN = 2;
+    static final int MAX = 3;
+
+    private static final boolean VECTOR_SUPPORTED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+        && VectorAggregates.isUseful();
+
+    private static volatile boolean vectorized = VECTOR_SUPPORTED;
+
+    private Aggregates() {
+    }
+
+    /** Use SIMD where the JVM supports it (the default), or always the scalar loop. */
+    public static void setVectorized(boolean enabled) {
+        vectorized = enabled && VECTOR_SUPPORTED;
+    }
+
+    public static boolean isVectorized() {
+        return vectorized;
+    }
+
+    /**
+     * Aggregate the transactions with {@code from <= createdTimestamp < to}
+     * among the first {@code count} of {@code history}. Either bound may be
+     * {@code null} for an open range.
+     */
+    public static Result compute(TransactionLog history, int count, LocalDateTime from, LocalDateTime to) {
+        long lower = from == null ? Long.MIN_VALUE : TransactionLog.epochNanos(from);
+        long upper = to == null ? Long.MAX_VALUE : TransactionLog.epochNanos(to) - 1;
+        long[] totals = {0, 0, Long.MAX_VALUE, 0, 0, 0, Long.MAX_VALUE, 0};
+        long[] amounts = new long[BLOCK];
+        long[] created = new long[BLOCK];
+        boolean simd = vectorized;
+        for (int first = 1; first <= count; first += BLOCK) {
+            int rows = Math.min(BLOCK, count - first + 1);
+            history.copyColumns(first, rows, amounts, created);
+            if (simd) {
+                VectorAggregates.accumulate(amounts, created, rows, lower, upper, totals);
+            } else {
+                accumulate(amounts, created, 0, rows, lower, upper, totals);
+            }
+        }
+        return new Result(totals(totals, DEPOSITS), totals(totals, WITHDRAWALS));
+    }
+
+    /** Fold rows {@code start} to {@code end} of a block into {@code totals}, created in {@code [lower, upper]}. */
+    static void accumulate(long[] amounts, long[] created, int start, int end, long lower, long upper, long[] totals) {
+        for (int i = start; i < end; i++) {
+            long amount = amounts[i];
+            if (amount == 0 || created[i] < lower || created[i] > upper) {
+                continue;
+            }
+            int type = amount > 0 ? DEPOSITS : WITHDRAWALS;
+            long magnitude = Math.abs(amount);
+            totals[type + COUNT]++;
+            totals[type + SUM] = Math.addExact(totals[type + SUM], magnitude);
+            totals[type + MIN] = Math.min(totals[type + MIN], magnitude);
+            totals[type + MAX] = Math.max(totals[type + MAX], magnitude);
+        }
+    }
+
+    private static Totals totals(long[] totals, int type) {
+        long count = totals[type + COUNT];
+        return new Totals(count, totals[type + SUM], count == 0 ? 0 : totals[type + MIN], totals[type + MAX]);
+    }
+}
@@ -0,0 +1,345 @@
+package com.example.api.ledger;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.example.api.events.EventBus;
+import com.example.api.metrics.AccountLockWaitEvent;
+import com.example.api.metrics.Metrics;
+import com.example.api.objects.Account;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.objects.User;
+import com.example.api.persistence.Journal;
+import com.example.api.registry.TieredTransactionLog;
+import com.example.api.registry.UserRegistry;
+
+/**
+ * Posting engine for account balances. Balances and amounts are {@code long}
+ * minor units (see {@link Money}), so the arithmetic on the posting path is
+ * exact and does not allocate. Every accepted posting is recorded in the
+ * {@link Journal}.
+ *
+ * <p>Accounts listed with {@link #setHotAccounts} take deposits through a
+ * {@link ShardedBalance} instead of the account lock, so their deposit
+ * throughput scales with cores. Their balance and history lag behind until
+ * {@link #settle} is called, which every read does.</p>
+ */
+public final class Ledger {
+
+    /** Returned by {@link #apply} when a withdrawal would overdraw the account. */
+    public static final long INSUFFICIENT_FUNDS = Long.MIN_VALUE;
+
+    /** How a {@link #transfer} ended. */
+    public enum TransferOutcomes {
+        POSTED,
+        INSUFFICIENT_FUNDS,
+        /** One of the accounts was deleted before the transfer could lock it. */
+        ACCOUNT_CLOSED
+    }
+
+    private static volatile Set<String> hotAccounts = Set.of();
+
+    private Ledger() {
+    }
+
+    /**
+     * Give these accounts striped sub-balances. An account picks them up on
+     * its next posting, including accounts created later.
+     */
+    public static void setHotAccounts(Set<String> accountNumbers) {
+        hotAccounts = Set.copyOf(accountNumbers);
+    }
+
+    public static Set<String> hotAccounts() {
+        return hotAccounts;
+    }
+
+    /**
+     * Bring a hot account's balance, version and history up to date with
+     * every posting accepted so far. Does nothing for other accounts, and
+     * takes no lock if no posting is waiting to be settled.
+     */
+    public static void settle(Account account) {
+        ShardedBalance shards = account.getShards();
+        if (shards == null || !shards.hasPending()) {
+            return;
+        }
+        ReentrantLock lock = UserRegistry.accountLock(account.getAccountNumber());
+        AccountLockWaitEvent.lock(lock, account.getAccountNumber());
+        try {
+            shards.settle(account);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** {@link #settle} every hot account, so unsettled postings do not pile up between reads. */
+    public static void settleHotAccounts() {
+        for (String accountNumber : hotAccounts) {
+            Account account = UserRegistry.account(accountNumber);
+            if (account != null) {
+                settle(account);
+            }
+        }
+    }
+
+    /**
+     * Move transactions created before {@code olderThan} from memory to disk
+     * in every tiered account history (see {@link TieredTransactionLog}), in
+     * each account where at least {@code minimum} are ready to move. The
+     * writing happens without the account lock; postings only wait for the
+     * final switch-over.
+     *
+     * @return the number of transactions moved
+     */
+    public static long tierHistories(LocalDateTime olderThan, int minimum) {
+        long moved = 0;
+        for (User user : UserRegistry.users()) {
+            for (Account account : user.getAccounts().values()) {
+                if (!(account.getHistory() instanceof TieredTransactionLog history)) {
+                    continue;
+                }
+                TieredTransactionLog.Compaction compaction;
+                while ((compaction = history.prepareCompaction(olderThan, minimum)) != null) {
+                    ReentrantLock lock = UserRegistry.accountLock(account.getAccountNumber());
+                    AccountLockWaitEvent.lock(lock, account.getAccountNumber());
+                    try {
+                        compaction.commit();
+                    } finally {
+                        lock.unlock();
+                    }
+                    compaction.forget();
+                    moved += compaction.moved();
+                }
+            }
+        }
+        return moved;
+    }
+
+    /** The account's sub-balances, created under its lock the first time a hot account is posted to. */
+    private static ShardedBalance shardsFor(Account account) {
+        ShardedBalance shards = account.getShards();
+        if (shards != null || !hotAccounts.contains(account.getAccountNumber())) {
+            return shards;
+        }
+        ReentrantLock lock = UserRegistry.accountLock(account.getAccountNumber());
+        AccountLockWaitEvent.lock(lock, account.getAccountNumber());
+        try {
+            if (account.getShards() == null) {
+                account.setShards(new ShardedBalance());
+            }
+            return account.getShards();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Settle a hot account and keep its shards locked until {@link #release},
+     * so a record carrying its absolute balance can be logged.
+     */
+    private static ShardedBalance hold(Account account) {
+        ShardedBalance shards = account.getShards();
+        if (shards != null) {
+            shards.hold(account);
+        }
+        return shards;
+    }
+
+    private static void release(ShardedBalance shards) {
+        if (shards != null) {
+            shards.unlockAll();
+        }
+    }
+
+    /**
+     * Compute the balance after applying a posting.
+     *
+     * @param balance current balance in minor units
+     * @param type    deposit or withdrawal
+     * @param amount  positive amount in minor units
+     * @return the new balance, or {@link #INSUFFICIENT_FUNDS} if a withdrawal exceeds the balance
+     * @throws ArithmeticException if a deposit would overflow the balance
+     */
+    public static long apply(long balance, TransactionTypes type, long amount) {
+        if (type == TransactionTypes.DEPOSIT) {
+            return Math.addExact(balance, amount);
+        }
+        if (balance < amount) {
+            return INSUFFICIENT_FUNDS;
+        }
+        return balance - amount;
+    }
+
+    /**
+     * Post a transaction to the account: the funds check, recording the
+     * transaction and the balance update happen as one step. A deposit to a
+     * hot account only locks one of its shards.
+     *
+     * @return {@code true} if the transaction was posted, {@code false} if it was
+     *         rejected for insufficient funds
+     */
+    public static boolean post(Account account, Transaction transaction) {
+        ShardedBalance shards = shardsFor(account);
+        if (shards != null && transaction.getType() == TransactionTypes.DEPOSIT) {
+            shards.deposit(account, transaction);
+            return true;
+        }
+
+        long lsn;
+        ReentrantLock lock = UserRegistry.accountLock(account.getAccountNumber());
+        AccountLockWaitEvent.lock(lock, account.getAccountNumber());
+        try {
+            // Sub-balances may have been created since the check above
+            shards = account.getShards();
+            if (shards != null) {
+                lsn = shards.postToReserve(account, transaction);
+                if (lsn == INSUFFICIENT_FUNDS) {
+                    Metrics.insufficientFunds();
+                    return false;
+                }
+            } else {
+                long balance = apply(account.getBalance(), transaction.getType(), transaction.getAmount());
+                if (balance == INSUFFICIENT_FUNDS) {
+                    Metrics.insufficientFunds();
+                    return false;
+                }
+                // Log before applying, so a failed append leaves the account untouched
+                lsn = Journal.transactionPosted(account, transaction, balance);
+                account.addTransaction(transaction);
+                account.setBalance(balance);
+                EventBus.transactionCreated(account, transaction, balance);
+            }
+        } finally {
+            lock.unlock();
+        }
+        Journal.commit(lsn);
+        return true;
+    }
+
+    /**
+     * Move money between two accounts, which may belong to different users:
+     * the withdrawal from {@code from} and the deposit to {@code to} are
+     * checked, journaled as one record and applied together, so no reader
+     * ever sees the funds in both accounts or in neither.
+     *
+     * <p>Both account locks are held for the whole step. They are always
+     * taken in the order given by {@link UserRegistry#accountLocks}, so two
+     * transfers between the same accounts in opposite directions cannot
+     * deadlock. A hot account is settled first and its shards stay locked
+     * until the transfer is applied.</p>
+     *
+     * @param withdrawal the posting to {@code from}
+     * @param deposit    the posting to {@code to}, for the same amount
+     * @throws ArithmeticException if the deposit would overflow the balance of {@code to}
+     */
+    public static TransferOutcomes transfer(Account from, Transaction withdrawal, Account to, Transaction deposit) {
+        long lsn;
+        ReentrantLock[] locks = UserRegistry.accountLocks(from.getAccountNumber(), to.getAccountNumber());
+        for (ReentrantLock lock : locks) {
+            AccountLockWaitEvent.lock(lock, from.getAccountNumber(), to.getAccountNumber());
+        }
+        ShardedBalance fromShards = null;
+        ShardedBalance toShards = null;
+        try {
+            // Deleting an account takes its lock, so once locked a live account stays live
+            if (UserRegistry.account(from.getAccountNumber()) != from || UserRegistry.account(to.getAccountNumber()) != to) {
+                return TransferOutcomes.ACCOUNT_CLOSED;
+            }
+            fromShards = hold(from);
+            toShards = hold(to);
+            long fromBalance = apply(from.getBalance(), withdrawal.getType(), withdrawal.getAmount());
+            if (fromBalance == INSUFFICIENT_FUNDS) {
+                Metrics.insufficientFunds();
+                return TransferOutcomes.INSUFFICIENT_FUNDS;
+            }
+            long toBalance = apply(to.getBalance(), deposit.getType(), deposit.getAmount());
+
+            lsn = Journal.transferPosted(from, withdrawal, fromBalance, to, deposit, toBalance);
+            from.addTransaction(withdrawal);
+            from.setBalance(fromBalance);
+            to.addTransaction(deposit);
+            to.setBalance(toBalance);
+            EventBus.transactionCreated(from, withdrawal, fromBalance);
+            EventBus.transactionCreated(to, deposit, toBalance);
+        } finally {
+            release(toShards);
+            release(fromShards);
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+        }
+        Journal.commit(lsn);
+        return TransferOutcomes.POSTED;
+    }
+
+    /**
+     * Post several transactions to one account, taking its lock once. Funds
+     * are checked in order, so each transaction sees the balance left by the
+     * ones before it. Postings are journaled as a single record.
+     *
+     * <p>In atomic mode nothing is posted unless every transaction can be.
+     * Otherwise each transaction that fails the funds check is skipped and
+     * the rest are still posted; {@code null} entries are skipped too.</p>
+     *
+     * @param posted receives, per transaction, whether it was posted
+     * @return the index of the first transaction rejected for insufficient
+     *         funds, or -1 if there was none
+     */
+    public static int postBatch(Account account, List<Transaction> transactions, boolean atomic, boolean[] posted) {
+        int size = transactions.size();
+        Transaction[] accepted = new Transaction[size];
+        long[] balances = new long[size];
+        int count = 0;
+        int rejected = -1;
+        long lsn = 0;
+
+        ReentrantLock lock = UserRegistry.accountLock(account.getAccountNumber());
+        AccountLockWaitEvent.lock(lock, account.getAccountNumber());
+        ShardedBalance shards = null;
+        try {
+            shards = hold(account);
+            long balance = account.getBalance();
+            for (int i = 0; i < size; i++) {
+                Transaction transaction = transactions.get(i);
+                if (transaction == null) {
+                    continue;
+                }
+                long next = apply(balance, transaction.getType(), transaction.getAmount());
+                if (next == INSUFFICIENT_FUNDS) {
+                    Metrics.insufficientFunds();
+                    if (rejected < 0) {
+                        rejected = i;
+                    }
+                    if (atomic) {
+                        Arrays.fill(posted, false);
+                        return rejected;
+                    }
+                    continue;
+                }
+                balance = next;
+                posted[i] = true;
+                accepted[count] = transaction;
+                balances[count++] = next;
+            }
+            if (count > 0) {
+                lsn = Journal.transactionsPosted(account, accepted, balances, count);
+                // One version per posting, as replaying the record produces
+                for (int i = 0; i < count; i++) {
+                    account.addTransaction(accepted[i]);
+                    account.setBalance(balances[i]);
+                    EventBus.transactionCreated(account, accepted[i], balances[i]);
+                }
+            }
+        } finally {
+            release(shards);
+            lock.unlock();
+        }
+        Journal.commit(lsn);
+        return rejected;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.api.ledger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.util.unit.DataSize;
+
+import com.example.api.registry.ColdStore;
+import com.example.api.registry.TransactionLog;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Marks the accounts in {@code ledger.hot-accounts} as hot (see
+ * {@link ShardedBalance}) and settles them in the background every
+ * {@code ledger.hot-accounts.settle-interval}, so their history keeps up
+ * even when nobody reads them. Also chooses where account histories live
+ * with {@code ledger.transactions.off-heap} (see {@link TransactionLog}),
+ * which must happen before the journal restores any account, and whether
+ * {@link Aggregates} uses the Vector API with {@code ledger.aggregates.vectorized}.
+ *
+ * <p>With {@code ledger.transactions.tiered}, histories are tiered instead:
+ * every {@code compact-interval}, transactions older than {@code hot-age}
+ * are moved to a {@link ColdStore} in {@code directory} once an account has
+ * {@value #MIN_SEGMENT} of them. The store is emptied on every start, and a
+ * snapshot restores what was cold when it was taken straight back into it,
+ * so only the hot tiers and the journal tail are rebuilt on the heap; the
+ * first compaction runs as soon as the application is ready rather than a
+ * full interval later.</p>
+ */
+@Configuration
+public class LedgerConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerConfiguration.class);
+
+    /** Fewest transactions worth a cold segment; fewer would leave many tiny segments to search. */
+    static final int MIN_SEGMENT = 1024;
+
+    private final ScheduledExecutorService settler;
+    private final ColdStore coldStore;
+    private final ScheduledExecutorService compactor;
+    private final Duration hotAge;
+    private final Duration compactInterval;
+
+    public LedgerConfiguration(
+            @Value("${ledger.hot-accounts:}") Set<String> hotAccounts,
+            @Value("${ledger.hot-accounts.settle-interval:100ms}") Duration settleInterval,
+            @Value("${ledger.transactions.off-heap:false}") boolean offHeap,
+            @Value("${ledger.aggregates.vectorized:true}") boolean vectorized,
+            @Value("${ledger.transactions.tiered:false}") boolean tiered,
+            @Value("${ledger.transactions.tiered.directory:${java.io.tmpdir}/ledger-cold}") Path coldDirectory,
+            @Value("${ledger.transactions.tiered.page-cache-size:64MB}") DataSize pageCacheSize,
+            @Value("${ledger.transactions.tiered.hot-age:21d}") Duration hotAge,
+            @Value("${ledger.transactions.tiered.compact-interval:1h}") Duration compactInterval) throws IOException {
+        if (tiered && offHeap) {
+            throw new IllegalStateException("Set at most one of ledger.transactions.off-heap and ledger.transactions.tiered");
+        }
+        TransactionLog.setOffHeap(offHeap);
+        this.hotAge = hotAge;
+        this.compactInterval = compactInterval;
+        if (tiered) {
+            coldStore = ColdStore.open(coldDirectory, pageCacheSize.toBytes());
+            TransactionLog.setColdStore(coldStore);
+            compactor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("ledger-compact").daemon().factory());
+        } else {
+            coldStore = null;
+            compactor = null;
+        }
+        Aggregates.setVectorized(vectorized);
+        if (vectorized && !Aggregates.isVectorized()) {
+            log.info("Vector API unavailable (run with --add-modules jdk.incubator.vector); aggregates use scalar loops");
+        }
+        Ledger.setHotAccounts(hotAccounts);
+        if (hotAccounts.isEmpty() || !settleInterval.isPositive()) {
+            settler = null;
+            return;
+        }
+        settler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("ledger-settle").daemon().factory());
+        long period = settleInterval.toMillis();
+        settler.scheduleWithFixedDelay(this::settle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Start compacting once the journal has restored every account, which
+     * happens after this configuration is created.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startCompacting() {
+        if (compactor != null) {
+            compactor.scheduleWithFixedDelay(this::compact, 0, compactInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void settle() {
+        try {
+            Ledger.settleHotAccounts();
+        } catch (RuntimeException ex) {
+            log.error("Settling hot accounts failed", ex);
+        }
+    }
+
+    private void compact() {
+        try {
+            long moved = Ledger.tierHistories(LocalDateTime.now().minus(hotAge), MIN_SEGMENT);
+            if (moved > 0) {
+                log.info("Moved {} transactions to cold storage", moved);
+            }
+        } catch (RuntimeException ex) {
+            log.error("Compacting transaction histories failed", ex);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        if (settler != null) {
+            settler.shutdownNow();
+        }
+        Ledger.setHotAccounts(Set.of());
+        TransactionLog.setOffHeap(false);
+        if (coldStore != null) {
+            compactor.shutdownNow();
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+            TransactionLog.setColdStore(null);
+            coldStore.close();
+        }
+    }
+}
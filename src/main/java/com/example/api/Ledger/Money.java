@@ -0,0 +1,57 @@
+package com.example.api.ledger;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+/**
+ * Conversions between the decimal amounts used in the JSON API and the
+ * {@code long} minor units (pence, cents, ...) the ledger stores.
+ *
+ * <p>The scale of each currency is its ISO 4217 number of fraction digits,
+ * so {@code 10.99 GBP} is stored as {@code 1099}. Conversions only happen
+ * when a request is read or a response is written; everything in between
+ * works on primitive {@code long}s.</p>
+ */
+public final class Money {
+
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L
+    };
+
+    private Money() {
+    }
+
+    /**
+     * Number of minor-unit digits for the currency, e.g. 2 for GBP and 0 for JPY.
+     *
+     * @throws IllegalArgumentException if the code is not a known ISO 4217 currency
+     */
+    public static int scale(String currency) {
+        int digits = Currency.getInstance(currency).getDefaultFractionDigits();
+        if (digits < 0 || digits >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("Unsupported currency " + currency);
+        }
+        return digits;
+    }
+
+    /**
+     * Convert a decimal amount to minor units.
+     *
+     * @throws IllegalArgumentException if the amount has more decimal places than
+     *         the currency allows or does not fit in a {@code long}
+     */
+    public static long toMinorUnits(double amount, String currency) {
+        try {
+            return BigDecimal.valueOf(amount).movePointRight(scale(currency)).longValueExact();
+        } catch (ArithmeticException | NumberFormatException ex) {
+            throw new IllegalArgumentException("Amount " + amount + " is not a valid " + currency + " amount", ex);
+        }
+    }
+
+    /**
+     * Convert minor units back to the decimal amount shown to clients.
+     */
+    public static double toMajorUnits(long minorUnits, String currency) {
+        return (double) minorUnits / POWERS_OF_TEN[scale(currency)];
+    }
+}
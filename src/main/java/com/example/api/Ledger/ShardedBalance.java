@@ -0,0 +1,262 @@
+package com.example.api.ledger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.example.api.events.Event;
+import com.example.api.events.EventBus;
+import com.example.api.metrics.AccountLockWaitEvent;
+import com.example.api.objects.Account;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.persistence.Journal;
+
+/**
+ * Striped sub-balances for an account that takes far more deposits than one
+ * lock and one balance field can absorb.
+ *
+ * <p>A deposit locks only the shard picked by its thread, journals itself as
+ * a delta ({@link Journal#transactionApplied}) and adds to that shard's
+ * total; the account lock and the account's balance are not touched, so
+ * deposits on different shards run in parallel. The account's own balance
+ * becomes a reserve that withdrawals draw on under the account lock.</p>
+ *
+ * <p>{@link #settle} folds every shard into the reserve and appends the
+ * waiting postings to the account's history in journal order, so sequence
+ * numbers match what replay produces. It runs on every read of the balance
+ * or history that finds postings waiting ({@link #hasPending()} needs no
+ * lock), whenever a withdrawal finds the reserve short, and periodically in
+ * the background.</p>
+ *
+ * <p>Every deposit first claims its amount against the reserve plus all
+ * deposits not yet settled, so a deposit that could overflow the balance is
+ * rejected when it is posted rather than wrapping the balance when it is
+ * settled.</p>
+ *
+ * <p>Lock order is the account lock, then shards in index order.</p>
+ */
+public final class ShardedBalance {
+
+    // A power of two between one and two per core
+    private static final int SHARDS = Math.min(64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) << 1);
+
+    /**
+     * A posting applied to a shard but not yet to the account's history.
+     * {@code order} is its journal LSN, or without a journal a number from
+     * the account's own sequence.
+     */
+    private record Pending(long order, Transaction transaction) {
+    }
+
+    private static final class Shard {
+        final ReentrantLock lock = new ReentrantLock();
+        // Guarded by lock
+        long deposited;
+        int deposits;
+        List<Pending> pending = new ArrayList<>();
+        // Set under lock whenever pending is not empty, read without it
+        volatile boolean waiting;
+        // Keep neighbouring shards' counters off each other's cache line
+        @SuppressWarnings("unused")
+        long p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    private final Shard[] shards;
+    private final AtomicLong sequence = new AtomicLong();
+    // Deposits claimed but not yet folded into the reserve
+    private final AtomicLong unsettled = new AtomicLong();
+
+    public ShardedBalance() {
+        shards = new Shard[SHARDS];
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    private Shard shard() {
+        return shards[(int) (Thread.currentThread().threadId() & (SHARDS - 1))];
+    }
+
+    /**
+     * Add a deposit to this thread's shard.
+     *
+     * @throws ArithmeticException if the balance could overflow once the deposit is settled
+     */
+    void deposit(Account account, Transaction transaction) {
+        long lsn;
+        Shard shard = shard();
+        AccountLockWaitEvent.lockShard(shard.lock, account.getAccountNumber());
+        try {
+            long deposited = Math.addExact(shard.deposited, transaction.getAmount());
+            claim(account, transaction.getAmount());
+            try {
+                lsn = Journal.transactionApplied(account, transaction);
+            } catch (RuntimeException ex) {
+                unsettled.addAndGet(-transaction.getAmount());
+                throw ex;
+            }
+            queue(shard, lsn, transaction);
+            EventBus.transactionCreated(account, transaction, Event.NO_BALANCE);
+            shard.deposited = deposited;
+            shard.deposits++;
+        } finally {
+            shard.lock.unlock();
+        }
+        Journal.commit(lsn);
+    }
+
+    /**
+     * Post against the reserve under the account lock, settling first if the
+     * reserve is short. Withdrawals come here, and so does a deposit that
+     * raced with this object's creation. The caller holds the account lock
+     * and commits the returned LSN once it is released.
+     *
+     * @return the record's LSN (0 if no log is attached), or
+     *         {@link Ledger#INSUFFICIENT_FUNDS} if even the settled balance is short
+     * @throws ArithmeticException if a deposit could overflow the balance
+     */
+    long postToReserve(Account account, Transaction transaction) {
+        if (transaction.getType() != TransactionTypes.DEPOSIT) {
+            return postLocked(account, transaction);
+        }
+        // Hold the claim until the balance includes the deposit, so concurrent shard deposits count it
+        claim(account, transaction.getAmount());
+        try {
+            return postLocked(account, transaction);
+        } finally {
+            unsettled.addAndGet(-transaction.getAmount());
+        }
+    }
+
+    private long postLocked(Account account, Transaction transaction) {
+        long balance = Ledger.apply(account.getBalance(), transaction.getType(), transaction.getAmount());
+        if (balance == Ledger.INSUFFICIENT_FUNDS) {
+            settle(account);
+            balance = Ledger.apply(account.getBalance(), transaction.getType(), transaction.getAmount());
+            if (balance == Ledger.INSUFFICIENT_FUNDS) {
+                return Ledger.INSUFFICIENT_FUNDS;
+            }
+        }
+        // Queue behind the shard's deposits so the history keeps journal order
+        Shard shard = shard();
+        AccountLockWaitEvent.lockShard(shard.lock, account.getAccountNumber());
+        try {
+            long lsn = Journal.transactionApplied(account, transaction);
+            queue(shard, lsn, transaction);
+            account.setBalance(balance);
+            // Unsettled deposits are missing from the balance, so it is no balance to report
+            EventBus.transactionCreated(account, transaction, Event.NO_BALANCE);
+            return lsn;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Claim room for a deposit of {@code amount} on top of the reserve and
+     * every unsettled deposit.
+     *
+     * @throws ArithmeticException if the total would overflow
+     */
+    private void claim(Account account, long amount) {
+        while (true) {
+            long claimed = unsettled.get();
+            // Read after the claims: settling adds to the reserve before releasing them, so this never undercounts
+            Math.addExact(Math.addExact(claimed, account.getBalance()), amount);
+            if (unsettled.compareAndSet(claimed, claimed + amount)) {
+                return;
+            }
+        }
+    }
+
+    /** Add a posting to a locked shard's pending list. */
+    private void queue(Shard shard, long lsn, Transaction transaction) {
+        // Without a journal every LSN is 0, which would leave the order across shards arbitrary
+        shard.pending.add(new Pending(lsn > 0 ? lsn : sequence.incrementAndGet(), transaction));
+        shard.waiting = true;
+    }
+
+    /**
+     * Whether any shard holds postings not yet settled. Takes no lock, so
+     * a read can skip {@link #settle} when there is nothing to fold in.
+     */
+    boolean hasPending() {
+        for (Shard shard : shards) {
+            if (shard.waiting) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fold every shard into the account's balance and history. The caller
+     * holds the account lock.
+     */
+    void settle(Account account) {
+        lockAll(account);
+        try {
+            settleLocked(account);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Settle and keep every shard locked, so the balance stays exact and no
+     * delta can be journaled until {@link #unlockAll()}. Used before logging
+     * a record that carries the absolute balance. The caller holds the
+     * account lock.
+     */
+    void hold(Account account) {
+        lockAll(account);
+        settleLocked(account);
+    }
+
+    void unlockAll() {
+        for (int i = SHARDS - 1; i >= 0; i--) {
+            shards[i].lock.unlock();
+        }
+    }
+
+    private void lockAll(Account account) {
+        for (Shard shard : shards) {
+            AccountLockWaitEvent.lockShard(shard.lock, account.getAccountNumber());
+        }
+    }
+
+    private void settleLocked(Account account) {
+        long deposited = 0;
+        int deposits = 0;
+        for (Shard shard : shards) {
+            deposited = Math.addExact(deposited, shard.deposited);
+            deposits += shard.deposits;
+        }
+        // Claims keep this in range; should it ever not be, fail before any shard is emptied
+        Math.addExact(account.getBalance(), deposited);
+
+        List<Pending> pending = new ArrayList<>();
+        for (Shard shard : shards) {
+            if (shard.pending.isEmpty()) {
+                continue;
+            }
+            pending.addAll(shard.pending);
+            shard.deposited = 0;
+            shard.deposits = 0;
+            shard.pending = new ArrayList<>();
+            shard.waiting = false;
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        pending.sort(Comparator.comparingLong(Pending::order));
+        for (Pending posting : pending) {
+            account.addTransaction(posting.transaction());
+        }
+        account.addToBalance(deposited, deposits);
+        unsettled.addAndGet(-deposited);
+    }
+}
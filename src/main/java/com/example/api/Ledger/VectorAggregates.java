@@ -0,0 +1,82 @@
+package com.example.api.ledger;
+
+import static com.example.api.ledger.Aggregates.COUNT;
+import static com.example.api.ledger.Aggregates.DEPOSITS;
+import static com.example.api.ledger.Aggregates.MAX;
+import static com.example.api.ledger.Aggregates.MIN;
+import static com.example.api.ledger.Aggregates.SUM;
+import static com.example.api.ledger.Aggregates.WITHDRAWALS;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The SIMD version of {@link Aggregates#accumulate}, one lane per row.
+ * Only loaded once {@link Aggregates} has checked the incubator module is
+ * present, so the rest of the ledger runs without it.
+ *
+ * <p>Lanes can't detect overflow, so each magnitude is summed as its high
+ * and low 32 bits, which cannot overflow within a block, and the two are
+ * combined with exact arithmetic once per block.</p>
+ */
+final class VectorAggregates {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    private static final long LOW_BITS = 0xFFFF_FFFFL;
+
+    private VectorAggregates() {
+    }
+
+    /** Whether the hardware has vectors of more than one {@code long}; without, the scalar loop is faster. */
+    static boolean isUseful() {
+        return SPECIES.length() > 1;
+    }
+
+    static void accumulate(long[] amounts, long[] created, int count, long lower, long upper, long[] totals) {
+        LongVector zero = LongVector.zero(SPECIES);
+        LongVector depositHigh = zero, depositLow = zero, withdrawalHigh = zero, withdrawalLow = zero;
+        LongVector depositMin = LongVector.broadcast(SPECIES, Long.MAX_VALUE), withdrawalMin = depositMin;
+        LongVector depositMax = zero, withdrawalMax = zero;
+        long deposits = 0;
+        long withdrawals = 0;
+
+        int bound = SPECIES.loopBound(count);
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            LongVector time = LongVector.fromArray(SPECIES, created, i);
+            LongVector amount = LongVector.fromArray(SPECIES, amounts, i);
+            VectorMask<Long> inRange = time.compare(VectorOperators.GE, lower).and(time.compare(VectorOperators.LE, upper));
+            VectorMask<Long> deposit = inRange.and(amount.compare(VectorOperators.GT, 0));
+            VectorMask<Long> withdrawal = inRange.and(amount.compare(VectorOperators.LT, 0));
+
+            LongVector magnitude = amount.abs();
+            LongVector high = magnitude.lanewise(VectorOperators.LSHR, 32);
+            LongVector low = magnitude.and(LOW_BITS);
+            depositHigh = depositHigh.add(high, deposit);
+            depositLow = depositLow.add(low, deposit);
+            withdrawalHigh = withdrawalHigh.add(high, withdrawal);
+            withdrawalLow = withdrawalLow.add(low, withdrawal);
+            depositMin = depositMin.lanewise(VectorOperators.MIN, magnitude, deposit);
+            depositMax = depositMax.lanewise(VectorOperators.MAX, magnitude, deposit);
+            withdrawalMin = withdrawalMin.lanewise(VectorOperators.MIN, magnitude, withdrawal);
+            withdrawalMax = withdrawalMax.lanewise(VectorOperators.MAX, magnitude, withdrawal);
+            deposits += deposit.trueCount();
+            withdrawals += withdrawal.trueCount();
+        }
+
+        fold(totals, DEPOSITS, deposits, depositHigh, depositLow, depositMin, depositMax);
+        fold(totals, WITHDRAWALS, withdrawals, withdrawalHigh, withdrawalLow, withdrawalMin, withdrawalMax);
+        Aggregates.accumulate(amounts, created, bound, count, lower, upper, totals);
+    }
+
+    private static void fold(long[] totals, int type, long count, LongVector high, LongVector low, LongVector min, LongVector max) {
+        long sum = Math.addExact(
+            Math.multiplyExact(high.reduceLanes(VectorOperators.ADD), 1L << 32),
+            low.reduceLanes(VectorOperators.ADD));
+        totals[type + COUNT] += count;
+        totals[type + SUM] = Math.addExact(totals[type + SUM], sum);
+        totals[type + MIN] = Math.min(totals[type + MIN], min.reduceLanes(VectorOperators.MIN));
+        totals[type + MAX] = Math.max(totals[type + MAX], max.reduceLanes(VectorOperators.MAX));
+    }
+}
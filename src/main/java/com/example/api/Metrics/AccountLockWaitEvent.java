@@ -0,0 +1,63 @@
+package com.example.api.metrics;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Time a thread spent blocked on an account lock or a hot account's shard
+ * lock. Only emitted when the lock was actually held by someone else.
+ */
+@Name("com.example.api.AccountLockWait")
+@Label("Account Lock Wait")
+@Category({"Ledger API"})
+@Description("Blocked waiting for an account lock held by another thread")
+public class AccountLockWaitEvent extends jdk.jfr.Event {
+
+    @Label("Account Number")
+    @Description("The account, or both accounts of a transfer, whose lock was wanted")
+    public String accountNumber;
+
+    @Label("Shard")
+    @Description("The lock was one of a hot account's shard locks rather than the account lock")
+    public boolean shard;
+
+    /**
+     * Acquire the lock, recording how long it took if another thread held
+     * it. An uncontended lock costs one {@code tryLock}.
+     */
+    public static void lock(ReentrantLock lock, String accountNumber) {
+        if (!lock.tryLock()) {
+            await(lock, accountNumber, false);
+        }
+    }
+
+    /** {@link #lock(ReentrantLock, String)} for one of the two locks a transfer takes. */
+    public static void lock(ReentrantLock lock, String from, String to) {
+        if (!lock.tryLock()) {
+            await(lock, from + "," + to, false);
+        }
+    }
+
+    /** {@link #lock(ReentrantLock, String)} for a hot account's shard lock. */
+    public static void lockShard(ReentrantLock lock, String accountNumber) {
+        if (!lock.tryLock()) {
+            await(lock, accountNumber, true);
+        }
+    }
+
+    private static void await(ReentrantLock lock, String accountNumber, boolean shard) {
+        AccountLockWaitEvent event = new AccountLockWaitEvent();
+        event.begin();
+        lock.lock();
+        event.end();
+        if (event.shouldCommit()) {
+            event.accountNumber = accountNumber;
+            event.shard = shard;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.api.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts durations into fixed buckets from 10µs to 10s, in the 1-2.5-5
+ * steps Prometheus clients use. Recording is a few comparisons and two
+ * {@link LongAdder} increments, so concurrent callers never lock and
+ * rarely contend.
+ */
+public final class LatencyHistogram {
+
+    /** Bucket upper bounds in seconds; a final bucket takes everything slower. */
+    static final double[] BOUNDS = {
+        0.00001, 0.000025, 0.00005,
+        0.0001, 0.00025, 0.0005,
+        0.001, 0.0025, 0.005,
+        0.01, 0.025, 0.05,
+        0.1, 0.25, 0.5,
+        1, 2.5, 5,
+        10
+    };
+
+    private static final long[] BOUNDS_NANOS = new long[BOUNDS.length];
+
+    static {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            BOUNDS_NANOS[i] = Math.round(BOUNDS[i] * 1e9);
+        }
+    }
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        int bucket = 0;
+        while (bucket < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        sumNanos.add(nanos);
+    }
+
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        sumNanos.reset();
+    }
+
+    /**
+     * Count per bucket, not cumulative; the last entry is the overflow
+     * bucket. Buckets are read one by one while others may still record,
+     * so the copy is close to, not exactly, a single instant.
+     */
+    public long[] counts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    public double sumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+
+    /**
+     * Estimate a quantile from bucket counts, interpolating linearly inside
+     * the bucket it falls in, as Prometheus' {@code histogram_quantile}
+     * does.
+     *
+     * @param q between 0 and 1
+     * @return the estimate in seconds, {@code NaN} if nothing was recorded
+     */
+    public static double quantile(long[] counts, double q) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return Double.NaN;
+        }
+        double rank = q * total;
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (cumulative + counts[i] >= rank && counts[i] > 0) {
+                if (i == BOUNDS.length) {
+                    // Nothing to interpolate towards beyond the last bound
+                    return BOUNDS[BOUNDS.length - 1];
+                }
+                double lower = i == 0 ? 0 : BOUNDS[i - 1];
+                return lower + (BOUNDS[i] - lower) * (rank - cumulative) / counts[i];
+            }
+            cumulative += counts[i];
+        }
+        return BOUNDS[BOUNDS.length - 1];
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.api.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.example.api.events.EventBus;
+import com.example.api.registry.ColdStore;
+import com.example.api.registry.TransactionLog;
+import com.example.api.registry.UserRegistry;
+
+/**
+ * Process-wide metrics, written out in the Prometheus text format by
+ * {@link #scrape()}.
+ *
+ * <p>Recording never locks: histograms and counters are built on
+ * {@link LongAdder}, and a request series is looked up in a
+ * {@link ConcurrentHashMap} that only writes the first time a route, method
+ * and status combination is seen. Methods other than the standard ones
+ * share the {@link #OTHER_METHOD} label, so clients inventing methods
+ * cannot grow the set of series. Ledger sizes come from counts the
+ * {@link UserRegistry} keeps as users, accounts and transactions come and
+ * go, so a scrape costs the same however large the ledger is.</p>
+ */
+public final class Metrics {
+
+    /** Route label for requests that never reached a handler, such as ones rejected by authentication. */
+    public static final String UNMATCHED = "UNMATCHED";
+
+    /** Method label for any request method that is not a standard HTTP one. */
+    public static final String OTHER_METHOD = "OTHER";
+
+    private static final Set<String> METHODS = Set.of("GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE");
+
+    static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private record RequestSeries(String method, String uri, int status, LatencyHistogram latency) {
+    }
+
+    private static final ConcurrentHashMap<String, RequestSeries> REQUESTS = new ConcurrentHashMap<>();
+    private static final LatencyHistogram JWT_VALIDATION = new LatencyHistogram();
+    private static final LongAdder INSUFFICIENT_FUNDS = new LongAdder();
+    private static final LongAdder RATE_LIMITED = new LongAdder();
+    private static final LongAdder STREAMS_OPEN = new LongAdder();
+    private static final LongAdder STREAMS_COALESCED = new LongAdder();
+
+    private Metrics() {
+    }
+
+    /**
+     * @param uri the route template, such as {@code /v1/accounts/{accountNumber}}, never the raw path
+     */
+    public static void recordRequest(String method, String uri, int status, long nanos) {
+        String label = METHODS.contains(method) ? method : OTHER_METHOD;
+        String key = label + ' ' + uri + ' ' + status;
+        RequestSeries series = REQUESTS.get(key);
+        if (series == null) {
+            series = REQUESTS.computeIfAbsent(key, k -> new RequestSeries(label, uri, status, new LatencyHistogram()));
+        }
+        series.latency().record(nanos);
+    }
+
+    public static void recordJwtValidation(long nanos) {
+        JWT_VALIDATION.record(nanos);
+    }
+
+    /** A posting, batch item or transfer turned down because the account could not cover it. */
+    public static void insufficientFunds() {
+        INSUFFICIENT_FUNDS.increment();
+    }
+
+    /** A request turned away with 429 because its user exceeded the rate limit. */
+    public static void rateLimited() {
+        RATE_LIMITED.increment();
+    }
+
+    public static void streamOpened() {
+        STREAMS_OPEN.increment();
+    }
+
+    public static void streamClosed() {
+        STREAMS_OPEN.decrement();
+    }
+
+    /** An account stream's client fell a whole queue behind, so its updates are being coalesced. */
+    public static void streamCoalesced() {
+        STREAMS_COALESCED.increment();
+    }
+
+    /** Forget every recorded value, for tests. */
+    public static void reset() {
+        REQUESTS.clear();
+        JWT_VALIDATION.reset();
+        INSUFFICIENT_FUNDS.reset();
+        RATE_LIMITED.reset();
+        STREAMS_COALESCED.reset();
+    }
+
+    /** Every metric in the Prometheus text exposition format, version 0.0.4. */
+    public static String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+
+        List<RequestSeries> requests = new ArrayList<>(REQUESTS.values());
+        requests.sort(Comparator.comparing(RequestSeries::uri)
+            .thenComparing(RequestSeries::method)
+            .thenComparingInt(RequestSeries::status));
+        List<String> labels = new ArrayList<>(requests.size());
+        List<long[]> counts = new ArrayList<>(requests.size());
+        List<Double> sums = new ArrayList<>(requests.size());
+        for (RequestSeries series : requests) {
+            labels.add("method=\"" + escape(series.method()) + "\",uri=\"" + escape(series.uri())
+                + "\",status=\"" + series.status() + "\"");
+            counts.add(series.latency().counts());
+            sums.add(series.latency().sumSeconds());
+        }
+        histogram(out, "http_server_requests_seconds", "Time to handle an HTTP request, by route.", labels, counts, sums);
+
+        long[] jwt = JWT_VALIDATION.counts();
+        histogram(out, "jwt_validation_seconds", "Time to validate a bearer token, including cache hits.",
+            List.of(""), List.of(jwt), List.of(JWT_VALIDATION.sumSeconds()));
+
+        header(out, "ledger_postings_rejected_total", "counter", "Postings turned down, by reason.");
+        out.append("ledger_postings_rejected_total{reason=\"insufficient_funds\"} ").append(INSUFFICIENT_FUNDS.sum()).append('\n');
+
+        header(out, "http_requests_rate_limited_total", "counter", "Requests rejected with 429 by the per-user rate limit.");
+        out.append("http_requests_rate_limited_total ").append(RATE_LIMITED.sum()).append('\n');
+
+        header(out, "account_streams_open", "gauge", "Open account update streams.");
+        out.append("account_streams_open ").append(STREAMS_OPEN.sum()).append('\n');
+        header(out, "account_streams_coalesced_total", "counter", "Times an account stream fell a whole queue behind and had its updates coalesced.");
+        out.append("account_streams_coalesced_total ").append(STREAMS_COALESCED.sum()).append('\n');
+
+        RequestLog requestLog = RequestLog.active();
+        if (requestLog != null) {
+            header(out, "request_log_dropped_total", "counter", "Request log entries dropped because the writer fell behind.");
+            out.append("request_log_dropped_total ").append(requestLog.dropped()).append('\n');
+        }
+
+        EventBus bus = EventBus.active();
+        if (bus != null) {
+            List<EventBus.Subscription> subscriptions = bus.subscriptions();
+            header(out, "events_published_total", "counter", "Events published to the in-process event bus.");
+            out.append("events_published_total ").append(bus.published()).append('\n');
+            header(out, "events_lag", "gauge", "Events published but not yet read, by subscriber.");
+            for (EventBus.Subscription subscription : subscriptions) {
+                out.append("events_lag{consumer=\"").append(escape(subscription.name())).append("\"} ")
+                    .append(subscription.lag()).append('\n');
+            }
+            header(out, "events_lost_total", "counter", "Events overwritten before a subscriber read them, by subscriber.");
+            for (EventBus.Subscription subscription : subscriptions) {
+                out.append("events_lost_total{consumer=\"").append(escape(subscription.name())).append("\"} ")
+                    .append(subscription.lost()).append('\n');
+            }
+        }
+
+        ColdStore coldStore = TransactionLog.coldStore();
+        if (coldStore != null) {
+            header(out, "ledger_cold_transactions", "gauge", "Transactions moved from memory to on-disk cold segments.");
+            out.append("ledger_cold_transactions ").append(coldStore.transactions()).append('\n');
+            header(out, "ledger_cold_bytes", "gauge", "Size of the cold segment file.");
+            out.append("ledger_cold_bytes ").append(coldStore.bytes()).append('\n');
+            header(out, "ledger_cold_page_cache_requests_total", "counter", "Cold segment page reads, by whether the page cache held the page.");
+            out.append("ledger_cold_page_cache_requests_total{result=\"hit\"} ").append(coldStore.pageCacheHits()).append('\n');
+            out.append("ledger_cold_page_cache_requests_total{result=\"miss\"} ").append(coldStore.pageCacheMisses()).append('\n');
+        }
+
+        gauge(out, "ledger_users", "Registered users.", UserRegistry.size());
+        gauge(out, "ledger_accounts", "Open bank accounts.", UserRegistry.accountCount());
+        gauge(out, "ledger_transactions", "Transactions held across all accounts.", UserRegistry.transactionCount());
+        return out.toString();
+    }
+
+    private static void histogram(StringBuilder out, String name, String help,
+            List<String> labels, List<long[]> counts, List<Double> sums) {
+        header(out, name, "histogram", help);
+        for (int s = 0; s < labels.size(); s++) {
+            String prefix = labels.get(s).isEmpty() ? "" : labels.get(s) + ",";
+            String suffix = labels.get(s).isEmpty() ? "" : "{" + labels.get(s) + "}";
+            long cumulative = 0;
+            long[] buckets = counts.get(s);
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i];
+                String le = i < LatencyHistogram.BOUNDS.length ? number(LatencyHistogram.BOUNDS[i]) : "+Inf";
+                out.append(name).append("_bucket{").append(prefix).append("le=\"").append(le).append("\"} ")
+                    .append(cumulative).append('\n');
+            }
+            out.append(name).append("_sum").append(suffix).append(' ').append(number(sums.get(s))).append('\n');
+            out.append(name).append("_count").append(suffix).append(' ').append(cumulative).append('\n');
+        }
+
+        // The same buckets as ready-made percentiles, for dashboards without histogram_quantile
+        String quantiles = name + "_quantile";
+        header(out, quantiles, "gauge", "p50, p99 and p999 of " + name + " since start-up, estimated from its buckets.");
+        for (int s = 0; s < labels.size(); s++) {
+            String prefix = labels.get(s).isEmpty() ? "" : labels.get(s) + ",";
+            for (double q : QUANTILES) {
+                out.append(quantiles).append('{').append(prefix).append("quantile=\"").append(number(q)).append("\"} ")
+                    .append(number(LatencyHistogram.quantile(counts.get(s), q))).append('\n');
+            }
+        }
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, long value) {
+        header(out, name, "gauge", help);
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /** Java's double formatting ({@code 1.0E-5}, {@code NaN}) is valid in the exposition format. */
+    private static String number(double value) {
+        return Double.toString(value);
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.api.metrics;
+
+import java.io.IOException;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Times every request from before authentication until the handler
+ * returns, labelled by the matched route template so account numbers and
+ * IDs do not become separate series. Streaming responses are timed until
+ * the handler hands the body over, not until the last byte is written.
+ * The same timing goes to the {@link RequestLog}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MetricsFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long nanos = System.nanoTime() - start;
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String route = pattern == null ? Metrics.UNMATCHED : pattern.toString();
+            Metrics.recordRequest(request.getMethod(), route, response.getStatus(), nanos);
+            RequestLog.record(request.getMethod(), route, response.getStatus(),
+                (String) request.getAttribute(RequestLog.USER_ID), nanos);
+        }
+    }
+}
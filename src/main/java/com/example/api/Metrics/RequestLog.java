@@ -0,0 +1,200 @@
+package com.example.api.metrics;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * One JSON line per request, handed from request threads to a single writer
+ * through a bounded ring buffer.
+ *
+ * <p>The buffer is an array of preallocated slots. A request thread claims a
+ * slot with one CAS, copies the request's fields into it and publishes it by
+ * setting the slot's sequence; the writer reads published slots in order and
+ * hands them back. Recording never locks, waits or allocates: if the writer
+ * has fallen a whole buffer behind, the entry is dropped and counted
+ * instead.</p>
+ *
+ * <p>Requests are sampled at {@code sampleRate}; server errors are always
+ * kept.</p>
+ */
+public final class RequestLog {
+
+    /** Request attribute under which authentication leaves the caller's user ID. */
+    public static final String USER_ID = RequestLog.class.getName() + ".userId";
+
+    private static volatile RequestLog active;
+
+    private static final class Slot {
+        // The position this slot may next be written at, or that plus one once published
+        volatile long sequence;
+        long timestampMillis;
+        String method;
+        String route;
+        int status;
+        String userId;
+        long nanos;
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final double sampleRate;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    // Only touched by the writer
+    private long head;
+    private final StringBuilder line = new StringBuilder(256);
+
+    /**
+     * @param capacity   entries the writer may fall behind by, rounded up to a power of two
+     * @param sampleRate fraction of requests below HTTP 500 to log, from 0 to 1
+     */
+    public RequestLog(int capacity, double sampleRate) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        }
+        if (!(sampleRate >= 0 && sampleRate <= 1)) {
+            throw new IllegalArgumentException("sampleRate must be between 0 and 1");
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+            slots[i].sequence = i;
+        }
+        this.mask = size - 1;
+        this.sampleRate = sampleRate;
+    }
+
+    /** Route {@link #record(String, String, int, String, long)} to this log. */
+    public static void attach(RequestLog log) {
+        active = log;
+    }
+
+    public static void detach() {
+        active = null;
+    }
+
+    /** The attached log, if any. */
+    public static RequestLog active() {
+        return active;
+    }
+
+    /** Log a request to the attached log; does nothing if none is attached. */
+    public static void record(String method, String route, int status, String userId, long nanos) {
+        RequestLog log = active;
+        if (log != null) {
+            log.add(method, route, status, userId, nanos);
+        }
+    }
+
+    /**
+     * @param route  the route template, as for {@link Metrics#recordRequest}
+     * @param userId the authenticated caller, or {@code null}
+     * @return whether the entry was queued; {@code false} if sampled out or dropped
+     */
+    public boolean add(String method, String route, int status, String userId, long nanos) {
+        if (status < 500 && sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return false;
+        }
+        long position = tail.get();
+        Slot slot;
+        while (true) {
+            slot = slots[(int) (position & mask)];
+            long ahead = slot.sequence - position;
+            if (ahead == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (ahead < 0) {
+                // The writer has not freed this slot from the previous lap
+                dropped.increment();
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+        slot.timestampMillis = System.currentTimeMillis();
+        slot.method = method;
+        slot.route = route;
+        slot.status = status;
+        slot.userId = userId;
+        slot.nanos = nanos;
+        slot.sequence = position + 1;
+        return true;
+    }
+
+    /**
+     * Encode every published entry as a JSON line and pass it to the sink,
+     * in the order the entries were queued. Only one thread may drain.
+     *
+     * @return the number of lines written
+     */
+    public int drain(Consumer<String> sink) {
+        int drained = 0;
+        while (true) {
+            Slot slot = slots[(int) (head & mask)];
+            if (slot.sequence != head + 1) {
+                return drained;
+            }
+            encode(slot);
+            slot.method = null;
+            slot.route = null;
+            slot.userId = null;
+            slot.sequence = head + slots.length;
+            head++;
+            sink.accept(line.toString());
+            drained++;
+        }
+    }
+
+    /** Entries thrown away because the buffer was full. */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    private void encode(Slot slot) {
+        line.setLength(0);
+        line.append("{\"timestamp\":\"");
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(slot.timestampMillis), line);
+        line.append("\",\"method\":");
+        string(slot.method);
+        line.append(",\"route\":");
+        string(slot.route);
+        line.append(",\"status\":").append(slot.status);
+        line.append(",\"userId\":");
+        string(slot.userId);
+        line.append(",\"durationMicros\":").append(slot.nanos / 1_000);
+        line.append('}');
+    }
+
+    private void string(String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.api.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Configuration;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Attaches a {@link RequestLog} sized by {@code ledger.request-log.buffer-size}
+ * and starts the thread that writes it out to the {@code com.example.api.requests}
+ * logger, polling every {@code ledger.request-log.poll-interval} when idle.
+ * A {@code ledger.request-log.sample-rate} of 0 turns request logging off.
+ */
+@Configuration
+@ConditionalOnExpression("${ledger.request-log.sample-rate:1.0} > 0")
+public class RequestLogConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestLogConfiguration.class);
+    private static final Logger requests = LoggerFactory.getLogger("com.example.api.requests");
+
+    private final RequestLog requestLog;
+    private final long pollNanos;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public RequestLogConfiguration(
+            @Value("${ledger.request-log.buffer-size:8192}") int bufferSize,
+            @Value("${ledger.request-log.sample-rate:1.0}") double sampleRate,
+            @Value("${ledger.request-log.poll-interval:1ms}") Duration pollInterval) {
+        this.requestLog = new RequestLog(bufferSize, sampleRate);
+        this.pollNanos = pollInterval.toNanos();
+        RequestLog.attach(requestLog);
+        this.writer = Thread.ofPlatform().name("request-log").daemon().start(this::write);
+    }
+
+    private void write() {
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(pollNanos);
+            }
+        }
+        drain();
+    }
+
+    private int drain() {
+        try {
+            return requestLog.drain(requests::info);
+        } catch (RuntimeException ex) {
+            log.error("Writing the request log failed", ex);
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        RequestLog.detach();
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.api.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Validation of one bearer token by {@code JwtAuthFilter}. */
+@Name("com.example.api.TokenValidation")
+@Label("Token Validation")
+@Category({"Ledger API"})
+@Description("Bearer token validation, from the verified-token cache or in full")
+@StackTrace(false)
+public class TokenValidationEvent extends jdk.jfr.Event {
+
+    @Label("Cache Hit")
+    @Description("The token had already been verified and was answered from the cache")
+    public boolean cacheHit;
+
+    @Label("Valid")
+    public boolean valid;
+}
@@ -0,0 +1,41 @@
+package com.example.api.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One {@code POST /v1/accounts/{accountNumber}/transactions}, from the
+ * handler being called to it returning or throwing.
+ */
+@Name("com.example.api.TransactionPost")
+@Label("Transaction Post")
+@Category({"Ledger API"})
+@Description("Posting of a single transaction through the HTTP API")
+@StackTrace(false)
+public class TransactionPostEvent extends jdk.jfr.Event {
+
+    public static final String POSTED = "POSTED";
+    public static final String REPLAYED = "REPLAYED";
+    public static final String INSUFFICIENT_FUNDS = "INSUFFICIENT_FUNDS";
+    public static final String REJECTED = "REJECTED";
+
+    @Label("Account Number")
+    public String accountNumber;
+
+    @Label("Amount")
+    @Description("Amount as requested, in major units of the currency")
+    public double amount;
+
+    @Label("Currency")
+    public String currency;
+
+    @Label("Type")
+    public String type;
+
+    @Label("Outcome")
+    @Description("POSTED, REPLAYED for a repeated Idempotency-Key, INSUFFICIENT_FUNDS or REJECTED")
+    public String outcome;
+}
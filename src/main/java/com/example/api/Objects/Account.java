@@ -1,11 +1,15 @@
 package com.example.api.objects;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
+
+import com.example.api.ledger.ShardedBalance;
+import com.example.api.registry.TransactionLog;
+import com.example.api.registry.UserRegistry;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -28,6 +32,9 @@ public class Account {
     @Pattern(regexp = "^01\\d{6}$", message = "Account number must be 01 followed by 6 digits")
     private String accountNumber;
 
+    /** Id of the {@link User} that owns this account. */
+    private String userId;
+
     @NotBlank(message = "Sort code cannot be blank")
     private String sortCode;
 
@@ -37,11 +44,26 @@ public class Account {
     @NotBlank(message = "Account type cannot be blank")
     private AccountTypes accountType;
 
-    @NotNull(message = "Balance cannot be null")
-    private Double balance;
+    /**
+     * Balance in minor units of {@link #currency} (see
+     * {@link com.example.api.ledger.Money}) and the account version, which
+     * goes up by one with every posting and every update to the account.
+     * The two are one immutable value in a volatile field, so a reader never
+     * sees a balance with another state's version. Changes are made under
+     * the account lock ({@link com.example.api.registry.UserRegistry#accountLock}),
+     * so the writes below need no compare-and-set.
+     */
+    public record Balance(long amount, long version) {
+    }
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @Builder.Default
+    private volatile Balance state = new Balance(0, 0);
 
     @NotBlank(message = "Currency cannot be blank")
-    private String currency;
+    @Builder.Default
+    private String currency = "GBP";
 
     @Builder.Default
     private LocalDateTime createdTimestamp = LocalDateTime.now();
@@ -49,11 +71,70 @@ public class Account {
     @Builder.Default
     private LocalDateTime updatedTimestamp = LocalDateTime.now();
 
+    /** The account's transactions in the order they were posted, indexed by ID and creation time. */
     @Builder.Default
-    private HashMap<String, Transaction> transactions = new HashMap<>();
+    private TransactionLog history = TransactionLog.create();
+
+    /**
+     * Striped sub-balances if this is a hot account, otherwise {@code null}.
+     * While set, {@link #getBalance()} excludes deposits not yet settled; see
+     * {@link com.example.api.ledger.Ledger#settle}.
+     */
+    private volatile ShardedBalance shards;
+
+    public static class AccountBuilder {
+        /** Opening balance in minor units, at version 0. */
+        public AccountBuilder balance(long balance) {
+            return state(new Balance(balance, 0));
+        }
+    }
+
+    public long getBalance() {
+        return state.amount();
+    }
+
+    public long getVersion() {
+        return state.version();
+    }
+
+    /** The balance and version as one consistent value. */
+    public Balance getBalanceState() {
+        return state;
+    }
+
+    /** Set the balance, moving to the next version. The caller holds the account lock. */
+    public void setBalance(long amount) {
+        state = new Balance(amount, state.version() + 1);
+    }
+
+    /**
+     * Add {@code delta} to the balance, moving on one version per posting it
+     * covers. The caller holds the account lock.
+     *
+     * @throws ArithmeticException if the balance would overflow; it is left unchanged
+     */
+    public void addToBalance(long delta, long postings) {
+        Balance current = state;
+        state = new Balance(Math.addExact(current.amount(), delta), current.version() + postings);
+    }
+
+    /**
+     * Move to the next version without changing the balance, for an update
+     * to the account's details. The caller holds the account lock.
+     */
+    public void nextVersion() {
+        Balance current = state;
+        state = new Balance(current.amount(), current.version() + 1);
+    }
+
+    /** Restore a saved balance and version as they were. */
+    public void restoreBalance(long amount, long version) {
+        state = new Balance(amount, version);
+    }
 
     public void addTransaction(@NotNull Transaction transaction) {
-        transactions.put(transaction.getId(), transaction);
+        history.append(transaction);
+        UserRegistry.transactionsAdded(1);
     }
 
 }
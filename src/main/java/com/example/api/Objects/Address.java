@@ -1,6 +1,7 @@
 package com.example.api.objects;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -15,17 +16,23 @@ import lombok.Setter;
 public class Address {
 
         @NotBlank(message = "Address line 1 cannot be blank")
+        @Size(max = 255, message = "Address line 1 cannot exceed 255 characters")
         private String line1;
+        @Size(max = 255, message = "Address line 2 cannot exceed 255 characters")
         private String line2;
+        @Size(max = 255, message = "Address line 3 cannot exceed 255 characters")
         private String line3;
         
         @NotBlank(message = "Town cannot be blank")
+        @Size(max = 255, message = "Town cannot exceed 255 characters")
         private String town;
         
         @NotBlank(message = "County cannot be blank")
+        @Size(max = 255, message = "County cannot exceed 255 characters")
         private String county;
         
         @NotBlank(message = "Postcode cannot be blank")
+        @Size(max = 16, message = "Postcode cannot exceed 16 characters")
         private String postcode;
     
 }
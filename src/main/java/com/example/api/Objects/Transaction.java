@@ -6,7 +6,6 @@ import com.example.api.utilities.IDGenerator;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
@@ -31,10 +30,9 @@ public class Transaction {
     @Builder.Default
     private String id = IDGenerator.generateTransactionId();
 
+    /** Amount in minor units of {@link #currency}, see {@link com.example.api.ledger.Money}. */
     @Positive(message = "Amount must be greater than 0")
-    @NotNull(message = "Amount cannot be null")
-    @Valid
-    private Double amount;
+    private long amount;
 
     @NotBlank(message = "Currency cannot be blank")
     @Valid
@@ -1,8 +1,9 @@
 package com.example.api.objects;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.example.api.registry.UserRegistry;
 
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -19,8 +20,6 @@ import lombok.Setter;
 @Setter
 public class User {
 
-    public static final Map<String, User> users = new HashMap<>();
-
     @Pattern(regexp = "^usr-[A-Za-z0-9]+$", message = "ID must start with 'usr-' followed by alphanumeric characters")
     private String id;
 
@@ -41,7 +40,8 @@ public class User {
     @Builder.Default
     private LocalDateTime updatedTimestamp = LocalDateTime.now();
 
-    private HashMap<String, Account> accounts;
+    @Builder.Default
+    private ConcurrentHashMap<String, Account> accounts = UserRegistry.newMap();
 
 
 }
@@ -0,0 +1,381 @@
+package com.example.api.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.example.api.objects.Account;
+import com.example.api.objects.Address;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.User;
+import com.example.api.registry.UserRegistry;
+import com.example.api.utilities.IDGenerator;
+
+/**
+ * Records every user, account and transaction mutation in the
+ * {@link WriteAheadLog}, and rebuilds the {@link UserRegistry} from it on
+ * start-up.
+ *
+ * <p>Until a log is attached by {@link JournalConfiguration} every method is
+ * a no-op, so handlers can be used without any persistence (as in unit
+ * tests). Replaying a record is idempotent: applying it to a registry that
+ * already reflects it changes nothing. A posting is recognised by its
+ * transaction ID, which stays unique across restarts because every ID read
+ * back is reported to {@link IDGenerator#issued(String)} before new ones
+ * are issued.</p>
+ */
+public final class Journal {
+
+    static final byte USER_CREATED = 1;
+    static final byte USER_UPDATED = 2;
+    static final byte USER_DELETED = 3;
+    static final byte ACCOUNT_CREATED = 4;
+    static final byte ACCOUNT_UPDATED = 5;
+    static final byte ACCOUNT_DELETED = 6;
+    static final byte TRANSACTION_POSTED = 7;
+    static final byte TRANSACTIONS_POSTED = 8;
+    static final byte TRANSFER_POSTED = 9;
+    static final byte TRANSACTION_APPLIED = 10;
+
+    private static volatile WriteAheadLog wal;
+    private static volatile boolean syncCommit;
+
+    private Journal() {
+    }
+
+    /**
+     * Start journaling to the given log.
+     *
+     * @param sync whether mutations wait for their record to be forced to disk
+     */
+    public static void attach(WriteAheadLog log, boolean sync) {
+        syncCommit = sync;
+        wal = log;
+    }
+
+    public static void detach() {
+        wal = null;
+    }
+
+    public static void userCreated(User user) {
+        WriteAheadLog log = wal;
+        if (log != null) {
+            commit(log.append(USER_CREATED, out -> writeUser(out, user)));
+        }
+    }
+
+    public static void userUpdated(User user) {
+        WriteAheadLog log = wal;
+        if (log != null) {
+            commit(log.append(USER_UPDATED, out -> writeUser(out, user)));
+        }
+    }
+
+    public static void userDeleted(String userId) {
+        WriteAheadLog log = wal;
+        if (log != null) {
+            commit(log.append(USER_DELETED, out -> Records.putString(out, userId)));
+        }
+    }
+
+    public static void accountCreated(Account account) {
+        WriteAheadLog log = wal;
+        if (log != null) {
+            commit(log.append(ACCOUNT_CREATED, out -> writeAccount(out, account)));
+        }
+    }
+
+    public static void accountUpdated(Account account) {
+        WriteAheadLog log = wal;
+        if (log != null) {
+            commit(log.append(ACCOUNT_UPDATED, out -> {
+                writeAccount(out, account);
+                out.putLong(account.getVersion());
+            }));
+        }
+    }
+
+    public static void accountDeleted(Account account) {
+        WriteAheadLog log = wal;
+        if (log != null) {
+            commit(log.append(ACCOUNT_DELETED, out -> {
+                Records.putString(out, account.getUserId());
+                Records.putString(out, account.getAccountNumber());
+            }));
+        }
+    }
+
+    /**
+     * Append a posting. Called while the account lock is held so records for
+     * one account are logged in the order they are applied; the caller passes
+     * the returned LSN to {@link #commit(long)} once the lock is released.
+     *
+     * @param balanceAfter the account balance once this posting is applied
+     * @return the record's LSN, or 0 if no log is attached
+     */
+    public static long transactionPosted(Account account, Transaction transaction, long balanceAfter) {
+        WriteAheadLog log = wal;
+        if (log == null) {
+            return 0;
+        }
+        return log.append(TRANSACTION_POSTED, out -> {
+            Records.putString(out, account.getUserId());
+            Records.putString(out, account.getAccountNumber());
+            writeTransaction(out, transaction);
+            out.putLong(balanceAfter);
+        });
+    }
+
+    /**
+     * Append a batch of postings to one account as a single record, so replay
+     * sees either all of them or none. Called while the account lock is held.
+     *
+     * @param balancesAfter the account balance once each posting is applied
+     * @param count         number of leading entries to log
+     * @return the record's LSN, or 0 if no log is attached
+     */
+    public static long transactionsPosted(Account account, Transaction[] transactions, long[] balancesAfter, int count) {
+        WriteAheadLog log = wal;
+        if (log == null) {
+            return 0;
+        }
+        return log.append(TRANSACTIONS_POSTED, out -> {
+            Records.putString(out, account.getUserId());
+            Records.putString(out, account.getAccountNumber());
+            out.putInt(count);
+            for (int i = 0; i < count; i++) {
+                writeTransaction(out, transactions[i]);
+                out.putLong(balancesAfter[i]);
+            }
+        });
+    }
+
+    /**
+     * Append both legs of a transfer as a single record, so replay sees either
+     * both of them or neither. Called while both account locks are held.
+     *
+     * @return the record's LSN, or 0 if no log is attached
+     */
+    public static long transferPosted(Account from, Transaction withdrawal, long fromBalanceAfter,
+            Account to, Transaction deposit, long toBalanceAfter) {
+        WriteAheadLog log = wal;
+        if (log == null) {
+            return 0;
+        }
+        return log.append(TRANSFER_POSTED, out -> {
+            Records.putString(out, from.getUserId());
+            Records.putString(out, from.getAccountNumber());
+            writeTransaction(out, withdrawal);
+            out.putLong(fromBalanceAfter);
+            Records.putString(out, to.getUserId());
+            Records.putString(out, to.getAccountNumber());
+            writeTransaction(out, deposit);
+            out.putLong(toBalanceAfter);
+        });
+    }
+
+    /**
+     * Append a posting to a hot account, which replay adds to whatever the
+     * balance is rather than setting it. Called while the posting's
+     * {@link com.example.api.ledger.ShardedBalance} shard is locked.
+     *
+     * @return the record's LSN, or 0 if no log is attached
+     */
+    public static long transactionApplied(Account account, Transaction transaction) {
+        WriteAheadLog log = wal;
+        if (log == null) {
+            return 0;
+        }
+        return log.append(TRANSACTION_APPLIED, out -> {
+            Records.putString(out, account.getUserId());
+            Records.putString(out, account.getAccountNumber());
+            writeTransaction(out, transaction);
+        });
+    }
+
+    /**
+     * Wait for the record to reach the disk if sync commit is enabled.
+     */
+    public static void commit(long lsn) {
+        WriteAheadLog log = wal;
+        if (log != null && syncCommit && lsn > 0) {
+            log.awaitDurable(lsn);
+        }
+    }
+
+    /**
+     * Apply every record after {@code afterLsn} to the {@link UserRegistry}.
+     *
+     * @return the LSN of the last record in the log
+     */
+    public static long replay(WriteAheadLog log, long afterLsn) throws IOException {
+        return log.replay(afterLsn, Journal::apply);
+    }
+
+    static void apply(long lsn, byte type, ByteBuffer in) {
+        switch (type) {
+            case USER_CREATED, USER_UPDATED -> {
+                User user = readUser(in);
+                User existing = UserRegistry.get(user.getId());
+                if (existing == null) {
+                    UserRegistry.put(user);
+                } else {
+                    existing.setName(user.getName());
+                    existing.setAddress(user.getAddress());
+                    existing.setPhoneNumber(user.getPhoneNumber());
+                    existing.setEmail(user.getEmail());
+                    existing.setUpdatedTimestamp(user.getUpdatedTimestamp());
+                }
+            }
+            case USER_DELETED -> UserRegistry.remove(Records.getString(in));
+            case ACCOUNT_CREATED, ACCOUNT_UPDATED -> {
+                Account account = readAccount(in);
+                long version = type == ACCOUNT_UPDATED ? in.getLong() : 0;
+                // The number stays issued even if the owner has since gone
+                UserRegistry.accountNumberIssued(account.getAccountNumber());
+                User owner = UserRegistry.get(account.getUserId());
+                if (owner == null) {
+                    return;
+                }
+                account.restoreBalance(0, version);
+                Account existing = owner.getAccounts().putIfAbsent(account.getAccountNumber(), account);
+                if (existing != null) {
+                    existing.setName(account.getName());
+                    existing.setAccountType(account.getAccountType());
+                    existing.setUpdatedTimestamp(account.getUpdatedTimestamp());
+                    // Restore the version the update produced, never moving back past a snapshot or later postings
+                    if (version > existing.getVersion()) {
+                        existing.restoreBalance(existing.getBalance(), version);
+                    }
+                } else {
+                    UserRegistry.indexAccount(account);
+                }
+            }
+            case ACCOUNT_DELETED -> {
+                User owner = UserRegistry.get(Records.getString(in));
+                String accountNumber = Records.getString(in);
+                Account removed = owner == null ? null : owner.getAccounts().remove(accountNumber);
+                if (removed != null) {
+                    UserRegistry.unindexAccount(removed);
+                }
+            }
+            case TRANSACTION_POSTED, TRANSACTIONS_POSTED -> {
+                Account account = readAccountRef(in);
+                int count = type == TRANSACTIONS_POSTED ? in.getInt() : 1;
+                for (int i = 0; i < count; i++) {
+                    applyPosting(account, readTransaction(in), in.getLong());
+                }
+            }
+            case TRANSFER_POSTED -> {
+                Account from = readAccountRef(in);
+                applyPosting(from, readTransaction(in), in.getLong());
+                Account to = readAccountRef(in);
+                applyPosting(to, readTransaction(in), in.getLong());
+            }
+            case TRANSACTION_APPLIED -> {
+                Account account = readAccountRef(in);
+                Transaction transaction = readTransaction(in);
+                if (account != null) {
+                    long delta = transaction.getType() == Transaction.TransactionTypes.DEPOSIT
+                        ? transaction.getAmount() : -transaction.getAmount();
+                    applyPosting(account, transaction, account.getBalance() + delta);
+                }
+            }
+            default -> throw new IllegalStateException("Unknown journal record type " + type + " at LSN " + lsn);
+        }
+    }
+
+    /** Read a user ID and account number; {@code null} if either no longer exists. */
+    private static Account readAccountRef(ByteBuffer in) {
+        User owner = UserRegistry.get(Records.getString(in));
+        String accountNumber = Records.getString(in);
+        return owner == null ? null : owner.getAccounts().get(accountNumber);
+    }
+
+    private static void applyPosting(Account account, Transaction transaction, long balanceAfter) {
+        if (account != null && account.getHistory().find(transaction.getId()) == null) {
+            account.addTransaction(transaction);
+            account.setBalance(balanceAfter);
+        }
+    }
+
+    static void writeUser(ByteBuffer out, User user) {
+        Records.putString(out, user.getId());
+        Records.putString(out, user.getName());
+        Records.putString(out, user.getPhoneNumber());
+        Records.putString(out, user.getEmail());
+        Address address = user.getAddress();
+        Records.putString(out, address.getLine1());
+        Records.putString(out, address.getLine2());
+        Records.putString(out, address.getLine3());
+        Records.putString(out, address.getTown());
+        Records.putString(out, address.getCounty());
+        Records.putString(out, address.getPostcode());
+        Records.putTimestamp(out, user.getCreatedTimestamp());
+        Records.putTimestamp(out, user.getUpdatedTimestamp());
+    }
+
+    static User readUser(ByteBuffer in) {
+        User user = User.builder()
+            .id(Records.getString(in))
+            .name(Records.getString(in))
+            .phoneNumber(Records.getString(in))
+            .email(Records.getString(in))
+            .address(Address.builder()
+                .line1(Records.getString(in))
+                .line2(Records.getString(in))
+                .line3(Records.getString(in))
+                .town(Records.getString(in))
+                .county(Records.getString(in))
+                .postcode(Records.getString(in))
+                .build())
+            .createdTimestamp(Records.getTimestamp(in))
+            .updatedTimestamp(Records.getTimestamp(in))
+            .build();
+        IDGenerator.issued(user.getId());
+        return user;
+    }
+
+    static void writeAccount(ByteBuffer out, Account account) {
+        Records.putString(out, account.getUserId());
+        Records.putString(out, account.getAccountNumber());
+        Records.putString(out, account.getSortCode());
+        Records.putString(out, account.getName());
+        Records.putEnum(out, account.getAccountType());
+        Records.putString(out, account.getCurrency());
+        Records.putTimestamp(out, account.getCreatedTimestamp());
+        Records.putTimestamp(out, account.getUpdatedTimestamp());
+    }
+
+    static Account readAccount(ByteBuffer in) {
+        return Account.builder()
+            .userId(Records.getString(in))
+            .accountNumber(Records.getString(in))
+            .sortCode(Records.getString(in))
+            .name(Records.getString(in))
+            .accountType(Records.getEnum(in, Account.AccountTypes.values()))
+            .currency(Records.getString(in))
+            .createdTimestamp(Records.getTimestamp(in))
+            .updatedTimestamp(Records.getTimestamp(in))
+            .build();
+    }
+
+    static void writeTransaction(ByteBuffer out, Transaction transaction) {
+        Records.putString(out, transaction.getId());
+        Records.putEnum(out, transaction.getType());
+        out.putLong(transaction.getAmount());
+        Records.putString(out, transaction.getCurrency());
+        Records.putTimestamp(out, transaction.getCreatedTimestamp());
+    }
+
+    static Transaction readTransaction(ByteBuffer in) {
+        Transaction transaction = Transaction.builder()
+            .id(Records.getString(in))
+            .type(Records.getEnum(in, Transaction.TransactionTypes.values()))
+            .amount(in.getLong())
+            .currency(Records.getString(in))
+            .createdTimestamp(Records.getTimestamp(in))
+            .build();
+        IDGenerator.issued(transaction.getId());
+        return transaction;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.api.persistence;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Opens the write-ahead log when {@code ledger.journal.dir} is set, restores
+ * the registry from the latest snapshot plus the journal after it, and
+ * attaches the log to the {@link Journal}. Spring creates this before the web
+ * server starts accepting requests, so handlers never see a partially
+ * restored ledger. Snapshots are then taken in the background every
+ * {@code ledger.snapshot.interval}. Waits for {@code LedgerConfiguration} so
+ * restored accounts get the configured history backend.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ledger.journal.dir")
+@DependsOn("ledgerConfiguration")
+public class JournalConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalConfiguration.class);
+
+    private final Path dir;
+    private final WriteAheadLog wal;
+    private final int retain;
+    private final ScheduledExecutorService snapshotter;
+
+    public JournalConfiguration(
+            @Value("${ledger.journal.dir}") String dir,
+            @Value("${ledger.journal.segment-size:67108864}") int segmentSize,
+            @Value("${ledger.journal.flush-interval:1ms}") Duration flushInterval,
+            @Value("${ledger.journal.sync-commit:false}") boolean syncCommit,
+            @Value("${ledger.snapshot.interval:5m}") Duration snapshotInterval,
+            @Value("${ledger.snapshot.retain:2}") int retain) throws IOException {
+        this.dir = Path.of(dir);
+        this.wal = WriteAheadLog.open(this.dir, segmentSize, flushInterval);
+        this.retain = retain;
+
+        long start = System.nanoTime();
+        long lastLsn = Snapshots.restore(this.dir, wal);
+        log.info("Restored ledger from {} up to LSN {} in {} ms", dir, lastLsn, (System.nanoTime() - start) / 1_000_000);
+
+        Journal.attach(wal, syncCommit);
+
+        this.snapshotter = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("ledger-snapshot").daemon().factory());
+        if (snapshotInterval.isPositive()) {
+            long period = snapshotInterval.toMillis();
+            snapshotter.scheduleWithFixedDelay(this::snapshot, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void snapshot() {
+        try {
+            Snapshots.take(dir, wal, retain);
+        } catch (IOException | RuntimeException ex) {
+            log.error("Snapshot failed", ex);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        snapshotter.shutdown();
+        try {
+            snapshotter.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        Journal.detach();
+        wal.close();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.api.persistence;
+
+/**
+ * Thrown by {@link WriteAheadLog#append} when a record does not fit in the
+ * largest record the log accepts. Nothing is written, so the mutation it
+ * describes must not be applied either.
+ */
+public class RecordTooLargeException extends IllegalArgumentException {
+
+    public RecordTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,432 @@
+package com.example.api.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.api.ledger.Ledger;
+import com.example.api.metrics.AccountLockWaitEvent;
+import com.example.api.objects.Account;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.User;
+import com.example.api.registry.TieredTransactionLog;
+import com.example.api.registry.TransactionLog;
+import com.example.api.registry.UserRegistry;
+
+/**
+ * Compact binary snapshots of the whole {@link UserRegistry}, so start-up
+ * only has to replay the journal written after the latest one.
+ *
+ * <p>A snapshot is taken while writers keep running. It records the last
+ * journal LSN before it starts, then reads every account's balance and
+ * history size under its account lock, so each account is captured exactly
+ * as of some point in its own journal history. The transactions themselves
+ * are copied afterwards, a batch at a time and without the lock, since a
+ * history only ever grows past the size that was read. Some accounts may already include postings logged after
+ * that LSN; replaying the tail skips those, because journal records are
+ * idempotent.</p>
+ *
+ * <p>File layout: a 16 byte header ({@code magic}, {@code version}, LSN)
+ * followed by chunks of the form {@code [length:int][crc32c:int][type:byte][payload]}.
+ * {@code USERS} chunks hold users and their accounts with balances, versions
+ * and how many of their oldest transactions were in a cold tier;
+ * {@code TRANSACTIONS} chunks hold runs of transactions for one or more
+ * accounts in posting order, each tagged with the sequence number of its
+ * first transaction. A large account is split across several chunks. A
+ * final {@code END} chunk marks a complete file and carries the highest
+ * account number issued, so numbers of deleted accounts stay retired. Chunks are independent, so
+ * loading decodes them in parallel: all user chunks first, then all
+ * transaction chunks.</p>
+ */
+public final class Snapshots {
+
+    private static final Logger log = LoggerFactory.getLogger(Snapshots.class);
+
+    private static final int MAGIC = 0x4C454453;
+    private static final int VERSION = 4;
+    private static final int FILE_HEADER = 16;
+    private static final int CHUNK_HEADER = 4 + 4 + 1;
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final int COPY_BATCH = 1024;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final byte USERS = 1;
+    private static final byte TRANSACTIONS = 2;
+    private static final byte END = 3;
+
+    private Snapshots() {
+    }
+
+    /**
+     * Write a snapshot of the registry to {@code dir}, then delete snapshots
+     * beyond the newest {@code retain} and the journal segments that only the
+     * deleted ones needed.
+     *
+     * @return the snapshot file
+     */
+    public static Path take(Path dir, WriteAheadLog wal, int retain) throws IOException {
+        if (retain < 1) {
+            throw new IllegalArgumentException("At least one snapshot must be retained");
+        }
+        long lsn = wal.lastLsn();
+        Path file = dir.resolve(String.format("%s%016d%s", PREFIX, lsn, SUFFIX));
+        Path temp = dir.resolve(file.getFileName() + TEMP_SUFFIX);
+
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER).putInt(MAGIC).putInt(VERSION).putLong(lsn);
+            write(channel, header.flip());
+            writeRegistry(channel);
+            // Read after the accounts are written, so it covers every one of them
+            long lastAccountNumber = UserRegistry.lastAccountNumber();
+            ChunkWriter end = new ChunkWriter(channel, END);
+            end.put(out -> out.putLong(lsn).putLong(lastAccountNumber));
+            end.emit();
+            channel.force(true);
+        }
+        // The snapshot may include postings logged after lsn; make sure they are durable first
+        wal.flush();
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+
+        List<Path> snapshots = list(dir);
+        for (int i = 0; i < snapshots.size() - retain; i++) {
+            Files.delete(snapshots.get(i));
+        }
+        long oldest = lsnOf(snapshots.get(Math.max(0, snapshots.size() - retain)));
+        int segments = wal.truncateBefore(oldest);
+        log.info("Wrote snapshot {} ({} bytes), deleted {} journal segments",
+            file.getFileName(), Files.size(file), segments);
+        return file;
+    }
+
+    /**
+     * Rebuild the registry from the newest readable snapshot in {@code dir}
+     * and the journal records after it. Falls back to older snapshots, and
+     * finally to the whole journal, if a snapshot is damaged.
+     *
+     * @return the LSN of the last journal record
+     */
+    public static long restore(Path dir, WriteAheadLog wal) throws IOException {
+        List<Path> snapshots = list(dir);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Path file = snapshots.get(i);
+            try {
+                UserRegistry.clear();
+                long lsn = load(file);
+                if (lsn > wal.lastLsn()) {
+                    throw new IOException("Journal ends at LSN " + wal.lastLsn() + ", before the snapshot");
+                }
+                return Journal.replay(wal, lsn);
+            } catch (IOException | RuntimeException ex) {
+                log.warn("Could not restore from snapshot {}, trying an older one", file.getFileName(), ex);
+            }
+        }
+        UserRegistry.clear();
+        return Journal.replay(wal, 0);
+    }
+
+    /**
+     * Load a snapshot into the registry.
+     *
+     * @return the journal LSN the snapshot was taken at
+     * @throws IOException if the file is incomplete or fails its checksum
+     */
+    public static long load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = read(channel, 0, FILE_HEADER);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a ledger snapshot: " + file);
+            }
+            long lsn = header.getLong();
+
+            List<long[]> users = new ArrayList<>();
+            List<long[]> transactions = new ArrayList<>();
+            long[] end = null;
+            long position = FILE_HEADER;
+            long size = channel.size();
+            while (position + CHUNK_HEADER <= size && end == null) {
+                ByteBuffer chunkHeader = read(channel, position, CHUNK_HEADER);
+                int length = chunkHeader.getInt();
+                if (length < 1 || position + 8 + length > size) {
+                    break;
+                }
+                long[] chunk = {position, length};
+                switch (chunkHeader.get(8)) {
+                    case USERS -> users.add(chunk);
+                    case TRANSACTIONS -> transactions.add(chunk);
+                    case END -> end = chunk;
+                    default -> throw new IOException("Unknown snapshot chunk type at offset " + position);
+                }
+                position += 8 + length;
+            }
+            if (end == null) {
+                throw new IOException("Snapshot is incomplete: " + file);
+            }
+
+            try {
+                UserRegistry.accountNumberIssued(payload(channel, end).getLong(8));
+                users.parallelStream().forEach(chunk -> readUsers(payload(channel, chunk)));
+                transactions.parallelStream().forEach(chunk -> readTransactions(payload(channel, chunk)));
+                UserRegistry.users().parallelStream()
+                    .flatMap(user -> user.getAccounts().values().stream())
+                    .forEach(account -> account.getHistory().completeRestore());
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            } catch (BufferUnderflowException | IndexOutOfBoundsException ex) {
+                throw new IOException("Snapshot is corrupt: " + file, ex);
+            }
+            return lsn;
+        }
+    }
+
+    private static void writeRegistry(FileChannel channel) throws IOException {
+        ChunkWriter users = new ChunkWriter(channel, USERS);
+        ChunkWriter transactions = new ChunkWriter(channel, TRANSACTIONS);
+        Transaction[] batch = new Transaction[COPY_BATCH];
+
+        for (User user : UserRegistry.users()) {
+            List<Account> accounts = new ArrayList<>(user.getAccounts().values());
+            List<TransactionLog> histories = new ArrayList<>(accounts.size());
+            List<Account.Balance> balances = new ArrayList<>(accounts.size());
+            int[] sizes = new int[accounts.size()];
+            int[] coldSizes = new int[accounts.size()];
+            for (int i = 0; i < accounts.size(); i++) {
+                Account account = accounts.get(i);
+                ReentrantLock lock = UserRegistry.accountLock(account.getAccountNumber());
+                AccountLockWaitEvent.lock(lock, account.getAccountNumber());
+                try {
+                    Ledger.settle(account);
+                    TransactionLog history = account.getHistory();
+                    balances.add(account.getBalanceState());
+                    histories.add(history);
+                    sizes[i] = history.size();
+                    coldSizes[i] = history instanceof TieredTransactionLog tiered ? tiered.coldSize() : 0;
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            users.put(out -> {
+                Journal.writeUser(out, user);
+                out.putInt(accounts.size());
+                for (int i = 0; i < accounts.size(); i++) {
+                    Journal.writeAccount(out, accounts.get(i));
+                    out.putLong(balances.get(i).amount());
+                    out.putLong(balances.get(i).version());
+                    out.putInt(sizes[i]);
+                    out.putInt(coldSizes[i]);
+                }
+            });
+            users.emitIfFull();
+
+            for (int i = 0; i < accounts.size(); i++) {
+                writeTransactions(transactions, user.getId(), accounts.get(i).getAccountNumber(),
+                    histories.get(i), sizes[i], coldSizes[i], batch);
+            }
+        }
+        users.emit();
+        transactions.emit();
+    }
+
+    /**
+     * Append the first {@code size} of one account's transactions as a run of
+     * {@code [userId][accountNumber][first sequence][count][transaction...]},
+     * starting a new run in the next chunk whenever the current chunk fills up
+     * and where the cold tier ends, so a run can be restored to one tier.
+     * Reads the history through {@code batch}, without the account lock.
+     */
+    private static void writeTransactions(ChunkWriter chunk, String userId, String accountNumber,
+            TransactionLog history, int size, int coldSize, Transaction[] batch) throws IOException {
+        int next = 0;
+        int batchStart = 0;
+        int batchLength = 0;
+        while (next < size) {
+            int first = next + 1;
+            int end = next < coldSize ? coldSize : size;
+            chunk.put(out -> {
+                Records.putString(out, userId);
+                Records.putString(out, accountNumber);
+                out.putInt(first);
+                out.putInt(0);
+            });
+            int countAt = chunk.buffer.position() - 4;
+            int count = 0;
+            while (next < end && !chunk.isFull()) {
+                if (next == batchStart + batchLength) {
+                    batchStart = next;
+                    batchLength = Math.min(batch.length, size - next);
+                    history.copyTo(next + 1, batchLength, batch, 0);
+                }
+                Transaction transaction = batch[next++ - batchStart];
+                chunk.put(out -> Journal.writeTransaction(out, transaction));
+                count++;
+            }
+            chunk.buffer.putInt(countAt, count);
+            chunk.emitIfFull();
+        }
+    }
+
+    private static void readUsers(ByteBuffer in) {
+        while (in.hasRemaining()) {
+            User user = Journal.readUser(in);
+            int accounts = in.getInt();
+            user.setAccounts(UserRegistry.newMap(accounts));
+            for (int i = 0; i < accounts; i++) {
+                Account account = Journal.readAccount(in);
+                long balance = in.getLong();
+                long version = in.getLong();
+                int transactions = in.getInt();
+                int cold = in.getInt();
+                account.restoreBalance(balance, version);
+                account.setHistory(TransactionLog.forRestore(transactions, cold));
+                UserRegistry.transactionsAdded(transactions);
+                user.getAccounts().put(account.getAccountNumber(), account);
+            }
+            UserRegistry.put(user);
+        }
+    }
+
+    private static void readTransactions(ByteBuffer in) {
+        while (in.hasRemaining()) {
+            User user = UserRegistry.get(Records.getString(in));
+            String accountNumber = Records.getString(in);
+            Account account = user == null ? null : user.getAccounts().get(accountNumber);
+            int first = in.getInt();
+            int count = in.getInt();
+            Transaction[] run = new Transaction[count];
+            for (int i = 0; i < count; i++) {
+                run[i] = Journal.readTransaction(in);
+            }
+            if (account != null) {
+                account.getHistory().restore(first, run);
+            }
+        }
+    }
+
+    /** Map one chunk and return its verified payload. */
+    private static ByteBuffer payload(FileChannel channel, long[] chunk) {
+        try {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], 8 + chunk[1]);
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(8, (int) chunk[1]));
+            if ((int) crc.getValue() != buffer.getInt(4)) {
+                throw new IOException("Snapshot chunk at offset " + chunk[0] + " fails its checksum");
+            }
+            return buffer.slice(CHUNK_HEADER, (int) chunk[1] - 1);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static List<Path> list(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                .filter(p -> {
+                    String name = p.getFileName().toString();
+                    return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                })
+                .sorted(Comparator.comparingLong(Snapshots::lsnOf))
+                .toList();
+        }
+    }
+
+    private static long lsnOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of snapshot");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Accumulates entries of one chunk type and writes them out as a chunk
+     * once roughly {@link #CHUNK_SIZE} bytes have built up.
+     */
+    private static final class ChunkWriter {
+
+        private final FileChannel channel;
+        private final byte type;
+        private final CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE + CHUNK_SIZE / 2);
+
+        ChunkWriter(FileChannel channel, byte type) {
+            this.channel = channel;
+            this.type = type;
+            reset();
+        }
+
+        /** Encode one entry, growing the buffer if it does not fit. */
+        void put(Consumer<ByteBuffer> encoder) {
+            int mark = buffer.position();
+            while (true) {
+                try {
+                    encoder.accept(buffer);
+                    return;
+                } catch (BufferOverflowException ex) {
+                    ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                    larger.put(0, buffer, 0, mark).position(mark);
+                    buffer = larger;
+                }
+            }
+        }
+
+        boolean isFull() {
+            return buffer.position() >= CHUNK_SIZE;
+        }
+
+        void emitIfFull() throws IOException {
+            if (isFull()) {
+                emit();
+            }
+        }
+
+        void emit() throws IOException {
+            if (buffer.position() == CHUNK_HEADER && type != END) {
+                return;
+            }
+            int length = buffer.position() - 8;
+            crc.reset();
+            crc.update(buffer.array(), 8, length);
+            buffer.putInt(0, length).putInt(4, (int) crc.getValue());
+            write(channel, buffer.flip());
+            reset();
+        }
+
+        private void reset() {
+            buffer.clear();
+            buffer.put(8, type).position(CHUNK_HEADER);
+        }
+    }
+}
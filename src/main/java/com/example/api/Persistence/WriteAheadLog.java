@@ -0,0 +1,550 @@
+package com.example.api.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only binary log stored in preallocated, memory-mapped segment files.
+ *
+ * <p>Appending copies one record into the mapped segment under a short lock
+ * and returns its log sequence number (LSN); it never waits for the disk. A
+ * background flusher forces everything written since its previous pass
+ * every {@code flushInterval}, so one {@code fsync} covers every record
+ * appended in that window (group commit). Callers that need the record on
+ * disk before replying use {@link #awaitDurable(long)}.</p>
+ *
+ * <p>Segment layout: a 16 byte header ({@code magic}, {@code version},
+ * first LSN) followed by records of the form
+ * {@code [length:int][crc32c:int][lsn:long][type:byte][payload]}, where
+ * {@code length} covers everything after the CRC. The zero-filled remainder
+ * of a segment reads as a zero length, which marks its end. A record whose
+ * CRC does not match is treated as a torn write and ends the log.</p>
+ */
+public final class WriteAheadLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    private static final int MAGIC = 0x4C45444A;
+    private static final int VERSION = 1;
+    private static final int SEGMENT_HEADER = 16;
+    private static final int RECORD_HEADER = 4 + 4 + 8 + 1;
+    private static final int MAX_RECORD = 64 * 1024;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SPARE_SUFFIX = ".spare";
+
+    /** Writes a record payload into the supplied buffer. */
+    @FunctionalInterface
+    public interface RecordEncoder {
+        void encode(ByteBuffer out);
+    }
+
+    /** Receives records during {@link #replay}; {@code payload} is only valid during the call. */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void accept(long lsn, byte type, ByteBuffer payload);
+    }
+
+    private final Path dir;
+    private final int segmentSize;
+    private final long flushIntervalNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ByteBuffer scratch = ByteBuffer.allocate(MAX_RECORD);
+    private final CRC32C crc = new CRC32C();
+    private final List<Segment> retiring = new ArrayList<>();
+    private final Thread flusher;
+
+    private Segment current;
+    private Segment spare;
+    private long lastLsn;
+    private volatile long durableLsn;
+    private volatile IOException flushFailure;
+    private volatile boolean closed;
+
+    private WriteAheadLog(Path dir, int segmentSize, Duration flushInterval, Segment current, long lastLsn) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.current = current;
+        this.lastLsn = lastLsn;
+        this.durableLsn = lastLsn;
+        this.flusher = Thread.ofPlatform().name("wal-flusher").daemon().unstarted(this::flushLoop);
+    }
+
+    /**
+     * Open the log in {@code dir}, creating it if needed. Appends continue
+     * after the last intact record; anything after it is zeroed.
+     */
+    public static WriteAheadLog open(Path dir, int segmentSize, Duration flushInterval) throws IOException {
+        if (segmentSize < SEGMENT_HEADER + RECORD_HEADER + MAX_RECORD) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+        }
+        Files.createDirectories(dir);
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path spare : files.filter(p -> p.getFileName().toString().endsWith(SPARE_SUFFIX)).toList()) {
+                Files.delete(spare);
+            }
+        }
+
+        Segment tail = null;
+        long lastLsn = 0;
+        List<Path> segments = listSegments(dir);
+        for (int i = segments.size() - 1; i >= 0 && tail == null; i--) {
+            Segment segment = Segment.open(segments.get(i), indexOf(segments.get(i)));
+            if (segment.firstLsn < 0) {
+                // A preallocated segment that never received its header
+                segment.close();
+                Files.delete(segments.get(i));
+                continue;
+            }
+            long[] end = scan(segment.buffer, segment.firstLsn, Long.MAX_VALUE, null);
+            segment.position = (int) end[0];
+            segment.flushed = segment.position;
+            segment.zeroFrom(segment.position);
+            lastLsn = end[1];
+            tail = segment;
+        }
+        if (tail == null) {
+            tail = Segment.create(segmentPath(dir, 1, SEGMENT_SUFFIX), 1, segmentSize);
+            tail.writeHeader(1);
+        }
+
+        WriteAheadLog wal = new WriteAheadLog(dir, segmentSize, flushInterval, tail, lastLsn);
+        wal.flusher.start();
+        return wal;
+    }
+
+    /**
+     * Append a record.
+     *
+     * @return the record's LSN
+     * @throws RecordTooLargeException if the record is over {@value #MAX_RECORD} bytes; nothing is logged
+     * @throws UncheckedIOException if a new segment could not be created
+     */
+    public long append(byte type, RecordEncoder encoder) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Write-ahead log is closed");
+            }
+            long lsn = lastLsn + 1;
+            scratch.clear();
+            scratch.position(8);
+            scratch.putLong(lsn).put(type);
+            try {
+                encoder.encode(scratch);
+            } catch (BufferOverflowException ex) {
+                throw new RecordTooLargeException("Journal record of type " + type + " exceeds " + MAX_RECORD + " bytes");
+            }
+
+            int total = scratch.position();
+            crc.reset();
+            crc.update(scratch.array(), 8, total - 8);
+            scratch.putInt(0, total - 8).putInt(4, (int) crc.getValue());
+
+            // The tail may have been mapped at an older, smaller segment size
+            if (current.position + total > current.buffer.capacity()) {
+                roll(lsn);
+            }
+            current.buffer.put(current.position, scratch.array(), 0, total);
+            current.position += total;
+            lastLsn = lsn;
+            return lsn;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Block until the record with the given LSN has been forced to disk.
+     * Waiting callers share the flusher's next pass.
+     *
+     * @throws UncheckedIOException if the flusher is failing to force the log
+     */
+    public void awaitDurable(long lsn) {
+        if (durableLsn >= lsn) {
+            return;
+        }
+        LockSupport.unpark(flusher);
+        while (durableLsn < lsn && !closed) {
+            IOException failure = flushFailure;
+            if (failure != null) {
+                throw new UncheckedIOException("Record " + lsn + " could not be forced to disk", failure);
+            }
+            LockSupport.parkNanos(flushIntervalNanos / 4 + 1);
+        }
+    }
+
+    public long lastLsn() {
+        lock.lock();
+        try {
+            return lastLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long durableLsn() {
+        return durableLsn;
+    }
+
+    /**
+     * Feed every intact record with an LSN greater than {@code afterLsn} to
+     * the handler, in LSN order. Intended for start-up, before any appends.
+     *
+     * @return the LSN of the last record in the log
+     * @throws IOException if records after {@code afterLsn} are missing from the log
+     */
+    public long replay(long afterLsn, RecordHandler handler) throws IOException {
+        long expected = -1;
+        boolean first = true;
+        long last = afterLsn;
+        for (Path path : listSegments(dir)) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                long firstLsn = readHeader(buffer);
+                if (firstLsn < 0) {
+                    break;
+                }
+                if (first && firstLsn > afterLsn + 1) {
+                    throw new IOException("Write-ahead log starts at LSN " + firstLsn
+                        + " but replay needs every record after " + afterLsn);
+                }
+                first = false;
+                if (expected >= 0 && firstLsn != expected) {
+                    throw new IOException("Write-ahead log gap before " + path.getFileName()
+                        + ": expected LSN " + expected + " but segment starts at " + firstLsn);
+                }
+                long segmentLast = scan(buffer, firstLsn, afterLsn, handler)[1];
+                last = Math.max(last, segmentLast);
+                expected = segmentLast + 1;
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Delete segments holding only records up to {@code lsn}, once a snapshot
+     * covers them. The segment being appended to is always kept.
+     *
+     * @return the number of segments deleted
+     */
+    public int truncateBefore(long lsn) throws IOException {
+        long currentIndex;
+        lock.lock();
+        try {
+            currentIndex = current.index;
+        } finally {
+            lock.unlock();
+        }
+
+        List<Path> segments = listSegments(dir);
+        int deleted = 0;
+        for (int i = 0; i + 1 < segments.size() && indexOf(segments.get(i + 1)) <= currentIndex; i++) {
+            // A segment ends where the next one starts
+            long nextFirstLsn = firstLsnOf(segments.get(i + 1));
+            if (nextFirstLsn < 0 || nextFirstLsn > lsn + 1) {
+                break;
+            }
+            Files.delete(segments.get(i));
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * Force everything appended so far to disk.
+     */
+    public void flush() throws IOException {
+        flushLock.lock();
+        try {
+            Segment segment;
+            int end;
+            long lsn;
+            List<Segment> retired;
+            lock.lock();
+            try {
+                segment = current;
+                end = segment.position;
+                lsn = lastLsn;
+                retired = new ArrayList<>(retiring);
+            } finally {
+                lock.unlock();
+            }
+
+            for (Segment old : retired) {
+                old.force(old.position);
+                old.close();
+                // Only forget a retired segment once it is on disk, so a failed pass retries it
+                lock.lock();
+                try {
+                    retiring.remove(old);
+                } finally {
+                    lock.unlock();
+                }
+            }
+            segment.force(end);
+            durableLsn = lsn;
+            flushFailure = null;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        current.close();
+        if (spare != null) {
+            spare.close();
+            Files.deleteIfExists(spare.path);
+        }
+    }
+
+    private void roll(long firstLsn) throws IOException {
+        long nextIndex = current.index + 1;
+        Path path = segmentPath(dir, nextIndex, SEGMENT_SUFFIX);
+        Segment next = spare;
+        spare = null;
+        if (next != null && next.index == nextIndex) {
+            Files.move(next.path, path, StandardCopyOption.ATOMIC_MOVE);
+            next.path = path;
+        } else {
+            if (next != null) {
+                next.close();
+                Files.deleteIfExists(next.path);
+            }
+            next = Segment.create(path, nextIndex, segmentSize);
+        }
+        next.writeHeader(firstLsn);
+        retiring.add(current);
+        current = next;
+    }
+
+    private void flushLoop() {
+        while (!closed) {
+            LockSupport.parkNanos(flushIntervalNanos);
+            try {
+                flush();
+            } catch (IOException | RuntimeException ex) {
+                log.error("Write-ahead log flush failed", ex);
+                flushFailure = ex instanceof IOException io ? io : new IOException(ex);
+                continue;
+            }
+            try {
+                preallocate();
+            } catch (IOException | RuntimeException ex) {
+                log.error("Write-ahead log preallocation failed", ex);
+            }
+        }
+    }
+
+    /**
+     * Create the next segment ahead of time once the current one is half
+     * full, so rolling over never has to allocate a file on the append path.
+     * It is only renamed to its final name when the log rolls onto it.
+     */
+    private void preallocate() throws IOException {
+        long nextIndex;
+        lock.lock();
+        try {
+            if (spare != null || current.position < current.buffer.capacity() / 2) {
+                return;
+            }
+            nextIndex = current.index + 1;
+        } finally {
+            lock.unlock();
+        }
+
+        Segment created = Segment.create(segmentPath(dir, nextIndex, SPARE_SUFFIX), nextIndex, segmentSize);
+        lock.lock();
+        try {
+            if (spare == null && current.index + 1 == nextIndex && !closed) {
+                spare = created;
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        created.close();
+        Files.deleteIfExists(created.path);
+    }
+
+    /**
+     * Walk the records of one segment.
+     *
+     * @return {@code [end position, last LSN]}
+     */
+    private static long[] scan(ByteBuffer buffer, long firstLsn, long afterLsn, RecordHandler handler) {
+        CRC32C check = new CRC32C();
+        int position = SEGMENT_HEADER;
+        long lsn = firstLsn - 1;
+        int limit = buffer.limit();
+        while (position + RECORD_HEADER <= limit) {
+            int length = buffer.getInt(position);
+            if (length < RECORD_HEADER - 8 || position + 8 + length > limit) {
+                break;
+            }
+            check.reset();
+            check.update(buffer.slice(position + 8, length));
+            if ((int) check.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            long recordLsn = buffer.getLong(position + 8);
+            if (recordLsn != lsn + 1) {
+                break;
+            }
+            lsn = recordLsn;
+            if (handler != null && lsn > afterLsn) {
+                handler.accept(lsn, buffer.get(position + 16),
+                    buffer.slice(position + RECORD_HEADER, length - (RECORD_HEADER - 8)));
+            }
+            position += 8 + length;
+        }
+        return new long[] {position, lsn};
+    }
+
+    private static long readHeader(ByteBuffer buffer) {
+        if (buffer.limit() < SEGMENT_HEADER || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            return -1;
+        }
+        return buffer.getLong(8);
+    }
+
+    private static long firstLsnOf(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+            return readHeader(header.flip());
+        }
+    }
+
+    private static List<Path> listSegments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                .filter(p -> {
+                    String name = p.getFileName().toString();
+                    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                })
+                .sorted()
+                .toList();
+        }
+    }
+
+    private static Path segmentPath(Path dir, long index, String suffix) {
+        return dir.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, index, suffix));
+    }
+
+    private static long indexOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static final class Segment {
+        Path path;
+        final long index;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        long firstLsn;
+        int position;
+        int flushed;
+
+        private Segment(Path path, long index, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.index = index;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.firstLsn = readHeader(buffer);
+        }
+
+        static Segment create(Path path, long index, int size) throws IOException {
+            FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.truncate(0);
+            // Write real zeros so the file system allocates every block up front
+            ByteBuffer zeros = ByteBuffer.allocateDirect(1 << 20);
+            for (long written = 0; written < size; ) {
+                zeros.clear().limit((int) Math.min(zeros.capacity(), size - written));
+                written += channel.write(zeros, written);
+            }
+            channel.force(true);
+            return new Segment(path, index, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+
+        static Segment open(Path path, long index) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new Segment(path, index, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+        }
+
+        void writeHeader(long lsn) {
+            buffer.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, lsn);
+            firstLsn = lsn;
+            position = SEGMENT_HEADER;
+            flushed = 0;
+        }
+
+        void zeroFrom(int from) {
+            boolean dirty = false;
+            for (int i = from; i < buffer.limit(); i++) {
+                if (buffer.get(i) != 0) {
+                    buffer.put(i, (byte) 0);
+                    dirty = true;
+                }
+            }
+            if (dirty) {
+                buffer.force();
+            }
+        }
+
+        void force(int end) {
+            if (end > flushed) {
+                buffer.force(flushed, end - flushed);
+                flushed = end;
+            }
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+}
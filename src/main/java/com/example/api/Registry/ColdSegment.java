@@ -0,0 +1,414 @@
+package com.example.api.registry;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+
+/**
+ * An immutable run of consecutive transactions from one account's history,
+ * written once to the {@link ColdStore} and read back a page at a time.
+ *
+ * <p>A segment is three page-aligned tables, then any strings too long for
+ * a row:</p>
+ * <ul>
+ *   <li>rows, {@value #ROW} bytes per transaction in sequence order, so a
+ *       sequence number maps straight to a file position;</li>
+ *   <li>an ID table of (ID hash, row) sorted by hash, for
+ *       {@link #find(String)} by binary search;</li>
+ *   <li>a time table of (seconds, nanos, row) sorted the way
+ *       {@link TimeIndex} orders entries, for range queries.</li>
+ * </ul>
+ *
+ * <p>No entry crosses a page boundary. Only the segment's bounds and a
+ * Bloom filter of its ID hashes stay on the heap, about 10 bits per
+ * transaction; the filter lets {@code find} skip segments that cannot hold
+ * the ID without reading them.</p>
+ */
+final class ColdSegment {
+
+    static final int ROW = 64;
+    private static final int ID_ENTRY = 8;
+    private static final int TIME_ENTRY = 16;
+
+    // Row layout
+    private static final int AMOUNT = 0;
+    private static final int SECONDS = 8;
+    private static final int NANOS = 16;
+    private static final int TYPE = 20;
+    private static final int FLAGS = 21;
+    private static final int CURRENCY_LENGTH = 22;
+    private static final int ID_LENGTH = 23;
+    private static final int STRINGS = 24;
+    private static final int INLINE = ROW - STRINGS;
+    // With OVERFLOW set, both strings are stored after the tables instead
+    private static final int OVERFLOW_AT = 24;
+    private static final int OVERFLOW_LENGTH = 32;
+
+    private static final int NO_ID = 1;
+    private static final int NO_CURRENCY = 2;
+    private static final int NO_TIMESTAMP = 4;
+    private static final int OVERFLOW = 8;
+
+    private static final int BLOOM_BITS_PER_ENTRY = 10;
+    private static final int BLOOM_HASHES = 7;
+
+    private static final long MIN_SECONDS = LocalDateTime.MIN.toEpochSecond(ZoneOffset.UTC);
+    private static final TransactionTypes[] TYPES = TransactionTypes.values();
+
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private final ColdStore store;
+    private final long position;
+    private final int first;
+    private final int count;
+    private final long ids;
+    private final long times;
+    private final long[] bloom;
+    private final LocalDateTime minTimestamp;
+    private final LocalDateTime maxTimestamp;
+
+    private ColdSegment(ColdStore store, long position, int first, int count, long ids, long times,
+            long[] bloom, LocalDateTime minTimestamp, LocalDateTime maxTimestamp) {
+        this.store = store;
+        this.position = position;
+        this.first = first;
+        this.count = count;
+        this.ids = ids;
+        this.times = times;
+        this.bloom = bloom;
+        this.minTimestamp = minTimestamp;
+        this.maxTimestamp = maxTimestamp;
+    }
+
+    /**
+     * Write {@code transactions}, which have sequence numbers from
+     * {@code first} on, as a new segment of {@code store}.
+     */
+    static ColdSegment write(ColdStore store, int first, Transaction[] transactions) {
+        int count = transactions.length;
+        long ids = ColdStore.align((long) count * ROW);
+        long times = ColdStore.align(ids + (long) count * ID_ENTRY);
+        long overflow = ColdStore.align(times + (long) count * TIME_ENTRY);
+
+        byte[] tables = new byte[Math.toIntExact(overflow)];
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        long[] seconds = new long[count];
+        int[] nanos = new int[count];
+        long[] hashes = new long[count];
+        long[] bloom = new long[Math.max(1, (count * BLOOM_BITS_PER_ENTRY + 63) >>> 6)];
+        for (int i = 0; i < count; i++) {
+            Transaction transaction = transactions[i];
+            int at = i * ROW;
+            int flags = 0;
+            LocalDateTime created = transaction.getCreatedTimestamp();
+            if (created == null) {
+                flags |= NO_TIMESTAMP;
+                seconds[i] = MIN_SECONDS;
+            } else {
+                seconds[i] = created.toEpochSecond(ZoneOffset.UTC);
+                nanos[i] = created.getNano();
+            }
+            LONG.set(tables, at + AMOUNT, transaction.getAmount());
+            LONG.set(tables, at + SECONDS, seconds[i]);
+            INT.set(tables, at + NANOS, nanos[i]);
+            tables[at + TYPE] = (byte) (transaction.getType() == null ? 0 : transaction.getType().ordinal() + 1);
+
+            byte[] currency = bytes(transaction.getCurrency());
+            byte[] id = bytes(transaction.getId());
+            flags |= currency == null ? NO_CURRENCY : 0;
+            flags |= id == null ? NO_ID : 0;
+            int currencyLength = currency == null ? 0 : currency.length;
+            int idLength = id == null ? 0 : id.length;
+            if (currencyLength + idLength <= INLINE) {
+                tables[at + CURRENCY_LENGTH] = (byte) currencyLength;
+                tables[at + ID_LENGTH] = (byte) idLength;
+                if (currency != null) {
+                    System.arraycopy(currency, 0, tables, at + STRINGS, currencyLength);
+                }
+                if (id != null) {
+                    System.arraycopy(id, 0, tables, at + STRINGS + currencyLength, idLength);
+                }
+            } else {
+                flags |= OVERFLOW;
+                LONG.set(tables, at + OVERFLOW_AT, overflow + strings.size());
+                INT.set(tables, at + OVERFLOW_LENGTH, 8 + currencyLength + idLength);
+                writeString(strings, currency);
+                writeString(strings, id);
+            }
+            tables[at + FLAGS] = (byte) flags;
+
+            int hash = Objects.hashCode(transaction.getId());
+            hashes[i] = (long) hash << 32 | i;
+            addToBloom(bloom, hash);
+        }
+
+        // Sorted by hash, then row
+        Arrays.sort(hashes);
+        for (int i = 0; i < count; i++) {
+            int at = Math.toIntExact(ids + (long) i * ID_ENTRY);
+            INT.set(tables, at, (int) (hashes[i] >> 32));
+            INT.set(tables, at + 4, (int) hashes[i]);
+        }
+
+        // Sorted by timestamp, then row, as TimeIndex orders entries
+        int[] order = IntStream.range(0, count).boxed()
+            .sorted(Comparator.<Integer>comparingLong(i -> seconds[i]).thenComparingInt(i -> nanos[i]).thenComparingInt(i -> i))
+            .mapToInt(Integer::intValue)
+            .toArray();
+        for (int i = 0; i < count; i++) {
+            int at = Math.toIntExact(times + (long) i * TIME_ENTRY);
+            LONG.set(tables, at, seconds[order[i]]);
+            INT.set(tables, at + 8, nanos[order[i]]);
+            INT.set(tables, at + 12, order[i]);
+        }
+
+        ByteBuffer segment = ByteBuffer.allocate(Math.toIntExact(ColdStore.align(overflow + strings.size())));
+        segment.put(tables).put(strings.toByteArray()).clear();
+        long position = store.append(segment, count);
+        LocalDateTime min = timestamp(seconds[order[0]], nanos[order[0]]);
+        LocalDateTime max = timestamp(seconds[order[count - 1]], nanos[order[count - 1]]);
+        return new ColdSegment(store, position, first, count, ids, times, bloom, min, max);
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, byte[] value) {
+        int length = value == null ? 0 : value.length;
+        out.write(length >>> 24);
+        out.write(length >>> 16);
+        out.write(length >>> 8);
+        out.write(length);
+        if (value != null) {
+            out.write(value, 0, length);
+        }
+    }
+
+    private static void addToBloom(long[] bloom, int hash) {
+        long bits = (long) bloom.length << 6;
+        int step = bloomStep(hash);
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            long bit = Integer.toUnsignedLong(hash + i * step) % bits;
+            bloom[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    private boolean mightContain(int hash) {
+        long bits = (long) bloom.length << 6;
+        int step = bloomStep(hash);
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            long bit = Integer.toUnsignedLong(hash + i * step) % bits;
+            if ((bloom[(int) (bit >>> 6)] & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** A second hash for double hashing, odd so it cycles through every bit. */
+    private static int bloomStep(int hash) {
+        return Integer.reverse(hash * 0x9E3779B9) | 1;
+    }
+
+    private static LocalDateTime timestamp(long seconds, int nanos) {
+        return seconds == MIN_SECONDS && nanos == 0 ? LocalDateTime.MIN : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    int first() {
+        return first;
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * @param sequence a sequence number between {@link #first()} and {@code first() + count() - 1}
+     */
+    Transaction get(int sequence) {
+        long at = position + (long) (sequence - first) * ROW;
+        return decode(store.page(at), (int) (at & (ColdStore.PAGE_SIZE - 1)));
+    }
+
+    private Transaction decode(byte[] bytes, int at) {
+        int flags = bytes[at + FLAGS];
+        int type = bytes[at + TYPE];
+        long seconds = (long) LONG.get(bytes, at + SECONDS);
+        int nanos = (int) INT.get(bytes, at + NANOS);
+        String currency;
+        String id;
+        if ((flags & OVERFLOW) == 0) {
+            int currencyLength = bytes[at + CURRENCY_LENGTH];
+            currency = new String(bytes, at + STRINGS, currencyLength, StandardCharsets.UTF_8);
+            id = new String(bytes, at + STRINGS + currencyLength, bytes[at + ID_LENGTH], StandardCharsets.UTF_8);
+        } else {
+            // Rare enough to read straight from the file
+            ByteBuffer strings = ByteBuffer.allocate((int) INT.get(bytes, at + OVERFLOW_LENGTH));
+            store.read(position + (long) LONG.get(bytes, at + OVERFLOW_AT), strings);
+            strings.flip();
+            currency = readString(strings);
+            id = readString(strings);
+        }
+        return new Transaction(
+            (flags & NO_ID) != 0 ? null : id,
+            (long) LONG.get(bytes, at + AMOUNT),
+            (flags & NO_CURRENCY) != 0 ? null : currency,
+            type == 0 ? null : TYPES[type - 1],
+            (flags & NO_TIMESTAMP) != 0 ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC));
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] value = new byte[buffer.getInt()];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /** The transaction with this ID, or {@code null}. */
+    Transaction find(String id) {
+        int hash = id.hashCode();
+        if (!mightContain(hash)) {
+            return null;
+        }
+        // First entry with this hash
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (idHash(middle) < hash) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        for (int i = low; i < count && idHash(i) == hash; i++) {
+            Transaction transaction = get(first + idRow(i));
+            if (id.equals(transaction.getId())) {
+                return transaction;
+            }
+        }
+        return null;
+    }
+
+    private int idHash(int entry) {
+        long at = position + ids + (long) entry * ID_ENTRY;
+        return (int) INT.get(store.page(at), (int) (at & (ColdStore.PAGE_SIZE - 1)));
+    }
+
+    private int idRow(int entry) {
+        long at = position + ids + (long) entry * ID_ENTRY + 4;
+        return (int) INT.get(store.page(at), (int) (at & (ColdStore.PAGE_SIZE - 1)));
+    }
+
+    /** Whether the segment may hold transactions created in {@code [from, to)}. */
+    boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        return (from == null || !maxTimestamp.isBefore(from)) && (to == null || minTimestamp.isBefore(to));
+    }
+
+    LocalDateTime maxTimestamp() {
+        return maxTimestamp;
+    }
+
+    /**
+     * Add up to {@code limit} entries with {@code from <= createdTimestamp < to}
+     * to {@code page}, newest first, as {@link TransactionLog#newestFirst(LocalDateTime, LocalDateTime, TimeIndex.Entry, int)}.
+     */
+    void newestFirst(LocalDateTime from, LocalDateTime to, TimeIndex.Entry before, int limit, List<TimeIndex.Entry> page) {
+        int upper = count;
+        if (to != null) {
+            upper = timesBefore(to.toEpochSecond(ZoneOffset.UTC), to.getNano(), Integer.MIN_VALUE);
+        }
+        if (before != null) {
+            LocalDateTime timestamp = before.timestamp();
+            upper = Math.min(upper, timesBefore(timestamp.toEpochSecond(ZoneOffset.UTC), timestamp.getNano(), before.sequence()));
+        }
+        int lower = from == null ? 0 : timesBefore(from.toEpochSecond(ZoneOffset.UTC), from.getNano(), Integer.MIN_VALUE);
+        for (int i = upper - 1, added = 0; i >= lower && added < limit; i--, added++) {
+            long at = position + times + (long) i * TIME_ENTRY;
+            byte[] bytes = store.page(at);
+            int offset = (int) (at & (ColdStore.PAGE_SIZE - 1));
+            int sequence = first + (int) INT.get(bytes, offset + 12);
+            LocalDateTime timestamp = timestamp((long) LONG.get(bytes, offset), (int) INT.get(bytes, offset + 8));
+            page.add(new TimeIndex.Entry(timestamp, sequence, get(sequence)));
+        }
+    }
+
+    /** Number of time table entries ordered before (seconds, nanos, sequence). */
+    private int timesBefore(long seconds, int nanos, int sequence) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            long at = position + times + (long) middle * TIME_ENTRY;
+            byte[] bytes = store.page(at);
+            int offset = (int) (at & (ColdStore.PAGE_SIZE - 1));
+            int order = Long.compare((long) LONG.get(bytes, offset), seconds);
+            if (order == 0) {
+                order = Integer.compare((int) INT.get(bytes, offset + 8), nanos);
+            }
+            if (order == 0) {
+                order = Integer.compare(first + (int) INT.get(bytes, offset + 12), sequence);
+            }
+            if (order < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Copy {@code length} transactions from sequence number {@code sequence}
+     * on into {@code target} at {@code offset}. Reads the rows straight from
+     * the file, so a full scan does not flush the page cache.
+     */
+    void copyTo(int sequence, int length, Transaction[] target, int offset) {
+        scan(sequence, length, (bytes, at, i) -> target[offset + i] = decode(bytes, at));
+    }
+
+    /** As {@link TransactionLog#copyColumns}, into the arrays at {@code offset}. */
+    void copyColumns(int sequence, int length, long[] amounts, long[] created, int offset) {
+        scan(sequence, length, (bytes, at, i) -> {
+            int type = bytes[at + TYPE];
+            amounts[offset + i] = TransactionLog.signedAmount((long) LONG.get(bytes, at + AMOUNT), type == 0 ? null : TYPES[type - 1]);
+            created[offset + i] = (bytes[at + FLAGS] & NO_TIMESTAMP) != 0
+                ? Long.MIN_VALUE
+                : TransactionLog.epochNanos((long) LONG.get(bytes, at + SECONDS), (int) INT.get(bytes, at + NANOS));
+        });
+    }
+
+    @FunctionalInterface
+    private interface RowVisitor {
+        void visit(byte[] bytes, int at, int index);
+    }
+
+    private static final int SCAN_ROWS = 1024;
+
+    private void scan(int sequence, int length, RowVisitor visitor) {
+        byte[] rows = new byte[Math.min(length, SCAN_ROWS) * ROW];
+        for (int done = 0; done < length; ) {
+            int batch = Math.min(length - done, SCAN_ROWS);
+            ByteBuffer buffer = ByteBuffer.wrap(rows, 0, batch * ROW);
+            store.read(position + (long) (sequence - first + done) * ROW, buffer);
+            for (int i = 0; i < batch; i++) {
+                visitor.visit(rows, i * ROW, done + i);
+            }
+            done += batch;
+        }
+    }
+}
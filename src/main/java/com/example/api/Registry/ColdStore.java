@@ -0,0 +1,123 @@
+package com.example.api.registry;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Disk space for the cold tier of every {@link TieredTransactionLog}: one
+ * file that each account's {@link ColdSegment}s are appended to, read
+ * through a shared {@link PageCache}.
+ *
+ * <p>The file is scratch space, not a system of record: the journal and
+ * snapshots still hold every transaction. It is truncated when opened and
+ * deleted when closed; after a restart, restoring a snapshot writes each
+ * history's cold part back to it, run by run. One file keeps a single descriptor open however many accounts
+ * there are; the space held by a deleted account's segments is reclaimed on
+ * restart.</p>
+ */
+public final class ColdStore implements Closeable {
+
+    static final int PAGE_SHIFT = 12;
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    private final FileChannel channel;
+    private final PageCache cache;
+    private final AtomicLong end = new AtomicLong();
+    private final LongAdder transactions = new LongAdder();
+
+    private ColdStore(FileChannel channel, int cachePages) {
+        this.channel = channel;
+        this.cache = new PageCache(cachePages);
+    }
+
+    /**
+     * Create an empty store in {@code directory}, replacing any left there.
+     *
+     * @param cacheBytes memory for cached pages, rounded down to whole pages
+     */
+    public static ColdStore open(Path directory, long cacheBytes) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel channel = FileChannel.open(directory.resolve("transactions.cold"),
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        return new ColdStore(channel, (int) Math.clamp(cacheBytes / PAGE_SIZE, 1, Integer.MAX_VALUE));
+    }
+
+    static long align(long bytes) {
+        return (bytes + PAGE_SIZE - 1) & -PAGE_SIZE;
+    }
+
+    /**
+     * Append a segment, whose length must be a whole number of pages.
+     *
+     * @return the file position it starts at
+     */
+    long append(ByteBuffer segment, int count) {
+        long position = end.getAndAdd(segment.remaining());
+        try {
+            while (segment.hasRemaining()) {
+                channel.write(segment, position + segment.position());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Writing a cold segment failed", ex);
+        }
+        transactions.add(count);
+        return position;
+    }
+
+    /** The page holding file position {@code position}, from the cache. */
+    byte[] page(long position) {
+        return cache.get(position >>> PAGE_SHIFT, this::load);
+    }
+
+    private byte[] load(long page) {
+        byte[] bytes = new byte[PAGE_SIZE];
+        read(page << PAGE_SHIFT, ByteBuffer.wrap(bytes));
+        return bytes;
+    }
+
+    /** Fill {@code target} from {@code position} on, bypassing the cache. */
+    void read(long position, ByteBuffer target) {
+        try {
+            while (target.hasRemaining()) {
+                if (channel.read(target, position + target.position()) < 0) {
+                    throw new EOFException("Cold store ends before " + (position + target.limit()));
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Reading the cold store failed", ex);
+        }
+    }
+
+    /** Transactions written to the store so far. */
+    public long transactions() {
+        return transactions.sum();
+    }
+
+    /** Size of the store file. */
+    public long bytes() {
+        return end.get();
+    }
+
+    public long pageCacheHits() {
+        return cache.hits();
+    }
+
+    public long pageCacheMisses() {
+        return cache.misses();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.api.registry;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.example.api.objects.Transaction;
+
+/**
+ * The default {@link TransactionLog}: the transactions themselves, in
+ * chunks of {@value #CHUNK_SIZE} so appending never copies earlier chunks,
+ * only the small chunk directory as it grows. A log's first chunk
+ * starts at {@value #FIRST_CHUNK} slots and doubles as it fills, so the many
+ * accounts with a short history do not each hold a full chunk. A {@link ConcurrentHashMap} finds them
+ * by ID and a {@link TimeIndex} by creation time. Each chunk also keeps
+ * their amounts and creation times as primitive columns, so
+ * {@link #copyColumns} is an array copy.
+ *
+ * <p>As the hot tier of a {@link TieredTransactionLog} it holds only the
+ * entries after {@code base}; the older ones are on disk. Compaction drops
+ * them with {@link #dropBefore}, which shares the chunks and indexes rather
+ * than copying what stays.</p>
+ */
+public final class HeapTransactionLog extends TransactionLog {
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int FIRST_CHUNK = 8;
+
+    private static final class Chunk {
+        final Transaction[] transactions;
+        final long[] amounts;
+        final long[] created;
+
+        Chunk(int capacity) {
+            transactions = new Transaction[capacity];
+            amounts = new long[capacity];
+            created = new long[capacity];
+        }
+
+        /** A copy of the first {@code filled} slots with twice the room, up to a full chunk. */
+        Chunk grow(int filled) {
+            Chunk grown = new Chunk(Math.min(CHUNK_SIZE, Math.max(FIRST_CHUNK, transactions.length * 2)));
+            System.arraycopy(transactions, 0, grown.transactions, 0, filled);
+            System.arraycopy(amounts, 0, grown.amounts, 0, filled);
+            System.arraycopy(created, 0, grown.created, 0, filled);
+            return grown;
+        }
+
+        void set(int index, Transaction transaction) {
+            transactions[index] = transaction;
+            amounts[index] = signedAmount(transaction.getAmount(), transaction.getType());
+            created[index] = epochNanos(transaction.getCreatedTimestamp());
+        }
+    }
+
+    private volatile Chunk[] chunks;
+    // Sequence number before the first slot of chunks[0]
+    private final int origin;
+    // Sequence number before the first entry held here, 0 unless older entries moved to a cold tier
+    private final int base;
+    private volatile int size;
+    private int restoring;
+    private final ConcurrentHashMap<String, Transaction> byId;
+    private final TimeIndex timeIndex;
+
+    HeapTransactionLog(int restoring) {
+        this(restoring, 0);
+    }
+
+    /** An empty log whose first entry will get sequence number {@code base + 1}. */
+    HeapTransactionLog(int restoring, int base) {
+        this.origin = base;
+        this.base = base;
+        this.size = base;
+        this.timeIndex = new TimeIndex();
+        if (restoring == 0) {
+            this.chunks = new Chunk[1];
+            this.byId = UserRegistry.newMap();
+            return;
+        }
+        int count = (restoring + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        this.chunks = new Chunk[count];
+        for (int i = 0; i < count; i++) {
+            chunks[i] = new Chunk(Math.min(CHUNK_SIZE, restoring - (i << CHUNK_BITS)));
+        }
+        this.restoring = restoring;
+        this.byId = UserRegistry.newMap(restoring);
+    }
+
+    private HeapTransactionLog(HeapTransactionLog log, int base) {
+        int dropped = (base - log.origin) >>> CHUNK_BITS;
+        Chunk[] current = log.chunks;
+        // Keep at least one slot in the directory, so append can double it
+        this.chunks = Arrays.copyOfRange(current, dropped, Math.max(dropped + 1, current.length));
+        this.origin = log.origin + (dropped << CHUNK_BITS);
+        this.base = base;
+        this.size = log.size;
+        this.byId = log.byId;
+        this.timeIndex = log.timeIndex;
+    }
+
+    /**
+     * A log of the entries after {@code base}, sharing this one's chunks and
+     * indexes, for a {@link TieredTransactionLog} that has written the
+     * earlier ones to disk. Costs one copy of the chunk directory. Appends
+     * must go to the new log from then on; this one stays readable up to its
+     * size. The dropped entries stay in the shared indexes until
+     * {@link #forget}, so the new log skips them in time ranges itself.
+     */
+    HeapTransactionLog dropBefore(int base) {
+        return new HeapTransactionLog(this, base);
+    }
+
+    /**
+     * Remove {@code transactions}, which hold sequence numbers {@code first}
+     * on, from the ID and time indexes. Only for entries that a log from
+     * {@link #dropBefore} no longer holds.
+     */
+    void forget(int first, Transaction[] transactions) {
+        for (int i = 0; i < transactions.length; i++) {
+            byId.remove(transactions[i].getId(), transactions[i]);
+            timeIndex.remove(first + i, transactions[i]);
+        }
+    }
+
+    @Override
+    public int append(Transaction transaction) {
+        int index = size - origin;
+        int chunk = index >>> CHUNK_BITS;
+        Chunk[] current = chunks;
+        if (chunk == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            chunks = current;
+        }
+        int slot = index & CHUNK_MASK;
+        Chunk target = current[chunk];
+        // Readers holding the old chunk still find every entry below the size they read in it
+        if (target == null) {
+            target = new Chunk(chunk == 0 ? FIRST_CHUNK : CHUNK_SIZE);
+            current[chunk] = target;
+        } else if (slot == target.transactions.length) {
+            target = target.grow(slot);
+            current[chunk] = target;
+        }
+        target.set(slot, transaction);
+        byId.put(transaction.getId(), transaction);
+        int sequence = origin + index + 1;
+        timeIndex.add(sequence, transaction);
+        size = sequence;
+        return sequence;
+    }
+
+    @Override
+    public void restore(int sequence, Transaction transaction) {
+        int index = sequence - 1 - origin;
+        chunks[index >>> CHUNK_BITS].set(index & CHUNK_MASK, transaction);
+        byId.put(transaction.getId(), transaction);
+        timeIndex.add(sequence, transaction);
+    }
+
+    @Override
+    public void completeRestore() {
+        size = base + restoring;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Transaction get(int sequence) {
+        if (sequence <= base || sequence > size) {
+            throw new IndexOutOfBoundsException("No transaction " + sequence + " in a log of " + size);
+        }
+        int index = sequence - 1 - origin;
+        return chunks[index >>> CHUNK_BITS].transactions[index & CHUNK_MASK];
+    }
+
+    @Override
+    public Transaction find(String id) {
+        return byId.get(id);
+    }
+
+    @Override
+    public List<Transaction> newestFirst(int before, int limit) {
+        int from = Math.min(before, size + 1) - 1;
+        int to = Math.max(base + 1, from - limit + 1);
+        Chunk[] current = chunks;
+        List<Transaction> page = new ArrayList<>(Math.max(0, from - to + 1));
+        for (int sequence = from; sequence >= to; sequence--) {
+            int index = sequence - 1 - origin;
+            page.add(current[index >>> CHUNK_BITS].transactions[index & CHUNK_MASK]);
+        }
+        return page;
+    }
+
+    @Override
+    public List<TimeIndex.Entry> newestFirst(LocalDateTime from, LocalDateTime to, TimeIndex.Entry before, int limit) {
+        return timeIndex.newestFirst(from, to, before, limit, base);
+    }
+
+    @Override
+    public void copyTo(int first, int count, Transaction[] target, int offset) {
+        Chunk[] current = chunks;
+        int copied = 0;
+        while (copied < count) {
+            int index = first - 1 - origin + copied;
+            int length = Math.min(count - copied, CHUNK_SIZE - (index & CHUNK_MASK));
+            System.arraycopy(current[index >>> CHUNK_BITS].transactions, index & CHUNK_MASK, target, offset + copied, length);
+            copied += length;
+        }
+    }
+
+    @Override
+    public void copyColumns(int first, int count, long[] amounts, long[] created) {
+        copyColumns(first, count, amounts, created, 0);
+    }
+
+    /** As {@link #copyColumns(int, int, long[], long[])}, into the arrays at {@code offset}. */
+    void copyColumns(int first, int count, long[] amounts, long[] created, int offset) {
+        Chunk[] current = chunks;
+        int copied = 0;
+        while (copied < count) {
+            int index = first - 1 - origin + copied;
+            Chunk chunk = current[index >>> CHUNK_BITS];
+            int length = Math.min(count - copied, CHUNK_SIZE - (index & CHUNK_MASK));
+            System.arraycopy(chunk.amounts, index & CHUNK_MASK, amounts, offset + copied, length);
+            System.arraycopy(chunk.created, index & CHUNK_MASK, created, offset + copied, length);
+            copied += length;
+        }
+    }
+}
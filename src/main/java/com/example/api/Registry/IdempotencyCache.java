@@ -0,0 +1,112 @@
+package com.example.api.registry;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the result of an operation under a client-supplied key, so a
+ * retried request returns the original result instead of running again.
+ *
+ * <p>Lookups are a single {@link ConcurrentHashMap} read. Entries expire
+ * after a fixed time to live and the cache holds at most
+ * {@code maxEntries}; because every entry lives equally long, insertion
+ * order is also expiry order, so a FIFO queue is enough to evict both the
+ * expired and the oldest entries in O(1) per insert.</p>
+ *
+ * <p>A request that arrives while the first one with its key is still
+ * running waits for that result rather than running the operation twice.
+ * Failed operations are not remembered, so the client may retry them.</p>
+ */
+public final class IdempotencyCache<V> {
+
+    /** Thrown when a key is reused for a request that differs from the original. */
+    public static final class KeyReusedException extends RuntimeException {
+        public KeyReusedException() {
+            super("Idempotency key was already used for a different request");
+        }
+    }
+
+    private record Entry<V>(String fingerprint, CompletableFuture<V> result, long expiresAt) {
+    }
+
+    private record Insertion<V>(String key, Entry<V> entry) {
+    }
+
+    private final ConcurrentHashMap<String, Entry<V>> entries = UserRegistry.newMap();
+    private final ConcurrentLinkedQueue<Insertion<V>> order = new ConcurrentLinkedQueue<>();
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    public IdempotencyCache(int maxEntries, Duration ttl) {
+        if (maxEntries < 1 || !ttl.isPositive()) {
+            throw new IllegalArgumentException("Idempotency cache needs a positive size and time to live");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Run {@code operation} once per key and return its result, or the result
+     * already recorded for the key.
+     *
+     * @param fingerprint identifies the request; a different fingerprint under
+     *                    the same key is rejected
+     * @return the result and whether it was replayed from the cache
+     * @throws KeyReusedException if the key was recorded with another fingerprint
+     */
+    public Result<V> execute(String key, String fingerprint, Supplier<V> operation) {
+        long now = System.nanoTime();
+        Entry<V> mine = new Entry<>(fingerprint, new CompletableFuture<>(), now + ttlNanos);
+        Entry<V> existing = entries.putIfAbsent(key, mine);
+        while (existing != null && existing.expiresAt - now <= 0) {
+            existing = entries.replace(key, existing, mine) ? null : entries.putIfAbsent(key, mine);
+        }
+
+        if (existing != null) {
+            if (!Objects.equals(existing.fingerprint, fingerprint)) {
+                throw new KeyReusedException();
+            }
+            try {
+                return new Result<>(existing.result.join(), true);
+            } catch (CompletionException ex) {
+                throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+            }
+        }
+
+        order.add(new Insertion<>(key, mine));
+        evict(now);
+        try {
+            V value = operation.get();
+            mine.result.complete(value);
+            return new Result<>(value, false);
+        } catch (RuntimeException ex) {
+            entries.remove(key, mine);
+            mine.result.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict(long now) {
+        Insertion<V> head;
+        while ((head = order.peek()) != null
+                && (entries.size() > maxEntries || head.entry.expiresAt - now <= 0)) {
+            Insertion<V> oldest = order.poll();
+            if (oldest != null) {
+                entries.remove(oldest.key, oldest.entry);
+            }
+        }
+    }
+
+    /** The value for a key, and whether it came from an earlier request. */
+    public record Result<V>(V value, boolean replayed) {
+    }
+}
@@ -0,0 +1,482 @@
+package com.example.api.registry;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+
+/**
+ * A {@link TransactionLog} that keeps its transactions in native memory,
+ * so millions of postings cost the garbage collector a handful of objects
+ * instead of several each.
+ *
+ * <p>Transactions are fixed-size rows of {@value #ROW_BYTES} bytes (amount,
+ * creation time as epoch seconds and nanoseconds, currency, type and ID) in
+ * chunks of {@value #CHUNK_ROWS}, each chunk a {@link MemorySegment} from an
+ * automatic arena, so its memory is freed once the log is unreachable and
+ * lock-free readers can never touch freed memory. The first chunk starts at
+ * {@value #FIRST_CHUNK} rows and is copied to one twice the size as it fills,
+ * so a short history does not hold a whole chunk. A {@link Transaction} is
+ * built on every read and is a copy: changing it does not change the log.</p>
+ *
+ * <p>IDs up to {@value #MAX_INLINE_ID} ASCII characters, which covers every
+ * generated ID, are stored in the row; anything else goes to a small map.
+ * Lookup by ID goes through an open-addressing table of sequence numbers,
+ * also in native memory. When it fills up, a table twice the size takes
+ * over and existing IDs move to it a few per append, with lookups checking
+ * both tables meanwhile, so no single posting pays for rehashing the whole
+ * history. Lookup by time scans chunks newest first, skipping any whose
+ * range of timestamps cannot hold a better match; postings arrive in nearly
+ * time order, so this touches a few chunks for a page, but transactions
+ * restored or posted far out of time order make it slower than
+ * {@link TimeIndex}.</p>
+ */
+public final class OffHeapTransactionLog extends TransactionLog {
+
+    // Row layout
+    private static final long AMOUNT = 0;
+    private static final long SECONDS = 8;
+    private static final long NANOS = 16;
+    private static final long CURRENCY = 20;
+    private static final long TYPE = 22;
+    private static final long ID_LENGTH = 23;
+    private static final long ID = 24;
+    private static final int MAX_INLINE_ID = 24;
+    private static final int ROW_BYTES = 48;
+
+    // ID_LENGTH values for IDs not held in the row
+    private static final byte OTHER_ID = -1;
+    private static final byte NO_ID = -2;
+
+    // Old IDs moved to a grown ID table per append, so it is complete long before it is half full
+    private static final int MIGRATE_STEP = 8;
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_ROWS = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_ROWS - 1;
+    private static final int FIRST_CHUNK = 8;
+
+    private static final int MAX_CURRENCIES = 1 << 12;
+    private static final ConcurrentHashMap<String, Short> CURRENCY_CODES = new ConcurrentHashMap<>();
+    private static final AtomicReferenceArray<String> CURRENCIES = new AtomicReferenceArray<>(MAX_CURRENCIES);
+    private static final AtomicInteger NEXT_CURRENCY = new AtomicInteger();
+    private static final TransactionTypes[] TYPES = TransactionTypes.values();
+
+    private static final class Chunk {
+        final MemorySegment rows;
+        // Bounds on the epoch seconds of the rows written so far
+        volatile long minSeconds = Long.MAX_VALUE;
+        volatile long maxSeconds = Long.MIN_VALUE;
+
+        Chunk(int capacity) {
+            rows = Arena.ofAuto().allocate((long) capacity * ROW_BYTES, Long.BYTES);
+        }
+
+        int capacity() {
+            return (int) (rows.byteSize() / ROW_BYTES);
+        }
+
+        /** A copy of the first {@code filled} rows with twice the room, up to a full chunk. */
+        Chunk grow(int filled) {
+            Chunk grown = new Chunk(Math.min(CHUNK_ROWS, Math.max(FIRST_CHUNK, capacity() * 2)));
+            MemorySegment.copy(rows, 0, grown.rows, 0, rowOffset(filled));
+            grown.minSeconds = minSeconds;
+            grown.maxSeconds = maxSeconds;
+            return grown;
+        }
+
+        void cover(long seconds) {
+            if (seconds < minSeconds) {
+                minSeconds = seconds;
+            }
+            if (seconds > maxSeconds) {
+                maxSeconds = seconds;
+            }
+        }
+    }
+
+    /**
+     * Tables of sequence numbers by ID hash, probed linearly; 0 marks an
+     * empty slot. While {@code previous} is set, {@code current} has only
+     * been given some of its IDs and lookups check both.
+     */
+    private record IdTables(MemorySegment current, MemorySegment previous) {
+    }
+
+    /** A row's position in {@link TimeIndex.Entry} order. */
+    private record Hit(long seconds, int nanos, int sequence) {
+
+        static final Comparator<Hit> ORDER = Comparator
+            .comparingLong(Hit::seconds)
+            .thenComparingInt(Hit::nanos)
+            .thenComparingInt(Hit::sequence);
+    }
+
+    private volatile Chunk[] chunks;
+    private volatile int size;
+    private final int restoring;
+    // Each table is kept at most half full
+    private volatile IdTables ids;
+    // Only the appending thread uses these: sequences below migrateEnd are copied to a grown table up to migrated
+    private int migrated;
+    private int migrateEnd;
+    private final ConcurrentHashMap<Integer, String> otherIds = new ConcurrentHashMap<>();
+
+    OffHeapTransactionLog(int restoring) {
+        int count = Math.max(1, (restoring + CHUNK_ROWS - 1) >>> CHUNK_BITS);
+        this.chunks = new Chunk[count];
+        if (restoring > 0) {
+            for (int i = 0; i < count; i++) {
+                chunks[i] = new Chunk(Math.min(CHUNK_ROWS, restoring - (i << CHUNK_BITS)));
+            }
+        }
+        this.restoring = restoring;
+        this.ids = new IdTables(newIndex(Math.max(16, Integer.highestOneBit(Math.max(1, restoring)) << 2)), null);
+    }
+
+    @Override
+    public int append(Transaction transaction) {
+        int index = size;
+        int chunk = index >>> CHUNK_BITS;
+        Chunk[] current = chunks;
+        if (chunk == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            chunks = current;
+        }
+        int row = index & CHUNK_MASK;
+        Chunk target = current[chunk];
+        // Readers holding the old chunk still find every row below the size they read in it
+        if (target == null) {
+            target = new Chunk(chunk == 0 ? FIRST_CHUNK : CHUNK_ROWS);
+            current[chunk] = target;
+        } else if (row == target.capacity()) {
+            target = target.grow(row);
+            current[chunk] = target;
+        }
+        int sequence = index + 1;
+        write(target, row, sequence, transaction);
+        target.cover(target.rows.get(ValueLayout.JAVA_LONG, rowOffset(row) + SECONDS));
+
+        IdTables tables = ids;
+        if (tables.previous() == null && (long) sequence * 2 > slots(tables.current())) {
+            tables = new IdTables(newIndex(slots(tables.current()) * 2), tables.current());
+            migrated = 0;
+            migrateEnd = sequence;
+        }
+        insert(tables.current(), sequence);
+        if (tables.previous() != null) {
+            int stop = Math.min(migrateEnd - 1, migrated + MIGRATE_STEP);
+            while (migrated < stop) {
+                insert(tables.current(), ++migrated);
+            }
+            if (migrated == migrateEnd - 1) {
+                tables = new IdTables(tables.current(), null);
+            }
+        }
+        ids = tables;
+        size = sequence;
+        return sequence;
+    }
+
+    @Override
+    public void restore(int sequence, Transaction transaction) {
+        int index = sequence - 1;
+        write(chunks[index >>> CHUNK_BITS], index & CHUNK_MASK, sequence, transaction);
+    }
+
+    @Override
+    public void completeRestore() {
+        MemorySegment table = ids.current();
+        for (int sequence = 1; sequence <= restoring; sequence++) {
+            int index = sequence - 1;
+            Chunk chunk = chunks[index >>> CHUNK_BITS];
+            chunk.cover(chunk.rows.get(ValueLayout.JAVA_LONG, rowOffset(index & CHUNK_MASK) + SECONDS));
+            insert(table, sequence);
+        }
+        size = restoring;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Transaction get(int sequence) {
+        if (sequence < 1 || sequence > size) {
+            throw new IndexOutOfBoundsException("No transaction " + sequence + " in a log of " + size);
+        }
+        return read(sequence);
+    }
+
+    @Override
+    public Transaction find(String id) {
+        if (id == null) {
+            return null;
+        }
+        IdTables tables = ids;
+        Transaction transaction = find(tables.current(), id);
+        return transaction != null || tables.previous() == null ? transaction : find(tables.previous(), id);
+    }
+
+    private Transaction find(MemorySegment table, String id) {
+        long mask = slots(table) - 1;
+        for (long slot = spread(id.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            int sequence = table.getAtIndex(ValueLayout.JAVA_INT, slot);
+            if (sequence == 0) {
+                return null;
+            }
+            // A sequence above the published size is an append still in progress
+            if (sequence <= size && idEquals(sequence, id)) {
+                return read(sequence);
+            }
+        }
+    }
+
+    @Override
+    public List<Transaction> newestFirst(int before, int limit) {
+        int from = Math.min(before, size + 1) - 1;
+        int to = Math.max(1, from - limit + 1);
+        List<Transaction> page = new ArrayList<>(Math.max(0, from - to + 1));
+        for (int sequence = from; sequence >= to; sequence--) {
+            page.add(read(sequence));
+        }
+        return page;
+    }
+
+    @Override
+    public List<TimeIndex.Entry> newestFirst(LocalDateTime from, LocalDateTime to, TimeIndex.Entry before, int limit) {
+        Hit upper = to == null ? null : new Hit(seconds(to), nanos(to), Integer.MIN_VALUE);
+        if (before != null) {
+            Hit cursor = new Hit(seconds(before.timestamp()), nanos(before.timestamp()), before.sequence());
+            if (upper == null || Hit.ORDER.compare(cursor, upper) < 0) {
+                upper = cursor;
+            }
+        }
+        Hit lower = from == null ? null : new Hit(seconds(from), nanos(from), Integer.MIN_VALUE);
+        int published = size;
+        if (published == 0 || limit < 1) {
+            return List.of();
+        }
+
+        // The best matches so far, worst first
+        PriorityQueue<Hit> best = new PriorityQueue<>(Math.min(limit, 64) + 1, Hit.ORDER);
+        Chunk[] current = chunks;
+        int last = (published - 1) >>> CHUNK_BITS;
+        for (int c = last; c >= 0; c--) {
+            Chunk chunk = current[c];
+            if ((lower != null && chunk.maxSeconds < lower.seconds())
+                    || (upper != null && chunk.minSeconds > upper.seconds())
+                    || (best.size() == limit && chunk.maxSeconds < best.peek().seconds())) {
+                continue;
+            }
+            int rows = c == last ? ((published - 1) & CHUNK_MASK) + 1 : CHUNK_ROWS;
+            for (int row = rows - 1; row >= 0; row--) {
+                long offset = rowOffset(row);
+                Hit hit = new Hit(chunk.rows.get(ValueLayout.JAVA_LONG, offset + SECONDS),
+                    chunk.rows.get(ValueLayout.JAVA_INT, offset + NANOS), (c << CHUNK_BITS) + row + 1);
+                if ((lower != null && Hit.ORDER.compare(hit, lower) < 0)
+                        || (upper != null && Hit.ORDER.compare(hit, upper) >= 0)) {
+                    continue;
+                }
+                if (best.size() < limit) {
+                    best.add(hit);
+                } else if (Hit.ORDER.compare(hit, best.peek()) > 0) {
+                    best.poll();
+                    best.add(hit);
+                }
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(Hit.ORDER.reversed());
+        List<TimeIndex.Entry> page = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            page.add(TimeIndex.entryFor(hit.sequence(), read(hit.sequence())));
+        }
+        return page;
+    }
+
+    @Override
+    public void copyTo(int first, int count, Transaction[] target, int offset) {
+        for (int i = 0; i < count; i++) {
+            target[offset + i] = read(first + i);
+        }
+    }
+
+    @Override
+    public void copyColumns(int first, int count, long[] amounts, long[] created) {
+        Chunk[] current = chunks;
+        for (int i = 0; i < count; i++) {
+            int index = first - 1 + i;
+            MemorySegment rows = current[index >>> CHUNK_BITS].rows;
+            long offset = rowOffset(index & CHUNK_MASK);
+            byte type = rows.get(ValueLayout.JAVA_BYTE, offset + TYPE);
+            amounts[i] = signedAmount(rows.get(ValueLayout.JAVA_LONG, offset + AMOUNT), type < 0 ? null : TYPES[type]);
+            created[i] = epochNanos(rows.get(ValueLayout.JAVA_LONG, offset + SECONDS), rows.get(ValueLayout.JAVA_INT, offset + NANOS));
+        }
+    }
+
+    private static long rowOffset(int row) {
+        return (long) row * ROW_BYTES;
+    }
+
+    private void write(Chunk chunk, int row, int sequence, Transaction transaction) {
+        MemorySegment rows = chunk.rows;
+        long offset = rowOffset(row);
+        LocalDateTime timestamp = transaction.getCreatedTimestamp();
+        rows.set(ValueLayout.JAVA_LONG, offset + AMOUNT, transaction.getAmount());
+        rows.set(ValueLayout.JAVA_LONG, offset + SECONDS, seconds(timestamp));
+        rows.set(ValueLayout.JAVA_INT, offset + NANOS, nanos(timestamp));
+        rows.set(ValueLayout.JAVA_SHORT, offset + CURRENCY, currencyCode(transaction.getCurrency()));
+        rows.set(ValueLayout.JAVA_BYTE, offset + TYPE, transaction.getType() == null ? -1 : (byte) transaction.getType().ordinal());
+
+        String id = transaction.getId();
+        if (id == null) {
+            rows.set(ValueLayout.JAVA_BYTE, offset + ID_LENGTH, NO_ID);
+        } else if (isInline(id)) {
+            for (int i = 0; i < id.length(); i++) {
+                rows.set(ValueLayout.JAVA_BYTE, offset + ID + i, (byte) id.charAt(i));
+            }
+            rows.set(ValueLayout.JAVA_BYTE, offset + ID_LENGTH, (byte) id.length());
+        } else {
+            otherIds.put(sequence, id);
+            rows.set(ValueLayout.JAVA_BYTE, offset + ID_LENGTH, OTHER_ID);
+        }
+    }
+
+    private Transaction read(int sequence) {
+        int index = sequence - 1;
+        MemorySegment rows = chunks[index >>> CHUNK_BITS].rows;
+        long offset = rowOffset(index & CHUNK_MASK);
+        long seconds = rows.get(ValueLayout.JAVA_LONG, offset + SECONDS);
+        short currency = rows.get(ValueLayout.JAVA_SHORT, offset + CURRENCY);
+        byte type = rows.get(ValueLayout.JAVA_BYTE, offset + TYPE);
+        return new Transaction(
+            id(rows, offset, sequence),
+            rows.get(ValueLayout.JAVA_LONG, offset + AMOUNT),
+            currency < 0 ? null : CURRENCIES.get(currency),
+            type < 0 ? null : TYPES[type],
+            seconds == Long.MIN_VALUE ? null
+                : LocalDateTime.ofEpochSecond(seconds, rows.get(ValueLayout.JAVA_INT, offset + NANOS), ZoneOffset.UTC));
+    }
+
+    private String id(MemorySegment rows, long offset, int sequence) {
+        byte length = rows.get(ValueLayout.JAVA_BYTE, offset + ID_LENGTH);
+        if (length == NO_ID) {
+            return null;
+        }
+        if (length == OTHER_ID) {
+            return otherIds.get(sequence);
+        }
+        byte[] bytes = new byte[length];
+        MemorySegment.copy(rows, ValueLayout.JAVA_BYTE, offset + ID, bytes, 0, length);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private boolean idEquals(int sequence, String id) {
+        int index = sequence - 1;
+        MemorySegment rows = chunks[index >>> CHUNK_BITS].rows;
+        long offset = rowOffset(index & CHUNK_MASK);
+        byte length = rows.get(ValueLayout.JAVA_BYTE, offset + ID_LENGTH);
+        if (length == OTHER_ID) {
+            return id.equals(otherIds.get(sequence));
+        }
+        if (length != id.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (rows.get(ValueLayout.JAVA_BYTE, offset + ID + i) != (byte) id.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Add a written row to an ID table. Only the appending thread writes to the table. */
+    private void insert(MemorySegment table, int sequence) {
+        int index = sequence - 1;
+        MemorySegment rows = chunks[index >>> CHUNK_BITS].rows;
+        long offset = rowOffset(index & CHUNK_MASK);
+        byte length = rows.get(ValueLayout.JAVA_BYTE, offset + ID_LENGTH);
+        int hash;
+        if (length == NO_ID) {
+            return;
+        } else if (length == OTHER_ID) {
+            hash = otherIds.get(sequence).hashCode();
+        } else {
+            // String.hashCode over the same characters, since inline IDs are ASCII
+            hash = 0;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + rows.get(ValueLayout.JAVA_BYTE, offset + ID + i);
+            }
+        }
+        long mask = slots(table) - 1;
+        long slot = spread(hash) & mask;
+        while (table.getAtIndex(ValueLayout.JAVA_INT, slot) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table.setAtIndex(ValueLayout.JAVA_INT, slot, sequence);
+    }
+
+    private static MemorySegment newIndex(long slots) {
+        // Memory from an arena starts zeroed, so every slot starts empty
+        return Arena.ofAuto().allocate(slots * Integer.BYTES, Integer.BYTES);
+    }
+
+    private static long slots(MemorySegment table) {
+        return table.byteSize() / Integer.BYTES;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean isInline(String id) {
+        if (id.length() > MAX_INLINE_ID) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            if (id.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Epoch seconds as the journal stores them, with {@link Long#MIN_VALUE} for no timestamp. */
+    private static long seconds(LocalDateTime timestamp) {
+        return timestamp == null || timestamp.equals(LocalDateTime.MIN) ? Long.MIN_VALUE : timestamp.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static int nanos(LocalDateTime timestamp) {
+        return timestamp == null || timestamp.equals(LocalDateTime.MIN) ? 0 : timestamp.getNano();
+    }
+
+    private static short currencyCode(String currency) {
+        if (currency == null) {
+            return -1;
+        }
+        return CURRENCY_CODES.computeIfAbsent(currency, code -> {
+            int next = NEXT_CURRENCY.getAndIncrement();
+            if (next >= MAX_CURRENCIES) {
+                throw new IllegalStateException("More than " + MAX_CURRENCIES + " distinct currencies");
+            }
+            CURRENCIES.set(next, code);
+            return (short) next;
+        });
+    }
+}
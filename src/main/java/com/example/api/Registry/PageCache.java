@@ -0,0 +1,116 @@
+package com.example.api.registry;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+
+/**
+ * A fixed number of pages of the {@link ColdStore} file, kept in memory and
+ * evicted by generalised CLOCK: every page counts its hits up to
+ * {@value #MAX_FREQUENCY}, and the clock hand takes one off each page it
+ * passes until it finds one at zero. Pages read often survive several
+ * sweeps, while a page read once, such as by a scan over an old history,
+ * starts at zero and is the first to go.
+ *
+ * <p>A hit is a map lookup and a counter write, with no lock. Pages are
+ * never written after loading and an evicted page is simply dropped, so a
+ * reader still holding one keeps reading valid bytes. A miss loads the page
+ * before taking the lock that guards the clock; two threads missing on the
+ * same page may both read it, and the second keeps the first one's copy.</p>
+ */
+final class PageCache {
+
+    private static final int MAX_FREQUENCY = 3;
+
+    private static final class Frame {
+        final long page;
+        final byte[] bytes;
+        volatile int frequency;
+
+        Frame(long page, byte[] bytes) {
+            this.page = page;
+            this.bytes = bytes;
+        }
+    }
+
+    private final ConcurrentHashMap<Long, Frame> frames;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guarded by lock
+    private final Frame[] clock;
+    private int hand;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    PageCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.clock = new Frame[capacity];
+        this.frames = UserRegistry.newMap(capacity);
+    }
+
+    /**
+     * The page's bytes, read with {@code loader} and kept if not cached.
+     * The array must not be modified.
+     */
+    byte[] get(long page, LongFunction<byte[]> loader) {
+        Frame frame = frames.get(page);
+        if (frame != null) {
+            hits.increment();
+            int frequency = frame.frequency;
+            if (frequency < MAX_FREQUENCY) {
+                // A lost increment under a race only makes eviction slightly less exact
+                frame.frequency = frequency + 1;
+            }
+            return frame.bytes;
+        }
+        misses.increment();
+        byte[] bytes = loader.apply(page);
+        lock.lock();
+        try {
+            Frame existing = frames.get(page);
+            if (existing != null) {
+                return existing.bytes;
+            }
+            insert(new Frame(page, bytes));
+        } finally {
+            lock.unlock();
+        }
+        return bytes;
+    }
+
+    private void insert(Frame frame) {
+        // Lock-free hits can keep raising counts behind the hand, so give up on finding a zero eventually
+        for (int steps = clock.length * (MAX_FREQUENCY + 1); ; steps--) {
+            Frame victim = clock[hand];
+            if (victim == null || victim.frequency == 0 || steps == 0) {
+                if (victim != null) {
+                    frames.remove(victim.page);
+                }
+                break;
+            }
+            victim.frequency = victim.frequency - 1;
+            hand = (hand + 1) % clock.length;
+        }
+        clock[hand] = frame;
+        frames.put(frame.page, frame);
+        hand = (hand + 1) % clock.length;
+    }
+
+    int capacity() {
+        return clock.length;
+    }
+
+    int size() {
+        return frames.size();
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.api.registry;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed pool of {@link ReentrantLock}s indexed by key hash. Used to make
+ * compound operations on a single account (check balance, then post) atomic
+ * without a global lock and without allocating a lock per account.
+ *
+ * <p>Two different keys may share a stripe; that only costs some extra
+ * contention, never correctness.</p>
+ */
+public final class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1) << 1);
+        this.locks = new ReentrantLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock lockFor(Object key) {
+        return locks[indexFor(key)];
+    }
+
+    /**
+     * The locks guarding both keys, in the order they must be taken: lowest
+     * stripe first. Every caller locking two keys this way acquires them in
+     * the same global order, so two threads locking the same pair from
+     * opposite ends cannot deadlock. Keys on the same stripe share one lock.
+     */
+    public ReentrantLock[] lockOrderFor(Object a, Object b) {
+        int i = indexFor(a);
+        int j = indexFor(b);
+        if (i == j) {
+            return new ReentrantLock[] {locks[i]};
+        }
+        return i < j
+            ? new ReentrantLock[] {locks[i], locks[j]}
+            : new ReentrantLock[] {locks[j], locks[i]};
+    }
+
+    public int indexFor(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    public int size() {
+        return locks.length;
+    }
+}
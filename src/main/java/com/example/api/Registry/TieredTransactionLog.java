@@ -0,0 +1,298 @@
+package com.example.api.registry;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.example.api.objects.Transaction;
+
+/**
+ * A {@link TransactionLog} that keeps recent transactions in memory and
+ * moves older ones to disk. The hot tier is a {@link HeapTransactionLog}
+ * holding every sequence number above {@code coldSize}; below it, the
+ * history is a run of immutable {@link ColdSegment}s in a shared
+ * {@link ColdStore}, read through its page cache. Lookups by sequence
+ * number, ID and time work the same across both tiers.
+ *
+ * <p>{@link #prepareCompaction} writes the oldest in-memory transactions to
+ * a new segment without holding any lock, so postings carry on meanwhile;
+ * only {@link Compaction#commit()}, which drops them from the hot tier and
+ * publishes the new tiers in one volatile write, needs the account lock.
+ * The new hot tier shares the old one's chunks and indexes, so the commit
+ * copies nothing but the chunk directory, and {@link Compaction#forget()}
+ * then removes the moved transactions from the shared indexes. A reader
+ * works from the tiers it first read, and looks again if a compaction
+ * removed what it was after in the meantime.</p>
+ *
+ * <p>Restoring from a snapshot writes the entries that were cold when it
+ * was taken straight back to new segments, a run at a time, so only the hot
+ * tier is ever rebuilt on the heap.</p>
+ */
+public final class TieredTransactionLog extends TransactionLog {
+
+    /** Largest segment one compaction writes; bigger backlogs take several. */
+    static final int MAX_SEGMENT = 1 << 18;
+
+    private static final ColdSegment[] NONE = new ColdSegment[0];
+
+    private record Tiers(ColdSegment[] cold, int coldSize, HeapTransactionLog hot) {
+    }
+
+    private final ColdStore store;
+    private volatile Tiers tiers;
+    // Entries a restore writes to the cold tier, and the segments written so far
+    private final int restoringCold;
+    private final List<ColdSegment> restored;
+
+    TieredTransactionLog(ColdStore store, int restoring, int restoringCold) {
+        this.store = store;
+        this.tiers = new Tiers(NONE, 0, new HeapTransactionLog(restoring - restoringCold, restoringCold));
+        this.restoringCold = restoringCold;
+        this.restored = restoringCold == 0 ? List.of() : Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @Override
+    public int append(Transaction transaction) {
+        return tiers.hot().append(transaction);
+    }
+
+    @Override
+    public void restore(int sequence, Transaction transaction) {
+        tiers.hot().restore(sequence, transaction);
+    }
+
+    /** Write the part of the run that was cold to a segment and restore the rest to the hot tier. */
+    @Override
+    public void restore(int first, Transaction[] transactions) {
+        int cold = Math.clamp(restoringCold - first + 1, 0, transactions.length);
+        if (cold > 0) {
+            Transaction[] run = cold == transactions.length ? transactions : Arrays.copyOf(transactions, cold);
+            restored.add(ColdSegment.write(store, first, run));
+        }
+        for (int i = cold; i < transactions.length; i++) {
+            restore(first + i, transactions[i]);
+        }
+    }
+
+    @Override
+    public void completeRestore() {
+        Tiers current = tiers;
+        current.hot().completeRestore();
+        if (restoringCold == 0) {
+            return;
+        }
+        ColdSegment[] cold = restored.toArray(NONE);
+        Arrays.sort(cold, Comparator.comparingInt(ColdSegment::first));
+        int next = 1;
+        for (ColdSegment segment : cold) {
+            if (segment.first() != next) {
+                throw new IllegalStateException("Restored cold tier is missing transaction " + next);
+            }
+            next += segment.count();
+        }
+        if (next != restoringCold + 1) {
+            throw new IllegalStateException("Restored cold tier ends at " + (next - 1) + ", not " + restoringCold);
+        }
+        tiers = new Tiers(cold, restoringCold, current.hot());
+        restored.clear();
+    }
+
+    @Override
+    public int size() {
+        return tiers.hot().size();
+    }
+
+    /** Number of the oldest transactions that are on disk. */
+    public int coldSize() {
+        return tiers.coldSize();
+    }
+
+    @Override
+    public Transaction get(int sequence) {
+        Tiers current = tiers;
+        if (sequence > current.coldSize() || sequence < 1) {
+            return current.hot().get(sequence);
+        }
+        return segment(current, sequence).get(sequence);
+    }
+
+    private static ColdSegment segment(Tiers tiers, int sequence) {
+        ColdSegment[] cold = tiers.cold();
+        int low = 0;
+        int high = cold.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (cold[middle].first() <= sequence) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return cold[low];
+    }
+
+    @Override
+    public Transaction find(String id) {
+        Tiers current = tiers;
+        Transaction transaction = current.hot().find(id);
+        // Newest segments first, as recent transactions are the likelier lookups
+        ColdSegment[] cold = current.cold();
+        for (int i = cold.length - 1; i >= 0 && transaction == null && id != null; i--) {
+            transaction = cold[i].find(id);
+        }
+        // A compaction may have moved it to a segment these tiers do not have
+        return transaction == null && tiers != current ? find(id) : transaction;
+    }
+
+    @Override
+    public List<Transaction> newestFirst(int before, int limit) {
+        Tiers current = tiers;
+        List<Transaction> page = current.hot().newestFirst(before, limit);
+        int sequence = Math.min(Math.min(before, current.hot().size() + 1) - 1 - page.size(), current.coldSize());
+        while (page.size() < limit && sequence >= 1) {
+            ColdSegment segment = segment(current, sequence);
+            for (; page.size() < limit && sequence >= segment.first(); sequence--) {
+                page.add(segment.get(sequence));
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public List<TimeIndex.Entry> newestFirst(LocalDateTime from, LocalDateTime to, TimeIndex.Entry before, int limit) {
+        Tiers current = tiers;
+        List<TimeIndex.Entry> page = new ArrayList<>(current.hot().newestFirst(from, to, before, limit));
+        ColdSegment[] cold = current.cold();
+        for (int i = cold.length - 1; i >= 0; i--) {
+            ColdSegment segment = cold[i];
+            // Once the page is full, a segment only matters if it could hold something newer than its last entry
+            if (!segment.overlaps(from, to)
+                    || page.size() >= limit && segment.maxTimestamp().isBefore(page.get(limit - 1).timestamp())) {
+                continue;
+            }
+            segment.newestFirst(from, to, before, limit, page);
+            page.sort(Comparator.reverseOrder());
+            if (page.size() > limit) {
+                page.subList(limit, page.size()).clear();
+            }
+        }
+        // As in find, entries may have left the hot tier's index for a newer segment
+        return tiers != current ? newestFirst(from, to, before, limit) : page;
+    }
+
+    @Override
+    public void copyTo(int first, int count, Transaction[] target, int offset) {
+        Tiers current = tiers;
+        int copied = 0;
+        while (copied < count && first + copied <= current.coldSize()) {
+            int sequence = first + copied;
+            ColdSegment segment = segment(current, sequence);
+            int length = Math.min(count - copied, segment.first() + segment.count() - sequence);
+            segment.copyTo(sequence, length, target, offset + copied);
+            copied += length;
+        }
+        if (copied < count) {
+            current.hot().copyTo(first + copied, count - copied, target, offset + copied);
+        }
+    }
+
+    @Override
+    public void copyColumns(int first, int count, long[] amounts, long[] created) {
+        Tiers current = tiers;
+        int copied = 0;
+        while (copied < count && first + copied <= current.coldSize()) {
+            int sequence = first + copied;
+            ColdSegment segment = segment(current, sequence);
+            int length = Math.min(count - copied, segment.first() + segment.count() - sequence);
+            segment.copyColumns(sequence, length, amounts, created, copied);
+            copied += length;
+        }
+        if (copied < count) {
+            current.hot().copyColumns(first + copied, count - copied, amounts, created, copied);
+        }
+    }
+
+    /**
+     * Write the oldest in-memory transactions, up to the first one created
+     * at or after {@code olderThan}, to a new cold segment, if there are at
+     * least {@code minimum} of them. Runs without the account lock, but only
+     * one thread may compact a log at a time.
+     *
+     * @return the compaction to {@link Compaction#commit() commit}, or {@code null} if there is too little to move
+     */
+    public Compaction prepareCompaction(LocalDateTime olderThan, int minimum) {
+        Tiers current = tiers;
+        HeapTransactionLog hot = current.hot();
+        int size = hot.size();
+        int cut = current.coldSize();
+        int limit = cut + Math.min(size - cut, MAX_SEGMENT);
+        while (cut < limit) {
+            LocalDateTime created = hot.get(cut + 1).getCreatedTimestamp();
+            if (created != null && !created.isBefore(olderThan)) {
+                break;
+            }
+            cut++;
+        }
+        int moving = cut - current.coldSize();
+        if (moving == 0 || moving < minimum) {
+            return null;
+        }
+
+        Transaction[] transactions = new Transaction[moving];
+        hot.copyTo(current.coldSize() + 1, moving, transactions, 0);
+        ColdSegment segment = ColdSegment.write(store, current.coldSize() + 1, transactions);
+        ColdSegment[] cold = Arrays.copyOf(current.cold(), current.cold().length + 1);
+        cold[cold.length - 1] = segment;
+        return new Compaction(current, cold, cut, transactions);
+    }
+
+    /** Transactions written to disk by {@link #prepareCompaction}, not yet dropped from memory. */
+    public final class Compaction {
+
+        private final Tiers from;
+        private final ColdSegment[] cold;
+        private final int cut;
+        private Transaction[] transactions;
+
+        private Compaction(Tiers from, ColdSegment[] cold, int cut, Transaction[] transactions) {
+            this.from = from;
+            this.cold = cold;
+            this.cut = cut;
+            this.transactions = transactions;
+        }
+
+        public int moved() {
+            return cut - from.coldSize();
+        }
+
+        /**
+         * Drop the moved transactions from the hot tier, keeping everything
+         * appended since the compaction was prepared, and switch to the new
+         * tiers. Callers must hold the account lock.
+         */
+        public void commit() {
+            if (tiers != from) {
+                throw new IllegalStateException("Log changed tiers since the compaction was prepared");
+            }
+            tiers = new Tiers(cold, cut, from.hot().dropBefore(cut));
+        }
+
+        /**
+         * Remove the moved transactions from the hot tier's ID and time
+         * indexes once {@link #commit()} has switched tiers. Needs no lock;
+         * postings and reads carry on meanwhile.
+         */
+        public void forget() {
+            if (tiers.coldSize() < cut) {
+                throw new IllegalStateException("Compaction is not committed");
+            }
+            if (transactions != null) {
+                from.hot().forget(from.coldSize() + 1, transactions);
+                transactions = null;
+            }
+        }
+    }
+}
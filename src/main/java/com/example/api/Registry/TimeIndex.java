@@ -0,0 +1,110 @@
+package com.example.api.registry;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import com.example.api.objects.Transaction;
+
+/**
+ * An account's transactions sorted by {@code createdTimestamp}, for range
+ * queries. Backed by a {@link ConcurrentSkipListSet}: adds and reads are
+ * lock-free, so a posting never blocks a reader and a lookup costs
+ * O(log n + k) for k results.
+ *
+ * <p>Entries with the same timestamp are ordered by their
+ * {@link TransactionLog} sequence number, which also gives every entry a
+ * unique position that a page cursor can point at.</p>
+ */
+public final class TimeIndex {
+
+    /** A transaction positioned by its timestamp, then its sequence number. */
+    public record Entry(LocalDateTime timestamp, int sequence, Transaction transaction) implements Comparable<Entry> {
+
+        private static final Comparator<Entry> ORDER = Comparator
+            .comparing(Entry::timestamp)
+            .thenComparingInt(Entry::sequence);
+
+        @Override
+        public int compareTo(Entry other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>();
+
+    /**
+     * Index a transaction under its sequence number in the account's
+     * {@link TransactionLog}.
+     */
+    public void add(int sequence, Transaction transaction) {
+        entries.add(entryFor(sequence, transaction));
+    }
+
+    /** Remove a transaction added under {@code sequence}. */
+    public void remove(int sequence, Transaction transaction) {
+        entries.remove(entryFor(sequence, transaction));
+    }
+
+    /**
+     * The index entry for a transaction, used to resume a range query from it.
+     */
+    public static Entry entryFor(int sequence, Transaction transaction) {
+        LocalDateTime timestamp = transaction.getCreatedTimestamp();
+        return new Entry(timestamp == null ? LocalDateTime.MIN : timestamp, sequence, transaction);
+    }
+
+    /**
+     * Up to {@code limit} entries with {@code from <= timestamp < to}, newest
+     * first. Either bound may be {@code null} for an open range.
+     *
+     * @param before if not {@code null}, only entries ordered before this one
+     */
+    public List<Entry> newestFirst(LocalDateTime from, LocalDateTime to, Entry before, int limit) {
+        return newestFirst(from, to, before, limit, Integer.MIN_VALUE);
+    }
+
+    /**
+     * As {@link #newestFirst(LocalDateTime, LocalDateTime, Entry, int)}, but
+     * skipping entries with a sequence number of {@code after} or less.
+     */
+    public List<Entry> newestFirst(LocalDateTime from, LocalDateTime to, Entry before, int limit, int after) {
+        Entry upper = to == null ? null : bound(to);
+        if (before != null && (upper == null || before.compareTo(upper) < 0)) {
+            upper = before;
+        }
+        Entry lower = from == null ? null : bound(from);
+
+        NavigableSet<Entry> range;
+        if (lower != null && upper != null) {
+            if (lower.compareTo(upper) >= 0) {
+                return List.of();
+            }
+            range = entries.subSet(lower, true, upper, false);
+        } else if (upper != null) {
+            range = entries.headSet(upper, false);
+        } else if (lower != null) {
+            range = entries.tailSet(lower, true);
+        } else {
+            range = entries;
+        }
+
+        List<Entry> page = new ArrayList<>(Math.min(limit, 64));
+        for (Iterator<Entry> it = range.descendingIterator(); it.hasNext() && page.size() < limit; ) {
+            Entry entry = it.next();
+            if (entry.sequence() > after) {
+                page.add(entry);
+            }
+        }
+        return page;
+    }
+
+    /** Sorts before every real entry with the same timestamp. */
+    private static Entry bound(LocalDateTime timestamp) {
+        return new Entry(timestamp, Integer.MIN_VALUE, null);
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.api.registry;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+
+/**
+ * An account's transactions: an append-only, insertion-ordered history,
+ * plus lookup by ID and by creation time. Each transaction gets a sequence
+ * number (1 for the first) that never changes, which makes it a stable
+ * position to page from.
+ *
+ * <p>Appends must be serialised by the caller (postings hold the account
+ * lock). Readers never lock: an entry is written before {@link #size} is
+ * published, so everything below the size a reader observes is visible to
+ * it.</p>
+ *
+ * <p>Three backends exist, chosen for every log created from then on by
+ * {@link #setOffHeap} and {@link #setColdStore}: {@link HeapTransactionLog}
+ * keeps the {@link Transaction} objects themselves,
+ * {@link OffHeapTransactionLog} keeps their fields in native memory and
+ * builds a {@code Transaction} for each one read, and
+ * {@link TieredTransactionLog} keeps recent transactions on the heap and
+ * moves older ones to disk.</p>
+ */
+public abstract sealed class TransactionLog permits HeapTransactionLog, OffHeapTransactionLog, TieredTransactionLog {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private static volatile boolean offHeap;
+    private static volatile ColdStore coldStore;
+
+    /** Store transactions created from now on off the Java heap. Set before any account is created or restored. */
+    public static void setOffHeap(boolean enabled) {
+        offHeap = enabled;
+    }
+
+    public static boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Tier logs created from now on, moving older transactions to
+     * {@code store} when compacted, or stop with {@code null}. Takes
+     * precedence over {@link #setOffHeap}.
+     */
+    public static void setColdStore(ColdStore store) {
+        coldStore = store;
+    }
+
+    /** The store tiered logs move transactions to, or {@code null}. */
+    public static ColdStore coldStore() {
+        return coldStore;
+    }
+
+    /** An empty log on the configured backend. */
+    public static TransactionLog create() {
+        ColdStore store = coldStore;
+        if (store != null) {
+            return new TieredTransactionLog(store, 0, 0);
+        }
+        return offHeap ? new OffHeapTransactionLog(0) : new HeapTransactionLog(0);
+    }
+
+    /**
+     * Create a log on the configured backend with room for exactly
+     * {@code size} entries, to be filled with {@link #restore} (from several
+     * threads if needed) and then made visible with
+     * {@link #completeRestore()}.
+     */
+    public static TransactionLog forRestore(int size) {
+        return forRestore(size, 0);
+    }
+
+    /**
+     * As {@link #forRestore(int)}, where the oldest {@code coldSize} entries
+     * were on disk when the snapshot was taken. A tiered log writes runs of
+     * those straight back to its cold tier, so they never all sit on the heap
+     * at once; other backends ignore it.
+     */
+    public static TransactionLog forRestore(int size, int coldSize) {
+        ColdStore store = coldStore;
+        if (store != null) {
+            return new TieredTransactionLog(store, size, coldSize);
+        }
+        return offHeap ? new OffHeapTransactionLog(size) : new HeapTransactionLog(size);
+    }
+
+    /**
+     * Append a transaction. Callers must hold the account lock.
+     *
+     * @return the transaction's sequence number
+     */
+    public abstract int append(Transaction transaction);
+
+    /** Fill a slot of a log created with {@link #forRestore(int)}. */
+    public abstract void restore(int sequence, Transaction transaction);
+
+    /** Fill the slots from sequence number {@code first} on with a run of {@code transactions}. */
+    public void restore(int first, Transaction[] transactions) {
+        for (int i = 0; i < transactions.length; i++) {
+            restore(first + i, transactions[i]);
+        }
+    }
+
+    /** Publish every slot filled by {@link #restore}. */
+    public abstract void completeRestore();
+
+    public abstract int size();
+
+    /**
+     * @param sequence a sequence number between 1 and {@link #size()}
+     */
+    public abstract Transaction get(int sequence);
+
+    /** The transaction with this ID, or {@code null}. */
+    public abstract Transaction find(String id);
+
+    /**
+     * Up to {@code limit} transactions with a sequence number below
+     * {@code before}, newest first. Costs O(limit) whatever the log size.
+     */
+    public abstract List<Transaction> newestFirst(int before, int limit);
+
+    /**
+     * Up to {@code limit} entries with {@code from <= createdTimestamp < to},
+     * newest first, in {@link TimeIndex.Entry} order. Either bound may be
+     * {@code null} for an open range.
+     *
+     * @param before if not {@code null}, only entries ordered before this one
+     */
+    public abstract List<TimeIndex.Entry> newestFirst(LocalDateTime from, LocalDateTime to, TimeIndex.Entry before, int limit);
+
+    /** Copy of the first {@code count} transactions in order. */
+    public Transaction[] toArray(int count) {
+        Transaction[] copy = new Transaction[count];
+        copyTo(1, count, copy, 0);
+        return copy;
+    }
+
+    /**
+     * Copy {@code count} transactions from sequence number {@code first} on
+     * into {@code target} at {@code offset}. Like any read it needs no lock,
+     * so a long history can be copied a batch at a time up to a size read
+     * earlier.
+     */
+    public abstract void copyTo(int first, int count, Transaction[] target, int offset);
+
+    /**
+     * Copy {@code count} transactions from sequence number {@code first} on
+     * into primitive columns, for aggregating without building objects.
+     *
+     * @param amounts  filled with each amount in minor units, positive for a
+     *                 deposit, negative for a withdrawal and 0 with no type
+     * @param created  filled with each creation time as {@link #epochNanos(LocalDateTime)}
+     */
+    public abstract void copyColumns(int first, int count, long[] amounts, long[] created);
+
+    /**
+     * A timestamp as nanoseconds since the epoch in UTC, clamped to the
+     * range of a {@code long} (years 1677 to 2262), with
+     * {@link Long#MIN_VALUE} for {@code null} and {@link LocalDateTime#MIN}.
+     */
+    public static long epochNanos(LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return Long.MIN_VALUE;
+        }
+        return epochNanos(timestamp.toEpochSecond(ZoneOffset.UTC), timestamp.getNano());
+    }
+
+    static long epochNanos(long seconds, int nanos) {
+        if (seconds <= Long.MIN_VALUE / NANOS_PER_SECOND) {
+            return Long.MIN_VALUE;
+        }
+        if (seconds >= Long.MAX_VALUE / NANOS_PER_SECOND) {
+            return Long.MAX_VALUE;
+        }
+        return seconds * NANOS_PER_SECOND + nanos;
+    }
+
+    static long signedAmount(long amount, TransactionTypes type) {
+        if (type == null) {
+            return 0;
+        }
+        return type == TransactionTypes.WITHDRAWAL ? -amount : amount;
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.api.registry;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.example.api.metrics.AccountLockWaitEvent;
+import com.example.api.objects.Account;
+import com.example.api.objects.User;
+
+/**
+ * In-memory registry holding every {@link User} and, through them, their
+ * accounts and transactions.
+ *
+ * <p>Each level (users, a user's accounts, an account's transactions) is a
+ * {@link ConcurrentHashMap}: reads never lock and writes only lock the bin
+ * they touch, so lookups from {@code JwtAuthFilter} scale with cores while
+ * users and accounts are being created or removed. Compound updates to a
+ * single account (such as the insufficient-funds check followed by the
+ * balance update) are serialised through {@link #accountLock(String)}.</p>
+ *
+ * <p>Accounts are also indexed by account number across all users, so an
+ * operation such as a transfer can reach an account it was only given the
+ * number of. Account numbers are unique across the registry and are never
+ * reused: {@link #issueAccountNumber()} hands them out from a counter that
+ * only moves forward, even past accounts that have since been deleted.</p>
+ */
+public final class UserRegistry {
+
+    /** Number of lock stripes, sized to the machine so writers rarely collide. */
+    public static final int STRIPES = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+
+    /** Account numbers are {@code 01} followed by six digits. */
+    public static final String ACCOUNT_NUMBER_PREFIX = "01";
+    public static final long MAX_ACCOUNT_NUMBER = 999_999;
+
+    private static final ConcurrentHashMap<String, User> USERS = newMap();
+    private static final ConcurrentHashMap<String, Account> ACCOUNTS = newMap();
+    private static final StripedLocks ACCOUNT_LOCKS = new StripedLocks(STRIPES);
+    private static final LongAdder TRANSACTIONS = new LongAdder();
+    private static final AtomicLong LAST_ACCOUNT_NUMBER = new AtomicLong();
+
+    private UserRegistry() {
+    }
+
+    /**
+     * Create an empty map configured the same way as every level of the registry.
+     */
+    public static <K, V> ConcurrentHashMap<K, V> newMap() {
+        return new ConcurrentHashMap<>(16, 0.75f, STRIPES);
+    }
+
+    /**
+     * Create an empty map sized to hold {@code expectedSize} entries without
+     * resizing, for bulk loads such as restoring a snapshot.
+     */
+    public static <K, V> ConcurrentHashMap<K, V> newMap(int expectedSize) {
+        return new ConcurrentHashMap<>(Math.max(16, expectedSize), 0.75f, STRIPES);
+    }
+
+    public static User get(String userId) {
+        return USERS.get(userId);
+    }
+
+    /**
+     * Add a user, indexing any accounts it already holds.
+     */
+    public static void put(User user) {
+        for (Account account : user.getAccounts().values()) {
+            indexAccount(account);
+        }
+        USERS.put(user.getId(), user);
+    }
+
+    /**
+     * Remove a user and take its accounts out of the account index. Each
+     * account is unindexed under its account lock, as when an account is
+     * deleted on its own, so a transfer that has locked an account and found
+     * it indexed can post to it.
+     *
+     * @return the removed user, or {@code null} if there was none
+     */
+    public static User remove(String userId) {
+        User removed = USERS.remove(userId);
+        if (removed != null) {
+            for (Account account : removed.getAccounts().values()) {
+                ReentrantLock lock = accountLock(account.getAccountNumber());
+                AccountLockWaitEvent.lock(lock, account.getAccountNumber());
+                try {
+                    unindexAccount(account);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+        return removed;
+    }
+
+    public static boolean contains(String userId) {
+        return USERS.containsKey(userId);
+    }
+
+    public static int size() {
+        return USERS.size();
+    }
+
+    /**
+     * Weakly consistent view of all users; safe to iterate while writers are active.
+     */
+    public static Collection<User> users() {
+        return USERS.values();
+    }
+
+    public static void clear() {
+        USERS.clear();
+        ACCOUNTS.clear();
+        TRANSACTIONS.reset();
+        LAST_ACCOUNT_NUMBER.set(0);
+    }
+
+    /**
+     * The account with the given number, whichever user holds it.
+     */
+    public static Account account(String accountNumber) {
+        return ACCOUNTS.get(accountNumber);
+    }
+
+    /**
+     * Claim the account's number in the account index. The number also counts
+     * as issued, so accounts restored from a snapshot or the journal are never
+     * handed out again.
+     *
+     * @return {@code false} if another account already holds the number
+     */
+    public static boolean indexAccount(Account account) {
+        accountNumberIssued(account.getAccountNumber());
+        Account existing = ACCOUNTS.putIfAbsent(account.getAccountNumber(), account);
+        return existing == null || existing == account;
+    }
+
+    /**
+     * Issue the next account number. Each number is handed out once, whether
+     * or not the account it went to still exists.
+     *
+     * @return the number, or {@code null} once all of them have been issued
+     */
+    public static String issueAccountNumber() {
+        long previous = LAST_ACCOUNT_NUMBER.getAndUpdate(n -> n < MAX_ACCOUNT_NUMBER ? n + 1 : n);
+        if (previous >= MAX_ACCOUNT_NUMBER) {
+            return null;
+        }
+        return ACCOUNT_NUMBER_PREFIX + String.format("%06d", previous + 1);
+    }
+
+    /**
+     * Record that {@code accountNumber} has been issued. Numbers not in the
+     * issued format are ignored.
+     */
+    public static void accountNumberIssued(String accountNumber) {
+        if (accountNumber == null || accountNumber.length() != ACCOUNT_NUMBER_PREFIX.length() + 6
+                || !accountNumber.startsWith(ACCOUNT_NUMBER_PREFIX)) {
+            return;
+        }
+        long number = 0;
+        for (int i = ACCOUNT_NUMBER_PREFIX.length(); i < accountNumber.length(); i++) {
+            char c = accountNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return;
+            }
+            number = number * 10 + (c - '0');
+        }
+        accountNumberIssued(number);
+    }
+
+    /** Raise the issued high-water mark to at least {@code number}, as restored from a snapshot. */
+    public static void accountNumberIssued(long number) {
+        LAST_ACCOUNT_NUMBER.accumulateAndGet(number, Math::max);
+    }
+
+    /** The highest account number issued so far, for snapshots. */
+    public static long lastAccountNumber() {
+        return LAST_ACCOUNT_NUMBER.get();
+    }
+
+    /**
+     * Release the account's number, if it is still held by this account, and
+     * stop counting its transactions. Callers hold the account lock, except
+     * during replay.
+     */
+    public static void unindexAccount(Account account) {
+        if (ACCOUNTS.remove(account.getAccountNumber(), account)) {
+            TRANSACTIONS.add(-account.getHistory().size());
+        }
+    }
+
+    public static int accountCount() {
+        return ACCOUNTS.size();
+    }
+
+    /** Count transactions added to account histories, for {@link #transactionCount()}. */
+    public static void transactionsAdded(int count) {
+        TRANSACTIONS.add(count);
+    }
+
+    /**
+     * Transactions held across all accounts, kept as a running count so
+     * reading it never walks the registry.
+     */
+    public static long transactionCount() {
+        return TRANSACTIONS.sum();
+    }
+
+    /**
+     * Lock guarding compound mutations of the account with the given number.
+     */
+    public static ReentrantLock accountLock(String accountNumber) {
+        return ACCOUNT_LOCKS.lockFor(accountNumber);
+    }
+
+    /**
+     * Locks guarding two accounts, in the order they must be acquired; see
+     * {@link StripedLocks#lockOrderFor(Object, Object)}.
+     */
+    public static ReentrantLock[] accountLocks(String accountNumber, String otherAccountNumber) {
+        return ACCOUNT_LOCKS.lockOrderFor(accountNumber, otherAccountNumber);
+    }
+}
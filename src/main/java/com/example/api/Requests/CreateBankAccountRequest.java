@@ -3,6 +3,7 @@ package com.example.api.requests;
 import com.example.api.objects.Account.AccountTypes;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.Builder;
 import lombok.Data;
 
@@ -11,6 +12,7 @@ import lombok.Data;
 public class CreateBankAccountRequest {
 
     @NotBlank(message = "Name cannot be blank")
+    @Size(max = 255, message = "Name cannot exceed 255 characters")
     private String name;
 
     @NotBlank(message = "Account type cannot be blank")
@@ -0,0 +1,37 @@
+package com.example.api.requests;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateTransactionBatchRequest {
+
+    public static final int MAX_TRANSACTIONS = 500;
+
+    public enum BatchModes {
+        /** Post every transaction or none of them. */
+        ATOMIC,
+        /** Post each transaction that can be posted, in order. */
+        PER_ITEM
+    }
+
+    @NotNull(message = "mode cannot be null")
+    private BatchModes mode;
+
+    @NotEmpty(message = "transactions cannot be empty")
+    @Size(max = MAX_TRANSACTIONS, message = "A batch can hold at most " + MAX_TRANSACTIONS + " transactions")
+    @Valid
+    private List<CreateTransactionRequest> transactions;
+
+}
@@ -23,7 +23,7 @@ public class CreateTransactionRequest {
         this.type = type;
     }
     
-    @NotBlank(message = "amount cannot be null")
+    @NotNull(message = "amount cannot be null")
     @Positive(message = "Amount must be greater than 0")
     @Valid
     private Double amount;
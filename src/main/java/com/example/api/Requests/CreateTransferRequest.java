@@ -0,0 +1,30 @@
+package com.example.api.requests;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateTransferRequest {
+
+    /** Account to credit; may belong to any user. */
+    @NotBlank(message = "toAccountNumber cannot be blank")
+    @Pattern(regexp = "^01\\d{6}$", message = "toAccountNumber must be 01 followed by six digits")
+    private String toAccountNumber;
+
+    @NotNull(message = "amount cannot be null")
+    @Positive(message = "Amount must be greater than 0")
+    private Double amount;
+
+    @NotNull(message = "currency cannot be null")
+    private String currency;
+
+}
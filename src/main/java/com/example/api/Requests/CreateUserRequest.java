@@ -6,6 +6,7 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.Builder;
 import lombok.Data;
 
@@ -14,6 +15,7 @@ import lombok.Data;
 public class CreateUserRequest {
     
     @NotNull(message = "Name cannot be null")
+    @Size(max = 255, message = "Name cannot exceed 255 characters")
     @Valid
     public String name;
 
@@ -28,6 +30,7 @@ public class CreateUserRequest {
 
     @NotNull(message = "Email cannot be null")
     @Email(message = "Email format is invalid")
+    @Size(max = 254, message = "Email cannot exceed 254 characters")
     @Valid
     public String email;
     
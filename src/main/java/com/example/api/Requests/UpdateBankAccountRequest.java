@@ -2,6 +2,7 @@ package com.example.api.requests;
 
 import com.example.api.objects.Account.AccountTypes;
 
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -12,6 +13,7 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 public class UpdateBankAccountRequest {
+    @Size(max = 255, message = "Name cannot exceed 255 characters")
     private String name;
     private AccountTypes accountType;
 }
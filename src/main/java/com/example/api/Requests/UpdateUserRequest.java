@@ -2,6 +2,10 @@ package com.example.api.requests;
 
 import com.example.api.objects.Address;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.Builder;
 import lombok.Data;
 
@@ -9,9 +13,17 @@ import lombok.Data;
 @Data
 public class UpdateUserRequest {
         
+    @Size(max = 255, message = "Name cannot exceed 255 characters")
     public String name;
+
+    @Valid
     public Address address;
+
+    @Pattern(regexp = "^\\+[1-9]\\d{1,14}$", message = "Invalid phone number format: Numbers must be in E.164 format, starting with '+' followed by country code and up to 14 digits")
     public String phoneNumber;
+
+    @Email(message = "Email format is invalid")
+    @Size(max = 254, message = "Email cannot exceed 254 characters")
     public String email;
     
 }
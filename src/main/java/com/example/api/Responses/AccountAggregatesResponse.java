@@ -0,0 +1,32 @@
+package com.example.api.responses;
+
+import java.time.LocalDateTime;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Builder
+@Data
+public class AccountAggregatesResponse {
+
+    private String currency;
+
+    /** The period covered, as requested; {@code null} for an open end. */
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    private TypeAggregates deposits;
+    private TypeAggregates withdrawals;
+
+    /** Amounts are in major units; min, max and average are {@code null} when count is 0. */
+    @Builder
+    @Data
+    public static class TypeAggregates {
+        private long count;
+        private Double total;
+        private Double min;
+        private Double max;
+        private Double average;
+    }
+
+}
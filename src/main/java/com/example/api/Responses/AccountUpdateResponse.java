@@ -0,0 +1,22 @@
+package com.example.api.responses;
+
+import lombok.Builder;
+import lombok.Data;
+
+/** One update on an account stream; see {@code GET /v1/accounts/stream}. */
+@Data
+@Builder
+public class AccountUpdateResponse {
+    private String accountNumber;
+    private String currency;
+    /** Balance in major units once the update was applied; {@code null} on a {@code closed} event. */
+    private Double balance;
+    /** The posting, on {@code transaction} events only. */
+    private TransactionResponse transaction;
+    /**
+     * {@code true} when transactions to the account were folded into this
+     * balance rather than sent one by one because the client fell behind;
+     * list the account's transactions to catch up.
+     */
+    private Boolean missedTransactions;
+}
@@ -15,6 +15,8 @@ public class BankAccountResponse {
     private String name;
     private AccountTypes accountType;
     private Double balance;
+    /** Goes up with every change to the account; also sent as the {@code ETag}. */
+    private Long version;
     private String currency;
     private LocalDateTime createdTimestamp;
     private LocalDateTime updatedTimestamp;
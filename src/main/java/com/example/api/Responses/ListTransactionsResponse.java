@@ -11,4 +11,7 @@ public class ListTransactionsResponse {
     
     private List<TransactionResponse> transactions;
 
+    /** Cursor for the next (older) page, or {@code null} on the last page. */
+    private String nextCursor;
+
 }
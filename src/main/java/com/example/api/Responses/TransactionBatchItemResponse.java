@@ -0,0 +1,21 @@
+package com.example.api.responses;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Builder
+@Data
+public class TransactionBatchItemResponse {
+
+    /** Position of the transaction in the request. */
+    private int index;
+
+    /** HTTP status this transaction would have had as a single request. */
+    private int status;
+
+    /** The posted transaction, when {@link #status} is 201. */
+    private TransactionResponse transaction;
+
+    private String error;
+
+}
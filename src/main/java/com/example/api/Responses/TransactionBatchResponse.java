@@ -0,0 +1,22 @@
+package com.example.api.responses;
+
+import java.util.List;
+
+import com.example.api.requests.CreateTransactionBatchRequest.BatchModes;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Builder
+@Data
+public class TransactionBatchResponse {
+
+    private BatchModes mode;
+
+    /** Number of transactions that were posted. */
+    private int posted;
+
+    /** One result per requested transaction, in request order. */
+    private List<TransactionBatchItemResponse> results;
+
+}
@@ -0,0 +1,21 @@
+package com.example.api.responses;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Builder
+@Data
+public class TransferResponse {
+
+    private String fromAccountNumber;
+    private String toAccountNumber;
+    private Double amount;
+    private String currency;
+
+    /** The posting that debited the source account. */
+    private TransactionResponse withdrawal;
+
+    /** The posting that credited the destination account. */
+    private TransactionResponse deposit;
+
+}
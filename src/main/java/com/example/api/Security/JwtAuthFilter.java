@@ -11,7 +11,11 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.example.api.metrics.Metrics;
+import com.example.api.metrics.RequestLog;
+import com.example.api.metrics.TokenValidationEvent;
 import com.example.api.objects.User;
+import com.example.api.registry.UserRegistry;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -34,11 +38,25 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
+            TokenValidationEvent event = new TokenValidationEvent();
+            boolean cacheHit = event.isEnabled() && jwtUtil.isCached(token);
+            long start = System.nanoTime();
+            event.begin();
             String userId = jwtUtil.validateAndExtractUserId(token);
+            event.end();
+            Metrics.recordJwtValidation(System.nanoTime() - start);
+            if (event.shouldCommit()) {
+                event.cacheHit = cacheHit;
+                event.valid = userId != null;
+                event.commit();
+            }
+
+            User authed_user = userId == null ? null : UserRegistry.get(userId);
+            if (authed_user != null) {
+                request.setAttribute(RequestLog.USER_ID, userId);
+            }
 
-            if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                
-                User authed_user = User.users.get(userId);
+            if (authed_user != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
                                 authed_user,
@@ -1,43 +1,164 @@
 package com.example.api.security;
 
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 
+/**
+ * Issues and verifies the bearer tokens used by {@link JwtAuthFilter}.
+ *
+ * <p>Clients send the same token on every request until it expires, so
+ * tokens that verified once are remembered under their SHA-256 digest until
+ * their {@code exp} claim. A repeat request then costs one digest and one
+ * map lookup instead of an HMAC check and a JSON parse. Only the digest is
+ * kept, never the token itself, and invalid tokens are never cached.</p>
+ */
 @Component
 public class JwtUtil {
 
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+
     private final Key key = Keys.hmacShaKeyFor("super-secret-key-that-should-be-very-long".getBytes());
     private final long expirationMs = 3600000; // 1 hour
 
+    // Parsers are immutable and thread-safe; build the one we need once
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+    private final MessageDigest sha256;
+
+    private record VerifiedToken(String userId, long expiresAtMillis) {
+    }
+
+    private final ConcurrentHashMap<String, VerifiedToken> verified;
+    private final int cacheSize;
+
+    public JwtUtil() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param cacheSize how many verified tokens to remember; 0 verifies every
+     *                  token in full
+     */
+    @Autowired
+    public JwtUtil(@Value("${security.jwt.token-cache-size:10000}") int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("Token cache size must not be negative");
+        }
+        try {
+            this.sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+        this.cacheSize = cacheSize;
+        this.verified = new ConcurrentHashMap<>(Math.max(16, cacheSize * 4 / 3 + 1));
+    }
+
     public String generateToken(String userId) {
+        return generateToken(userId, expirationMs);
+    }
+
+    String generateToken(String userId, long validForMs) {
         return Jwts.builder()
                 .setSubject(userId)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + expirationMs))
+                .setExpiration(new Date(System.currentTimeMillis() + validForMs))
                 .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public String validateAndExtractUserId(String token) {
+        if (cacheSize == 0) {
+            return verify(token, null);
+        }
+
+        String digest = digest(token);
+        VerifiedToken cached = verified.get(digest);
+        if (cached != null) {
+            if (System.currentTimeMillis() < cached.expiresAtMillis) {
+                return cached.userId;
+            }
+            verified.remove(digest, cached);
+            return null; // expired
+        }
+        return verify(token, digest);
+    }
+
+    /**
+     * Whether the token would be answered from the cache without verifying
+     * its signature. Costs a digest, so only call it when the answer is
+     * going to be recorded.
+     */
+    public boolean isCached(String token) {
+        return cacheSize > 0 && verified.containsKey(digest(token));
+    }
+
+    /** Number of tokens currently remembered as verified. */
+    int cachedTokens() {
+        return verified.size();
+    }
+
+    private String verify(String token, String digest) {
+        Claims claims;
         try {
-            Jws<Claims> claims = Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token);
-            return claims.getBody().getSubject();
-        } catch (JwtException ex) {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException ex) {
             return null; // invalid token
         }
+
+        // Without an expiry there is nothing to bound the entry by, so don't cache it
+        Date expiration = claims.getExpiration();
+        if (digest != null && expiration != null && claims.getSubject() != null) {
+            if (verified.size() >= cacheSize) {
+                evict();
+            }
+            verified.put(digest, new VerifiedToken(claims.getSubject(), expiration.getTime()));
+        }
+        return claims.getSubject();
+    }
+
+    /**
+     * Make room by dropping expired tokens, then arbitrary ones, down to three
+     * quarters of the capacity so a full cache is not swept on every insert.
+     */
+    private void evict() {
+        long now = System.currentTimeMillis();
+        verified.values().removeIf(entry -> entry.expiresAtMillis <= now);
+        int target = cacheSize * 3 / 4;
+        for (Iterator<String> it = verified.keySet().iterator(); it.hasNext() && verified.size() > target; ) {
+            it.next();
+            it.remove();
+        }
     }
-}
 
+    private String digest(String token) {
+        MessageDigest md;
+        try {
+            md = (MessageDigest) sha256.clone(); // cheaper than a provider lookup per call
+        } catch (CloneNotSupportedException ex) {
+            try {
+                md = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException impossible) {
+                throw new IllegalStateException(impossible);
+            }
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+}
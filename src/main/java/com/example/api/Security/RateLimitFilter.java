@@ -0,0 +1,123 @@
+package com.example.api.security;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import com.example.api.metrics.Metrics;
+import com.example.api.objects.User;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Rejects an authenticated user's request with 429 and {@code Retry-After}
+ * once they exceed {@code ledger.rate-limit.requests-per-second} on one
+ * endpoint, allowing bursts of up to {@code ledger.rate-limit.burst}. Each
+ * endpoint has its own bucket, so a client hammering transaction posts can
+ * still read its accounts. Runs straight after {@link JwtAuthFilter};
+ * unauthenticated requests pass through to be turned away by Spring
+ * Security or, for sign-up, served as usual. A rate of 0 turns limiting off.
+ *
+ * <p>Buckets are keyed on the decoded path, as the handlers are matched, and
+ * only segments that appear in a route are kept, so re-encoding a letter or
+ * inventing paths can neither dodge a bucket nor create new ones.</p>
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // Path segments followed by an identifier, and the literal segments that can sit in an identifier's place
+    private static final String[] COLLECTIONS = {"users", "accounts", "transactions"};
+    private static final String[] ACTIONS = {"batch", "export"};
+    // Every literal segment of a route; anything else is keyed as *
+    private static final String[] ROUTE_SEGMENTS = {"v1", "users", "accounts", "transactions", "transfers",
+        "aggregates", "stream", "batch", "export", "hello"};
+    // More segments than the deepest route are keyed as one trailing /**
+    private static final int MAX_SEGMENTS = 5;
+
+    private static final UrlPathHelper PATHS = new UrlPathHelper();
+
+    private final RateLimiter limiter;
+
+    public RateLimitFilter(
+            @Value("${ledger.rate-limit.requests-per-second:50}") double rate,
+            @Value("${ledger.rate-limit.burst:100}") int burst,
+            @Value("${ledger.rate-limit.max-keys:100000}") int maxKeys) {
+        this.limiter = rate > 0 ? new RateLimiter(rate, burst, maxKeys) : null;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (limiter != null && authentication != null && authentication.getPrincipal() instanceof User user) {
+            long wait = limiter.tryAcquire(key(user.getId(), request.getMethod(), PATHS.getPathWithinApplication(request)));
+            if (wait > 0) {
+                Metrics.rateLimited();
+                long seconds = Math.max(1, (wait + 999_999_999) / 1_000_000_000);
+                response.setStatus(HttpServletResponse.SC_TOO_MANY_REQUESTS);
+                response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+                response.setContentType("application/json");
+                response.getWriter().write("{\"status\":429,\"error\":\"Too Many Requests\",\"message\":\"Rate limit exceeded, retry after "
+                    + seconds + " seconds\"}");
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * The user ID, method and decoded path with identifiers and segments no
+     * route has replaced by {@code *}, such as
+     * {@code usr-1 POST /v1/accounts/*}{@code /transactions}, so a user shares
+     * one bucket across all their accounts.
+     */
+    static String key(String userId, String method, String path) {
+        StringBuilder key = new StringBuilder(userId.length() + method.length() + path.length() + 2)
+            .append(userId).append(' ').append(method).append(' ');
+        boolean identifierNext = false;
+        int start = path.startsWith("/") ? 1 : 0;
+        for (int segments = 0; start <= path.length(); segments++) {
+            if (segments == MAX_SEGMENTS) {
+                key.append("/**");
+                break;
+            }
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            if (identifierNext && end > start && !matchesAny(path, start, end, ACTIONS)) {
+                key.append("/*");
+                identifierNext = false;
+            } else if (end == start || matchesAny(path, start, end, ROUTE_SEGMENTS)) {
+                key.append('/').append(path, start, end);
+                identifierNext = matchesAny(path, start, end, COLLECTIONS);
+            } else {
+                key.append("/*");
+                identifierNext = false;
+            }
+            start = end + 1;
+        }
+        return key.toString();
+    }
+
+    private static boolean matchesAny(String path, int start, int end, String[] words) {
+        for (String word : words) {
+            if (word.length() == end - start && path.regionMatches(start, word, 0, word.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
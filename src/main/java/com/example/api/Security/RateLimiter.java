@@ -0,0 +1,99 @@
+package com.example.api.security;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets keyed by caller, refilled at {@code rate} tokens a second
+ * and holding at most {@code burst}.
+ *
+ * <p>Each bucket is a single {@code long}: the time at which it would be
+ * full again (the generic cell rate algorithm). Taking a token pushes that
+ * time forward by one refill interval with a CAS, so checks never lock and
+ * a bucket needs no refill timer. A bucket whose full-again time has passed
+ * holds nothing worth keeping; once the map reaches {@code maxKeys} those
+ * are dropped first, then arbitrary ones, which at worst hands a caller a
+ * fresh bucket.</p>
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, AtomicLong> buckets;
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /**
+     * @param rate    tokens added per second
+     * @param burst   tokens a full bucket holds, at least one
+     * @param maxKeys buckets to keep before evicting
+     */
+    public RateLimiter(double rate, int burst, int maxKeys) {
+        if (!(rate > 0) || burst < 1 || maxKeys < 1) {
+            throw new IllegalArgumentException("rate, burst and maxKeys must be positive");
+        }
+        this.intervalNanos = Math.max(1, Math.round(1e9 / rate));
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.maxKeys = maxKeys;
+        this.buckets = new ConcurrentHashMap<>(Math.min(maxKeys, 1 << 16));
+    }
+
+    /**
+     * Take a token from the key's bucket.
+     *
+     * @return 0 if a token was taken, otherwise how many nanoseconds until one will be available
+     */
+    public long tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    long tryAcquire(String key, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                evict(now);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            // A bucket that has been full since some time in the past counts as full from now
+            long start = fullAt - now > 0 ? fullAt : now;
+            long wait = start - now - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /** Number of buckets currently held. */
+    int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Drop full buckets, then arbitrary ones, down to three quarters of the
+     * capacity so a full map is not swept on every new key. One thread
+     * sweeps at a time; the rest carry on.
+     */
+    private void evict(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+            int target = maxKeys * 3 / 4;
+            for (Iterator<String> it = buckets.keySet().iterator(); it.hasNext() && buckets.size() > target; ) {
+                it.next();
+                it.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+}
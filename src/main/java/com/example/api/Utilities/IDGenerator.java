@@ -1,30 +1,132 @@
 package com.example.api.utilities;
 
-import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+/**
+ * Generates user and transaction IDs that are unique within the process and
+ * sort by creation time, and never repeat one a restored ledger holds.
+ *
+ * <p>An ID packs, from the most significant bit down, the milliseconds since
+ * {@link #EPOCH_MILLIS} (42 bits, good until 2164), a stripe number (5 bits)
+ * and a sequence within that millisecond (16 bits). It is written as 11
+ * fixed-width base-62 digits in ascending ASCII order, so comparing two IDs
+ * as strings compares their creation times.</p>
+ *
+ * <p>Each stripe remembers the last value it issued and hands out the next
+ * one with a compare-and-set, never going backwards even if the clock does.
+ * Threads are spread over the stripes by thread ID, so with up to
+ * {@value #STRIPES} busy threads each one effectively has its own counter.
+ * A stripe that issues more than 65536 IDs in one millisecond borrows from
+ * the next, which keeps its IDs unique and ordered.</p>
+ *
+ * <p>Restoring the ledger reports every ID it reads back through
+ * {@link #issued(String)}, which moves all stripes past that ID's
+ * millisecond. A clock that stepped back between runs therefore cannot
+ * reissue an ID the journal or a snapshot already holds.</p>
+ */
 public class IDGenerator {
 
     private static final String USER_PREFIX = "usr-";
     private static final String TRANSACTION_PREFIX = "tan-";
-    private static final String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
-    private static final int ID_LENGTH = 6; // change as desired
-    private static final SecureRandom RANDOM = new SecureRandom();
+    // Ascending ASCII order, so fixed-width IDs sort like the numbers they encode
+    private static final char[] CHARACTERS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final int ID_LENGTH = 11; // 62^11 > 2^63
+
+    /** 2025-01-01T00:00:00Z. */
+    public static final long EPOCH_MILLIS = 1_735_689_600_000L;
+
+    private static final int SEQUENCE_BITS = 16;
+    private static final int STRIPE_BITS = 5;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // One stripe per 128 bytes so threads on different stripes never share a cache line
+    private static final int PADDING = 16;
+    private static final AtomicLongArray LAST = new AtomicLongArray(STRIPES * PADDING);
+    // Highest tick raised by issued(), so IDs at or below it return without touching the stripes
+    private static final AtomicLong FLOOR = new AtomicLong(-1);
 
     public static String generateUserId() {
-        StringBuilder sb = new StringBuilder(USER_PREFIX);
-        for (int i = 0; i < ID_LENGTH; i++) {
-            int index = RANDOM.nextInt(CHARACTERS.length());
-            sb.append(CHARACTERS.charAt(index));
-        }
-        return sb.toString();
+        return format(USER_PREFIX, next());
     }
 
     public static String generateTransactionId() {
-        StringBuilder sb = new StringBuilder(TRANSACTION_PREFIX);
-        for (int i = 0; i < ID_LENGTH; i++) {
-            int index = RANDOM.nextInt(CHARACTERS.length());
-            sb.append(CHARACTERS.charAt(index));
+        return format(TRANSACTION_PREFIX, next());
+    }
+
+    /**
+     * Record that {@code id} was issued by an earlier run, so every ID issued
+     * from now on sorts after it. IDs not in this generator's format are
+     * ignored.
+     */
+    public static void issued(String id) {
+        long value = parse(id);
+        if (value < 0) {
+            return;
+        }
+        long millis = value >>> (STRIPE_BITS + SEQUENCE_BITS);
+        long floor = ((millis + 1) << SEQUENCE_BITS) - 1;
+        if (FLOOR.get() < floor && FLOOR.accumulateAndGet(floor, Math::max) == floor) {
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                LAST.accumulateAndGet(stripe * PADDING, floor, Math::max);
+            }
+        }
+    }
+
+    static long next() {
+        int stripe = (int) (Thread.currentThread().threadId() & (STRIPES - 1));
+        int slot = stripe * PADDING;
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+
+        long last;
+        long tick;
+        do {
+            last = LAST.get(slot);
+            tick = Math.max(last + 1, now);
+        } while (!LAST.compareAndSet(slot, last, tick));
+
+        long millis = tick >>> SEQUENCE_BITS;
+        return millis << (STRIPE_BITS + SEQUENCE_BITS) | (long) stripe << SEQUENCE_BITS | (tick & SEQUENCE_MASK);
+    }
+
+    static String format(String prefix, long value) {
+        char[] id = new char[prefix.length() + ID_LENGTH];
+        prefix.getChars(0, prefix.length(), id, 0);
+        for (int i = id.length - 1; i >= prefix.length(); i--) {
+            id[i] = CHARACTERS[(int) (value % CHARACTERS.length)];
+            value /= CHARACTERS.length;
+        }
+        return new String(id);
+    }
+
+    /** The value an ID encodes, or -1 if it does not end in {@value #ID_LENGTH} base-62 digits after its prefix. */
+    static long parse(String id) {
+        int start = id == null ? -1 : id.length() - ID_LENGTH;
+        if (start < 1 || id.charAt(start - 1) != '-') {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < id.length(); i++) {
+            int digit = digit(id.charAt(i));
+            if (digit < 0 || value > (Long.MAX_VALUE - digit) / CHARACTERS.length) {
+                return -1;
+            }
+            value = value * CHARACTERS.length + digit;
+        }
+        return value;
+    }
+
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 36;
         }
-        return sb.toString();
+        return -1;
     }
 }
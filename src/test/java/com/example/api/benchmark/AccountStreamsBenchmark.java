@@ -0,0 +1,98 @@
+package com.example.api.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.api.events.Event.EventTypes;
+import com.example.api.events.EventBus;
+import com.example.api.handlers.AccountStreams;
+import com.example.api.objects.Account;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.objects.User;
+import com.example.api.registry.UserRegistry;
+import com.example.api.responses.AccountUpdateResponse;
+
+/**
+ * What the event thread spends routing a posting to an account stream while
+ * {@code streams} other users hold idle streams, including starting the
+ * virtual thread that writes it to a client that discards it. Compare the
+ * heap in use after setup across {@code streams} values for the cost of an
+ * idle stream.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountStreamsBenchmark {
+
+    @Param({"1000", "50000"})
+    private int streams;
+
+    private final Transaction transaction = Transaction.builder()
+        .amount(25_000).currency("GBP").type(TransactionTypes.DEPOSIT).build();
+
+    private AccountStreams accountStreams;
+    private EventBus bus;
+    private EventBus.Subscription subscription;
+
+    private static final AccountStreams.Sink DISCARD = new AccountStreams.Sink() {
+        @Override
+        public void send(String name, AccountUpdateResponse update) {
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void complete() {
+        }
+    };
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        accountStreams = new AccountStreams(256, streams + 1, Duration.ofSeconds(15));
+        for (int i = 0; i <= streams; i++) {
+            User user = User.builder().id("usr-bench" + i).build();
+            String accountNumber = String.format("01%06d", i + 1);
+            user.getAccounts().put(accountNumber, Account.builder()
+                .accountNumber(accountNumber).userId(user.getId()).currency("GBP").build());
+            UserRegistry.put(user);
+            accountStreams.open(user, DISCARD);
+        }
+        bus = new EventBus(1024);
+        subscription = bus.subscribe("accountStreams");
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        System.out.println("heap in use " + (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024) + " MB");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        accountStreams.close();
+        UserRegistry.clear();
+    }
+
+    @Benchmark
+    public int post() {
+        bus.publish(EventTypes.TRANSACTION_CREATED, "usr-bench0", "01000001", transaction, 25_000);
+        return subscription.poll(accountStreams, 1);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.api.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.api.ledger.Aggregates;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.registry.TransactionLog;
+
+/**
+ * Deposit and withdrawal aggregates over an account of 10M transactions,
+ * for half of its history, with the SIMD kernel and the scalar loop on each
+ * {@link TransactionLog} backend. The forks add the Vector API module, so
+ * {@code vectorized = true} measures SIMD wherever the CPU has it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g", "--add-modules", "jdk.incubator.vector"})
+public class AggregatesBenchmark {
+
+    private static final int TRANSACTIONS = 10_000_000;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Param({"false", "true"})
+    public boolean vectorized;
+
+    @Param({"false", "true"})
+    public boolean offHeap;
+
+    private TransactionLog history;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TransactionLog.setOffHeap(offHeap);
+        Aggregates.setVectorized(vectorized);
+        if (vectorized && !Aggregates.isVectorized()) {
+            throw new IllegalStateException("Vector API unavailable in this JVM");
+        }
+        history = TransactionLog.create();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            history.append(Transaction.builder()
+                .id("tan-" + i)
+                .amount(100 + i % 10_000)
+                .currency("GBP")
+                .type(i % 3 == 0 ? TransactionTypes.WITHDRAWAL : TransactionTypes.DEPOSIT)
+                .createdTimestamp(START.plusSeconds(i))
+                .build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        TransactionLog.setOffHeap(false);
+        Aggregates.setVectorized(true);
+    }
+
+    @Benchmark
+    public Aggregates.Result aggregate() {
+        return Aggregates.compute(history, TRANSACTIONS,
+            START.plusSeconds(TRANSACTIONS / 4), START.plusSeconds(3L * TRANSACTIONS / 4));
+    }
+}
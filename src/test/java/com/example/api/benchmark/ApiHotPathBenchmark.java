@@ -0,0 +1,163 @@
+package com.example.api.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.api.handlers.AccountsAPI;
+import com.example.api.metrics.Metrics;
+import com.example.api.objects.Account;
+import com.example.api.objects.Address;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.User;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.requests.CreateTransactionRequest;
+import com.example.api.security.JwtUtil;
+import com.example.api.security.RateLimiter;
+import com.example.api.utilities.IDGenerator;
+
+/**
+ * The per-request work behind the busiest endpoints, one benchmark each, so a
+ * slowdown or a new allocation shows up against a single method.
+ *
+ * <p>Run every benchmark with allocation rates from the GC profiler using
+ * {@code mvn -Pbenchmark verify}, or narrow it with
+ * {@code -Djmh.include=ApiHotPathBenchmark}. Results land in
+ * {@code target/jmh-result.json}; compare them with the previous run's file
+ * before deploying. {@code gc.alloc.rate.norm} is bytes allocated per call
+ * and is stable enough to flag any change.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiHotPathBenchmark {
+
+    private static final String ACCOUNT_NUMBER = "01000001";
+    private static final String HISTORY_ACCOUNT_NUMBER = "01000002";
+    private static final int HISTORY = 10_000;
+
+    private final CreateTransactionRequest deposit = new CreateTransactionRequest(10.0, "GBP", TransactionTypes.DEPOSIT);
+
+    private AccountsAPI accountsApi;
+    private User user;
+    private String transactionId;
+    private JwtUtil cachingJwtUtil;
+    private JwtUtil verifyingJwtUtil;
+    private String token;
+    private RateLimiter rateLimiter;
+
+    @Setup
+    public void setUp() {
+        accountsApi = new AccountsAPI();
+        user = User.builder()
+            .id("usr-bench1")
+            .address(Address.builder().line1("1 Bench St").town("Benchville").postcode("BN1 1CH").build())
+            .build();
+
+        Account history = Account.builder()
+            .userId(user.getId())
+            .accountNumber(HISTORY_ACCOUNT_NUMBER)
+            .name("Current")
+            .accountType(Account.AccountTypes.PERSONAL)
+            .currency("GBP")
+            .build();
+        for (int i = 0; i < HISTORY; i++) {
+            Transaction transaction = Transaction.builder()
+                .amount(1000)
+                .currency("GBP")
+                .type(TransactionTypes.DEPOSIT)
+                .build();
+            history.addTransaction(transaction);
+            transactionId = transaction.getId();
+        }
+        user.getAccounts().put(HISTORY_ACCOUNT_NUMBER, history);
+
+        cachingJwtUtil = new JwtUtil();
+        verifyingJwtUtil = new JwtUtil(0);
+        token = cachingJwtUtil.generateToken(user.getId());
+        // Fast enough that every call is allowed, as for a well-behaved client
+        rateLimiter = new RateLimiter(1e9, 1_000, 100_000);
+    }
+
+    /** Start each iteration from an empty account so postings do not pile up. */
+    @Setup(Level.Iteration)
+    public void resetAccount() {
+        user.getAccounts().put(ACCOUNT_NUMBER, Account.builder()
+            .userId(user.getId())
+            .accountNumber(ACCOUNT_NUMBER)
+            .currency("GBP")
+            .build());
+    }
+
+    @Benchmark
+    public Object createTransaction() {
+        return accountsApi.createTransaction(user, ACCOUNT_NUMBER, deposit, null);
+    }
+
+    @Benchmark
+    public Object listTransactions() {
+        return accountsApi.listTransactions(user, HISTORY_ACCOUNT_NUMBER, null, null, null, null);
+    }
+
+    /** Lookup plus mapping to {@code BankAccountResponse}. */
+    @Benchmark
+    public Object getAccount() {
+        return accountsApi.getAccount(user, HISTORY_ACCOUNT_NUMBER);
+    }
+
+    /** Lookup plus mapping to {@code TransactionResponse}. */
+    @Benchmark
+    public Object getTransaction() {
+        return accountsApi.getTransaction(user, HISTORY_ACCOUNT_NUMBER, transactionId);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cachingJwtUtil.generateToken(user.getId());
+    }
+
+    @Benchmark
+    public String validateCachedToken() {
+        return cachingJwtUtil.validateAndExtractUserId(token);
+    }
+
+    @Benchmark
+    public String validateToken() {
+        return verifyingJwtUtil.validateAndExtractUserId(token);
+    }
+
+    /** What {@code MetricsFilter} adds to every request. */
+    @Benchmark
+    public void recordRequest() {
+        Metrics.recordRequest("GET", "/v1/accounts/{accountNumber}", 200, 150_000);
+    }
+
+    /** The per-request check in {@code RateLimitFilter}, once the bucket exists. */
+    @Benchmark
+    public long rateLimit() {
+        return rateLimiter.tryAcquire("usr-bench1 POST /v1/accounts/*/transactions");
+    }
+
+    @Benchmark
+    public String generateTransactionId() {
+        return IDGenerator.generateTransactionId();
+    }
+
+    @Benchmark
+    public String generateUserId() {
+        return IDGenerator.generateUserId();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.api.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.example.api.handlers.AccountsAPI;
+import com.example.api.objects.Account;
+import com.example.api.objects.Address;
+import com.example.api.objects.User;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.requests.CreateTransactionBatchRequest;
+import com.example.api.requests.CreateTransactionBatchRequest.BatchModes;
+import com.example.api.requests.CreateTransactionRequest;
+
+/**
+ * Posting {@code batchSize} deposits through one
+ * {@link AccountsAPI#createTransactions} call against the same number of
+ * {@link AccountsAPI#createTransaction} calls.
+ *
+ * <p>This measures the handlers only. Over HTTP each single call also pays
+ * for JWT verification in {@code JwtAuthFilter}, request validation and
+ * MVC dispatch, which the batch pays once, so the real gap is wider.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class BatchPostingBenchmark {
+
+    private static final String ACCOUNT_NUMBER = "01000001";
+
+    @Param({"10", "100", "500"})
+    public int batchSize;
+
+    private AccountsAPI accountsApi;
+    private User user;
+    private List<CreateTransactionRequest> items;
+    private CreateTransactionBatchRequest atomic;
+    private CreateTransactionBatchRequest perItem;
+
+    @Setup
+    public void setUp() {
+        accountsApi = new AccountsAPI();
+        user = User.builder()
+            .id("usr-bench1")
+            .address(Address.builder().line1("1 Bench St").town("Benchville").postcode("BN1 1CH").build())
+            .build();
+        items = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            items.add(new CreateTransactionRequest(10.0, "GBP", TransactionTypes.DEPOSIT));
+        }
+        atomic = new CreateTransactionBatchRequest(BatchModes.ATOMIC, items);
+        perItem = new CreateTransactionBatchRequest(BatchModes.PER_ITEM, items);
+    }
+
+    /** Start each iteration from an empty account so history does not pile up. */
+    @Setup(Level.Iteration)
+    public void resetAccount() {
+        user.getAccounts().put(ACCOUNT_NUMBER, Account.builder()
+            .userId(user.getId())
+            .accountNumber(ACCOUNT_NUMBER)
+            .currency("GBP")
+            .build());
+    }
+
+    @Benchmark
+    public void singleCalls(Blackhole blackhole) {
+        for (CreateTransactionRequest item : items) {
+            blackhole.consume(accountsApi.createTransaction(user, ACCOUNT_NUMBER, item, null));
+        }
+    }
+
+    @Benchmark
+    public Object atomicBatch() {
+        return accountsApi.createTransactions(user, ACCOUNT_NUMBER, atomic);
+    }
+
+    @Benchmark
+    public Object perItemBatch() {
+        return accountsApi.createTransactions(user, ACCOUNT_NUMBER, perItem);
+    }
+}
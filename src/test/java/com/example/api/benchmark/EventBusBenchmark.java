@@ -0,0 +1,80 @@
+package com.example.api.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.api.events.Event.EventTypes;
+import com.example.api.events.EventBus;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+
+/**
+ * What publishing a posting costs the posting thread while two subscribers
+ * poll the bus the way {@code EventBusConfiguration} runs them.
+ * {@code gc.alloc.rate.norm} should be zero; compare the {@code lost} counts
+ * printed at the end of each iteration against the operation count to see
+ * whether the subscribers kept up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class EventBusBenchmark {
+
+    private final Transaction transaction = Transaction.builder()
+        .amount(25_000).currency("GBP").type(TransactionTypes.DEPOSIT).build();
+
+    private EventBus bus;
+    private Thread[] subscribers;
+    private volatile boolean running;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        bus = new EventBus(65536);
+        running = true;
+        subscribers = new Thread[2];
+        for (int i = 0; i < subscribers.length; i++) {
+            EventBus.Subscription subscription = bus.subscribe("bench" + i);
+            subscribers[i] = Thread.ofPlatform().name("events-bench" + i).daemon().start(() -> {
+                while (running) {
+                    if (subscription.poll(event -> { }, 1024) == 0) {
+                        LockSupport.parkNanos(1_000_000);
+                    }
+                }
+            });
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws InterruptedException {
+        running = false;
+        for (Thread subscriber : subscribers) {
+            subscriber.join();
+        }
+        for (EventBus.Subscription subscription : bus.subscriptions()) {
+            System.out.println(subscription.name() + " lost " + subscription.lost());
+        }
+    }
+
+    @Benchmark
+    public long publish() {
+        return bus.publish(EventTypes.TRANSACTION_CREATED, "usr-bench1", "01000001", transaction, 25_000);
+    }
+}
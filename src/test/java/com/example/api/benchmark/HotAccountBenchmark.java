@@ -0,0 +1,76 @@
+package com.example.api.benchmark;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.api.ledger.Ledger;
+import com.example.api.ledger.ShardedBalance;
+import com.example.api.objects.Account;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+
+/**
+ * Deposit throughput on a single account from every core, through the
+ * account lock ({@code hot = false}) and through a {@link ShardedBalance}.
+ * Compare runs with {@code -t 1}, {@code -t 4} and so on to see how each
+ * scales; the sharded account should keep gaining with threads while the
+ * locked one flattens out.
+ *
+ * <p>No journal is attached, so the balance update is all that is measured.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class HotAccountBenchmark {
+
+    private static final String ACCOUNT_NUMBER = "01000001";
+
+    @Param({"false", "true"})
+    public boolean hot;
+
+    private Account account;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Ledger.setHotAccounts(hot ? Set.of(ACCOUNT_NUMBER) : Set.of());
+        account = Account.builder()
+            .accountNumber(ACCOUNT_NUMBER)
+            .currency("GBP")
+            .build();
+    }
+
+    /** Settling is part of the cost, just not per deposit. */
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        Ledger.settle(account);
+        Ledger.setHotAccounts(Set.of());
+    }
+
+    @Benchmark
+    public boolean deposit() {
+        return Ledger.post(account, Transaction.builder()
+            .amount(100)
+            .currency("GBP")
+            .type(TransactionTypes.DEPOSIT)
+            .build());
+    }
+}
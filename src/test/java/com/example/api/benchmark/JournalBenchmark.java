@@ -0,0 +1,89 @@
+package com.example.api.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.api.objects.Account;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.persistence.Journal;
+import com.example.api.persistence.WriteAheadLog;
+
+/**
+ * Latency added to a posting by journaling it. {@link Mode#SampleTime}
+ * reports the p99/p999 of appending a posting record, with several threads
+ * appending concurrently as they would under load. Note that the async
+ * variant writes several GB of segments to the temp directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class JournalBenchmark {
+
+    @Param({"async", "sync"})
+    public String commit;
+
+    private Path dir;
+    private WriteAheadLog wal;
+    private Account account;
+    private Transaction transaction;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("journal-bench");
+        wal = WriteAheadLog.open(dir, 64 * 1024 * 1024, Duration.ofMillis(1));
+        Journal.attach(wal, "sync".equals(commit));
+        account = Account.builder()
+            .userId("usr-bench1")
+            .accountNumber("01000001")
+            .currency("GBP")
+            .build();
+        transaction = Transaction.builder()
+            .amount(1099)
+            .currency("GBP")
+            .type(TransactionTypes.DEPOSIT)
+            .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Journal.detach();
+        wal.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public long post() {
+        long lsn = Journal.transactionPosted(account, transaction, 1099);
+        Journal.commit(lsn);
+        return lsn;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.api.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.example.api.objects.Address;
+import com.example.api.objects.User;
+import com.example.api.registry.UserRegistry;
+import com.example.api.security.JwtAuthFilter;
+import com.example.api.security.JwtUtil;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+/**
+ * Latency of {@link JwtAuthFilter} for a client that keeps sending the same
+ * bearer token, with the verified-token cache in {@link JwtUtil} turned off
+ * ({@code cacheSize = 0}) and on.
+ *
+ * <p>A fresh request is built per call because the filter only runs once per
+ * request; that cost is the same in both modes.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final FilterChain CHAIN = (request, response) -> { };
+
+    @Param({"0", "10000"})
+    public int cacheSize;
+
+    private JwtAuthFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        UserRegistry.clear();
+        UserRegistry.put(User.builder()
+            .id("usr-bench1")
+            .address(Address.builder().line1("1 Bench St").town("Benchville").postcode("BN1 1CH").build())
+            .build());
+        JwtUtil jwtUtil = new JwtUtil(cacheSize);
+        filter = new JwtAuthFilter(jwtUtil);
+        authorization = "Bearer " + jwtUtil.generateToken("usr-bench1");
+    }
+
+    @TearDown
+    public void tearDown() {
+        UserRegistry.clear();
+    }
+
+    @Benchmark
+    public Object authenticate() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/accounts");
+        request.addHeader("Authorization", authorization);
+        filter.doFilter(request, new MockHttpServletResponse(), CHAIN);
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+}
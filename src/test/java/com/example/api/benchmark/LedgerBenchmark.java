@@ -0,0 +1,84 @@
+package com.example.api.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.api.ledger.Ledger;
+import com.example.api.objects.Transaction.TransactionTypes;
+
+/**
+ * Balance arithmetic on the posting path: the previous boxed {@code Double}
+ * fields against {@link Ledger#apply} on {@code long} minor units.
+ *
+ * <p>Run with {@code -prof gc} to compare the allocation rate; the boxed
+ * variant allocates a new {@code Double} per posting.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LedgerBenchmark {
+
+    private static final int POSTINGS = 1024;
+
+    private Double[] boxedAmounts;
+    private long[] amounts;
+    private TransactionTypes[] types;
+
+    private Double boxedBalance;
+    private long balance;
+
+    @Setup
+    public void setUp() {
+        boxedAmounts = new Double[POSTINGS];
+        amounts = new long[POSTINGS];
+        types = new TransactionTypes[POSTINGS];
+        for (int i = 0; i < POSTINGS; i++) {
+            long pence = 1 + (i * 7919L) % 100_000;
+            amounts[i] = pence;
+            boxedAmounts[i] = pence / 100.0;
+            types[i] = i % 3 == 0 ? TransactionTypes.WITHDRAWAL : TransactionTypes.DEPOSIT;
+        }
+        boxedBalance = 1_000_000.0;
+        balance = 100_000_000L;
+    }
+
+    @Benchmark
+    public Double boxedDouble() {
+        for (int i = 0; i < POSTINGS; i++) {
+            Double amount = boxedAmounts[i];
+            if (TransactionTypes.WITHDRAWAL.equals(types[i]) && boxedBalance < amount) {
+                continue;
+            }
+            if (TransactionTypes.DEPOSIT.equals(types[i])) {
+                boxedBalance = boxedBalance + amount;
+            } else {
+                boxedBalance = boxedBalance - amount;
+            }
+        }
+        return boxedBalance;
+    }
+
+    @Benchmark
+    public long minorUnits() {
+        for (int i = 0; i < POSTINGS; i++) {
+            long next = Ledger.apply(balance, types[i], amounts[i]);
+            if (next != Ledger.INSUFFICIENT_FUNDS) {
+                balance = next;
+            }
+        }
+        return balance;
+    }
+}
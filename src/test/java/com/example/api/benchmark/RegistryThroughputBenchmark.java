@@ -0,0 +1,137 @@
+package com.example.api.benchmark;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.example.api.objects.Account;
+import com.example.api.objects.Address;
+import com.example.api.objects.User;
+import com.example.api.registry.UserRegistry;
+
+/**
+ * Read throughput of {@link UserRegistry} while a writer thread keeps
+ * creating and deleting users, mirroring {@code JwtAuthFilter} lookups
+ * running alongside {@code UserAPI.createUser}/{@code deleteUser}.
+ *
+ * <p>Run {@link #main(String[])} to sweep the number of reader threads from
+ * one up to the core count and print how close read throughput gets to
+ * linear scaling.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistryThroughputBenchmark {
+
+    private static final int USERS = 100_000;
+    private static final int CHURN_USERS = 1_000;
+
+    private String[] userIds;
+    private User[] churn;
+
+    @Setup
+    public void setUp() {
+        UserRegistry.clear();
+        Address address = Address.builder()
+            .line1("1 Bench St")
+            .town("Benchville")
+            .county("Benchshire")
+            .postcode("BN1 1CH")
+            .build();
+
+        userIds = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            User user = newUser("usr-r" + i, address);
+            UserRegistry.put(user);
+            userIds[i] = user.getId();
+        }
+
+        churn = new User[CHURN_USERS];
+        for (int i = 0; i < CHURN_USERS; i++) {
+            churn[i] = newUser("usr-w" + i, address);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        UserRegistry.clear();
+    }
+
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(1)
+    public long read() {
+        String id = userIds[ThreadLocalRandom.current().nextInt(USERS)];
+        Account account = UserRegistry.get(id).getAccounts().get("01000001");
+        return account.getBalance();
+    }
+
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(1)
+    public User write() {
+        User user = churn[ThreadLocalRandom.current().nextInt(CHURN_USERS)];
+        if (UserRegistry.remove(user.getId()) == null) {
+            UserRegistry.put(user);
+        }
+        return user;
+    }
+
+    private static User newUser(String id, Address address) {
+        User user = User.builder()
+            .id(id)
+            .name(id)
+            .address(address)
+            .email(id + "@example.com")
+            .build();
+        Account account = Account.builder()
+            .accountNumber("01000001")
+            .balance(10000)
+            .currency("GBP")
+            .build();
+        user.getAccounts().put(account.getAccountNumber(), account);
+        return user;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        double singleReader = 0;
+
+        // Leave one core for the writer thread
+        for (int readers = 1; readers < Math.max(2, cores); readers <<= 1) {
+            Options options = new OptionsBuilder()
+                .include(RegistryThroughputBenchmark.class.getSimpleName())
+                .threadGroups(readers, 1)
+                .build();
+            Collection<RunResult> results = new Runner(options).run();
+            double reads = results.iterator().next().getSecondaryResults().get("read").getScore();
+            if (readers == 1) {
+                singleReader = reads;
+            }
+            System.out.printf("readers=%d reads=%.1f ops/us scaling=%.0f%%%n",
+                readers, reads, 100.0 * reads / (singleReader * readers));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.api.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.api.metrics.RequestLog;
+
+/**
+ * What queuing a request log entry costs a request thread while a writer
+ * drains the buffer the way {@code RequestLogConfiguration} does, minus the
+ * logger. {@code gc.alloc.rate.norm} should be zero; compare the
+ * {@code dropped} count printed at the end of each iteration against the
+ * operation count to see whether the writer kept up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RequestLogBenchmark {
+
+    private RequestLog log;
+    private Thread writer;
+    private volatile boolean running;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        log = new RequestLog(8192, 1.0);
+        running = true;
+        writer = Thread.ofPlatform().name("request-log").daemon().start(() -> {
+            while (running) {
+                if (log.drain(line -> { }) == 0) {
+                    LockSupport.parkNanos(1_000_000);
+                }
+            }
+        });
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws InterruptedException {
+        running = false;
+        writer.join();
+        System.out.println("dropped " + log.dropped());
+    }
+
+    @Benchmark
+    public boolean add() {
+        return log.add("GET", "/v1/accounts/{accountNumber}", 200, "usr-bench1", 25_000);
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.api.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.api.Main;
+import com.example.api.registry.UserRegistry;
+
+/**
+ * Throughput and p99 latency of the HTTP API with Tomcat's platform-thread
+ * pool against {@code spring.threads.virtual.enabled=true}, with
+ * {@value #CONNECTIONS} clients each holding a connection open.
+ *
+ * <p>Every client alternates between posting a deposit and reading its
+ * account. The journal runs with {@code ledger.journal.sync-commit=true}, so
+ * each posting blocks until its group commit is on disk: that is where a
+ * fixed pool of 200 platform threads queues and virtual threads do not.</p>
+ *
+ * <p>This drives a real server over sockets rather than running under JMH.
+ * Run {@link #main(String[])} from the test classpath, for example with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.api.benchmark.RequestThreadingBenchmark};
+ * both the client and the server need {@code ulimit -n} well above
+ * {@value #CONNECTIONS}.</p>
+ */
+public class RequestThreadingBenchmark {
+
+    private static final int CONNECTIONS = 10_000;
+    private static final int USERS = 100;
+    private static final Duration WARMUP = Duration.ofSeconds(10);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(30);
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern ACCOUNT_NUMBER = Pattern.compile("\"accountNumber\"\\s*:\\s*\"(\\d+)\"");
+
+    public static void main(String[] args) throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+        System.out.printf("%-9s %12s %10s %10s %8s%n", "threads", "requests/s", "p50 ms", "p99 ms", "errors");
+        platform.print("platform");
+        virtual.print("virtual");
+    }
+
+    private record Result(double throughput, double p50Millis, double p99Millis, long errors) {
+
+        void print(String mode) {
+            System.out.printf("%-9s %12.0f %10.2f %10.2f %8d%n", mode, throughput, p50Millis, p99Millis, errors);
+        }
+    }
+
+    /** A client's bearer token and account. */
+    private record Session(String authorization, String accountNumber) {
+    }
+
+    private static Result run(boolean virtualThreads) throws Exception {
+        UserRegistry.clear();
+        Path journal = Files.createTempDirectory("threading-bench");
+        ConfigurableApplicationContext app = new SpringApplicationBuilder(Main.class)
+            .properties(
+                "server.port=0",
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "server.tomcat.threads.max=200",
+                "server.tomcat.max-connections=" + (CONNECTIONS + 1_000),
+                "server.tomcat.accept-count=" + CONNECTIONS,
+                "server.tomcat.keep-alive-timeout=60s",
+                "server.tomcat.max-keep-alive-requests=-1",
+                "ledger.journal.dir=" + journal,
+                "ledger.journal.sync-commit=true",
+                "ledger.snapshot.interval=0s",
+                "logging.level.root=warn")
+            .run();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clients)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+            URI base = URI.create("http://localhost:" + app.getEnvironment().getProperty("local.server.port"));
+
+            Session[] sessions = new Session[USERS];
+            for (int i = 0; i < USERS; i++) {
+                sessions[i] = signUp(http, base, i);
+            }
+
+            runClients(http, base, sessions, clients, WARMUP);
+            return runClients(http, base, sessions, clients, MEASUREMENT);
+        } finally {
+            app.close();
+            UserRegistry.clear();
+            try (Stream<Path> files = Files.walk(journal)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    private static Result runClients(HttpClient http, URI base, Session[] sessions, ExecutorService clients,
+            Duration duration) throws Exception {
+        AtomicLong errors = new AtomicLong();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        List<Future<long[]>> latencies = new ArrayList<>(CONNECTIONS);
+        for (int c = 0; c < CONNECTIONS; c++) {
+            Session session = sessions[c % USERS];
+            latencies.add(clients.submit(() -> client(http, base, session, end, errors)));
+        }
+
+        long[][] perClient = new long[CONNECTIONS][];
+        int total = 0;
+        for (int c = 0; c < CONNECTIONS; c++) {
+            perClient[c] = latencies.get(c).get();
+            total += perClient[c].length;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] all = new long[total];
+        int at = 0;
+        for (long[] samples : perClient) {
+            System.arraycopy(samples, 0, all, at, samples.length);
+            at += samples.length;
+        }
+        Arrays.sort(all);
+        return new Result(total / seconds, percentile(all, 0.50) / 1e6, percentile(all, 0.99) / 1e6, errors.get());
+    }
+
+    /** Send requests back to back until {@code end}; returns each request's latency in nanoseconds. */
+    private static long[] client(HttpClient http, URI base, Session session, long end, AtomicLong errors) {
+        HttpRequest deposit = HttpRequest.newBuilder(base.resolve("/v1/accounts/" + session.accountNumber + "/transactions"))
+            .header("Authorization", session.authorization)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"amount\":0.01,\"currency\":\"GBP\",\"type\":\"DEPOSIT\"}"))
+            .build();
+        HttpRequest read = HttpRequest.newBuilder(base.resolve("/v1/accounts/" + session.accountNumber))
+            .header("Authorization", session.authorization)
+            .GET()
+            .build();
+
+        long[] samples = new long[1024];
+        int count = 0;
+        for (long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+            try {
+                HttpResponse<Void> response = http.send(count % 2 == 0 ? deposit : read, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() >= 300) {
+                    errors.incrementAndGet();
+                }
+            } catch (IOException ex) {
+                errors.incrementAndGet();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = System.nanoTime() - now;
+        }
+        return Arrays.copyOf(samples, count);
+    }
+
+    private static Session signUp(HttpClient http, URI base, int i) throws IOException, InterruptedException {
+        String user = """
+            {"name":"Bench User %d","address":{"line1":"1 Bench St","town":"Benchville","county":"Benchshire","postcode":"BN1 1CH"},\
+            "phoneNumber":"+4470000%05d","email":"bench%d@example.com"}""".formatted(i, i, i);
+        String authorization = "Bearer " + extract(TOKEN, post(http, base.resolve("/v1/users"), null, user));
+        String account = post(http, base.resolve("/v1/accounts"), authorization,
+            "{\"name\":\"Current\",\"accountType\":\"PERSONAL\"}");
+        return new Session(authorization, extract(ACCOUNT_NUMBER, account));
+    }
+
+    private static String post(HttpClient http, URI uri, String authorization, String body)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (authorization != null) {
+            request.header("Authorization", authorization);
+        }
+        HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 201) {
+            throw new IllegalStateException("POST " + uri + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private static String extract(Pattern pattern, String body) {
+        Matcher matcher = pattern.matcher(body);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unexpected response: " + body);
+        }
+        return matcher.group(1);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.api.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.api.objects.Account;
+import com.example.api.objects.Address;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.objects.User;
+import com.example.api.persistence.Journal;
+import com.example.api.persistence.Snapshots;
+import com.example.api.persistence.WriteAheadLog;
+import com.example.api.registry.UserRegistry;
+
+/**
+ * Time-to-ready after a restart with 10M transactions on disk: opening the
+ * journal and rebuilding the registry, as {@code JournalConfiguration} does.
+ * {@code snapshot} loads a snapshot and replays a 1% journal tail;
+ * {@code journal} replays the whole journal for comparison.
+ *
+ * <p>Set-up writes around 1GB per variant to the temp directory and the
+ * restored registry needs a large heap.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms12g", "-Xmx12g"})
+public class StartupBenchmark {
+
+    private static final int USERS = 100_000;
+    private static final int TRANSACTIONS_PER_ACCOUNT = 100;
+    private static final int TAIL_TRANSACTIONS = 100_000;
+    private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final Duration FLUSH_INTERVAL = Duration.ofMillis(10);
+
+    @Param({"snapshot", "journal"})
+    public String restore;
+
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("startup-bench");
+        Address address = Address.builder()
+            .line1("1 Bench St")
+            .town("Benchville")
+            .county("Benchshire")
+            .postcode("BN1 1CH")
+            .build();
+
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            Journal.attach(wal, false);
+            Account[] accounts = new Account[USERS];
+            for (int i = 0; i < USERS; i++) {
+                String id = "usr-s" + i;
+                User user = User.builder().id(id).name(id).address(address).email(id + "@example.com").build();
+                UserRegistry.put(user);
+                Journal.userCreated(user);
+
+                Account account = Account.builder()
+                    .userId(id)
+                    .accountNumber(String.format("01%06d", i))
+                    .sortCode("10-10-10")
+                    .name("Current")
+                    .accountType(Account.AccountTypes.PERSONAL)
+                    .build();
+                user.getAccounts().put(account.getAccountNumber(), account);
+                Journal.accountCreated(account);
+                accounts[i] = account;
+            }
+
+            for (int n = 0; n < TRANSACTIONS_PER_ACCOUNT; n++) {
+                for (Account account : accounts) {
+                    post(account);
+                }
+            }
+            if ("snapshot".equals(restore)) {
+                Snapshots.take(dir, wal, 1);
+            }
+            for (int n = 0; n < TAIL_TRANSACTIONS; n++) {
+                post(accounts[n % USERS]);
+            }
+            Journal.detach();
+        }
+        UserRegistry.clear();
+    }
+
+    @Setup(Level.Iteration)
+    public void clearRegistry() {
+        UserRegistry.clear();
+        System.gc();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        UserRegistry.clear();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public int restart() throws IOException {
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            if ("snapshot".equals(restore)) {
+                Snapshots.restore(dir, wal);
+            } else {
+                Journal.replay(wal, 0);
+            }
+        }
+        return UserRegistry.size();
+    }
+
+    private static void post(Account account) {
+        Transaction transaction = Transaction.builder()
+            .amount(100)
+            .currency("GBP")
+            .type(TransactionTypes.DEPOSIT)
+            .build();
+        long balance = account.getBalance() + transaction.getAmount();
+        Journal.transactionPosted(account, transaction, balance);
+        account.addTransaction(transaction);
+        account.setBalance(balance);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.api.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.registry.ColdStore;
+import com.example.api.registry.TieredTransactionLog;
+import com.example.api.registry.TimeIndex;
+import com.example.api.registry.TransactionLog;
+
+/**
+ * Reads from one account history of a million transactions, the older
+ * half of them in cold segments. {@code cacheBytes} of 64 MB holds the
+ * whole cold tier once warm, so compare the two sizes for the cost of a
+ * page read from disk rather than memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TieredStorageBenchmark {
+
+    private static final int TRANSACTIONS = 1_000_000;
+    private static final int COLD = TRANSACTIONS / 2;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Param({"1048576", "67108864"})
+    private long cacheBytes;
+
+    private ColdStore store;
+    private TieredTransactionLog log;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        store = ColdStore.open(Files.createTempDirectory("ledger-cold"), cacheBytes);
+        TransactionLog.setColdStore(store);
+        log = (TieredTransactionLog) TransactionLog.create();
+        for (int i = 1; i <= TRANSACTIONS; i++) {
+            log.append(Transaction.builder()
+                .id("tan-" + i)
+                .amount(i)
+                .currency("GBP")
+                .type(TransactionTypes.DEPOSIT)
+                .createdTimestamp(START.plusSeconds(i))
+                .build());
+        }
+        TieredTransactionLog.Compaction compaction;
+        while ((compaction = log.prepareCompaction(START.plusSeconds(COLD + 1), 1)) != null) {
+            compaction.commit();
+            compaction.forget();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        TransactionLog.setColdStore(null);
+        store.close();
+    }
+
+    @Benchmark
+    public Transaction getHot() {
+        return log.get(COLD + 1 + ThreadLocalRandom.current().nextInt(TRANSACTIONS - COLD));
+    }
+
+    @Benchmark
+    public Transaction getCold() {
+        return log.get(1 + ThreadLocalRandom.current().nextInt(COLD));
+    }
+
+    @Benchmark
+    public Transaction findCold() {
+        return log.find("tan-" + (1 + ThreadLocalRandom.current().nextInt(COLD)));
+    }
+
+    @Benchmark
+    public List<TimeIndex.Entry> pageCold() {
+        // A page of 50, as GET .../transactions returns, from somewhere in the cold tier
+        LocalDateTime to = START.plusSeconds(50 + ThreadLocalRandom.current().nextInt(COLD - 50));
+        return log.newestFirst(START, to, null, 50);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.api.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.registry.TimeIndex;
+import com.example.api.registry.TransactionLog;
+import com.example.api.utilities.IDGenerator;
+
+/**
+ * Reads from one account history of 2M transactions on each
+ * {@link TransactionLog} backend. Set-up prints the heap the history
+ * retains per transaction, which is what {@code offHeap = true} exists to
+ * cut; the benchmarks show what that costs on lookup by sequence number,
+ * by ID and by time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class TransactionStoreBenchmark {
+
+    private static final int TRANSACTIONS = 2_000_000;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Param({"false", "true"})
+    public boolean offHeap;
+
+    private TransactionLog history;
+    private String[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TransactionLog.setOffHeap(offHeap);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long before = memory.getHeapMemoryUsage().getUsed();
+
+        history = TransactionLog.create();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            history.append(Transaction.builder()
+                .id(IDGenerator.generateTransactionId())
+                .amount(100 + i % 1000)
+                .currency("GBP")
+                .type(i % 3 == 0 ? TransactionTypes.WITHDRAWAL : TransactionTypes.DEPOSIT)
+                .createdTimestamp(START.plusSeconds(i))
+                .build());
+        }
+        System.gc();
+        long retained = memory.getHeapMemoryUsage().getUsed() - before;
+        System.out.printf("%n%s history: %.1f heap bytes per transaction%n",
+            offHeap ? "Off-heap" : "Heap", (double) retained / TRANSACTIONS);
+
+        // Sampled after measuring, so they are not counted
+        ids = new String[1 << 16];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = history.get(1 + ThreadLocalRandom.current().nextInt(TRANSACTIONS)).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        TransactionLog.setOffHeap(false);
+    }
+
+    @Benchmark
+    public Transaction get() {
+        return history.get(1 + ThreadLocalRandom.current().nextInt(TRANSACTIONS));
+    }
+
+    @Benchmark
+    public Transaction find() {
+        return history.find(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    /** A 50-transaction page from a random one-hour window, as {@code GET .../transactions?from=...&to=...} serves. */
+    @Benchmark
+    public List<TimeIndex.Entry> pageByTime() {
+        LocalDateTime from = START.plusSeconds(ThreadLocalRandom.current().nextInt(TRANSACTIONS - 3600));
+        return history.newestFirst(from, from.plusHours(1), null, 50);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.api.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.api.ledger.Ledger;
+import com.example.api.objects.Account;
+import com.example.api.objects.Address;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.objects.User;
+import com.example.api.registry.UserRegistry;
+
+/**
+ * Transfer throughput with 32 threads moving money between a few hot
+ * accounts in random directions, so opposing transfers on the same pair
+ * are constantly in flight. Fewer accounts means more contention on each
+ * pair of account locks; a deadlock would stall the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(32)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class TransferBenchmark {
+
+    @Param({"2", "8", "64"})
+    public int accounts;
+
+    private Account[] hot;
+
+    /** Fresh accounts each iteration so history does not pile up. */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        UserRegistry.clear();
+        hot = new Account[accounts];
+        for (int i = 0; i < accounts; i++) {
+            User user = User.builder()
+                .id("usr-bench" + i)
+                .address(Address.builder().line1("1 Bench St").town("Benchville").postcode("BN1 1CH").build())
+                .build();
+            hot[i] = Account.builder()
+                .userId(user.getId())
+                .accountNumber(String.format("01%06d", i + 1))
+                .currency("GBP")
+                .balance(Long.MAX_VALUE / (2L * accounts))
+                .build();
+            user.getAccounts().put(hot[i].getAccountNumber(), hot[i]);
+            UserRegistry.put(user);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        UserRegistry.clear();
+    }
+
+    @Benchmark
+    public Ledger.TransferOutcomes transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(accounts);
+        int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+        Transaction withdrawal = Transaction.builder().amount(100).currency("GBP").type(TransactionTypes.WITHDRAWAL).build();
+        Transaction deposit = Transaction.builder().amount(100).currency("GBP").type(TransactionTypes.DEPOSIT).build();
+        return Ledger.transfer(hot[from], withdrawal, hot[to], deposit);
+    }
+}
@@ -3,7 +3,13 @@ package com.example.api.endpoint;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
-import java.util.HashMap;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -16,19 +22,28 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.example.api.handlers.AccountsAPI;
+import com.example.api.ledger.Money;
 import com.example.api.objects.Account;
 import com.example.api.objects.Address;
 import com.example.api.objects.Transaction;
 import com.example.api.objects.User;
 import com.example.api.objects.Transaction.TransactionTypes;
 import com.example.api.requests.CreateBankAccountRequest;
+import com.example.api.requests.CreateTransactionBatchRequest;
+import com.example.api.requests.CreateTransactionBatchRequest.BatchModes;
 import com.example.api.requests.CreateTransactionRequest;
 import com.example.api.requests.UpdateBankAccountRequest;
+import com.example.api.responses.AccountAggregatesResponse;
 import com.example.api.responses.BankAccountResponse;
 import com.example.api.responses.ListBankAccountsResponse;
 import com.example.api.responses.ListTransactionsResponse;
+import com.example.api.responses.TransactionBatchItemResponse;
+import com.example.api.responses.TransactionBatchResponse;
 import com.example.api.responses.TransactionResponse;
 
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+
 @SuppressWarnings("null")
 class AccountAPITests {
 
@@ -41,7 +56,6 @@ class AccountAPITests {
     void setUp() {
         accountsApi = new AccountsAPI();
         testUser = User.builder()
-            .accounts(new HashMap<>())
             .address(address)
             .build();
     }
@@ -100,7 +114,7 @@ class AccountAPITests {
             .sortCode("01-01-01")
             .name("Test Account")
             .accountType(Account.AccountTypes.PERSONAL)
-            .balance(100.0)
+            .balance(10000)
             .currency("GBP")
             .build();
         testUser.getAccounts().put(testAccount.getAccountNumber(), testAccount);
@@ -187,7 +201,7 @@ class AccountAPITests {
         }
 
         if (shouldSucceed) {
-            ResponseEntity<BankAccountResponse> response = accountsApi.updateAccount(testUser, accountNumber, request);
+            ResponseEntity<BankAccountResponse> response = accountsApi.updateAccount(testUser, accountNumber, request, null);
             assertEquals(expectedStatus, response.getStatusCode());
             assertNotNull(response.getBody());
             if (request.getName() != null) {
@@ -198,12 +212,73 @@ class AccountAPITests {
             }
         } else {
             ResponseStatusException exception = assertThrows(ResponseStatusException.class,
-                () -> accountsApi.updateAccount(testUser, accountNumber, request));
+                () -> accountsApi.updateAccount(testUser, accountNumber, request, null));
             assertEquals(expectedStatus, exception.getStatusCode());
             assertEquals(expectedErrorMessage, exception.getReason());
         }
     }
 
+    @Test
+    void testAccountVersionFollowsPostingsAndUpdates() {
+        Account account = Account.builder()
+            .accountNumber("0100001")
+            .name("Original Name")
+            .accountType(Account.AccountTypes.PERSONAL)
+            .currency("GBP")
+            .build();
+        testUser.getAccounts().put(account.getAccountNumber(), account);
+
+        ResponseEntity<BankAccountResponse> before = accountsApi.getAccount(testUser, "0100001");
+        assertEquals(0L, before.getBody().getVersion());
+        assertEquals("\"0\"", before.getHeaders().getETag());
+
+        accountsApi.createTransaction(testUser, "0100001", new CreateTransactionRequest(10.0, "GBP", TransactionTypes.DEPOSIT), null);
+        accountsApi.createTransaction(testUser, "0100001", new CreateTransactionRequest(5.0, "GBP", TransactionTypes.WITHDRAWAL), null);
+        ResponseEntity<BankAccountResponse> after = accountsApi.getAccount(testUser, "0100001");
+        assertEquals(2L, after.getBody().getVersion());
+        assertEquals("\"2\"", after.getHeaders().getETag());
+
+        ResponseEntity<BankAccountResponse> updated = accountsApi.updateAccount(testUser, "0100001",
+            new UpdateBankAccountRequest("Renamed", null), "\"2\"");
+        assertEquals(HttpStatus.OK, updated.getStatusCode());
+        assertEquals(3L, updated.getBody().getVersion());
+        assertEquals("\"3\"", updated.getHeaders().getETag());
+        assertEquals(Money.toMinorUnits(5.0, "GBP"), account.getBalance());
+    }
+
+    @Test
+    void testUpdateAccountIfMatchStale() {
+        Account account = Account.builder()
+            .accountNumber("0100001")
+            .name("Original Name")
+            .accountType(Account.AccountTypes.PERSONAL)
+            .currency("GBP")
+            .build();
+        testUser.getAccounts().put(account.getAccountNumber(), account);
+        String etag = accountsApi.getAccount(testUser, "0100001").getHeaders().getETag();
+
+        // Someone else posts in between, so the client's ETag is out of date
+        accountsApi.createTransaction(testUser, "0100001", new CreateTransactionRequest(10.0, "GBP", TransactionTypes.DEPOSIT), null);
+
+        ResponseEntity<BankAccountResponse> response = accountsApi.updateAccount(testUser, "0100001",
+            new UpdateBankAccountRequest("Renamed", null), etag);
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals("\"1\"", response.getHeaders().getETag());
+        assertEquals("Original Name", account.getName());
+        assertEquals(1L, account.getVersion());
+
+        // Weak tags never match; a list or * does
+        assertEquals(HttpStatus.PRECONDITION_FAILED, accountsApi.updateAccount(testUser, "0100001",
+            new UpdateBankAccountRequest("Renamed", null), "W/\"1\"").getStatusCode());
+        assertEquals(HttpStatus.OK, accountsApi.updateAccount(testUser, "0100001",
+            new UpdateBankAccountRequest("Renamed", null), "\"0\", \"1\"").getStatusCode());
+        assertEquals(HttpStatus.OK, accountsApi.updateAccount(testUser, "0100001",
+            new UpdateBankAccountRequest("Renamed again", null), "*").getStatusCode());
+        assertEquals("Renamed again", account.getName());
+        assertEquals(3L, account.getVersion());
+    }
+
     // Transaction Tests
     static Stream<Arguments> createTransactionTestCases() {
         return Stream.of(
@@ -255,14 +330,14 @@ class AccountAPITests {
         if (shouldSucceed || expectedStatus == HttpStatus.UNPROCESSABLE_ENTITY) {
             Account testAccount = Account.builder()
                 .accountNumber(accountNumber)
-                .balance(initialBalance)
+                .balance(Money.toMinorUnits(initialBalance, "GBP"))
                 .currency("GBP")
                 .build();
             testUser.getAccounts().put(accountNumber, testAccount);
         }
 
         if (shouldSucceed) {
-            ResponseEntity<TransactionResponse> response = accountsApi.createTransaction(testUser, accountNumber, request);
+            ResponseEntity<TransactionResponse> response = accountsApi.createTransaction(testUser, accountNumber, request, null);
             assertEquals(expectedStatus, response.getStatusCode());
             assertNotNull(response.getBody());
             assertEquals(request.getAmount(), response.getBody().getAmount());
@@ -271,18 +346,140 @@ class AccountAPITests {
             // Verify balance update
             Account updatedAccount = testUser.getAccounts().get(accountNumber);
             if (request.getType() == TransactionTypes.DEPOSIT) {
-                assertEquals(initialBalance + request.getAmount(), updatedAccount.getBalance());
+                assertEquals(initialBalance + request.getAmount(), Money.toMajorUnits(updatedAccount.getBalance(), "GBP"));
             } else {
-                assertEquals(initialBalance - request.getAmount(), updatedAccount.getBalance());
+                assertEquals(initialBalance - request.getAmount(), Money.toMajorUnits(updatedAccount.getBalance(), "GBP"));
             }
         } else {
             ResponseStatusException exception = assertThrows(ResponseStatusException.class,
-                () -> accountsApi.createTransaction(testUser, accountNumber, request));
+                () -> accountsApi.createTransaction(testUser, accountNumber, request, null));
             assertEquals(expectedStatus, exception.getStatusCode());
             assertEquals(expectedErrorMessage, exception.getReason());
         }
     }
 
+    @Test
+    void testCreateTransactionIdempotencyKey() {
+        String accountNumber = "01000001";
+        Account testAccount = Account.builder()
+            .accountNumber(accountNumber)
+            .balance(10000)
+            .currency("GBP")
+            .build();
+        testUser.getAccounts().put(accountNumber, testAccount);
+        CreateTransactionRequest request = new CreateTransactionRequest(25.0, "GBP", TransactionTypes.WITHDRAWAL);
+
+        ResponseEntity<TransactionResponse> first = accountsApi.createTransaction(testUser, accountNumber, request, "retry-1");
+        ResponseEntity<TransactionResponse> retry = accountsApi.createTransaction(testUser, accountNumber, request, "retry-1");
+
+        assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+        assertEquals("false", first.getHeaders().getFirst(AccountsAPI.IDEMPOTENT_REPLAYED));
+        assertEquals("true", retry.getHeaders().getFirst(AccountsAPI.IDEMPOTENT_REPLAYED));
+        assertEquals(first.getBody().getId(), retry.getBody().getId());
+        assertEquals(7500L, testAccount.getBalance());
+        assertEquals(1, testAccount.getHistory().size());
+
+        ResponseStatusException reused = assertThrows(ResponseStatusException.class,
+            () -> accountsApi.createTransaction(testUser, accountNumber,
+                new CreateTransactionRequest(99.0, "GBP", TransactionTypes.WITHDRAWAL), "retry-1"));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, reused.getStatusCode());
+        assertEquals(7500L, testAccount.getBalance());
+    }
+
+    @Test
+    void testCreateTransactionOnVirtualThreads() throws Exception {
+        String accountNumber = "01000001";
+        Account testAccount = Account.builder()
+            .accountNumber(accountNumber)
+            .currency("GBP")
+            .build();
+        testUser.getAccounts().put(accountNumber, testAccount);
+        CreateTransactionRequest request = new CreateTransactionRequest(0.01, "GBP", TransactionTypes.DEPOSIT);
+
+        // Contended postings park on the account lock; none may pin its carrier thread
+        Path events = Files.createTempFile("pinning", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 10_000; i++) {
+                    executor.submit(() -> accountsApi.createTransaction(testUser, accountNumber, request, null));
+                }
+            }
+            recording.stop();
+            recording.dump(events);
+            assertEquals(List.of(), RecordingFile.readAllEvents(events));
+        } finally {
+            Files.deleteIfExists(events);
+        }
+        assertEquals(10_000L, testAccount.getBalance());
+        assertEquals(10_000, testAccount.getHistory().size());
+    }
+
+    // Batch Transaction Tests
+    @Test
+    void testCreateTransactionsAtomic() {
+        String accountNumber = "01000001";
+        Account testAccount = Account.builder()
+            .accountNumber(accountNumber)
+            .balance(10000)
+            .currency("GBP")
+            .build();
+        testUser.getAccounts().put(accountNumber, testAccount);
+
+        CreateTransactionBatchRequest request = CreateTransactionBatchRequest.builder()
+            .mode(BatchModes.ATOMIC)
+            .transactions(List.of(
+                new CreateTransactionRequest(50.0, "GBP", TransactionTypes.DEPOSIT),
+                new CreateTransactionRequest(120.0, "GBP", TransactionTypes.WITHDRAWAL)))
+            .build();
+        ResponseEntity<TransactionBatchResponse> response = accountsApi.createTransactions(testUser, accountNumber, request);
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(2, response.getBody().getPosted());
+        assertEquals(3000L, testAccount.getBalance());
+        assertEquals(2, testAccount.getHistory().size());
+
+        // The second withdrawal overdraws, so neither is posted
+        request.setTransactions(List.of(
+            new CreateTransactionRequest(20.0, "GBP", TransactionTypes.WITHDRAWAL),
+            new CreateTransactionRequest(20.0, "GBP", TransactionTypes.WITHDRAWAL)));
+        response = accountsApi.createTransactions(testUser, accountNumber, request);
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals(0, response.getBody().getPosted());
+        assertEquals("Insufficient funds to process transaction", response.getBody().getResults().get(1).getError());
+        assertEquals(3000L, testAccount.getBalance());
+        assertEquals(2, testAccount.getHistory().size());
+    }
+
+    @Test
+    void testCreateTransactionsPerItem() {
+        String accountNumber = "01000001";
+        Account testAccount = Account.builder()
+            .accountNumber(accountNumber)
+            .balance(10000)
+            .currency("GBP")
+            .build();
+        testUser.getAccounts().put(accountNumber, testAccount);
+
+        CreateTransactionBatchRequest request = CreateTransactionBatchRequest.builder()
+            .mode(BatchModes.PER_ITEM)
+            .transactions(List.of(
+                new CreateTransactionRequest(80.0, "GBP", TransactionTypes.WITHDRAWAL),
+                new CreateTransactionRequest(30.0, "GBP", TransactionTypes.WITHDRAWAL),
+                new CreateTransactionRequest(10.0, "USD", TransactionTypes.DEPOSIT),
+                new CreateTransactionRequest(0.001, "GBP", TransactionTypes.DEPOSIT),
+                new CreateTransactionRequest(20.0, "GBP", TransactionTypes.WITHDRAWAL)))
+            .build();
+        ResponseEntity<TransactionBatchResponse> response = accountsApi.createTransactions(testUser, accountNumber, request);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        List<Integer> statuses = response.getBody().getResults().stream().map(TransactionBatchItemResponse::getStatus).toList();
+        assertEquals(List.of(201, 422, 422, 400, 201), statuses);
+        assertEquals(2, response.getBody().getPosted());
+        assertEquals(0L, testAccount.getBalance());
+        assertEquals(2, testAccount.getHistory().size());
+    }
+
     // List Transactions Test
     @Test
     void testListTransactions() {
@@ -290,17 +487,17 @@ class AccountAPITests {
         String accountNumber = "0100001";
         Account testAccount = Account.builder()
             .accountNumber(accountNumber)
-            .balance(100.0)
+            .balance(10000)
             .currency("GBP")
             .build();
 
         Transaction transaction1 = Transaction.builder()
-            .amount(50.0)
+            .amount(5000)
             .currency("GBP")
             .type(TransactionTypes.DEPOSIT)
             .build();
         Transaction transaction2 = Transaction.builder()
-            .amount(30.0)
+            .amount(3000)
             .currency("GBP")
             .type(TransactionTypes.WITHDRAWAL)
             .build();
@@ -309,10 +506,152 @@ class AccountAPITests {
         testAccount.addTransaction(transaction2);
         testUser.getAccounts().put(accountNumber, testAccount);
 
-        ResponseEntity<ListTransactionsResponse> response = accountsApi.listTransactions(testUser, accountNumber);
+        ResponseEntity<ListTransactionsResponse> response = accountsApi.listTransactions(testUser, accountNumber, null, null, null, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertEquals(2, response.getBody().getTransactions().size());
+        assertEquals(transaction2.getId(), response.getBody().getTransactions().get(0).getId());
+        assertNull(response.getBody().getNextCursor());
+    }
+
+    @Test
+    void testListTransactionsPaging() {
+        String accountNumber = "0100001";
+        Account testAccount = Account.builder()
+            .accountNumber(accountNumber)
+            .currency("GBP")
+            .build();
+        for (int i = 1; i <= 5; i++) {
+            testAccount.addTransaction(Transaction.builder()
+                .id("tan-" + i)
+                .amount(i * 100)
+                .currency("GBP")
+                .type(TransactionTypes.DEPOSIT)
+                .build());
+        }
+        testUser.getAccounts().put(accountNumber, testAccount);
+
+        ListTransactionsResponse first = accountsApi.listTransactions(testUser, accountNumber, null, 2, null, null).getBody();
+        assertEquals(List.of("tan-5", "tan-4"), first.getTransactions().stream().map(TransactionResponse::getId).toList());
+        assertNotNull(first.getNextCursor());
+
+        // Transactions posted after the first page do not shift later pages
+        testAccount.addTransaction(Transaction.builder()
+            .id("tan-6")
+            .amount(600)
+            .currency("GBP")
+            .type(TransactionTypes.DEPOSIT)
+            .build());
+
+        ListTransactionsResponse second = accountsApi.listTransactions(testUser, accountNumber, first.getNextCursor(), 2, null, null).getBody();
+        assertEquals(List.of("tan-3", "tan-2"), second.getTransactions().stream().map(TransactionResponse::getId).toList());
+
+        ListTransactionsResponse last = accountsApi.listTransactions(testUser, accountNumber, second.getNextCursor(), 2, null, null).getBody();
+        assertEquals(List.of("tan-1"), last.getTransactions().stream().map(TransactionResponse::getId).toList());
+        assertNull(last.getNextCursor());
+
+        ResponseStatusException badCursor = assertThrows(ResponseStatusException.class,
+            () -> accountsApi.listTransactions(testUser, accountNumber, "not-a-cursor", 2, null, null));
+        assertEquals(HttpStatus.BAD_REQUEST, badCursor.getStatusCode());
+        ResponseStatusException badLimit = assertThrows(ResponseStatusException.class,
+            () -> accountsApi.listTransactions(testUser, accountNumber, null, 0, null, null));
+        assertEquals(HttpStatus.BAD_REQUEST, badLimit.getStatusCode());
+    }
+
+    @Test
+    void testListTransactionsInTimeRange() {
+        String accountNumber = "0100001";
+        Account testAccount = Account.builder()
+            .accountNumber(accountNumber)
+            .currency("GBP")
+            .build();
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0);
+        for (int i = 0; i < 6; i++) {
+            testAccount.addTransaction(Transaction.builder()
+                .id("tan-" + i)
+                .amount(100)
+                .currency("GBP")
+                .type(TransactionTypes.DEPOSIT)
+                .createdTimestamp(start.plusHours(i))
+                .build());
+        }
+        // Posted late but created inside the range
+        testAccount.addTransaction(Transaction.builder()
+            .id("tan-late")
+            .amount(100)
+            .currency("GBP")
+            .type(TransactionTypes.DEPOSIT)
+            .createdTimestamp(start.plusMinutes(90))
+            .build());
+        testUser.getAccounts().put(accountNumber, testAccount);
+
+        LocalDateTime from = start.plusHours(1);
+        LocalDateTime to = start.plusHours(4);
+        ListTransactionsResponse first = accountsApi.listTransactions(testUser, accountNumber, null, 2, from, to).getBody();
+        assertEquals(List.of("tan-3", "tan-2"), first.getTransactions().stream().map(TransactionResponse::getId).toList());
+        assertNotNull(first.getNextCursor());
+
+        ListTransactionsResponse second = accountsApi.listTransactions(testUser, accountNumber, first.getNextCursor(), 2, from, to).getBody();
+        assertEquals(List.of("tan-late", "tan-1"), second.getTransactions().stream().map(TransactionResponse::getId).toList());
+        assertNull(second.getNextCursor());
+
+        ListTransactionsResponse openEnded = accountsApi.listTransactions(testUser, accountNumber, null, 10, start.plusHours(4), null).getBody();
+        assertEquals(List.of("tan-5", "tan-4"), openEnded.getTransactions().stream().map(TransactionResponse::getId).toList());
+
+        ResponseStatusException inverted = assertThrows(ResponseStatusException.class,
+            () -> accountsApi.listTransactions(testUser, accountNumber, null, null, to, from));
+        assertEquals(HttpStatus.BAD_REQUEST, inverted.getStatusCode());
+    }
+
+    @Test
+    void testGetAggregates() {
+        String accountNumber = "0100001";
+        Account testAccount = Account.builder()
+            .accountNumber(accountNumber)
+            .currency("GBP")
+            .build();
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0);
+        long[] amounts = {1000, 250, 4000, 999, 1};
+        for (int i = 0; i < amounts.length; i++) {
+            testAccount.addTransaction(Transaction.builder()
+                .amount(amounts[i])
+                .currency("GBP")
+                .type(i % 2 == 0 ? TransactionTypes.DEPOSIT : TransactionTypes.WITHDRAWAL)
+                .createdTimestamp(start.plusHours(i))
+                .build());
+        }
+        testUser.getAccounts().put(accountNumber, testAccount);
+
+        AccountAggregatesResponse all = accountsApi.getAggregates(testUser, accountNumber, null, null).getBody();
+        assertEquals("GBP", all.getCurrency());
+        assertEquals(3, all.getDeposits().getCount());
+        assertEquals(50.01, all.getDeposits().getTotal());
+        assertEquals(0.01, all.getDeposits().getMin());
+        assertEquals(40.0, all.getDeposits().getMax());
+        assertEquals(16.67, all.getDeposits().getAverage(), 0.005);
+        assertEquals(2, all.getWithdrawals().getCount());
+        assertEquals(12.49, all.getWithdrawals().getTotal());
+        assertEquals(9.99, all.getWithdrawals().getMax());
+
+        // Only the 10:00 withdrawal and 11:00 deposit are in [10:00, 12:00)
+        AccountAggregatesResponse range = accountsApi.getAggregates(testUser, accountNumber, start.plusHours(1), start.plusHours(3)).getBody();
+        assertEquals(1, range.getDeposits().getCount());
+        assertEquals(40.0, range.getDeposits().getTotal());
+        assertEquals(1, range.getWithdrawals().getCount());
+        assertEquals(2.5, range.getWithdrawals().getAverage());
+
+        AccountAggregatesResponse empty = accountsApi.getAggregates(testUser, accountNumber, start.plusDays(1), null).getBody();
+        assertEquals(0, empty.getDeposits().getCount());
+        assertEquals(0.0, empty.getDeposits().getTotal());
+        assertNull(empty.getDeposits().getMin());
+        assertNull(empty.getDeposits().getAverage());
+
+        ResponseStatusException inverted = assertThrows(ResponseStatusException.class,
+            () -> accountsApi.getAggregates(testUser, accountNumber, start.plusHours(2), start));
+        assertEquals(HttpStatus.BAD_REQUEST, inverted.getStatusCode());
+        ResponseStatusException missing = assertThrows(ResponseStatusException.class,
+            () -> accountsApi.getAggregates(testUser, "01999999", null, null));
+        assertEquals(HttpStatus.NOT_FOUND, missing.getStatusCode());
     }
 
     // Delete Account Tests
@@ -369,7 +708,7 @@ class AccountAPITests {
             .build();
 
         Transaction transaction = Transaction.builder()
-            .amount(100.0)
+            .amount(10000)
             .currency("GBP")
             .type(TransactionTypes.DEPOSIT)
             .build();
@@ -381,7 +720,7 @@ class AccountAPITests {
             testUser, accountNumber, transaction.getId());
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
-        assertEquals(transaction.getAmount(), response.getBody().getAmount());
+        assertEquals(Money.toMajorUnits(transaction.getAmount(), "GBP"), response.getBody().getAmount());
         assertEquals(transaction.getType(), response.getBody().getType());
     }
 
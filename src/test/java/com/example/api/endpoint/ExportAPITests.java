@@ -0,0 +1,88 @@
+package com.example.api.endpoint;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.api.handlers.ExportAPI;
+import com.example.api.objects.Account;
+import com.example.api.objects.Address;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.objects.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SuppressWarnings("null")
+class ExportAPITests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private ExportAPI exportApi;
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        exportApi = new ExportAPI(objectMapper);
+        testUser = User.builder()
+            .address(mock(Address.class))
+            .build();
+    }
+
+    @Test
+    void testExportTransactions() throws IOException {
+        String accountNumber = "01000001";
+        Account testAccount = Account.builder()
+            .accountNumber(accountNumber)
+            .currency("GBP")
+            .build();
+        for (int i = 1; i <= 10_000; i++) {
+            testAccount.addTransaction(Transaction.builder()
+                .id("tan-" + i)
+                .amount(i)
+                .currency("GBP")
+                .type(TransactionTypes.DEPOSIT)
+                .build());
+        }
+        testUser.getAccounts().put(accountNumber, testAccount);
+
+        ResponseEntity<StreamingResponseBody> response = exportApi.exportTransactions(testUser, accountNumber);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(ExportAPI.NDJSON, response.getHeaders().getContentType().toString());
+
+        // Posted after the request: not part of this export
+        testAccount.addTransaction(Transaction.builder()
+            .id("tan-late")
+            .amount(1)
+            .currency("GBP")
+            .type(TransactionTypes.DEPOSIT)
+            .build());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(10_000, lines.length);
+
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("tan-1", first.get("id").asText());
+        assertEquals(0.01, first.get("amount").asDouble());
+        assertEquals("tan-10000", objectMapper.readTree(lines[9_999]).get("id").asText());
+    }
+
+    @Test
+    void testExportTransactionsAccountNotFound() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> exportApi.exportTransactions(testUser, "01999999"));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.api.endpoint;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.api.events.Event;
+import com.example.api.events.Event.EventTypes;
+import com.example.api.events.EventBus;
+import com.example.api.handlers.AccountStreams;
+import com.example.api.objects.Account;
+import com.example.api.objects.Address;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.objects.User;
+import com.example.api.registry.UserRegistry;
+import com.example.api.responses.AccountUpdateResponse;
+
+class StreamAPITests {
+
+    private AccountStreams streams;
+    private EventBus bus;
+    private EventBus.Subscription subscription;
+    private User alice;
+    private Account account;
+
+    /** Records what a stream writes, one line per event. */
+    private static class RecordingSink implements AccountStreams.Sink {
+        final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+        volatile boolean completed;
+
+        @Override
+        public void send(String name, AccountUpdateResponse update) throws IOException {
+            sent.add(name + " " + update.getAccountNumber() + " " + update.getBalance()
+                + (update.getTransaction() == null ? "" : " " + update.getTransaction().getId())
+                + (update.getMissedTransactions() == null ? "" : " missed"));
+        }
+
+        @Override
+        public void heartbeat() {
+            sent.add("heartbeat");
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        String next() throws InterruptedException {
+            String line = sent.poll(5, TimeUnit.SECONDS);
+            assertNotNull(line, "nothing sent");
+            return line;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        streams = new AccountStreams(4, 10, Duration.ofHours(1));
+        bus = new EventBus(1024);
+        subscription = bus.subscribe("accountStreams");
+        alice = User.builder().id("usr-alice").address(mock(Address.class)).build();
+        account = Account.builder().accountNumber("01000001").userId(alice.getId()).currency("GBP").build();
+        account.setBalance(1000);
+        alice.getAccounts().put(account.getAccountNumber(), account);
+        UserRegistry.put(alice);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        streams.close();
+        UserRegistry.clear();
+    }
+
+    private void post(String id, long amount, long balanceAfter) {
+        Transaction transaction = Transaction.builder().id(id).amount(amount).currency("GBP").type(TransactionTypes.DEPOSIT).build();
+        bus.publish(EventTypes.TRANSACTION_CREATED, alice.getId(), account.getAccountNumber(), transaction, balanceAfter);
+    }
+
+    private void deliver() {
+        subscription.poll(streams, 1024);
+    }
+
+    @Test
+    void testStreamSendsBalancesThenTransactions() throws InterruptedException {
+        RecordingSink sink = new RecordingSink();
+        streams.open(alice, sink);
+        assertEquals("balance 01000001 10.0", sink.next());
+
+        post("tan-1", 250, 1250);
+        // Another user's postings are not sent
+        bus.publish(EventTypes.TRANSACTION_CREATED, "usr-bob", "01000002", null, 5);
+        bus.publish(EventTypes.ACCOUNT_DELETED, alice.getId(), "01000009", null, Event.NO_BALANCE);
+        deliver();
+
+        assertEquals("transaction 01000001 12.5 tan-1", sink.next());
+        assertEquals("closed 01000009 null", sink.next());
+        assertNull(sink.sent.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testStreamCoalescesWhenClientFallsBehind() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink sink = new RecordingSink() {
+            @Override
+            public void send(String name, AccountUpdateResponse update) throws IOException {
+                super.send(name, update);
+                try {
+                    // A client that stops reading after the first event
+                    release.await();
+                } catch (InterruptedException ex) {
+                    throw new IOException(ex);
+                }
+            }
+        };
+        streams.open(alice, sink);
+        assertEquals("balance 01000001 10.0", sink.next());
+
+        // The first four postings fit in the queue; the fifth overflows it
+        for (int i = 1; i <= 10; i++) {
+            post("tan-" + i, 100, 1000 + 100 * i);
+        }
+        deliver();
+        release.countDown();
+
+        // Only the latest balance, flagged so the client fetches the history
+        assertEquals("balance 01000001 20.0 missed", sink.next());
+        assertNull(sink.sent.poll(100, TimeUnit.MILLISECONDS));
+
+        // Caught up: postings are sent one by one again
+        post("tan-11", 100, 2100);
+        deliver();
+        assertEquals("transaction 01000001 21.0 tan-11", sink.next());
+    }
+
+    @Test
+    void testStreamsEndWhenUserDeleted() throws InterruptedException {
+        RecordingSink first = new RecordingSink();
+        RecordingSink second = new RecordingSink();
+        streams.open(alice, first);
+        streams.open(alice, second);
+        assertEquals(2, streams.size());
+
+        bus.publish(EventTypes.USER_DELETED, alice.getId(), null, null, Event.NO_BALANCE);
+        deliver();
+
+        assertTrue(first.completed);
+        assertTrue(second.completed);
+        assertEquals(0, streams.size());
+    }
+
+    @Test
+    void testStreamClosedWhenClientGone() throws InterruptedException {
+        CountDownLatch failed = new CountDownLatch(1);
+        AccountStreams.Stream stream = streams.open(alice, new RecordingSink() {
+            @Override
+            public void send(String name, AccountUpdateResponse update) throws IOException {
+                failed.countDown();
+                throw new IOException("Broken pipe");
+            }
+        });
+
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100 && streams.size() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, streams.size());
+        // Closing again, as the emitter's completion callback does, is harmless
+        stream.close();
+        assertEquals(0, streams.size());
+    }
+
+    @Test
+    void testTooManyStreams() {
+        for (int i = 0; i < 10; i++) {
+            streams.open(alice, new RecordingSink());
+        }
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> streams.open(alice, new RecordingSink()));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+    }
+}
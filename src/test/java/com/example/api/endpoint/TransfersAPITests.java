@@ -0,0 +1,157 @@
+package com.example.api.endpoint;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.api.handlers.AccountsAPI;
+import com.example.api.handlers.TransfersAPI;
+import com.example.api.objects.Account;
+import com.example.api.objects.Address;
+import com.example.api.objects.User;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.registry.UserRegistry;
+import com.example.api.requests.CreateBankAccountRequest;
+import com.example.api.requests.CreateTransactionRequest;
+import com.example.api.requests.CreateTransferRequest;
+import com.example.api.responses.TransferResponse;
+
+@SuppressWarnings("null")
+class TransfersAPITests {
+
+    private AccountsAPI accountsApi;
+    private TransfersAPI transfersApi;
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        UserRegistry.clear();
+        accountsApi = new AccountsAPI();
+        transfersApi = new TransfersAPI();
+        alice = User.builder().id("usr-alice1").address(mock(Address.class)).build();
+        bob = User.builder().id("usr-bob001").address(mock(Address.class)).build();
+        UserRegistry.put(alice);
+        UserRegistry.put(bob);
+    }
+
+    @AfterEach
+    void tearDown() {
+        UserRegistry.clear();
+    }
+
+    @Test
+    void testCreateTransfer() {
+        String from = openAccount(alice, 100.0);
+        String to = openAccount(bob, 0);
+
+        ResponseEntity<TransferResponse> response = transfersApi.createTransfer(alice, from,
+            new CreateTransferRequest(to, 40.25, "GBP"));
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(from, response.getBody().getFromAccountNumber());
+        assertEquals(to, response.getBody().getToAccountNumber());
+        assertEquals(TransactionTypes.WITHDRAWAL, response.getBody().getWithdrawal().getType());
+        assertEquals(TransactionTypes.DEPOSIT, response.getBody().getDeposit().getType());
+        assertEquals(40.25, response.getBody().getDeposit().getAmount());
+
+        assertEquals(5975L, alice.getAccounts().get(from).getBalance());
+        assertEquals(4025L, bob.getAccounts().get(to).getBalance());
+        assertNotNull(bob.getAccounts().get(to).getHistory().find(response.getBody().getDeposit().getId()));
+    }
+
+    @Test
+    void testCreateTransferInsufficientFunds() {
+        String from = openAccount(alice, 10.0);
+        String to = openAccount(bob, 0);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> transfersApi.createTransfer(alice, from, new CreateTransferRequest(to, 10.01, "GBP")));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, exception.getStatusCode());
+        assertEquals(1000L, alice.getAccounts().get(from).getBalance());
+        assertEquals(0L, bob.getAccounts().get(to).getBalance());
+        assertEquals(0, bob.getAccounts().get(to).getHistory().size());
+    }
+
+    @Test
+    void testCreateTransferRejected() {
+        String from = openAccount(alice, 10.0);
+        String to = openAccount(bob, 0);
+
+        assertEquals(HttpStatus.NOT_FOUND, assertThrows(ResponseStatusException.class,
+            () -> transfersApi.createTransfer(bob, from, new CreateTransferRequest(to, 1.0, "GBP"))).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, assertThrows(ResponseStatusException.class,
+            () -> transfersApi.createTransfer(alice, from, new CreateTransferRequest("01999999", 1.0, "GBP"))).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+            () -> transfersApi.createTransfer(alice, from, new CreateTransferRequest(from, 1.0, "GBP"))).getStatusCode());
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, assertThrows(ResponseStatusException.class,
+            () -> transfersApi.createTransfer(alice, from, new CreateTransferRequest(to, 1.0, "EUR"))).getStatusCode());
+
+        accountsApi.deleteAccount(bob, to);
+        assertEquals(HttpStatus.NOT_FOUND, assertThrows(ResponseStatusException.class,
+            () -> transfersApi.createTransfer(alice, from, new CreateTransferRequest(to, 1.0, "GBP"))).getStatusCode());
+        assertEquals(1000L, alice.getAccounts().get(from).getBalance());
+    }
+
+    @Test
+    void testOpposingTransfersDoNotDeadlock() throws InterruptedException {
+        List<User> owners = List.of(alice, bob, alice, bob);
+        List<String> accounts = new ArrayList<>();
+        for (User owner : owners) {
+            accounts.add(openAccount(owner, 1000.0));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        for (int t = 0; t < 16; t++) {
+            executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 2_000; i++) {
+                    int from = random.nextInt(accounts.size());
+                    int to = (from + 1 + random.nextInt(accounts.size() - 1)) % accounts.size();
+                    try {
+                        transfersApi.createTransfer(owners.get(from), accounts.get(from),
+                            new CreateTransferRequest(accounts.get(to), 1.0, "GBP"));
+                    } catch (ResponseStatusException ex) {
+                        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, ex.getStatusCode());
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES), "transfers deadlocked");
+
+        long total = 0;
+        for (int i = 0; i < accounts.size(); i++) {
+            Account account = owners.get(i).getAccounts().get(accounts.get(i));
+            assertTrue(account.getBalance() >= 0);
+            total += account.getBalance();
+        }
+        assertEquals(4 * 100_000L, total);
+    }
+
+    private String openAccount(User owner, double opening) {
+        String accountNumber = accountsApi.createAccount(owner, CreateBankAccountRequest.builder()
+            .name("Current")
+            .accountType(Account.AccountTypes.PERSONAL)
+            .build()).getBody().getAccountNumber();
+        if (opening > 0) {
+            accountsApi.createTransaction(owner, accountNumber,
+                new CreateTransactionRequest(opening, "GBP", TransactionTypes.DEPOSIT), null);
+        }
+        return accountNumber;
+    }
+}
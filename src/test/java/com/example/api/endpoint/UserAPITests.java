@@ -20,6 +20,7 @@ import org.mockito.Mockito;
 import com.example.api.handlers.UserAPI;
 import com.example.api.objects.Address;
 import com.example.api.objects.User;
+import com.example.api.registry.UserRegistry;
 import com.example.api.requests.CreateUserRequest;
 import com.example.api.requests.UpdateUserRequest;
 import com.example.api.responses.UserResponse;
@@ -43,12 +44,12 @@ class UserAPITests {
 		jwtUtil = Mockito.mock(JwtUtil.class);
 		when(jwtUtil.generateToken(anyString())).thenReturn("test-token");
 		userAPI = new UserAPI(jwtUtil);
-		User.users.clear();
+		UserRegistry.clear();
 	}
 
 	@AfterEach
 	void tearDown() {
-		User.users.clear();
+		UserRegistry.clear();
 	}
 
 	static Stream<Arguments> validCreateRequests() {
@@ -89,8 +90,8 @@ class UserAPITests {
         assertNotNull(body);
 		assertNotNull(body.getId());
 		assertEquals(request.getName(), body.getName());
-		// user stored in static map
-		assertTrue(User.users.containsKey(body.getId()));
+		// user stored in registry
+		assertTrue(UserRegistry.contains(body.getId()));
 	}
 
 	static Stream<Arguments> missingUserIds() {
@@ -147,7 +148,7 @@ class UserAPITests {
 		// delete user
 		ResponseEntity<String> deleted = userAPI.deleteUser(id);
 		assertEquals(200, deleted.getStatusCode().value());
-		assertFalse(User.users.containsKey(id));
+		assertFalse(UserRegistry.contains(id));
 	}
 
 }
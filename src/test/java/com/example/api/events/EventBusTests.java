@@ -0,0 +1,167 @@
+package com.example.api.events;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.api.events.Event.EventTypes;
+import com.example.api.ledger.Ledger;
+import com.example.api.metrics.Metrics;
+import com.example.api.objects.Account;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.registry.UserRegistry;
+
+class EventBusTests {
+
+    @AfterEach
+    void tearDown() {
+        EventBus.detach();
+        UserRegistry.clear();
+    }
+
+    @Test
+    void poll_ShouldGiveEverySubscriberEveryEventInOrder() {
+        EventBus bus = new EventBus(16);
+        EventBus.Subscription first = bus.subscribe("first");
+        EventBus.Subscription second = bus.subscribe("second");
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, bus.publish(EventTypes.USER_CREATED, "usr-" + i, null, null, Event.NO_BALANCE));
+        }
+
+        List<String> seen = new ArrayList<>();
+        assertEquals(4, first.poll(event -> seen.add(event.getSequence() + ":" + event.getUserId()), 4));
+        assertEquals(6, first.lag());
+        assertEquals(6, first.poll(event -> seen.add(event.getSequence() + ":" + event.getUserId()), 100));
+        assertEquals(0, first.poll(event -> fail("nothing left"), 100));
+        assertEquals(List.of("0:usr-0", "1:usr-1", "2:usr-2", "3:usr-3", "4:usr-4",
+            "5:usr-5", "6:usr-6", "7:usr-7", "8:usr-8", "9:usr-9"), seen);
+
+        // The other subscriber is unaffected by the first reading
+        assertEquals(10, second.lag());
+        assertEquals(10, second.poll(event -> { }, 100));
+
+        // A late subscriber starts from the next event
+        EventBus.Subscription late = bus.subscribe("late");
+        bus.publish(EventTypes.USER_DELETED, "usr-0", null, null, Event.NO_BALANCE);
+        assertEquals(1, late.poll(event -> assertEquals(EventTypes.USER_DELETED, event.getType()), 100));
+    }
+
+    @Test
+    void poll_WhenLappedByPublishers_ShouldReportLostAndResumeAtOldest() {
+        EventBus bus = new EventBus(8);
+        EventBus.Subscription subscription = bus.subscribe("slow");
+        for (int i = 0; i < 20; i++) {
+            bus.publish(EventTypes.USER_CREATED, "usr-" + i, null, null, Event.NO_BALANCE);
+        }
+
+        AtomicLong lost = new AtomicLong();
+        List<Long> sequences = new ArrayList<>();
+        subscription.poll(new EventHandler() {
+            @Override
+            public void onEvent(Event event) {
+                sequences.add(event.getSequence());
+            }
+
+            @Override
+            public void onLost(long count) {
+                lost.addAndGet(count);
+            }
+        }, 100);
+
+        assertEquals(12, lost.get());
+        assertEquals(12, subscription.lost());
+        assertEquals(List.of(12L, 13L, 14L, 15L, 16L, 17L, 18L, 19L), sequences);
+    }
+
+    @Test
+    void publish_FromManyThreads_ShouldKeepEachThreadsOrder() throws Exception {
+        int threads = 4;
+        int perThread = 20_000;
+        EventBus bus = new EventBus(threads * perThread);
+        EventBus.Subscription subscription = bus.subscribe("test");
+        List<Thread> publishers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String userId = "usr-" + t;
+            publishers.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    bus.publish(EventTypes.TRANSACTION_CREATED, userId, "01000001", null, i);
+                }
+            }));
+        }
+
+        long[] last = new long[threads];
+        java.util.Arrays.fill(last, -1);
+        int received = 0;
+        while (received < threads * perThread) {
+            int polled = subscription.poll(event -> {
+                int thread = event.getUserId().charAt(4) - '0';
+                assertEquals(last[thread] + 1, event.getBalanceAfter());
+                last[thread] = event.getBalanceAfter();
+            }, 1024);
+            if (polled == 0) {
+                Thread.yield();
+            }
+            received += polled;
+        }
+        for (Thread publisher : publishers) {
+            publisher.join();
+        }
+        assertEquals(0, subscription.lost());
+        assertEquals(threads * perThread, bus.published());
+    }
+
+    @Test
+    void publish_ShouldNotAllocate() {
+        EventBus bus = new EventBus(1024);
+        Transaction transaction = Transaction.builder().amount(100).currency("GBP").type(TransactionTypes.DEPOSIT).build();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        // Warm up so the measured loop runs compiled code
+        for (int i = 0; i < 100_000; i++) {
+            bus.publish(EventTypes.TRANSACTION_CREATED, "usr-1", "01000001", transaction, i);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            bus.publish(EventTypes.TRANSACTION_CREATED, "usr-1", "01000001", transaction, i);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        // Allowing for the measurement itself, far below a byte per event
+        assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
+    }
+
+    @Test
+    void ledger_ShouldPublishPostingsWithBalances() {
+        EventBus bus = new EventBus(64);
+        EventBus.attach(bus);
+        EventBus.Subscription subscription = bus.subscribe("ledger");
+        Account from = Account.builder().accountNumber("01000001").userId("usr-a").currency("GBP").build();
+        Account to = Account.builder().accountNumber("01000002").userId("usr-b").currency("GBP").build();
+        UserRegistry.indexAccount(from);
+        UserRegistry.indexAccount(to);
+
+        Transaction deposit = Transaction.builder().amount(1000).currency("GBP").type(TransactionTypes.DEPOSIT).build();
+        assertTrue(Ledger.post(from, deposit));
+        assertFalse(Ledger.post(from, Transaction.builder().amount(5000).currency("GBP").type(TransactionTypes.WITHDRAWAL).build()));
+        Ledger.transfer(from,
+            Transaction.builder().amount(400).currency("GBP").type(TransactionTypes.WITHDRAWAL).build(),
+            to,
+            Transaction.builder().amount(400).currency("GBP").type(TransactionTypes.DEPOSIT).build());
+
+        List<String> seen = new ArrayList<>();
+        subscription.poll(event -> seen.add(event.getType() + " " + event.getAccountNumber() + " "
+            + event.getTransaction().getAmount() + " " + event.getBalanceAfter()), 100);
+        assertEquals(List.of(
+            "TRANSACTION_CREATED 01000001 1000 1000",
+            "TRANSACTION_CREATED 01000001 400 600",
+            "TRANSACTION_CREATED 01000002 400 400"), seen);
+        assertTrue(Metrics.scrape().contains("events_lost_total{consumer=\"ledger\"} 0\n"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.api.ledger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.registry.TransactionLog;
+
+class AggregatesTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @AfterEach
+    void tearDown() {
+        Aggregates.setVectorized(true);
+        TransactionLog.setOffHeap(false);
+    }
+
+    @Test
+    void compute_VectorizedAndScalar_ShouldAgree() {
+        // The build runs tests with the incubator module, so both paths are exercised
+        Aggregates.setVectorized(true);
+        assertTrue(Aggregates.isVectorized());
+
+        Random random = new Random(42);
+        for (boolean offHeap : new boolean[] {false, true}) {
+            TransactionLog.setOffHeap(offHeap);
+            TransactionLog history = TransactionLog.create();
+            // Several blocks plus a ragged tail, in shuffled time order
+            int count = 3 * Aggregates.BLOCK + 13;
+            for (int i = 0; i < count; i++) {
+                history.append(new Transaction("tan-" + i, 1 + random.nextInt(1_000_000), "GBP",
+                    random.nextInt(10) == 0 ? null : random.nextBoolean() ? TransactionTypes.DEPOSIT : TransactionTypes.WITHDRAWAL,
+                    random.nextInt(50) == 0 ? null : START.plusSeconds(random.nextInt(count)).plusNanos(random.nextInt(1000))));
+            }
+
+            LocalDateTime from = START.plusSeconds(count / 4).plusNanos(500);
+            LocalDateTime[][] ranges = {{null, null}, {from, null}, {null, from}, {from, from.plusSeconds(count / 3)}, {from, from}};
+            for (LocalDateTime[] range : ranges) {
+                Aggregates.setVectorized(true);
+                Aggregates.Result vectorized = Aggregates.compute(history, count, range[0], range[1]);
+                Aggregates.setVectorized(false);
+                Aggregates.Result scalar = Aggregates.compute(history, count, range[0], range[1]);
+                assertEquals(scalar, vectorized);
+            }
+            Aggregates.Result all = Aggregates.compute(history, count, null, null);
+            assertTrue(all.deposits().count() + all.withdrawals().count() > count * 8L / 10);
+        }
+    }
+
+    @Test
+    void compute_ShouldHonourHalfOpenRangeToTheNanosecond() {
+        TransactionLog history = TransactionLog.create();
+        history.append(deposit(100, START));
+        history.append(deposit(200, START.plusNanos(1)));
+        history.append(deposit(400, START.plusSeconds(1)));
+        history.append(new Transaction("tan-w", 50, "GBP", TransactionTypes.WITHDRAWAL, START.plusNanos(1)));
+
+        Aggregates.Result result = Aggregates.compute(history, 4, START.plusNanos(1), START.plusSeconds(1));
+
+        assertEquals(new Aggregates.Totals(1, 200, 200, 200), result.deposits());
+        assertEquals(new Aggregates.Totals(1, 50, 50, 50), result.withdrawals());
+        assertEquals(new Aggregates.Totals(0, 0, 0, 0), Aggregates.compute(history, 4, START.minusDays(1), START).deposits());
+    }
+
+    @Test
+    void compute_TotalTooLargeForLong_ShouldThrow() {
+        TransactionLog history = TransactionLog.create();
+        for (int i = 0; i < 2 * Aggregates.BLOCK; i++) {
+            history.append(deposit(Long.MAX_VALUE / 3, START));
+        }
+        for (boolean vectorized : new boolean[] {false, true}) {
+            Aggregates.setVectorized(vectorized);
+            assertThrows(ArithmeticException.class, () -> Aggregates.compute(history, 2 * Aggregates.BLOCK, null, null));
+        }
+    }
+
+    private static Transaction deposit(long amount, LocalDateTime createdTimestamp) {
+        return new Transaction("tan-" + amount, amount, "GBP", TransactionTypes.DEPOSIT, createdTimestamp);
+    }
+}
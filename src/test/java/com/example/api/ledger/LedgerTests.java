@@ -0,0 +1,206 @@
+package com.example.api.ledger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.example.api.objects.Account;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.registry.UserRegistry;
+
+class LedgerTests {
+
+    private static final String HOT_ACCOUNT = "01000001";
+
+    @AfterEach
+    void tearDown() {
+        Ledger.setHotAccounts(Set.of());
+    }
+
+    static Stream<Arguments> conversionCases() {
+        return Stream.of(
+            Arguments.of(10.99, "GBP", 1099L),
+            Arguments.of(0.1, "GBP", 10L),
+            Arguments.of(10000.0, "GBP", 1_000_000L),
+            Arguments.of(1500.0, "JPY", 1500L),
+            Arguments.of(1.234, "BHD", 1234L)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("conversionCases")
+    void toMinorUnits_ShouldUseCurrencyScale(double amount, String currency, long expected) {
+        assertEquals(expected, Money.toMinorUnits(amount, currency));
+        assertEquals(amount, Money.toMajorUnits(expected, currency));
+    }
+
+    @Test
+    void toMinorUnits_WithTooManyDecimals_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> Money.toMinorUnits(10.999, "GBP"));
+        assertThrows(IllegalArgumentException.class, () -> Money.toMinorUnits(1.5, "JPY"));
+        assertThrows(IllegalArgumentException.class, () -> Money.toMinorUnits(Double.NaN, "GBP"));
+    }
+
+    @Test
+    void repeatedPostings_ShouldNotDrift() {
+        // 0.1 + 0.2 != 0.3 in double arithmetic, but is exact in minor units
+        long balance = 0;
+        for (int i = 0; i < 1000; i++) {
+            balance = Ledger.apply(balance, TransactionTypes.DEPOSIT, Money.toMinorUnits(0.1, "GBP"));
+            balance = Ledger.apply(balance, TransactionTypes.DEPOSIT, Money.toMinorUnits(0.2, "GBP"));
+        }
+        assertEquals(30000L, balance);
+        assertEquals(300.0, Money.toMajorUnits(balance, "GBP"));
+    }
+
+    @Test
+    void apply_Withdrawal_ShouldRejectOverdraft() {
+        assertEquals(50L, Ledger.apply(100L, TransactionTypes.WITHDRAWAL, 50L));
+        assertEquals(0L, Ledger.apply(100L, TransactionTypes.WITHDRAWAL, 100L));
+        assertEquals(Ledger.INSUFFICIENT_FUNDS, Ledger.apply(100L, TransactionTypes.WITHDRAWAL, 101L));
+    }
+
+    @Test
+    void hotAccount_ShouldStayExactUnderConcurrentPostings() throws InterruptedException {
+        Ledger.setHotAccounts(Set.of(HOT_ACCOUNT));
+        Account account = Account.builder().accountNumber(HOT_ACCOUNT).build();
+        int threads = 16;
+        int deposits = 5_000;
+        AtomicInteger withdrawals = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < deposits; i++) {
+                        assertTrue(Ledger.post(account, transaction(TransactionTypes.DEPOSIT, 10)));
+                        if (i % 100 == 0 && Ledger.post(account, transaction(TransactionTypes.WITHDRAWAL, 7))) {
+                            withdrawals.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+
+        assertNotNull(account.getShards());
+        Ledger.settle(account);
+        int postings = threads * deposits + withdrawals.get();
+        assertEquals(threads * deposits * 10L - withdrawals.get() * 7L, account.getBalance());
+        assertEquals(postings, account.getVersion());
+        assertEquals(postings, account.getHistory().size());
+        assertEquals(postings, account.getHistory().size());
+    }
+
+    @Test
+    void hotAccount_WithdrawalShouldSettleWhenReserveIsShort() {
+        Ledger.setHotAccounts(Set.of(HOT_ACCOUNT));
+        Account account = Account.builder().accountNumber(HOT_ACCOUNT).build();
+
+        assertTrue(Ledger.post(account, transaction(TransactionTypes.DEPOSIT, 100)));
+        // The deposit is still on its shard, so the reserve alone cannot cover this
+        assertEquals(0L, account.getBalance());
+        assertTrue(Ledger.post(account, transaction(TransactionTypes.WITHDRAWAL, 60)));
+        assertFalse(Ledger.post(account, transaction(TransactionTypes.WITHDRAWAL, 50)));
+
+        Ledger.settle(account);
+        assertEquals(40L, account.getBalance());
+        assertEquals(2, account.getHistory().size());
+        assertEquals(TransactionTypes.DEPOSIT, account.getHistory().get(1).getType());
+    }
+
+    @Test
+    void hotAccount_DepositThatCouldOverflow_ShouldBeRejectedWhenPosted() throws InterruptedException {
+        Ledger.setHotAccounts(Set.of(HOT_ACCOUNT));
+        Account account = Account.builder().accountNumber(HOT_ACCOUNT).build();
+        assertTrue(Ledger.post(account, transaction(TransactionTypes.DEPOSIT, Long.MAX_VALUE - 10)));
+
+        // From another thread, so usually another shard, where the shard's own total would not overflow
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread other = Thread.ofPlatform().start(() -> {
+            try {
+                Ledger.post(account, transaction(TransactionTypes.DEPOSIT, 11));
+            } catch (ArithmeticException ex) {
+                thrown.set(ex);
+            }
+        });
+        other.join();
+        assertInstanceOf(ArithmeticException.class, thrown.get());
+        assertTrue(Ledger.post(account, transaction(TransactionTypes.DEPOSIT, 10)));
+
+        Ledger.settle(account);
+        assertEquals(Long.MAX_VALUE, account.getBalance());
+        assertEquals(2, account.getHistory().size());
+        assertThrows(ArithmeticException.class, () -> Ledger.post(account, transaction(TransactionTypes.DEPOSIT, 1)));
+    }
+
+    @Test
+    void hotAccount_WithoutJournal_ShouldSettleInPostingOrder() throws InterruptedException {
+        Ledger.setHotAccounts(Set.of(HOT_ACCOUNT));
+        Account account = Account.builder().accountNumber(HOT_ACCOUNT).build();
+
+        // One thread per deposit, in turn, so they land on every shard in no particular shard order
+        List<String> posted = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Transaction transaction = transaction(TransactionTypes.DEPOSIT, 1);
+            posted.add(transaction.getId());
+            Thread thread = Thread.ofPlatform().start(() -> Ledger.post(account, transaction));
+            thread.join();
+        }
+
+        Ledger.settle(account);
+        for (int i = 0; i < posted.size(); i++) {
+            assertEquals(posted.get(i), account.getHistory().get(i + 1).getId());
+        }
+    }
+
+    @Test
+    void settle_WithNothingPending_ShouldNotTakeTheAccountLock() throws InterruptedException {
+        Ledger.setHotAccounts(Set.of(HOT_ACCOUNT));
+        Account account = Account.builder().accountNumber(HOT_ACCOUNT).build();
+        assertTrue(Ledger.post(account, transaction(TransactionTypes.DEPOSIT, 100)));
+        Ledger.settle(account);
+
+        ReentrantLock lock = UserRegistry.accountLock(HOT_ACCOUNT);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread holder = Thread.ofPlatform().start(() -> {
+            lock.lock();
+            try {
+                locked.countDown();
+                done.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        });
+        try {
+            locked.await();
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> Ledger.settle(account));
+            assertEquals(100L, account.getBalance());
+        } finally {
+            done.countDown();
+            holder.join();
+        }
+    }
+
+    private static Transaction transaction(TransactionTypes type, long amount) {
+        return Transaction.builder().amount(amount).currency("GBP").type(type).build();
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.api.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.example.api.handlers.AccountsAPI;
+import com.example.api.ledger.Ledger;
+import com.example.api.objects.Account;
+import com.example.api.objects.Address;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.User;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.registry.UserRegistry;
+import com.example.api.requests.CreateTransactionRequest;
+import com.example.api.security.JwtAuthFilter;
+import com.example.api.security.JwtUtil;
+
+import jakarta.servlet.http.HttpServletResponse;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class MetricsTests {
+
+    @BeforeEach
+    void setUp() {
+        Metrics.reset();
+        UserRegistry.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.reset();
+        UserRegistry.clear();
+    }
+
+    @Test
+    void quantile_ShouldInterpolateWithinBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 900 requests at 0.8ms land in (0.5ms, 1ms]; 100 at 20ms land in (10ms, 25ms]
+        for (int i = 0; i < 900; i++) {
+            histogram.record(800_000);
+        }
+        for (int i = 0; i < 100; i++) {
+            histogram.record(20_000_000);
+        }
+        long[] counts = histogram.counts();
+
+        assertEquals(0.0005 + 0.0005 * 500 / 900.0, LatencyHistogram.quantile(counts, 0.5), 1e-12);
+        assertEquals(0.01 + 0.015 * 90 / 100.0, LatencyHistogram.quantile(counts, 0.99), 1e-12);
+        assertEquals(900 * 0.0008 + 100 * 0.02, histogram.sumSeconds(), 1e-9);
+        assertTrue(Double.isNaN(LatencyHistogram.quantile(new LatencyHistogram().counts(), 0.5)));
+    }
+
+    @Test
+    void quantile_BeyondLastBound_ShouldReturnLastBound() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(60_000_000_000L);
+        assertEquals(10.0, LatencyHistogram.quantile(histogram.counts(), 0.999));
+    }
+
+    @Test
+    void filter_ShouldRecordRouteTemplateNotPath() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/accounts/01000001");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new MetricsFilter().doFilter(request, response, (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/v1/accounts/{accountNumber}");
+            ((HttpServletResponse) res).setStatus(404);
+        });
+        new MetricsFilter().doFilter(new MockHttpServletRequest("GET", "/v1/accounts"), new MockHttpServletResponse(),
+            (req, res) -> ((HttpServletResponse) res).setStatus(401));
+
+        String scrape = Metrics.scrape();
+        String series = "method=\"GET\",uri=\"/v1/accounts/{accountNumber}\",status=\"404\"";
+        assertTrue(scrape.contains("# TYPE http_server_requests_seconds histogram\n"));
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{" + series + ",le=\"+Inf\"} 1\n"));
+        assertTrue(scrape.contains("http_server_requests_seconds_count{" + series + "} 1\n"));
+        assertTrue(scrape.contains("http_server_requests_seconds_quantile{" + series + ",quantile=\"0.999\"} "));
+        assertTrue(scrape.contains("uri=\"" + Metrics.UNMATCHED + "\",status=\"401\""));
+        assertFalse(scrape.contains("01000001"));
+    }
+
+    @Test
+    void filter_ShouldFoldMadeUpMethodsIntoOneSeries() throws Exception {
+        for (String method : List.of("BREW", "PROPFIND", "X-1")) {
+            new MetricsFilter().doFilter(new MockHttpServletRequest(method, "/v1/accounts"), new MockHttpServletResponse(),
+                (req, res) -> ((HttpServletResponse) res).setStatus(401));
+        }
+
+        String scrape = Metrics.scrape();
+        String series = "method=\"" + Metrics.OTHER_METHOD + "\",uri=\"" + Metrics.UNMATCHED + "\",status=\"401\"";
+        assertTrue(scrape.contains("http_server_requests_seconds_count{" + series + "} 3\n"));
+        assertFalse(scrape.contains("BREW"));
+    }
+
+    @Test
+    void scrape_ShouldCountRejectionsAndLedgerSize() {
+        User user = User.builder()
+            .id("usr-metrics")
+            .address(Address.builder().line1("1 Test St").town("Testville").postcode("TST1 1ST").build())
+            .build();
+        Account account = Account.builder().userId(user.getId()).accountNumber("01000001").build();
+        user.getAccounts().put(account.getAccountNumber(), account);
+        UserRegistry.put(user);
+
+        assertTrue(Ledger.post(account, Transaction.builder().amount(100).currency("GBP").type(TransactionTypes.DEPOSIT).build()));
+        assertFalse(Ledger.post(account, Transaction.builder().amount(101).currency("GBP").type(TransactionTypes.WITHDRAWAL).build()));
+        Metrics.recordJwtValidation(3_000);
+
+        String scrape = Metrics.scrape();
+        assertTrue(scrape.contains("ledger_postings_rejected_total{reason=\"insufficient_funds\"} 1\n"));
+        assertTrue(scrape.contains("ledger_users 1\n"));
+        assertTrue(scrape.contains("ledger_accounts 1\n"));
+        assertTrue(scrape.contains("ledger_transactions 1\n"));
+        assertTrue(scrape.contains("jwt_validation_seconds_bucket{le=\"1.0E-5\"} 1\n"));
+        assertTrue(scrape.contains("jwt_validation_seconds_count 1\n"));
+    }
+
+    @Test
+    void scrape_ShouldStopCountingRemovedUsersAndAccounts() {
+        User user = User.builder().id("usr-metrics").build();
+        for (String accountNumber : List.of("01000001", "01000002")) {
+            Account account = Account.builder().userId(user.getId()).accountNumber(accountNumber).build();
+            user.getAccounts().put(accountNumber, account);
+        }
+        UserRegistry.put(user);
+        for (Account account : user.getAccounts().values()) {
+            assertTrue(Ledger.post(account, deposit()));
+            assertTrue(Ledger.post(account, deposit()));
+        }
+        assertTrue(Metrics.scrape().contains("ledger_transactions 4\n"));
+
+        UserRegistry.unindexAccount(user.getAccounts().remove("01000001"));
+        String scrape = Metrics.scrape();
+        assertTrue(scrape.contains("ledger_accounts 1\n"));
+        assertTrue(scrape.contains("ledger_transactions 2\n"));
+
+        UserRegistry.remove(user.getId());
+        scrape = Metrics.scrape();
+        assertTrue(scrape.contains("ledger_users 0\n"));
+        assertTrue(scrape.contains("ledger_accounts 0\n"));
+        assertTrue(scrape.contains("ledger_transactions 0\n"));
+    }
+
+    @Test
+    void flightRecorder_ShouldRecordTransactionPostOutcomes() throws Exception {
+        User user = User.builder().id("usr-metrics").build();
+        Account account = Account.builder().userId(user.getId()).accountNumber("01000001").currency("GBP").build();
+        user.getAccounts().put(account.getAccountNumber(), account);
+        AccountsAPI accountsApi = new AccountsAPI();
+
+        List<RecordedEvent> events = record("com.example.api.TransactionPost", () -> {
+            CreateTransactionRequest deposit = new CreateTransactionRequest(10.0, "GBP", TransactionTypes.DEPOSIT);
+            accountsApi.createTransaction(user, "01000001", deposit, "retry-1");
+            accountsApi.createTransaction(user, "01000001", deposit, "retry-1");
+            assertThrows(ResponseStatusException.class, () -> accountsApi.createTransaction(user, "01000001",
+                new CreateTransactionRequest(20.0, "GBP", TransactionTypes.WITHDRAWAL), null));
+            assertThrows(ResponseStatusException.class, () -> accountsApi.createTransaction(user, "01000001",
+                new CreateTransactionRequest(1.0, "USD", TransactionTypes.DEPOSIT), null));
+        });
+
+        assertEquals(List.of(TransactionPostEvent.POSTED, TransactionPostEvent.REPLAYED,
+                TransactionPostEvent.INSUFFICIENT_FUNDS, TransactionPostEvent.REJECTED),
+            events.stream().map(event -> event.getString("outcome")).toList());
+        RecordedEvent withdrawal = events.get(2);
+        assertEquals("01000001", withdrawal.getString("accountNumber"));
+        assertEquals(20.0, withdrawal.getDouble("amount"));
+        assertEquals("GBP", withdrawal.getString("currency"));
+        assertEquals("WITHDRAWAL", withdrawal.getString("type"));
+    }
+
+    @Test
+    void flightRecorder_ShouldRecordTokenCacheHits() throws Exception {
+        JwtUtil jwtUtil = new JwtUtil();
+        JwtAuthFilter filter = new JwtAuthFilter(jwtUtil);
+        String token = jwtUtil.generateToken("usr-metrics");
+
+        List<RecordedEvent> events = record("com.example.api.TokenValidation", () -> {
+            for (String bearer : List.of(token, token, "not-a-token")) {
+                MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/accounts");
+                request.addHeader("Authorization", "Bearer " + bearer);
+                filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> { });
+            }
+        });
+
+        assertEquals(List.of(false, true, false), events.stream().map(event -> event.getBoolean("cacheHit")).toList());
+        assertEquals(List.of(true, true, false), events.stream().map(event -> event.getBoolean("valid")).toList());
+    }
+
+    @Test
+    void flightRecorder_ShouldRecordOnlyContendedLockWaits() throws Exception {
+        Account account = Account.builder().accountNumber("01000001").currency("GBP").build();
+        ReentrantLock lock = UserRegistry.accountLock(account.getAccountNumber());
+
+        List<RecordedEvent> events = record("com.example.api.AccountLockWait", () -> {
+            assertTrue(Ledger.post(account, deposit()));
+            lock.lock();
+            Thread poster;
+            try {
+                poster = Thread.ofPlatform().start(() -> Ledger.post(account, deposit()));
+                while (!lock.hasQueuedThread(poster)) {
+                    Thread.onSpinWait();
+                }
+            } finally {
+                lock.unlock();
+            }
+            poster.join();
+        });
+
+        assertEquals(1, events.size());
+        assertEquals("01000001", events.get(0).getString("accountNumber"));
+        assertFalse(events.get(0).getBoolean("shard"));
+        assertEquals(200L, account.getBalance());
+    }
+
+    private static Transaction deposit() {
+        return Transaction.builder().amount(100).currency("GBP").type(TransactionTypes.DEPOSIT).build();
+    }
+
+    private interface Recorded {
+        void run() throws Exception;
+    }
+
+    /** Every event of one type emitted while running the action, with no threshold. */
+    private static List<RecordedEvent> record(String eventName, Recorded action) throws Exception {
+        Path file = Files.createTempFile("metrics", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(eventName).withThreshold(Duration.ZERO);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(eventName))
+                .toList();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.api.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+class RequestLogTests {
+
+    @AfterEach
+    void tearDown() {
+        RequestLog.detach();
+    }
+
+    @Test
+    void drain_ShouldWriteOneJsonLinePerRequestInOrder() {
+        RequestLog log = new RequestLog(16, 1.0);
+        assertTrue(log.add("GET", "/v1/users/{userId}", 200, "usr-abc", 1_234_000));
+        assertTrue(log.add("POST", "/v1/users", 400, null, 56_000));
+
+        List<String> lines = new ArrayList<>();
+        assertEquals(2, log.drain(lines::add));
+
+        assertTrue(lines.get(0).matches("\\{\"timestamp\":\"\\d{4}-\\d\\d-\\d\\dT[^\"]+Z\",\"method\":\"GET\","
+            + "\"route\":\"/v1/users/\\{userId}\",\"status\":200,\"userId\":\"usr-abc\",\"durationMicros\":1234}"),
+            lines.get(0));
+        assertTrue(lines.get(1).endsWith("\"status\":400,\"userId\":null,\"durationMicros\":56}"), lines.get(1));
+        assertEquals(0, log.drain(lines::add));
+    }
+
+    @Test
+    void add_WhenWriterFallsBehind_ShouldDropAndCount() {
+        RequestLog log = new RequestLog(4, 1.0);
+        for (int i = 0; i < 6; i++) {
+            log.add("GET", "/v1/accounts", 200, "usr-abc", 1_000);
+        }
+        assertEquals(2, log.dropped());
+
+        List<String> lines = new ArrayList<>();
+        assertEquals(4, log.drain(lines::add));
+        // Drained slots are reused
+        assertTrue(log.add("GET", "/v1/accounts", 200, "usr-abc", 1_000));
+        assertEquals(1, log.drain(lines::add));
+    }
+
+    @Test
+    void add_WithZeroSampleRate_ShouldKeepOnlyServerErrors() {
+        RequestLog log = new RequestLog(16, 0.0);
+        assertFalse(log.add("GET", "/v1/accounts", 200, "usr-abc", 1_000));
+        assertFalse(log.add("GET", "/v1/accounts", 404, "usr-abc", 1_000));
+        assertTrue(log.add("GET", "/v1/accounts", 503, "usr-abc", 1_000));
+        assertEquals(0, log.dropped());
+    }
+
+    @Test
+    void drain_ShouldEscapeJsonStrings() {
+        RequestLog log = new RequestLog(1, 1.0);
+        log.add("GET", "/a\"b\\c\n", 200, "\u0001", 0);
+        List<String> lines = new ArrayList<>();
+        log.drain(lines::add);
+        assertTrue(lines.get(0).contains("\"route\":\"/a\\\"b\\\\c\\n\""), lines.get(0));
+        assertTrue(lines.get(0).contains("\"userId\":\"\\u0001\""), lines.get(0));
+    }
+
+    @Test
+    void add_FromManyThreads_ShouldLoseNothingWhileDrained() throws Exception {
+        RequestLog log = new RequestLog(64, 1.0);
+        List<String> lines = new ArrayList<>();
+        Thread writer = Thread.ofPlatform().start(() -> {
+            while (lines.size() < 20_000) {
+                if (log.drain(lines::add) == 0) {
+                    Thread.yield();
+                }
+            }
+        });
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int t = 0; t < 4; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        while (!log.add("GET", "/v1/accounts", 200, "usr-abc", i * 1_000L)) {
+                            Thread.yield();
+                        }
+                    }
+                });
+            }
+        }
+        writer.join();
+        assertEquals(20_000, lines.size());
+    }
+
+    @Test
+    void filter_ShouldLogRouteAndAuthenticatedUser() throws Exception {
+        RequestLog log = new RequestLog(16, 1.0);
+        RequestLog.attach(log);
+        new MetricsFilter().doFilter(new MockHttpServletRequest("GET", "/v1/users/usr-abc"), new MockHttpServletResponse(),
+            (req, res) -> {
+                req.setAttribute(RequestLog.USER_ID, "usr-abc");
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/v1/users/{userId}");
+                ((HttpServletResponse) res).setStatus(200);
+            });
+
+        List<String> lines = new ArrayList<>();
+        assertEquals(1, log.drain(lines::add));
+        assertTrue(lines.get(0).contains("\"route\":\"/v1/users/{userId}\",\"status\":200,\"userId\":\"usr-abc\""),
+            lines.get(0));
+    }
+}
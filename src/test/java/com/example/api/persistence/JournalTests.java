@@ -0,0 +1,376 @@
+package com.example.api.persistence;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.example.api.handlers.AccountsAPI;
+import com.example.api.handlers.TransfersAPI;
+import com.example.api.handlers.UserAPI;
+import com.example.api.ledger.Ledger;
+import com.example.api.objects.Account;
+import com.example.api.objects.Address;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.User;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.registry.UserRegistry;
+import com.example.api.requests.CreateBankAccountRequest;
+import com.example.api.requests.CreateTransactionRequest;
+import com.example.api.requests.CreateTransferRequest;
+import com.example.api.requests.CreateUserRequest;
+import com.example.api.requests.UpdateBankAccountRequest;
+import com.example.api.security.JwtUtil;
+
+class JournalTests {
+
+    private static final int SEGMENT_SIZE = 128 * 1024;
+    private static final Duration FLUSH_INTERVAL = Duration.ofMillis(1);
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() {
+        UserRegistry.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        Journal.detach();
+        UserRegistry.clear();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void replay_ShouldReturnRecordsInOrderAcrossSegments() throws IOException {
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            for (int i = 1; i <= 10_000; i++) {
+                int value = i;
+                assertEquals(i, wal.append((byte) 1, out -> out.putInt(value)));
+            }
+        }
+        assertTrue(segments().size() > 1);
+
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            List<Integer> values = new ArrayList<>();
+            long last = wal.replay(0, (lsn, type, payload) -> values.add(payload.getInt()));
+            assertEquals(10_000, last);
+            assertEquals(10_000, values.size());
+            assertEquals(1, values.get(0));
+            assertEquals(10_000, values.get(9_999));
+            assertEquals(10_001, wal.append((byte) 1, out -> out.putInt(0)));
+        }
+    }
+
+    @Test
+    void replay_ShouldStopAtTornRecord() throws IOException {
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            for (int i = 0; i < 3; i++) {
+                wal.append((byte) 1, out -> out.putLong(42L));
+            }
+        }
+        // Corrupt the payload of the third record: header 16 + 2 * (17 + 8) + 17
+        try (RandomAccessFile file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+            file.seek(16 + 2 * 25 + 17);
+            file.write(0x7F);
+        }
+
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            assertEquals(2, wal.replay(0, (lsn, type, payload) -> { }));
+            assertEquals(3, wal.append((byte) 1, out -> out.putLong(7L)));
+        }
+    }
+
+    @Test
+    void append_ShouldRollTailMappedAtSmallerSegmentSize() throws IOException {
+        int smallSegment = 70_000;
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, smallSegment, FLUSH_INTERVAL)) {
+            for (int i = 0; i < 60; i++) {
+                wal.append((byte) 1, out -> out.put(new byte[1000]));
+            }
+        }
+
+        // Reopened with a larger size, the old tail is still only mapped at its own
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            for (int i = 0; i < 20; i++) {
+                wal.append((byte) 1, out -> out.put(new byte[1000]));
+            }
+        }
+        assertEquals(2, segments().size());
+
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            List<Long> lsns = new ArrayList<>();
+            assertEquals(80, wal.replay(0, (lsn, type, payload) -> lsns.add(lsn)));
+            assertEquals(80, lsns.size());
+        }
+    }
+
+    @Test
+    void awaitDurable_ShouldReturnOnceFlushed() throws IOException {
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            long lsn = wal.append((byte) 1, out -> out.putInt(1));
+            wal.awaitDurable(lsn);
+            assertTrue(wal.durableLsn() >= lsn);
+        }
+    }
+
+    @Test
+    void journal_ShouldRebuildRegistryAfterRestart() throws IOException {
+        String userId;
+        String accountNumber;
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            Journal.attach(wal, true);
+
+            JwtUtil jwtUtil = mock(JwtUtil.class);
+            when(jwtUtil.generateToken(anyString())).thenReturn("test-token");
+            UserAPI userApi = new UserAPI(jwtUtil);
+            AccountsAPI accountsApi = new AccountsAPI();
+
+            userId = userApi.createUser(CreateUserRequest.builder()
+                .name("Alice")
+                .address(Address.builder().line1("1 Test St").town("Testville").county("Testshire").postcode("TST1 1ST").build())
+                .phoneNumber("+441234567890")
+                .email("alice@example.com")
+                .build()).getBody().getId();
+            User user = UserRegistry.get(userId);
+
+            accountNumber = accountsApi.createAccount(user, CreateBankAccountRequest.builder()
+                .name("Main")
+                .accountType(Account.AccountTypes.PERSONAL)
+                .build()).getBody().getAccountNumber();
+            accountsApi.updateAccount(user, accountNumber, new UpdateBankAccountRequest("Renamed", null), null);
+            accountsApi.createTransaction(user, accountNumber, new CreateTransactionRequest(100.0, "GBP", TransactionTypes.DEPOSIT), null);
+            accountsApi.createTransaction(user, accountNumber, new CreateTransactionRequest(30.5, "GBP", TransactionTypes.WITHDRAWAL), null);
+
+            String deleted = accountsApi.createAccount(user, CreateBankAccountRequest.builder()
+                .name("Closed")
+                .accountType(Account.AccountTypes.PERSONAL)
+                .build()).getBody().getAccountNumber();
+            accountsApi.deleteAccount(user, deleted);
+
+            Journal.detach();
+        }
+
+        UserRegistry.clear();
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            Journal.replay(wal, 0);
+        }
+
+        User restored = UserRegistry.get(userId);
+        assertNotNull(restored);
+        assertEquals("Alice", restored.getName());
+        assertEquals("Testville", restored.getAddress().getTown());
+        assertEquals(1, restored.getAccounts().size());
+
+        Account account = restored.getAccounts().get(accountNumber);
+        assertEquals("Renamed", account.getName());
+        assertEquals(6950L, account.getBalance());
+        assertEquals(3L, account.getVersion());
+        assertEquals(2, account.getHistory().size());
+    }
+
+    @Test
+    void journal_ShouldRejectOversizedRecordsBeforeChangingTheRegistry() throws IOException {
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            Journal.attach(wal, false);
+            AccountsAPI accountsApi = new AccountsAPI();
+            User user = User.builder().id("usr-journal").address(Address.builder().build()).build();
+            UserRegistry.put(user);
+            String tooLong = "x".repeat(70_000);
+
+            assertThrows(RecordTooLargeException.class, () -> accountsApi.createAccount(user, CreateBankAccountRequest.builder()
+                .name(tooLong)
+                .accountType(Account.AccountTypes.PERSONAL)
+                .build()));
+            assertTrue(user.getAccounts().isEmpty());
+            assertEquals(0, UserRegistry.accountCount());
+            assertEquals(0, wal.lastLsn());
+
+            String accountNumber = accountsApi.createAccount(user, CreateBankAccountRequest.builder()
+                .name("Main")
+                .accountType(Account.AccountTypes.PERSONAL)
+                .build()).getBody().getAccountNumber();
+            assertThrows(RecordTooLargeException.class,
+                () -> accountsApi.updateAccount(user, accountNumber, new UpdateBankAccountRequest(tooLong, null), null));
+            Account account = user.getAccounts().get(accountNumber);
+            assertEquals("Main", account.getName());
+            assertEquals(0, account.getVersion());
+            assertEquals(1, wal.lastLsn());
+        }
+    }
+
+    @Test
+    void replay_ShouldKeepAccountVersionWhenTailOverlapsSnapshot() throws IOException {
+        User alice = user("usr-alice1");
+        String accountNumber;
+        Path snapshot;
+        long version;
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            Journal.attach(wal, false);
+            UserRegistry.put(alice);
+            Journal.userCreated(alice);
+
+            AccountsAPI accountsApi = new AccountsAPI();
+            accountNumber = accountsApi.createAccount(alice, CreateBankAccountRequest.builder()
+                .name("Main")
+                .accountType(Account.AccountTypes.PERSONAL)
+                .build()).getBody().getAccountNumber();
+            accountsApi.updateAccount(alice, accountNumber, new UpdateBankAccountRequest("Renamed", null), null);
+            accountsApi.createTransaction(alice, accountNumber, new CreateTransactionRequest(100.0, "GBP", TransactionTypes.DEPOSIT), null);
+            accountsApi.updateAccount(alice, accountNumber, new UpdateBankAccountRequest("Savings", null), null);
+            version = alice.getAccounts().get(accountNumber).getVersion();
+            snapshot = Snapshots.take(dir, wal, 1);
+            Journal.detach();
+        }
+        assertEquals(3L, version);
+
+        // Records logged while a snapshot is written are in both the snapshot and the tail
+        UserRegistry.clear();
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            Snapshots.load(snapshot);
+            Journal.replay(wal, 0);
+        }
+
+        Account restored = UserRegistry.account(accountNumber);
+        assertEquals("Savings", restored.getName());
+        assertEquals(10000L, restored.getBalance());
+        assertEquals(version, restored.getVersion());
+        assertEquals(1, restored.getHistory().size());
+    }
+
+    @Test
+    void journal_ShouldReplayTransferAndAccountIndex() throws IOException {
+        User alice = user("usr-alice1");
+        User bob = user("usr-bob001");
+        String from;
+        String to;
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            Journal.attach(wal, true);
+            UserRegistry.put(alice);
+            Journal.userCreated(alice);
+            UserRegistry.put(bob);
+            Journal.userCreated(bob);
+
+            AccountsAPI accountsApi = new AccountsAPI();
+            CreateBankAccountRequest current = CreateBankAccountRequest.builder()
+                .name("Current")
+                .accountType(Account.AccountTypes.PERSONAL)
+                .build();
+            from = accountsApi.createAccount(alice, current).getBody().getAccountNumber();
+            to = accountsApi.createAccount(bob, current).getBody().getAccountNumber();
+            assertNotEquals(from, to);
+            accountsApi.createTransaction(alice, from, new CreateTransactionRequest(100.0, "GBP", TransactionTypes.DEPOSIT), null);
+            new TransfersAPI().createTransfer(alice, from, new CreateTransferRequest(to, 40.25, "GBP"));
+
+            Journal.detach();
+        }
+
+        UserRegistry.clear();
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            Journal.replay(wal, 0);
+        }
+
+        Account source = UserRegistry.account(from);
+        Account destination = UserRegistry.account(to);
+        assertSame(UserRegistry.get("usr-alice1").getAccounts().get(from), source);
+        assertSame(UserRegistry.get("usr-bob001").getAccounts().get(to), destination);
+        assertEquals(5975L, source.getBalance());
+        assertEquals(2, source.getHistory().size());
+        assertEquals(4025L, destination.getBalance());
+        assertEquals(1, destination.getHistory().size());
+    }
+
+    @Test
+    void journal_ShouldReplayHotAccountInPostingOrder() throws IOException {
+        User alice = user("usr-alice1");
+        String accountNumber = "01000001";
+        List<String> history = new ArrayList<>();
+        long balance;
+        long version;
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            Journal.attach(wal, false);
+            UserRegistry.put(alice);
+            Journal.userCreated(alice);
+            Account account = Account.builder()
+                .userId(alice.getId())
+                .accountNumber(accountNumber)
+                .name("Till")
+                .accountType(Account.AccountTypes.PERSONAL)
+                .build();
+            alice.getAccounts().put(accountNumber, account);
+            UserRegistry.indexAccount(account);
+            Journal.accountCreated(account);
+
+            Ledger.setHotAccounts(Set.of(accountNumber));
+            try {
+                for (int i = 0; i < 100; i++) {
+                    assertTrue(Ledger.post(account, Transaction.builder().amount(100).currency("GBP").type(TransactionTypes.DEPOSIT).build()));
+                    if (i % 10 == 9) {
+                        assertTrue(Ledger.post(account, Transaction.builder().amount(250).currency("GBP").type(TransactionTypes.WITHDRAWAL).build()));
+                    }
+                }
+                // A batch settles first and logs absolute balances, after which deltas resume
+                assertEquals(-1, Ledger.postBatch(account, List.of(
+                    Transaction.builder().amount(500).currency("GBP").type(TransactionTypes.WITHDRAWAL).build(),
+                    Transaction.builder().amount(500).currency("GBP").type(TransactionTypes.DEPOSIT).build()), true, new boolean[2]));
+                assertTrue(Ledger.post(account, Transaction.builder().amount(1).currency("GBP").type(TransactionTypes.DEPOSIT).build()));
+                Ledger.settle(account);
+            } finally {
+                Ledger.setHotAccounts(Set.of());
+            }
+            balance = account.getBalance();
+            version = account.getVersion();
+            for (int i = 1; i <= account.getHistory().size(); i++) {
+                history.add(account.getHistory().get(i).getId());
+            }
+            Journal.detach();
+        }
+        assertEquals(100 * 100L - 10 * 250L + 1, balance);
+
+        UserRegistry.clear();
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            Journal.replay(wal, 0);
+        }
+
+        Account restored = UserRegistry.account(accountNumber);
+        assertEquals(balance, restored.getBalance());
+        assertEquals(version, restored.getVersion());
+        assertEquals(history.size(), restored.getHistory().size());
+        for (int i = 0; i < history.size(); i++) {
+            assertEquals(history.get(i), restored.getHistory().get(i + 1).getId());
+        }
+    }
+
+    private static User user(String id) {
+        return User.builder()
+            .id(id)
+            .name(id)
+            .address(Address.builder().line1("1 Test St").town("Testville").county("Testshire").postcode("TST1 1ST").build())
+            .phoneNumber("+441234567890")
+            .email(id + "@example.com")
+            .build();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+    }
+}
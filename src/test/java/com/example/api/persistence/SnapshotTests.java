@@ -0,0 +1,214 @@
+package com.example.api.persistence;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.api.ledger.Ledger;
+import com.example.api.objects.Account;
+import com.example.api.objects.Address;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.objects.User;
+import com.example.api.registry.ColdStore;
+import com.example.api.registry.TieredTransactionLog;
+import com.example.api.registry.TransactionLog;
+import com.example.api.registry.UserRegistry;
+
+class SnapshotTests {
+
+    private static final int SEGMENT_SIZE = 128 * 1024;
+    private static final Duration FLUSH_INTERVAL = Duration.ofMillis(1);
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() {
+        UserRegistry.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        Journal.detach();
+        UserRegistry.clear();
+    }
+
+    @Test
+    void restore_ShouldLoadSnapshotAndReplayJournalTail() throws IOException {
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            Journal.attach(wal, false);
+            Account account = createAccount("usr-snap1", "01000001");
+            deposit(account, 3_000, 100);
+            Snapshots.take(dir, wal, 2);
+
+            deposit(account, 5, 250);
+            createAccount("usr-snap2", "01000002");
+            Journal.detach();
+        }
+
+        UserRegistry.clear();
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            Snapshots.restore(dir, wal);
+        }
+
+        Account restored = UserRegistry.get("usr-snap1").getAccounts().get("01000001");
+        assertEquals(3_005, restored.getHistory().size());
+        assertEquals(3_000 * 100L + 5 * 250L, restored.getBalance());
+        assertEquals(3_005, restored.getVersion());
+        assertEquals("Current", restored.getName());
+        assertNotNull(UserRegistry.get("usr-snap2").getAccounts().get("01000002"));
+    }
+
+    @Test
+    void restore_ShouldNotReissueNumbersOfAccountsDeletedBeforeSnapshot() throws IOException {
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            Journal.attach(wal, false);
+            createAccount("usr-snap1", UserRegistry.issueAccountNumber());
+            Account closed = createAccount("usr-snap2", UserRegistry.issueAccountNumber());
+            UserRegistry.get("usr-snap2").getAccounts().remove(closed.getAccountNumber());
+            Journal.accountDeleted(closed);
+            Snapshots.take(dir, wal, 1);
+            Journal.detach();
+        }
+
+        UserRegistry.clear();
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            Snapshots.restore(dir, wal);
+        }
+
+        assertEquals(2, UserRegistry.lastAccountNumber());
+        assertEquals("01000003", UserRegistry.issueAccountNumber());
+    }
+
+    @Test
+    void restore_ShouldPutColdTransactionsBackInTheColdTier() throws IOException {
+        try (ColdStore store = ColdStore.open(dir.resolve("cold"), 1 << 20)) {
+            TransactionLog.setColdStore(store);
+            try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+                Journal.attach(wal, false);
+                Account account = createAccount("usr-snap1", "01000001");
+                deposit(account, 2_000, 100);
+                assertEquals(2_000, Ledger.tierHistories(LocalDateTime.MAX, 1));
+                deposit(account, 1_000, 100);
+                Snapshots.take(dir, wal, 1);
+                Journal.detach();
+            }
+
+            UserRegistry.clear();
+            try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+                Snapshots.restore(dir, wal);
+            } finally {
+                TransactionLog.setColdStore(null);
+            }
+
+            TieredTransactionLog restored = (TieredTransactionLog) UserRegistry.get("usr-snap1").getAccounts().get("01000001").getHistory();
+            assertEquals(3_000, restored.size());
+            assertEquals(2_000, restored.coldSize());
+            assertEquals(4_000, store.transactions());
+            assertEquals(100, restored.get(1).getAmount());
+            assertEquals(100, restored.get(3_000).getAmount());
+        }
+    }
+
+    @Test
+    void take_ShouldDeleteJournalSegmentsCoveredBySnapshot() throws IOException {
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            Journal.attach(wal, false);
+            Account account = createAccount("usr-snap1", "01000001");
+            deposit(account, 5_000, 1);
+            int before = files(".log").size();
+
+            Snapshots.take(dir, wal, 1);
+            assertTrue(files(".log").size() < before);
+
+            deposit(account, 10, 1);
+            Snapshots.take(dir, wal, 1);
+            assertEquals(1, files(".snap").size());
+            Journal.detach();
+        }
+
+        UserRegistry.clear();
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            Snapshots.restore(dir, wal);
+        }
+        assertEquals(5_010L, UserRegistry.get("usr-snap1").getAccounts().get("01000001").getBalance());
+    }
+
+    @Test
+    void restore_ShouldFallBackToOlderSnapshotWhenNewestIsCorrupt() throws IOException {
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            Journal.attach(wal, false);
+            Account account = createAccount("usr-snap1", "01000001");
+            deposit(account, 100, 1);
+            Snapshots.take(dir, wal, 2);
+            deposit(account, 100, 1);
+            Snapshots.take(dir, wal, 2);
+            Journal.detach();
+        }
+
+        List<Path> snapshots = files(".snap");
+        try (RandomAccessFile file = new RandomAccessFile(snapshots.get(1).toFile(), "rw")) {
+            file.seek(40);
+            file.write(0x7F);
+        }
+
+        UserRegistry.clear();
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            Snapshots.restore(dir, wal);
+        }
+        Account restored = UserRegistry.get("usr-snap1").getAccounts().get("01000001");
+        assertEquals(200L, restored.getBalance());
+        assertEquals(200, restored.getHistory().size());
+    }
+
+    private static Account createAccount(String userId, String accountNumber) {
+        User user = User.builder()
+            .id(userId)
+            .name("Alice")
+            .address(Address.builder().line1("1 Test St").town("Testville").county("Testshire").postcode("TST1 1ST").build())
+            .email("alice@example.com")
+            .build();
+        UserRegistry.put(user);
+        Journal.userCreated(user);
+
+        Account account = Account.builder()
+            .userId(userId)
+            .accountNumber(accountNumber)
+            .sortCode("10-10-10")
+            .name("Current")
+            .accountType(Account.AccountTypes.PERSONAL)
+            .build();
+        user.getAccounts().put(accountNumber, account);
+        Journal.accountCreated(account);
+        return account;
+    }
+
+    private static void deposit(Account account, int count, long amount) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(Ledger.post(account, Transaction.builder()
+                .amount(amount)
+                .currency("GBP")
+                .type(TransactionTypes.DEPOSIT)
+                .build()));
+        }
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+}
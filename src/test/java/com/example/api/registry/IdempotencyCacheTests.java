@@ -0,0 +1,94 @@
+package com.example.api.registry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class IdempotencyCacheTests {
+
+    @Test
+    void execute_ShouldRunOnceForConcurrentRequestsWithTheSameKey() throws Exception {
+        IdempotencyCache<Integer> cache = new IdempotencyCache<>(100, Duration.ofMinutes(1));
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<IdempotencyCache.Result<Integer>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.execute("key", "request", () -> {
+                        sleep(50);
+                        return runs.incrementAndGet();
+                    });
+                }));
+            }
+            start.countDown();
+
+            int replayed = 0;
+            for (Future<IdempotencyCache.Result<Integer>> result : results) {
+                assertEquals(1, result.get().value());
+                replayed += result.get().replayed() ? 1 : 0;
+            }
+            assertEquals(1, runs.get());
+            assertEquals(7, replayed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_ShouldNotRememberFailures() {
+        IdempotencyCache<String> cache = new IdempotencyCache<>(100, Duration.ofMinutes(1));
+        assertThrows(IllegalStateException.class, () -> cache.execute("key", "request", () -> {
+            throw new IllegalStateException("declined");
+        }));
+
+        IdempotencyCache.Result<String> retry = cache.execute("key", "request", () -> "posted");
+        assertEquals("posted", retry.value());
+        assertFalse(retry.replayed());
+    }
+
+    @Test
+    void execute_ShouldRejectKeyReusedForDifferentRequest() {
+        IdempotencyCache<String> cache = new IdempotencyCache<>(100, Duration.ofMinutes(1));
+        cache.execute("key", "request", () -> "posted");
+        assertThrows(IdempotencyCache.KeyReusedException.class, () -> cache.execute("key", "other", () -> "posted again"));
+    }
+
+    @Test
+    void execute_ShouldEvictOldestAndExpiredEntries() {
+        IdempotencyCache<Integer> bounded = new IdempotencyCache<>(10, Duration.ofMinutes(1));
+        for (int i = 0; i < 100; i++) {
+            int value = i;
+            bounded.execute("key-" + i, "request", () -> value);
+        }
+        assertEquals(10, bounded.size());
+        assertFalse(bounded.execute("key-0", "request", () -> -1).replayed());
+        assertTrue(bounded.execute("key-99", "request", () -> -1).replayed());
+
+        IdempotencyCache<Integer> expiring = new IdempotencyCache<>(10, Duration.ofMillis(20));
+        expiring.execute("key", "request", () -> 1);
+        sleep(40);
+        IdempotencyCache.Result<Integer> after = expiring.execute("key", "request", () -> 2);
+        assertEquals(2, after.value());
+        assertFalse(after.replayed());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
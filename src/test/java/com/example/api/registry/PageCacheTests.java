@@ -0,0 +1,43 @@
+package com.example.api.registry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+import org.junit.jupiter.api.Test;
+
+class PageCacheTests {
+
+    @Test
+    void get_ShouldKeepFrequentlyReadPagesThroughAScan() {
+        PageCache cache = new PageCache(8);
+        AtomicInteger loads = new AtomicInteger();
+        LongFunction<byte[]> loader = page -> {
+            loads.incrementAndGet();
+            return new byte[] {(byte) page};
+        };
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1, cache.get(1, loader)[0]);
+            assertEquals(2, cache.get(2, loader)[0]);
+        }
+        assertEquals(2, loads.get());
+
+        // As many pages as the cache holds, each read once: least-recently-used would evict pages 1 and 2
+        for (long page = 10; page < 18; page++) {
+            cache.get(page, loader);
+        }
+        assertEquals(10, loads.get());
+        assertEquals(8, cache.size());
+
+        cache.get(1, loader);
+        cache.get(2, loader);
+        assertEquals(10, loads.get());
+        // The scan's pages went first
+        cache.get(10, loader);
+        assertEquals(11, loads.get());
+        assertEquals(6, cache.hits());
+        assertEquals(11, cache.misses());
+    }
+}
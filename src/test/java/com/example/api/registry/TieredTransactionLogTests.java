@@ -0,0 +1,221 @@
+package com.example.api.registry;
+
+import static com.example.api.registry.Transactions.assertTransaction;
+import static com.example.api.registry.Transactions.transaction;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.api.ledger.Ledger;
+import com.example.api.objects.Account;
+import com.example.api.objects.Transaction;
+import com.example.api.objects.User;
+
+class TieredTransactionLogTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 9, 0, 0, 123_456_789);
+
+    @TempDir
+    Path directory;
+
+    private ColdStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // A small cache, so reads keep evicting and reloading pages
+        store = ColdStore.open(directory, 8 * ColdStore.PAGE_SIZE);
+        TransactionLog.setColdStore(store);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        TransactionLog.setColdStore(null);
+        UserRegistry.clear();
+        store.close();
+    }
+
+    @Test
+    void compaction_ShouldLeaveEveryLookupAsOnTheHeap() {
+        TransactionLog log = TransactionLog.create();
+        HeapTransactionLog expected = new HeapTransactionLog(0);
+        assertInstanceOf(TieredTransactionLog.class, log);
+        for (int i = 1; i <= 5_000; i++) {
+            Transaction transaction = transaction("tan-" + i, i, START.plusMinutes(i));
+            if (i == 10) {
+                transaction = new Transaction("tan-ünïcödé-and-longer-than-a-row-holds-" + i, 7, "EUR", null, null);
+            } else if (i == 20) {
+                // Posted late but created long before the rest
+                transaction = transaction("tan-late", 20, START.minusDays(1));
+            }
+            log.append(transaction);
+            expected.append(transaction);
+        }
+
+        TieredTransactionLog tiered = (TieredTransactionLog) log;
+        tiered.prepareCompaction(START.plusMinutes(1_500), 1).commit();
+        tiered.prepareCompaction(START.plusMinutes(3_000), 1).commit();
+        assertNull(tiered.prepareCompaction(START.plusMinutes(3_000), 1));
+        assertNull(tiered.prepareCompaction(START.plusMinutes(4_000), 1_001));
+        assertEquals(2_999, tiered.coldSize());
+        assertEquals(5_000, log.size());
+        assertEquals(2_999, store.transactions());
+
+        for (int sequence : new int[] {1, 10, 20, 1_499, 1_500, 2_999, 3_000, 5_000}) {
+            assertTransaction(expected.get(sequence), log.get(sequence));
+            assertTransaction(expected.get(sequence), log.find(expected.get(sequence).getId()));
+        }
+        assertNull(log.find("tan-5001"));
+        assertThrows(IndexOutOfBoundsException.class, () -> log.get(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> log.get(5_001));
+
+        // Sequence pages across the tiers and across segments
+        assertEquals(ids(expected.newestFirst(3_005, 10)), ids(log.newestFirst(3_005, 10)));
+        assertEquals(ids(expected.newestFirst(1_502, 4)), ids(log.newestFirst(1_502, 4)));
+        assertEquals(ids(expected.newestFirst(3, 5)), ids(log.newestFirst(3, 5)));
+
+        // Time ranges across the tiers, and paging on from a cold cursor
+        assertEquals(entries(expected.newestFirst(null, null, null, 3)), entries(log.newestFirst(null, null, null, 3)));
+        LocalDateTime from = START.plusMinutes(1_490);
+        LocalDateTime to = START.plusMinutes(3_010);
+        List<TimeIndex.Entry> first = log.newestFirst(from, to, null, 15);
+        assertEquals(entries(expected.newestFirst(from, to, null, 15)), entries(first));
+        TimeIndex.Entry cursor = TimeIndex.entryFor(1_496, log.get(1_496));
+        assertEquals(entries(expected.newestFirst(from, to, cursor, 20)), entries(log.newestFirst(from, to, cursor, 20)));
+        assertEquals(entries(expected.newestFirst(START.minusDays(2), START.plusMinutes(2), null, 5)),
+            entries(log.newestFirst(START.minusDays(2), START.plusMinutes(2), null, 5)));
+
+        Transaction[] all = log.toArray(5_000);
+        for (int sequence = 1; sequence <= 5_000; sequence += 499) {
+            assertTransaction(expected.get(sequence), all[sequence - 1]);
+        }
+        long[] amounts = new long[5_000];
+        long[] created = new long[5_000];
+        long[] expectedAmounts = new long[5_000];
+        long[] expectedCreated = new long[5_000];
+        log.copyColumns(1, 5_000, amounts, created);
+        expected.copyColumns(1, 5_000, expectedAmounts, expectedCreated);
+        assertArrayEquals(expectedAmounts, amounts);
+        assertArrayEquals(expectedCreated, created);
+        assertTrue(store.pageCacheMisses() > 0);
+        assertTrue(store.pageCacheHits() > 0);
+    }
+
+    @Test
+    void commit_ShouldKeepTransactionsAppendedWhilePreparing() {
+        TieredTransactionLog log = (TieredTransactionLog) TransactionLog.create();
+        for (int i = 1; i <= 2_000; i++) {
+            log.append(transaction("tan-" + i, i, START.plusMinutes(i)));
+        }
+        TieredTransactionLog.Compaction compaction = log.prepareCompaction(START.plusMinutes(1_001), 1);
+        assertEquals(1_000, compaction.moved());
+        log.append(transaction("tan-2001", 2_001, START.plusMinutes(2_001)));
+
+        compaction.commit();
+        assertEquals(1_000, log.coldSize());
+        assertEquals(2_001, log.size());
+        assertEquals("tan-2001", log.get(2_001).getId());
+        assertEquals("tan-2001", log.find("tan-2001").getId());
+        assertEquals(2_002, log.append(transaction("tan-2002", 2_002, START.plusMinutes(2_002))));
+        assertThrows(IllegalStateException.class, compaction::commit);
+    }
+
+    @Test
+    void forget_ShouldLeaveLookupsAcrossTheCutUnchanged() {
+        TieredTransactionLog log = (TieredTransactionLog) TransactionLog.create();
+        HeapTransactionLog expected = new HeapTransactionLog(0);
+        for (int i = 1; i <= 2_000; i++) {
+            Transaction transaction = transaction("tan-" + i, i, START.plusMinutes(i));
+            log.append(transaction);
+            expected.append(transaction);
+        }
+        LocalDateTime from = START.plusMinutes(990);
+        LocalDateTime to = START.plusMinutes(1_010);
+        TieredTransactionLog.Compaction compaction = log.prepareCompaction(START.plusMinutes(1_001), 1);
+
+        // Committed but not yet forgotten, the moved entries are in both tiers' indexes
+        compaction.commit();
+        assertEquals(entries(expected.newestFirst(from, to, null, 50)), entries(log.newestFirst(from, to, null, 50)));
+        assertEquals(entries(expected.newestFirst(null, null, null, 1_500)), entries(log.newestFirst(null, null, null, 1_500)));
+
+        compaction.forget();
+        assertEquals(entries(expected.newestFirst(from, to, null, 50)), entries(log.newestFirst(from, to, null, 50)));
+        assertEquals(entries(expected.newestFirst(null, null, null, 1_500)), entries(log.newestFirst(null, null, null, 1_500)));
+        for (int sequence : new int[] {1, 999, 1_000, 1_001, 2_000}) {
+            assertTransaction(expected.get(sequence), log.find("tan-" + sequence));
+            assertTransaction(expected.get(sequence), log.get(sequence));
+        }
+
+        // The next compaction starts from the shared chunks, mid-chunk
+        log.append(transaction("tan-2001", 2_001, START.plusMinutes(2_001)));
+        TieredTransactionLog.Compaction next = log.prepareCompaction(START.plusMinutes(1_800), 1);
+        assertEquals(799, next.moved());
+        next.commit();
+        next.forget();
+        assertEquals(1_799, log.coldSize());
+        assertEquals("tan-1800", log.get(1_800).getId());
+        assertEquals("tan-2001", log.find("tan-2001").getId());
+        assertEquals(2_002, log.append(transaction("tan-2002", 2_002, START.plusMinutes(2_002))));
+    }
+
+    @Test
+    void forRestore_ShouldWriteColdRunsStraightToDisk() {
+        Transaction[] transactions = new Transaction[3_000];
+        for (int i = 0; i < transactions.length; i++) {
+            transactions[i] = transaction("tan-" + (i + 1), i + 1, START.plusMinutes(i + 1));
+        }
+        TieredTransactionLog log = (TieredTransactionLog) TransactionLog.forRestore(3_000, 2_000);
+        // Runs arrive in any order, as snapshot chunks are read in parallel
+        log.restore(2_001, Arrays.copyOfRange(transactions, 2_000, 3_000));
+        log.restore(1_201, Arrays.copyOfRange(transactions, 1_200, 2_000));
+        log.restore(1, Arrays.copyOfRange(transactions, 0, 1_200));
+        log.completeRestore();
+
+        assertEquals(3_000, log.size());
+        assertEquals(2_000, log.coldSize());
+        assertEquals(2_000, store.transactions());
+        for (int sequence : new int[] {1, 1_200, 1_201, 2_000, 2_001, 3_000}) {
+            assertTransaction(transactions[sequence - 1], log.get(sequence));
+            assertTransaction(transactions[sequence - 1], log.find("tan-" + sequence));
+        }
+        Transaction[] copy = new Transaction[1_000];
+        log.copyTo(1_501, 1_000, copy, 0);
+        assertTransaction(transactions[1_500], copy[0]);
+        assertTransaction(transactions[2_499], copy[999]);
+        assertEquals(3_001, log.append(transaction("tan-3001", 3_001, START.plusMinutes(3_001))));
+    }
+
+    @Test
+    void tierHistories_ShouldMoveOldTransactionsOfEveryAccount() {
+        User user = User.builder().id("usr-tiered").build();
+        Account account = Account.builder().accountNumber("01000001").userId(user.getId()).currency("GBP").build();
+        user.getAccounts().put(account.getAccountNumber(), account);
+        UserRegistry.put(user);
+        for (int i = 1; i <= 3_000; i++) {
+            account.addTransaction(transaction("tan-" + i, i, START.plusMinutes(i)));
+        }
+
+        // Too few to be worth a segment
+        assertEquals(0, Ledger.tierHistories(START.plusMinutes(500), 1_000));
+        assertEquals(2_500, Ledger.tierHistories(START.plusMinutes(2_501), 1_000));
+        TieredTransactionLog history = (TieredTransactionLog) account.getHistory();
+        assertEquals(2_500, history.coldSize());
+        assertEquals("tan-1", history.get(1).getId());
+    }
+
+    private static List<String> ids(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getId).toList();
+    }
+
+    private static List<String> entries(List<TimeIndex.Entry> entries) {
+        return entries.stream().map(entry -> entry.sequence() + " " + entry.timestamp() + " " + entry.transaction().getId()).toList();
+    }
+}
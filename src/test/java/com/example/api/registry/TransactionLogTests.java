@@ -0,0 +1,143 @@
+package com.example.api.registry;
+
+import static com.example.api.registry.Transactions.assertTransaction;
+import static com.example.api.registry.Transactions.transaction;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.example.api.objects.Transaction;
+
+class TransactionLogTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 9, 0, 0, 123_456_789);
+
+    @AfterEach
+    void tearDown() {
+        TransactionLog.setOffHeap(false);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void append_ShouldFindBySequenceAndId(boolean offHeap) {
+        TransactionLog.setOffHeap(offHeap);
+        TransactionLog log = TransactionLog.create();
+        // Past several chunks and ID table resizes
+        for (int i = 1; i <= 3_000; i++) {
+            assertEquals(i, log.append(transaction("tan-" + i, i, START.plusSeconds(i))));
+        }
+        Transaction odd = new Transaction("tan-ünïcödé-and-longer-than-a-row-holds", 7, "EUR", null, null);
+        log.append(odd);
+
+        assertEquals(3_001, log.size());
+        assertEquals(offHeap, log instanceof OffHeapTransactionLog);
+        assertTransaction(transaction("tan-1500", 1500, START.plusSeconds(1500)), log.get(1500));
+        assertTransaction(transaction("tan-2999", 2999, START.plusSeconds(2999)), log.find("tan-2999"));
+        assertTransaction(odd, log.find(odd.getId()));
+        assertNull(log.find("tan-3001"));
+        assertThrows(IndexOutOfBoundsException.class, () -> log.get(3_002));
+
+        List<Transaction> page = log.newestFirst(3, 5);
+        assertEquals(List.of("tan-2", "tan-1"), page.stream().map(Transaction::getId).toList());
+        assertEquals(3_000, log.toArray(3_000)[2_999].getAmount());
+
+        // Across a chunk boundary; odd amounts are withdrawals, and the last has no type or time
+        long[] amounts = new long[4];
+        long[] created = new long[4];
+        log.copyColumns(2_998, 4, amounts, created);
+        assertArrayEquals(new long[] {2_998, -2_999, 3_000, 0}, amounts);
+        assertEquals(TransactionLog.epochNanos(START.plusSeconds(2_999)), created[1]);
+        assertEquals(created[1] + 1_000_000_000L, created[2]);
+        assertEquals(Long.MIN_VALUE, created[3]);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void append_ShouldKeepEveryEntryWhileTheFirstChunkGrows(boolean offHeap) {
+        TransactionLog.setOffHeap(offHeap);
+        TransactionLog log = TransactionLog.create();
+        for (int i = 1; i <= 1_100; i++) {
+            log.append(transaction("tan-" + i, i, START.plusSeconds(i)));
+            assertEquals(1, log.get(1).getAmount());
+            assertEquals(i, log.get(i).getAmount());
+            assertEquals("tan-" + i, log.newestFirst(null, null, null, 1).get(0).transaction().getId());
+        }
+        long[] amounts = new long[1_100];
+        log.copyColumns(1, 1_100, amounts, new long[1_100]);
+        assertEquals(-1_023, amounts[1_022]);
+        assertEquals(1_024, amounts[1_023]);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void find_ShouldSeeEveryIdWhileTheIdTableGrows(boolean offHeap) {
+        TransactionLog.setOffHeap(offHeap);
+        TransactionLog log = TransactionLog.create();
+        for (int i = 1; i <= 5_000; i++) {
+            log.append(transaction("tan-" + i, i, START.plusSeconds(i)));
+            // Including IDs that a grown table may not have been given yet
+            assertEquals(i, log.find("tan-" + i).getAmount());
+            assertEquals((i + 1) / 2, log.find("tan-" + (i + 1) / 2).getAmount());
+            assertEquals(1, log.find("tan-1").getAmount());
+            assertNull(log.find("tan-" + (i + 1)));
+        }
+        for (int i = 1; i <= 5_000; i++) {
+            assertEquals(i, log.find("tan-" + i).getAmount());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void newestFirst_ShouldOrderByTimestampWithinRange(boolean offHeap) {
+        TransactionLog.setOffHeap(offHeap);
+        TransactionLog log = TransactionLog.create();
+        for (int i = 1; i <= 2_000; i++) {
+            log.append(transaction("tan-" + i, i, START.plusMinutes(i)));
+        }
+        // Posted last but created long before the rest, in a chunk whose other rows are all newer
+        log.append(transaction("tan-late", 1, START.minusDays(1)));
+
+        List<TimeIndex.Entry> newest = log.newestFirst(null, null, null, 3);
+        assertEquals(List.of("tan-2000", "tan-1999", "tan-1998"), ids(newest));
+
+        List<TimeIndex.Entry> range = log.newestFirst(START.minusDays(2), START.plusMinutes(2), null, 5);
+        assertEquals(List.of("tan-1", "tan-late"), ids(range));
+
+        // Page on from a cursor, across a chunk boundary
+        List<TimeIndex.Entry> first = log.newestFirst(START.plusMinutes(1020), START.plusMinutes(1030), null, 6);
+        assertEquals(List.of("tan-1029", "tan-1028", "tan-1027", "tan-1026", "tan-1025", "tan-1024"), ids(first));
+        List<TimeIndex.Entry> second = log.newestFirst(START.plusMinutes(1020), START.plusMinutes(1030), first.get(5), 6);
+        assertEquals(List.of("tan-1023", "tan-1022", "tan-1021", "tan-1020"), ids(second));
+        assertEquals(1020, second.get(3).sequence());
+        assertEquals(START.plusMinutes(1020), second.get(3).timestamp());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void restore_ShouldPublishOnlyWhenComplete(boolean offHeap) {
+        TransactionLog.setOffHeap(offHeap);
+        TransactionLog log = TransactionLog.forRestore(1_500);
+        for (int i = 1_500; i >= 1; i--) {
+            log.restore(i, transaction("tan-" + i, i, START.plusSeconds(i)));
+        }
+        assertEquals(0, log.size());
+
+        log.completeRestore();
+        assertEquals(1_500, log.size());
+        assertTransaction(transaction("tan-777", 777, START.plusSeconds(777)), log.find("tan-777"));
+        assertEquals(List.of("tan-1500"), ids(log.newestFirst(null, null, null, 1)));
+
+        log.append(transaction("tan-1501", 1501, START.plusSeconds(1501)));
+        assertEquals(1_501, log.size());
+        assertEquals("tan-1501", log.get(1_501).getId());
+    }
+
+    private static List<String> ids(List<TimeIndex.Entry> entries) {
+        return entries.stream().map(entry -> entry.transaction().getId()).toList();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.api.registry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+
+import com.example.api.objects.Transaction;
+import com.example.api.objects.Transaction.TransactionTypes;
+
+/**
+ * Builds and compares transactions for the history backend tests.
+ */
+final class Transactions {
+
+    private Transactions() {
+    }
+
+    /** A GBP transaction, a deposit when {@code amount} is even and a withdrawal when odd. */
+    static Transaction transaction(String id, long amount, LocalDateTime createdTimestamp) {
+        return Transaction.builder()
+            .id(id)
+            .amount(amount)
+            .currency("GBP")
+            .type(amount % 2 == 0 ? TransactionTypes.DEPOSIT : TransactionTypes.WITHDRAWAL)
+            .createdTimestamp(createdTimestamp)
+            .build();
+    }
+
+    /** Compare field by field, as backends may hand back a copy rather than the instance stored. */
+    static void assertTransaction(Transaction expected, Transaction actual) {
+        assertNotNull(actual);
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getAmount(), actual.getAmount());
+        assertEquals(expected.getCurrency(), actual.getCurrency());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getCreatedTimestamp(), actual.getCreatedTimestamp());
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.api.registry;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.api.handlers.AccountsAPI;
+import com.example.api.objects.Account;
+import com.example.api.objects.Address;
+import com.example.api.objects.User;
+import com.example.api.objects.Transaction.TransactionTypes;
+import com.example.api.requests.CreateBankAccountRequest;
+import com.example.api.requests.CreateTransactionRequest;
+
+class UserRegistryTests {
+
+    private static final int THREADS = 8;
+    private static final int OPS_PER_THREAD = 500;
+
+    private AccountsAPI accountsApi;
+    private User testUser;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        UserRegistry.clear();
+        accountsApi = new AccountsAPI();
+        testUser = User.builder()
+            .id("usr-registry")
+            .address(mock(Address.class))
+            .build();
+        UserRegistry.put(testUser);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        UserRegistry.clear();
+    }
+
+    @Test
+    void registry_ShouldStoreAndRemoveUsers() {
+        assertSame(testUser, UserRegistry.get("usr-registry"));
+        assertTrue(UserRegistry.contains("usr-registry"));
+        assertEquals(1, UserRegistry.size());
+
+        assertSame(testUser, UserRegistry.remove("usr-registry"));
+        assertNull(UserRegistry.remove("usr-registry"));
+        assertFalse(UserRegistry.contains("usr-registry"));
+    }
+
+    @Test
+    void remove_ShouldUnindexAccountsUnderTheirLocks() throws Exception {
+        Account account = newAccount(0);
+        UserRegistry.indexAccount(account);
+        ReentrantLock lock = UserRegistry.accountLock(account.getAccountNumber());
+
+        Future<User> removal;
+        lock.lock();
+        try {
+            removal = executor.submit(() -> UserRegistry.remove("usr-registry"));
+            while (!lock.hasQueuedThreads()) {
+                Thread.onSpinWait();
+            }
+            // Whoever holds the lock, like a transfer, still sees the account
+            assertSame(account, UserRegistry.account(account.getAccountNumber()));
+        } finally {
+            lock.unlock();
+        }
+
+        assertSame(testUser, removal.get());
+        assertNull(UserRegistry.account(account.getAccountNumber()));
+    }
+
+    @Test
+    void concurrentAccountCreation_ShouldAssignDistinctAccountNumbers() throws Exception {
+        CreateBankAccountRequest request = CreateBankAccountRequest.builder()
+            .name("Concurrent")
+            .accountType(Account.AccountTypes.PERSONAL)
+            .build();
+
+        runConcurrently(() -> accountsApi.createAccount(testUser, request));
+
+        assertEquals(THREADS * OPS_PER_THREAD, testUser.getAccounts().size());
+    }
+
+    @Test
+    void createAccount_ShouldNotReuseNumberOfDeletedAccount() {
+        CreateBankAccountRequest request = CreateBankAccountRequest.builder()
+            .name("Current")
+            .accountType(Account.AccountTypes.PERSONAL)
+            .build();
+
+        accountsApi.createAccount(testUser, request);
+        String deleted = accountsApi.createAccount(testUser, request).getBody().getAccountNumber();
+        accountsApi.deleteAccount(testUser, deleted);
+
+        assertEquals("01000002", deleted);
+        assertEquals("01000003", accountsApi.createAccount(testUser, request).getBody().getAccountNumber());
+    }
+
+    @Test
+    void createAccount_ShouldRejectOnceAllNumbersAreIssued() {
+        CreateBankAccountRequest request = CreateBankAccountRequest.builder()
+            .name("Current")
+            .accountType(Account.AccountTypes.PERSONAL)
+            .build();
+        UserRegistry.accountNumberIssued(UserRegistry.MAX_ACCOUNT_NUMBER - 1);
+
+        assertEquals("01999999", accountsApi.createAccount(testUser, request).getBody().getAccountNumber());
+        assertThrows(ResponseStatusException.class, () -> accountsApi.createAccount(testUser, request));
+        assertEquals(UserRegistry.MAX_ACCOUNT_NUMBER, UserRegistry.lastAccountNumber());
+    }
+
+    @Test
+    void concurrentDeposits_ShouldNotLoseUpdates() throws Exception {
+        Account account = newAccount(0);
+        CreateTransactionRequest deposit = new CreateTransactionRequest(1.0, "GBP", TransactionTypes.DEPOSIT);
+
+        runConcurrently(() -> accountsApi.createTransaction(testUser, account.getAccountNumber(), deposit, null));
+
+        assertEquals(THREADS * OPS_PER_THREAD * 100L, account.getBalance());
+        assertEquals(THREADS * OPS_PER_THREAD, account.getHistory().size());
+    }
+
+    @Test
+    void concurrentWithdrawals_ShouldNeverOverdraw() throws Exception {
+        int funded = OPS_PER_THREAD;
+        Account account = newAccount(funded * 100L);
+        CreateTransactionRequest withdrawal = new CreateTransactionRequest(1.0, "GBP", TransactionTypes.WITHDRAWAL);
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(() -> {
+            try {
+                accountsApi.createTransaction(testUser, account.getAccountNumber(), withdrawal, null);
+            } catch (ResponseStatusException ex) {
+                rejected.incrementAndGet();
+            }
+            return null;
+        });
+
+        assertEquals(0L, account.getBalance());
+        assertEquals(THREADS * OPS_PER_THREAD - funded, rejected.get());
+        assertEquals(funded, account.getHistory().size());
+    }
+
+    private Account newAccount(long balance) {
+        Account account = Account.builder()
+            .accountNumber("01000001")
+            .balance(balance)
+            .currency("GBP")
+            .build();
+        testUser.getAccounts().put(account.getAccountNumber(), account);
+        return account;
+    }
+
+    private void runConcurrently(Callable<?> task) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    task.call();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+}
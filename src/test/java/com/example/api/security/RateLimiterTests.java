@@ -0,0 +1,153 @@
+package com.example.api.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.example.api.metrics.Metrics;
+import com.example.api.objects.User;
+
+import jakarta.servlet.FilterChain;
+
+class RateLimiterTests {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.clearContext();
+        Metrics.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        Metrics.reset();
+    }
+
+    @Test
+    void tryAcquire_ShouldAllowBurstThenRefillAtRate() {
+        RateLimiter limiter = new RateLimiter(10, 3, 100);
+        long now = 5 * SECOND;
+
+        assertEquals(0, limiter.tryAcquire("usr-1", now));
+        assertEquals(0, limiter.tryAcquire("usr-1", now));
+        assertEquals(0, limiter.tryAcquire("usr-1", now));
+        // Empty; the next token arrives one interval (100ms) after the first was taken
+        assertEquals(SECOND / 10, limiter.tryAcquire("usr-1", now));
+        assertEquals(SECOND / 20, limiter.tryAcquire("usr-1", now + SECOND / 20));
+        assertEquals(0, limiter.tryAcquire("usr-1", now + SECOND / 10));
+
+        // Other keys have their own buckets
+        assertEquals(0, limiter.tryAcquire("usr-2", now));
+
+        // Idle time refills up to the burst and no further
+        long later = now + 60 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("usr-1", later));
+        }
+        assertTrue(limiter.tryAcquire("usr-1", later) > 0);
+    }
+
+    @Test
+    void tryAcquire_WhenFull_ShouldEvictIdleBucketsFirst() {
+        RateLimiter limiter = new RateLimiter(1, 1, 4);
+        long now = 5 * SECOND;
+        limiter.tryAcquire("busy", now + 10 * SECOND);
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("idle-" + i, now);
+        }
+        assertEquals(4, limiter.size());
+
+        // The idle buckets are full again by now; the busy one is still draining
+        assertEquals(0, limiter.tryAcquire("new", now + 10 * SECOND));
+        assertEquals(2, limiter.size());
+        assertTrue(limiter.tryAcquire("busy", now + 10 * SECOND) > 0);
+    }
+
+    @Test
+    void key_ShouldReplaceIdentifiersWithWildcards() {
+        assertEquals("usr-1 POST /v1/accounts/*/transactions",
+            RateLimitFilter.key("usr-1", "POST", "/v1/accounts/01000001/transactions"));
+        assertEquals("usr-1 POST /v1/accounts/*/transactions/batch",
+            RateLimitFilter.key("usr-1", "POST", "/v1/accounts/01000001/transactions/batch"));
+        assertEquals("usr-1 GET /v1/accounts/*/transactions/*",
+            RateLimitFilter.key("usr-1", "GET", "/v1/accounts/01000002/transactions/tan-abc"));
+        assertEquals("usr-1 GET /v1/accounts", RateLimitFilter.key("usr-1", "GET", "/v1/accounts"));
+        assertEquals("usr-1 GET /v1/users/*", RateLimitFilter.key("usr-1", "GET", "/v1/users/usr-1"));
+    }
+
+    @Test
+    void key_ShouldShareOneBucketAcrossPathsNoRouteHas() {
+        assertEquals("usr-1 GET /v1/*", RateLimitFilter.key("usr-1", "GET", "/v1/made-up-1"));
+        assertEquals("usr-1 GET /v1/*", RateLimitFilter.key("usr-1", "GET", "/v1/made-up-2"));
+        assertEquals("usr-1 GET /v1/accounts/*/transactions/*/**",
+            RateLimitFilter.key("usr-1", "GET", "/v1/accounts/01000001/transactions/tan-1/a/b/c"));
+    }
+
+    @Test
+    void filter_OverLimit_ShouldReturn429WithRetryAfter() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(0.5, 2, 100);
+        User user = User.builder().id("usr-limited").build();
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(user, null, Collections.emptyList()));
+        FilterChain chain = mock(FilterChain.class);
+
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletResponse allowed = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("POST", "/v1/accounts/01000001/transactions"), allowed, chain);
+            assertEquals(200, allowed.getStatus());
+        }
+        MockHttpServletResponse limited = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/v1/accounts/01000002/transactions"), limited, chain);
+
+        assertEquals(429, limited.getStatus());
+        assertEquals("2", limited.getHeader("Retry-After"));
+        assertTrue(limited.getContentAsString().startsWith("{\"status\":429,"));
+        verify(chain, times(2)).doFilter(any(), any());
+        assertTrue(Metrics.scrape().contains("http_requests_rate_limited_total 1\n"));
+
+        // Another endpoint has its own bucket
+        MockHttpServletResponse other = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/v1/accounts"), other, chain);
+        assertEquals(200, other.getStatus());
+    }
+
+    @Test
+    void filter_EncodedPath_ShouldShareTheDecodedPathsBucket() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(0.5, 2, 100);
+        User user = User.builder().id("usr-encoded").build();
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(user, null, Collections.emptyList()));
+        FilterChain chain = mock(FilterChain.class);
+
+        for (int i = 0; i < 2; i++) {
+            filter.doFilter(new MockHttpServletRequest("POST", "/v1/accounts/01000001/transactions"),
+                new MockHttpServletResponse(), chain);
+        }
+        MockHttpServletResponse encoded = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/v1/%61ccounts/01000001/transaction%73"), encoded, chain);
+
+        assertEquals(429, encoded.getStatus());
+        verify(chain, times(2)).doFilter(any(), any());
+    }
+
+    @Test
+    void filter_Unauthenticated_ShouldPassThrough() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(0.5, 1, 100);
+        FilterChain chain = mock(FilterChain.class);
+        for (int i = 0; i < 3; i++) {
+            filter.doFilter(new MockHttpServletRequest("POST", "/v1/users"), new MockHttpServletResponse(), chain);
+        }
+        verify(chain, times(3)).doFilter(any(), any());
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 
 import com.example.api.objects.Address;
 import com.example.api.objects.User;
+import com.example.api.registry.UserRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 
@@ -35,7 +36,7 @@ class SecurityTests {
 
         // Clear security context and user map before each test
         SecurityContextHolder.clearContext();
-        User.users.clear();
+        UserRegistry.clear();
     }
 
     @Test
@@ -67,6 +68,68 @@ class SecurityTests {
         assertNull(result);
     }
 
+    @Test
+    void validateToken_ShouldRememberVerifiedToken() {
+        // Arrange
+        String token = jwtUtil.generateToken("usr-123456");
+
+        // Act
+        String first = jwtUtil.validateAndExtractUserId(token);
+        String second = jwtUtil.validateAndExtractUserId(token);
+
+        // Assert
+        assertEquals("usr-123456", first);
+        assertEquals("usr-123456", second);
+        assertEquals(1, jwtUtil.cachedTokens());
+    }
+
+    @Test
+    void validateToken_WithTamperedToken_ShouldNotUseCachedResult() {
+        // Arrange
+        String token = jwtUtil.generateToken("usr-123456");
+        jwtUtil.validateAndExtractUserId(token);
+        int at = token.length() - 5; // inside the signature
+        char flipped = token.charAt(at) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, at) + flipped + token.substring(at + 1);
+
+        // Act
+        String result = jwtUtil.validateAndExtractUserId(tampered);
+
+        // Assert
+        assertNull(result);
+        assertEquals(1, jwtUtil.cachedTokens());
+    }
+
+    @Test
+    void validateToken_WithExpiredCachedToken_ShouldReturnNull() throws InterruptedException {
+        // Arrange: exp has one-second resolution
+        String token = jwtUtil.generateToken("usr-123456", 1500);
+        assertEquals("usr-123456", jwtUtil.validateAndExtractUserId(token));
+
+        // Act
+        Thread.sleep(2100);
+        String result = jwtUtil.validateAndExtractUserId(token);
+
+        // Assert
+        assertNull(result);
+        assertEquals(0, jwtUtil.cachedTokens());
+    }
+
+    @Test
+    void validateToken_ShouldStayWithinCacheSize() {
+        // Arrange
+        JwtUtil smallCache = new JwtUtil(8);
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            String token = smallCache.generateToken("usr-" + i);
+            assertEquals("usr-" + i, smallCache.validateAndExtractUserId(token));
+        }
+
+        // Assert
+        assertTrue(smallCache.cachedTokens() <= 8);
+    }
+
     @Test
     void doFilterInternal_WithValidToken_ShouldAuthenticate() throws IOException, ServletException {
         // Arrange
@@ -83,7 +146,7 @@ class SecurityTests {
             .phoneNumber("+441234567890")
             .email("test@example.com")
             .build();
-        User.users.put(userId, user);
+        UserRegistry.put(user);
 
         String token = jwtUtil.generateToken(userId);
         request.addHeader("Authorization", "Bearer " + token);
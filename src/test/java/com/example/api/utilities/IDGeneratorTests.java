@@ -0,0 +1,71 @@
+package com.example.api.utilities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class IDGeneratorTests {
+
+    @Test
+    void generateIds_ShouldKeepPrefixesAndFixedWidth() {
+        assertTrue(IDGenerator.generateUserId().matches("^usr-[A-Za-z0-9]{11}$"));
+        assertTrue(IDGenerator.generateTransactionId().matches("^tan-[A-Za-z0-9]{11}$"));
+    }
+
+    @Test
+    void generateTransactionId_ShouldSortByCreationTime() throws InterruptedException {
+        String earlier = IDGenerator.generateTransactionId();
+        Thread.sleep(2);
+        String later = IDGenerator.generateTransactionId();
+        assertTrue(earlier.compareTo(later) < 0);
+    }
+
+    @Test
+    void issued_ShouldMoveLaterIdsPastARestoredOne() {
+        // An ID an hour ahead stands in for one issued before the clock stepped back
+        long hour = 3_600_000L << 21;
+        String restored = IDGenerator.format("tan-", IDGenerator.parse(IDGenerator.generateTransactionId()) + hour);
+        IDGenerator.issued(restored);
+
+        assertTrue(restored.compareTo(IDGenerator.generateTransactionId()) < 0);
+        assertTrue(restored.substring(4).compareTo(IDGenerator.generateUserId().substring(4)) < 0);
+        assertEquals(-1, IDGenerator.parse("usr-alice1"));
+        IDGenerator.issued("tan-not-an-id");
+    }
+
+    @Test
+    void generateTransactionId_ShouldBeUniqueAndIncreasingAcrossThreads() throws Exception {
+        int threads = 32;
+        int perThread = 20_000;
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    String previous = "";
+                    for (int i = 0; i < perThread; i++) {
+                        String id = IDGenerator.generateTransactionId();
+                        assertTrue(previous.compareTo(id) < 0, previous + " then " + id);
+                        ids.add(id);
+                        previous = id;
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(threads * perThread, ids.size());
+    }
+}